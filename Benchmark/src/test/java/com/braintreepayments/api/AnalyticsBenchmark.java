@@ -0,0 +1,107 @@
+package com.braintreepayments.api;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording analytics events and serializing them for upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    @Param({"1", "100", "500"})
+    public int eventCount;
+
+    private Authorization authorization;
+    private DeviceMetadata deviceMetadata;
+    private List<AnalyticsEvent> events;
+    private AnalyticsEventBuffer eventBuffer;
+    private AnalyticsEvent event;
+
+    @Setup
+    public void setup() {
+        authorization = Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN);
+        deviceMetadata = createDeviceMetadata();
+
+        events = new ArrayList<>(eventCount);
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < eventCount; i++) {
+            events.add(new AnalyticsEvent("android.card.graphql.tokenization.started", timestamp + i));
+        }
+
+        // the buffer never flushes here, so only the cost on the calling thread is measured
+        eventBuffer = new AnalyticsEventBuffer(null, new NoOpScheduler(), eventCount, Integer.MAX_VALUE, 5000);
+        event = events.get(0);
+    }
+
+    @Benchmark
+    public String serializeEvents() throws JSONException {
+        return AnalyticsClient.serializeEvents(authorization, events, deviceMetadata).toString();
+    }
+
+    @Benchmark
+    public String deviceMetadataToJson() throws JSONException {
+        return deviceMetadata.toJSON().toString();
+    }
+
+    @Benchmark
+    public int eventBufferAdd() {
+        eventBuffer.add(event);
+        return eventBuffer.size();
+    }
+
+    static DeviceMetadata createDeviceMetadata() {
+        return new DeviceMetadata.Builder()
+                .appVersion("1.0.0")
+                .deviceManufacturer("Google")
+                .deviceModel("Pixel 6")
+                .devicePersistentUUID("2b6aa4fe-5e27-4cc9-9b1f-93a9b6f0b6a1")
+                .integration("custom")
+                .isPayPalInstalled(true)
+                .isVenmoInstalled(false)
+                .isSimulator(false)
+                .merchantAppId("com.braintreepayments.demo")
+                .merchantAppName("Braintree Demo")
+                .networkType("wifi")
+                .platform("Android")
+                .platformVersion("33")
+                .sdkVersion("4.0.0")
+                .sessionId("4a2cfc9a8c1e4c0b9d3c4b3d5fa4f1e2")
+                .userOrientation("Portrait")
+                .build();
+    }
+
+    private static class NoOpScheduler implements Scheduler {
+
+        @Override
+        public void runOnMain(Runnable runnable) {
+        }
+
+        @Override
+        public void runOnBackground(Runnable runnable) {
+        }
+
+        @Override
+        public void runOnBackground(Runnable runnable, long delayMillis) {
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.braintreepayments.api;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files and writes a Markdown table of the differences, so the effect
+ * of a change on the benchmarked paths can be posted to a pull request.
+ *
+ * A benchmark is flagged when its score or its allocation per operation is worse than the
+ * baseline by more than the threshold. Allocation changes of a few bytes are ignored, since JMH
+ * reports small fractions of a byte as noise.
+ *
+ * Usage: {@code BenchmarkComparison <baseline.json> <results.json> <output.md> [threshold percent]}
+ */
+class BenchmarkComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final double ALLOCATION_NOISE_BYTES = 16;
+
+    static class Result {
+
+        final String name;
+        final String mode;
+        final double score;
+        final String scoreUnit;
+        final double allocatedBytes;
+
+        Result(String name, String mode, double score, String scoreUnit, double allocatedBytes) {
+            this.name = name;
+            this.mode = mode;
+            this.score = score;
+            this.scoreUnit = scoreUnit;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        boolean isHigherBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, JSONException {
+        if (args.length < 3) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <results.json> <output.md> [threshold percent]");
+            System.exit(1);
+        }
+
+        File baselineFile = new File(args[0]);
+        File resultsFile = new File(args[1]);
+        double threshold = (args.length > 3) ? Double.parseDouble(args[3]) : 10;
+
+        if (!baselineFile.exists()) {
+            System.err.println("No benchmark baseline found at " + baselineFile.getPath()
+                    + ". Run `./gradlew :Benchmark:jmh :Benchmark:jmhSaveBaseline` on the base branch"
+                    + " to create one, or pass -Pjmh.baseline=<path>.");
+            System.exit(1);
+        }
+        if (!resultsFile.exists()) {
+            System.err.println("No benchmark results found at " + resultsFile.getPath()
+                    + ". Run `./gradlew :Benchmark:jmh` first.");
+            System.exit(1);
+        }
+
+        String report = compare(parse(read(baselineFile)), parse(read(resultsFile)), threshold);
+
+        Files.write(new File(args[2]).toPath(), report.getBytes(StandardCharsets.UTF_8));
+        System.out.print(report);
+    }
+
+    static Map<String, Result> parse(String json) throws JSONException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        JSONArray entries = new JSONArray(json);
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            String name = entry.getString("benchmark") + formatParams(entry.optJSONObject("params"));
+            JSONObject primaryMetric = entry.getJSONObject("primaryMetric");
+
+            results.put(name, new Result(
+                    name,
+                    entry.getString("mode"),
+                    primaryMetric.getDouble("score"),
+                    primaryMetric.getString("scoreUnit"),
+                    getAllocatedBytes(entry.optJSONObject("secondaryMetrics"))
+            ));
+        }
+        return results;
+    }
+
+    static String compare(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        StringBuilder table = new StringBuilder()
+                .append("| Benchmark | Baseline | Current | Change | Alloc baseline (B/op) | Alloc current (B/op) | Change |\n")
+                .append("|---|---|---|---|---|---|---|\n");
+
+        for (Result result : current.values()) {
+            Result previous = baseline.get(result.name);
+            if (previous == null) {
+                table.append(String.format(Locale.US, "| %s | - | %.3f %s | new | - | %s | new |\n",
+                        shortName(result.name), result.score, result.scoreUnit, formatBytes(result.allocatedBytes)));
+                continue;
+            }
+
+            double scoreChange = percentChange(previous.score, result.score);
+            double allocationChange = percentChange(previous.allocatedBytes, result.allocatedBytes);
+            boolean slower = result.isHigherBetter() ? scoreChange < -threshold : scoreChange > threshold;
+            boolean allocatesMore = allocationChange > threshold
+                    && result.allocatedBytes - previous.allocatedBytes > ALLOCATION_NOISE_BYTES;
+            if (slower || allocatesMore) {
+                regressions.add(shortName(result.name));
+            }
+
+            table.append(String.format(Locale.US, "| %s | %.3f | %.3f %s | %s%+.1f%% | %s | %s | %s%+.1f%% |\n",
+                    shortName(result.name),
+                    previous.score,
+                    result.score,
+                    result.scoreUnit,
+                    slower ? ":warning: " : "",
+                    scoreChange,
+                    formatBytes(previous.allocatedBytes),
+                    formatBytes(result.allocatedBytes),
+                    allocatesMore ? ":warning: " : "",
+                    allocationChange));
+        }
+
+        StringBuilder report = new StringBuilder("## Benchmark comparison\n\n");
+        if (regressions.isEmpty()) {
+            report.append(String.format(Locale.US, "No benchmark regressed by more than %.0f%%.\n\n", threshold));
+        } else {
+            report.append(String.format(Locale.US, "%d benchmark(s) regressed by more than %.0f%%: %s\n\n",
+                    regressions.size(), threshold, regressions));
+        }
+        return report.append(table).toString();
+    }
+
+    private static double getAllocatedBytes(JSONObject secondaryMetrics) throws JSONException {
+        if (secondaryMetrics == null) {
+            return Double.NaN;
+        }
+        // JMH versions before 1.36 prefix profiler metrics with a middle dot
+        JSONArray names = secondaryMetrics.names();
+        for (int i = 0; names != null && i < names.length(); i++) {
+            String name = names.getString(i);
+            if (name.endsWith(ALLOCATION_METRIC)) {
+                return secondaryMetrics.getJSONObject(name).getDouble("score");
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static String formatParams(JSONObject params) throws JSONException {
+        if (params == null || params.length() == 0) {
+            return "";
+        }
+        StringBuilder formatted = new StringBuilder();
+        JSONArray names = params.names();
+        for (int i = 0; i < names.length(); i++) {
+            String name = names.getString(i);
+            formatted.append(i == 0 ? " (" : ", ").append(name).append('=').append(params.getString(name));
+        }
+        return formatted.append(')').toString();
+    }
+
+    private static String shortName(String name) {
+        String prefix = "com.braintreepayments.api.";
+        return name.startsWith(prefix) ? name.substring(prefix.length()) : name;
+    }
+
+    private static double percentChange(double previous, double current) {
+        if (Double.isNaN(previous) || Double.isNaN(current) || previous == 0) {
+            return 0;
+        }
+        return (current - previous) / previous * 100;
+    }
+
+    private static String formatBytes(double bytes) {
+        return Double.isNaN(bytes) ? "-" : String.format(Locale.US, "%.0f", bytes);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class BenchmarkComparisonUnitTest {
+
+    private static String result(String benchmark, double score, double allocatedBytes) {
+        return "{"
+                + "\"benchmark\": \"com.braintreepayments.api." + benchmark + "\","
+                + "\"mode\": \"avgt\","
+                + "\"params\": { \"eventCount\": \"100\" },"
+                + "\"primaryMetric\": { \"score\": " + score + ", \"scoreUnit\": \"us/op\" },"
+                + "\"secondaryMetrics\": { \"\u00b7gc.alloc.rate.norm\": { \"score\": " + allocatedBytes + ", \"scoreUnit\": \"B/op\" } }"
+                + "}";
+    }
+
+    @Test
+    public void parse_readsScoreAndAllocationPerOperation() throws JSONException {
+        Map<String, BenchmarkComparison.Result> results =
+                BenchmarkComparison.parse("[" + result("AnalyticsBenchmark.serializeEvents", 12.5, 2048) + "]");
+
+        BenchmarkComparison.Result result =
+                results.get("com.braintreepayments.api.AnalyticsBenchmark.serializeEvents (eventCount=100)");
+        assertEquals(12.5, result.score, 0);
+        assertEquals("us/op", result.scoreUnit);
+        assertEquals(2048, result.allocatedBytes, 0);
+        assertFalse(result.isHigherBetter());
+    }
+
+    @Test
+    public void compare_whenSlowerThanThreshold_reportsRegression() throws JSONException {
+        String report = BenchmarkComparison.compare(
+                BenchmarkComparison.parse("[" + result("CardBenchmark.cardNonceFromRestJson", 10, 1000) + "]"),
+                BenchmarkComparison.parse("[" + result("CardBenchmark.cardNonceFromRestJson", 12, 1000) + "]"),
+                10);
+
+        assertTrue(report.contains("1 benchmark(s) regressed by more than 10%"));
+        assertTrue(report.contains(":warning: +20.0%"));
+    }
+
+    @Test
+    public void compare_whenAllocatingMoreThanThreshold_reportsRegression() throws JSONException {
+        String report = BenchmarkComparison.compare(
+                BenchmarkComparison.parse("[" + result("CardBenchmark.cardNonceFromRestJson", 10, 1000) + "]"),
+                BenchmarkComparison.parse("[" + result("CardBenchmark.cardNonceFromRestJson", 10, 1500) + "]"),
+                10);
+
+        assertTrue(report.contains("1 benchmark(s) regressed by more than 10%"));
+        assertTrue(report.contains(":warning: +50.0%"));
+    }
+
+    @Test
+    public void compare_ignoresSmallAllocationChanges() throws JSONException {
+        String report = BenchmarkComparison.compare(
+                BenchmarkComparison.parse("[" + result("ConfigurationBenchmark.authorizationFromTokenizationKey", 1, 40) + "]"),
+                BenchmarkComparison.parse("[" + result("ConfigurationBenchmark.authorizationFromTokenizationKey", 1, 48) + "]"),
+                10);
+
+        assertTrue(report.contains("No benchmark regressed by more than 10%"));
+    }
+
+    @Test
+    public void compare_withBenchmarkMissingFromBaseline_marksItNew() throws JSONException {
+        String report = BenchmarkComparison.compare(
+                BenchmarkComparison.parse("[]"),
+                BenchmarkComparison.parse("[" + result("ThreeDSecureRequestBenchmark.build", 3, 512) + "]"),
+                10);
+
+        assertTrue(report.contains("| ThreeDSecureRequestBenchmark.build (eventCount=100) | - | 3.000 us/op | new | - | 512 | new |"));
+    }
+}
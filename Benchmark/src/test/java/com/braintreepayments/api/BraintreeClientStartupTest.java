@@ -0,0 +1,67 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures how long constructing a {@link BraintreeClient} blocks the calling thread, which is
+ * usually the main thread in {@code onCreate}. The first construction in the process also pays
+ * for class loading and for the process-wide singletons the client creates.
+ *
+ * Skipped unless run with {@code -PstartupTest}:
+ *
+ * <pre>
+ * ./gradlew :Benchmark:testReleaseUnitTest --tests '*StartupTest' -PstartupTest [-PstartupTest.iterations=1000]
+ * </pre>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BraintreeClientStartupTest {
+
+    private static final int ITERATIONS = Integer.getInteger("startupTest.iterations", 1000);
+
+    private Context context;
+
+    @Before
+    public void beforeEach() {
+        assumeTrue(Boolean.getBoolean("startupTest"));
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void constructor() {
+        long start = System.nanoTime();
+        new BraintreeClient(context, Fixtures.TOKENIZATION_KEY);
+        long firstDuration = System.nanoTime() - start;
+
+        long[] durations = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            start = System.nanoTime();
+            new BraintreeClient(context, Fixtures.TOKENIZATION_KEY);
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+
+        System.out.println(String.format(Locale.US,
+                "BraintreeClient(Context, String): first=%.3fms p50=%.3fms p95=%.3fms p99=%.3fms (%d iterations)",
+                toMillis(firstDuration),
+                toMillis(durations[ITERATIONS / 2]),
+                toMillis(durations[(int) (ITERATIONS * 0.95)]),
+                toMillis(durations[(int) (ITERATIONS * 0.99)]),
+                ITERATIONS));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
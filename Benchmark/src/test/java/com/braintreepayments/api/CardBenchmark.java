@@ -0,0 +1,64 @@
+package com.braintreepayments.api;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a card tokenization request and parsing its response. Responses are parsed from their
+ * string form, as they are when they arrive from the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardBenchmark {
+
+    private Card card;
+
+    @Setup
+    public void setup() {
+        card = new Card();
+        card.setNumber("4111111111111111");
+        card.setExpirationMonth("12");
+        card.setExpirationYear("2030");
+        card.setCvv("123");
+        card.setCardholderName("Joe Smith");
+        card.setFirstName("Joe");
+        card.setLastName("Smith");
+        card.setStreetAddress("123 Fake St");
+        card.setLocality("Oakland");
+        card.setRegion("CA");
+        card.setPostalCode("94612");
+        card.setCountryCode("USA");
+        card.setShouldValidate(true);
+    }
+
+    @Benchmark
+    public CardNonce cardNonceFromRestJson() throws JSONException {
+        return CardNonce.fromJSON(new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD));
+    }
+
+    @Benchmark
+    public CardNonce cardNonceFromGraphQLJson() throws JSONException {
+        return CardNonce.fromJSON(new JSONObject(Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD));
+    }
+
+    @Benchmark
+    public String cardBuildJsonForGraphQL() throws BraintreeException, JSONException {
+        return card.buildJSONForGraphQL().toString();
+    }
+}
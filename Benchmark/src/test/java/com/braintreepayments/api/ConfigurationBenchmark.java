@@ -0,0 +1,66 @@
+package com.braintreepayments.api;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the configuration and authorization every {@link BraintreeClient} request waits on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBenchmark {
+
+    @Param({"analytics", "paypal", "samsung_pay", "visa_checkout"})
+    public String configurationType;
+
+    private String configurationJson;
+
+    @Setup
+    public void setup() {
+        switch (configurationType) {
+            case "paypal":
+                configurationJson = Fixtures.CONFIGURATION_WITH_LIVE_PAYPAL;
+                break;
+            case "samsung_pay":
+                configurationJson = Fixtures.CONFIGURATION_WITH_SAMSUNGPAY;
+                break;
+            case "visa_checkout":
+                configurationJson = Fixtures.CONFIGURATION_WITH_VISA_CHECKOUT;
+                break;
+            default:
+                configurationJson = Fixtures.CONFIGURATION_WITH_ANALYTICS;
+                break;
+        }
+    }
+
+    @Benchmark
+    public Configuration configurationFromJson() throws JSONException {
+        return Configuration.fromJson(configurationJson);
+    }
+
+    @Benchmark
+    public Authorization authorizationFromTokenizationKey() {
+        return Authorization.fromString(Fixtures.TOKENIZATION_KEY);
+    }
+
+    @Benchmark
+    public Authorization authorizationFromClientToken() {
+        return Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN);
+    }
+}
@@ -0,0 +1,96 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures how long {@link DeviceInspector#getDeviceMetadata(Context, String, String)} takes, which
+ * every analytics upload calls. A cold call reads the app label and version, the persistent UUID
+ * and the installed wallet apps; a cached call only copies the {@link DeviceMetadataCache}
+ * snapshot and reads the network type and orientation.
+ *
+ * Skipped unless run with {@code -PdeviceInspectorTest}:
+ *
+ * <pre>
+ * ./gradlew :Benchmark:testReleaseUnitTest --tests '*DeviceInspectorTimingTest' -PdeviceInspectorTest [-PdeviceInspectorTest.iterations=1000]
+ * </pre>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DeviceInspectorTimingTest {
+
+    private static final int ITERATIONS = Integer.getInteger("deviceInspectorTest.iterations", 1000);
+
+    private Context context;
+    private DeviceMetadataCache deviceMetadataCache;
+    private DeviceInspector sut;
+
+    @Before
+    public void beforeEach() {
+        assumeTrue(Boolean.getBoolean("deviceInspectorTest"));
+        context = ApplicationProvider.getApplicationContext();
+
+        deviceMetadataCache = new DeviceMetadataCache();
+        sut = new DeviceInspector(
+                new AppHelper(),
+                new ClassHelper(),
+                new UUIDHelper(),
+                new SignatureVerifier(),
+                Runtime.getRuntime(),
+                new File("/system/app/Superuser.apk"),
+                deviceMetadataCache
+        );
+    }
+
+    @Test
+    public void getDeviceMetadata_withoutCache() {
+        long[] durations = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            deviceMetadataCache.invalidate();
+
+            long start = System.nanoTime();
+            sut.getDeviceMetadata(context, "session-id", "custom");
+            durations[i] = System.nanoTime() - start;
+        }
+        print("getDeviceMetadata without cache", durations);
+    }
+
+    @Test
+    public void getDeviceMetadata_withCache() {
+        sut.getDeviceMetadata(context, "session-id", "custom");
+
+        long[] durations = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sut.getDeviceMetadata(context, "session-id", "custom");
+            durations[i] = System.nanoTime() - start;
+        }
+        print("getDeviceMetadata with cache", durations);
+    }
+
+    private static void print(String name, long[] durations) {
+        Arrays.sort(durations);
+        System.out.println(String.format(Locale.US,
+                "%s: p50=%.3fms p95=%.3fms p99=%.3fms (%d iterations)",
+                name,
+                toMillis(durations[durations.length / 2]),
+                toMillis(durations[(int) (durations.length * 0.95)]),
+                toMillis(durations[(int) (durations.length * 0.99)]),
+                durations.length));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
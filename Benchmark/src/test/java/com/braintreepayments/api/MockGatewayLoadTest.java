@@ -0,0 +1,237 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import com.braintreepayments.api.GraphQLConstants.Features;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Measures the latency of payment flows end to end, from the feature client through the SDK's
+ * http stack to a {@link MockGateway}, and prints p50/p95/p99 per operation.
+ *
+ * Skipped unless run with {@code -PloadTest}:
+ *
+ * <pre>
+ * ./gradlew :Benchmark:testReleaseUnitTest --tests '*LoadTest' -PloadTest \
+ *     -PloadTest.concurrency=8 -PloadTest.requests=500 \
+ *     -PloadTest.minLatency=20 -PloadTest.maxLatency=80 \
+ *     -PloadTest.errorRate=0.01 -PloadTest.rateLimitRate=0.01 -PloadTest.bandwidth=0 \
+ *     -PloadTest.keyStore=/path/to/mock-gateway.p12 -PloadTest.keyStorePassword=password
+ * </pre>
+ *
+ * See {@link MockGateway#createSSLContext(InputStream, char[])} for creating a key store.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MockGatewayLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadTest.concurrency", 4);
+    private static final int REQUEST_COUNT = Integer.getInteger("loadTest.requests", 200);
+    private static final long TIMEOUT_MILLIS = Long.getLong("loadTest.timeoutMillis", 120000);
+
+    private Context context;
+    private SSLContext sslContext;
+    private MockGateway gateway;
+    private MockGateway graphQLGateway;
+    private LoadTestRunner runner;
+
+    @Before
+    public void beforeEach() throws Exception {
+        assumeTrue(Boolean.getBoolean("loadTest"));
+
+        context = ApplicationProvider.getApplicationContext();
+        WorkManagerTestInitHelper.initializeTestWorkManager(context);
+
+        String keyStore = System.getProperty("loadTest.keyStore");
+        if (keyStore != null) {
+            String password = System.getProperty("loadTest.keyStorePassword", "");
+            try (InputStream keyStoreStream = new FileInputStream(keyStore)) {
+                sslContext = MockGateway.createSSLContext(keyStoreStream, password.toCharArray());
+            }
+        }
+
+        gateway = configure(new MockGateway()).start();
+        graphQLGateway = configure(new MockGateway().graphQLFeatures(Features.TOKENIZE_CREDIT_CARDS)).start();
+
+        runner = new LoadTestRunner(CONCURRENCY, REQUEST_COUNT, TIMEOUT_MILLIS, new Runnable() {
+            @Override
+            public void run() {
+                ShadowLooper.idleMainLooper();
+            }
+        });
+    }
+
+    @After
+    public void afterEach() {
+        if (gateway != null) {
+            gateway.shutdown();
+        }
+        if (graphQLGateway != null) {
+            graphQLGateway.shutdown();
+        }
+    }
+
+    @Test
+    public void paymentFlows() throws Exception {
+        final BraintreeClient braintreeClient = createBraintreeClient(gateway);
+        final BraintreeClient graphQLBraintreeClient = createBraintreeClient(graphQLGateway);
+
+        final CardClient cardClient = new CardClient(braintreeClient);
+        final CardClient graphQLCardClient = new CardClient(graphQLBraintreeClient);
+        final PayPalInternalClient payPalInternalClient = new PayPalInternalClient(braintreeClient);
+        final ThreeDSecureAPI threeDSecureAPI = new ThreeDSecureAPI(braintreeClient);
+
+        final Card card = new Card();
+        card.setNumber("4111111111111111");
+        card.setExpirationMonth("12");
+        card.setExpirationYear("2030");
+        card.setCvv("123");
+
+        final PayPalCheckoutRequest payPalRequest = new PayPalCheckoutRequest("10.00");
+        // skips the PayPal data collector, which is not part of the request
+        payPalRequest.setRiskCorrelationId("load-test-risk-correlation-id");
+
+        final ThreeDSecureRequest threeDSecureRequest = new ThreeDSecureRequest();
+        threeDSecureRequest.setNonce("a-nonce");
+        threeDSecureRequest.setAmount("10.00");
+        threeDSecureRequest.setVersionRequested(ThreeDSecureRequest.VERSION_2);
+
+        List<LoadTestOperation> operations = new ArrayList<>();
+        operations.add(new LoadTestOperation("CardClient.tokenize (REST)") {
+            @Override
+            public void start(final LoadTestRunner.Completion completion) {
+                cardClient.tokenize(card, new CardTokenizeCallback() {
+                    @Override
+                    public void onResult(@Nullable CardNonce cardNonce, @Nullable Exception error) {
+                        completion.onComplete(error);
+                    }
+                });
+            }
+        });
+        operations.add(new LoadTestOperation("CardClient.tokenize (GraphQL)") {
+            @Override
+            public void start(final LoadTestRunner.Completion completion) {
+                graphQLCardClient.tokenize(card, new CardTokenizeCallback() {
+                    @Override
+                    public void onResult(@Nullable CardNonce cardNonce, @Nullable Exception error) {
+                        completion.onComplete(error);
+                    }
+                });
+            }
+        });
+        operations.add(new LoadTestOperation("PayPalInternalClient.sendRequest") {
+            @Override
+            public void start(final LoadTestRunner.Completion completion) {
+                payPalInternalClient.sendRequest(context, payPalRequest, new PayPalInternalClientCallback() {
+                    @Override
+                    public void onResult(@Nullable PayPalResponse payPalResponse, @Nullable Exception error) {
+                        completion.onComplete(error);
+                    }
+                });
+            }
+        });
+        operations.add(new LoadTestOperation("ThreeDSecureAPI.performLookup") {
+            @Override
+            public void start(final LoadTestRunner.Completion completion) {
+                threeDSecureAPI.performLookup(threeDSecureRequest, "df-reference-id", new ThreeDSecureResultCallback() {
+                    @Override
+                    public void onResult(@Nullable ThreeDSecureResult threeDSecureResult, @Nullable Exception error) {
+                        completion.onComplete(error);
+                    }
+                });
+            }
+        });
+
+        // the first call of each flow fetches the configuration; measure the steady state
+        LoadTestRunner warmUpRunner = new LoadTestRunner(1, 1, TIMEOUT_MILLIS, new Runnable() {
+            @Override
+            public void run() {
+                ShadowLooper.idleMainLooper();
+            }
+        });
+        for (LoadTestOperation operation : operations) {
+            warmUpRunner.run(operation.name, operation);
+        }
+
+        List<LatencyStats> results = new ArrayList<>();
+        for (LoadTestOperation operation : operations) {
+            results.add(runner.run(operation.name, operation));
+        }
+        System.out.println(LatencyStats.formatTable(results));
+
+        if (gatewayFaultsDisabled()) {
+            for (LatencyStats stats : results) {
+                assertEquals(String.valueOf(stats.getFirstError()), 0, stats.getErrorCount());
+            }
+        }
+    }
+
+    private MockGateway configure(MockGateway gateway) {
+        gateway.latency(Long.getLong("loadTest.minLatency", 20), Long.getLong("loadTest.maxLatency", 60))
+                .bandwidth(Long.getLong("loadTest.bandwidth", 0))
+                .errorRate(Double.parseDouble(System.getProperty("loadTest.errorRate", "0")))
+                .rateLimitRate(Double.parseDouble(System.getProperty("loadTest.rateLimitRate", "0")));
+        if (sslContext != null) {
+            gateway.tls(sslContext);
+        }
+        return gateway;
+    }
+
+    private BraintreeClient createBraintreeClient(MockGateway gateway) {
+        // when the gateway serves https, the http clients must trust its certificate instead of
+        // the pinned Braintree certificates
+        SSLSocketFactory socketFactory = (sslContext != null) ? sslContext.getSocketFactory() : null;
+        BraintreeHttpClient httpClient =
+                new BraintreeHttpClient(new HttpClient(socketFactory, new BraintreeHttpResponseParser()));
+        BraintreeGraphQLClient graphQLClient =
+                new BraintreeGraphQLClient(new HttpClient(socketFactory, new BraintreeGraphQLResponseParser()));
+
+        BraintreeClientParams params = new BraintreeClientParams()
+                .authorizationLoader(new AuthorizationLoader(gateway.getClientToken(), null))
+                .context(context)
+                .setIntegrationType(IntegrationType.CUSTOM)
+                .httpClient(httpClient)
+                .graphQLClient(graphQLClient)
+                .returnUrlScheme("com.braintreepayments.api.benchmark.braintree")
+                .analyticsClient(new AnalyticsClient(context))
+                .browserSwitchClient(new BrowserSwitchClient())
+                .manifestValidator(new ManifestValidator())
+                .UUIDHelper(new UUIDHelper())
+                .configurationLoader(new ConfigurationLoader(httpClient));
+        return new BraintreeClient(params);
+    }
+
+    private static boolean gatewayFaultsDisabled() {
+        return Double.parseDouble(System.getProperty("loadTest.errorRate", "0")) == 0
+                && Double.parseDouble(System.getProperty("loadTest.rateLimitRate", "0")) == 0;
+    }
+
+    private abstract static class LoadTestOperation implements LoadTestRunner.Operation {
+
+        final String name;
+
+        LoadTestOperation(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.braintreepayments.api;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the body of a PayPal checkout request for carts of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayPalCheckoutRequestBenchmark {
+
+    @Param({"1", "50", "250"})
+    public int lineItemCount;
+
+    private PayPalCheckoutRequest request;
+    private Configuration configuration;
+    private Authorization authorization;
+
+    @Setup
+    public void setup() throws JSONException {
+        configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_LIVE_PAYPAL);
+        authorization = Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN);
+
+        List<PayPalLineItem> lineItems = new ArrayList<>(lineItemCount);
+        for (int i = 0; i < lineItemCount; i++) {
+            PayPalLineItem lineItem = new PayPalLineItem(PayPalLineItem.KIND_DEBIT, "Item " + i, "2", "4.99");
+            lineItem.setDescription("A description of item " + i + " in the cart");
+            lineItem.setProductCode(String.format(Locale.US, "SKU-%06d", i));
+            lineItem.setUnitTaxAmount("0.45");
+            lineItems.add(lineItem);
+        }
+
+        request = new PayPalCheckoutRequest(String.format(Locale.US, "%.2f", lineItemCount * 9.98));
+        request.setCurrencyCode("USD");
+        request.setShippingAddressRequired(true);
+        request.setLineItems(lineItems);
+    }
+
+    @Benchmark
+    public String createRequestBody() throws JSONException {
+        return request.createRequestBody(configuration, authorization, "com.braintreepayments.demo://success", "com.braintreepayments.demo://cancel");
+    }
+}
@@ -0,0 +1,75 @@
+package com.braintreepayments.api;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compressing an analytics upload body. The compressed size is reported next to the time taken,
+ * so the trade-off between the two can be read from one run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestCompressionBenchmark {
+
+    @Param({"10", "100"})
+    public int eventCount;
+
+    private byte[] body;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+
+        public long uncompressedBytes;
+        public long compressedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uncompressedBytes = 0;
+            compressedBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws JSONException {
+        List<AnalyticsEvent> events = new ArrayList<>(eventCount);
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < eventCount; i++) {
+            events.add(new AnalyticsEvent("android.card.graphql.tokenization.started", timestamp + i));
+        }
+        Authorization authorization = Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN);
+        body = AnalyticsClient.serializeEvents(authorization, events, AnalyticsBenchmark.createDeviceMetadata())
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] compress(Sizes sizes) throws IOException {
+        byte[] compressed = SynchronousHttpClient.compress(body);
+        sizes.uncompressedBytes += body.length;
+        sizes.compressedBytes += compressed.length;
+        return compressed;
+    }
+}
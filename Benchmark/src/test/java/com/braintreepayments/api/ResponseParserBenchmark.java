@@ -0,0 +1,125 @@
+package com.braintreepayments.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and mapping HTTP responses, from the body stream of the connection to the string
+ * handed to the feature clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParserBenchmark {
+
+    private byte[] restResponse;
+    private byte[] graphQLResponse;
+    private byte[] graphQLErrorResponse;
+
+    private BaseHttpResponseParser baseParser;
+    private BraintreeGraphQLResponseParser graphQLParser;
+
+    @Setup
+    public void setup() {
+        restResponse = Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD.getBytes(StandardCharsets.UTF_8);
+        graphQLResponse = Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD.getBytes(StandardCharsets.UTF_8);
+        graphQLErrorResponse = Fixtures.ERRORS_GRAPHQL_CREDIT_CARD_ERROR.getBytes(StandardCharsets.UTF_8);
+
+        baseParser = new BaseHttpResponseParser();
+        graphQLParser = new BraintreeGraphQLResponseParser();
+    }
+
+    @Benchmark
+    public String baseParserParse() throws Exception {
+        return baseParser.parse(HttpURLConnection.HTTP_OK, new ResponseConnection(restResponse));
+    }
+
+    @Benchmark
+    public String graphQLParserParse() throws Exception {
+        return graphQLParser.parse(HttpURLConnection.HTTP_OK, new ResponseConnection(graphQLResponse));
+    }
+
+    @Benchmark
+    public Object graphQLParserParseError() {
+        try {
+            return graphQLParser.parse(HttpURLConnection.HTTP_OK, new ResponseConnection(graphQLErrorResponse));
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ErrorWithResponse errorWithResponseFromGraphQLJson() {
+        return ErrorWithResponse.fromGraphQLJson(Fixtures.ERRORS_GRAPHQL_CREDIT_CARD_ERROR);
+    }
+
+    /**
+     * A connection that has already received {@code body}, without a socket behind it.
+     */
+    private static class ResponseConnection extends HttpURLConnection {
+
+        private static final URL URL;
+
+        static {
+            try {
+                URL = new URL("https://api.braintreegateway.com/");
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private final byte[] body;
+
+        ResponseConnection(byte[] body) {
+            super(URL);
+            this.body = body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+}
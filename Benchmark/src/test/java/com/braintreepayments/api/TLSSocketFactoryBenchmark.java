@@ -0,0 +1,77 @@
+package com.braintreepayments.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Creating the pinned socket factory of the http clients, and constructing a client that defers
+ * it to its first https request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TLSSocketFactoryBenchmark {
+
+    private String certificateBundle;
+    private byte[] certificateBytes;
+    private TLSSocketFactoryCache socketFactoryCache;
+    private SSLSocketFactoryLoader socketFactoryLoader;
+    private BraintreeHttpResponseParser responseParser;
+
+    @Setup
+    public void setup() throws SSLException {
+        certificateBundle = BraintreeGatewayCertificate.getCertificate();
+        certificateBytes = certificateBundle.getBytes(StandardCharsets.UTF_8);
+
+        socketFactoryCache = new TLSSocketFactoryCache();
+        socketFactoryCache.getSocketFactory(certificateBundle);
+
+        socketFactoryLoader = new SSLSocketFactoryLoader() {
+            @Override
+            public SSLSocketFactory load() throws SSLException {
+                return socketFactoryCache.getSocketFactory(certificateBundle);
+            }
+        };
+        responseParser = new BraintreeHttpResponseParser();
+    }
+
+    @Benchmark
+    public TLSSocketFactory createPinnedSocketFactory() throws SSLException {
+        return new TLSSocketFactory(new ByteArrayInputStream(certificateBytes));
+    }
+
+    @Benchmark
+    public TLSSocketFactory getCachedSocketFactory() throws SSLException {
+        return socketFactoryCache.getSocketFactory(certificateBundle);
+    }
+
+    @Benchmark
+    public SynchronousHttpClient createClientWithPinnedSocketFactory() throws SSLException {
+        // what constructing a client cost before the socket factory was deferred
+        TLSSocketFactory socketFactory = new TLSSocketFactory(new ByteArrayInputStream(certificateBytes));
+        return new SynchronousHttpClient(socketFactory, responseParser, new HttpConnectionPool());
+    }
+
+    @Benchmark
+    public SynchronousHttpClient createClientWithSocketFactoryLoader() {
+        return new SynchronousHttpClient(socketFactoryLoader, responseParser, new HttpConnectionPool());
+    }
+}
@@ -0,0 +1,51 @@
+package com.braintreepayments.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the lookup request for a 3D Secure verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreeDSecureRequestBenchmark {
+
+    private ThreeDSecureRequest request;
+
+    @Setup
+    public void setup() {
+        ThreeDSecurePostalAddress billingAddress = new ThreeDSecurePostalAddress();
+        billingAddress.setGivenName("Jill");
+        billingAddress.setSurname("Doe");
+        billingAddress.setStreetAddress("555 Smith St");
+        billingAddress.setLocality("Chicago");
+        billingAddress.setPostalCode("12345");
+        billingAddress.setCountryCodeAlpha2("US");
+
+        request = new ThreeDSecureRequest();
+        request.setNonce("a-nonce");
+        request.setAmount("10.00");
+        request.setEmail("tester@example.com");
+        request.setBillingAddress(billingAddress);
+        request.setVersionRequested(ThreeDSecureRequest.VERSION_2);
+    }
+
+    @Benchmark
+    public String build() {
+        return request.build("df-reference-id");
+    }
+}
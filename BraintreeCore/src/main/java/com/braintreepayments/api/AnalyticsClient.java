@@ -14,7 +14,6 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -29,8 +28,20 @@ class AnalyticsClient {
     private static final String AUTHORIZATION_FINGERPRINT_KEY = "authorization_fingerprint";
 
     private static final long INVALID_TIMESTAMP = -1;
+    private static final long CRASH_FLUSH_TIMEOUT_MS = 1000;
+
+    static final int MAX_EVENTS_PER_UPLOAD = 500;
+    static final int MAX_UPLOAD_BYTES = 64 * 1024;
+    // {"kind":"","timestamp":1234567890123}, plus a separator
+    private static final int SERIALIZED_EVENT_OVERHEAD_BYTES = 38;
+
+    // analytics batches repeat the same keys and event names, so even small ones compress well;
+    // only used when the configuration enables compressed uploads
+    static final int ANALYTICS_COMPRESSION_THRESHOLD_BYTES = 1024;
 
     static final String WORK_NAME_ANALYTICS_UPLOAD = "uploadAnalytics";
+    // NEXT_MAJOR_VERSION: remove along with AnalyticsWriteToDbWorker; events are now written
+    // through AnalyticsEventBuffer, but work enqueued by earlier versions may still be pending
     static final String WORK_NAME_ANALYTICS_WRITE = "writeAnalyticsToDb";
 
     static final String WORK_INPUT_KEY_AUTHORIZATION = "authorization";
@@ -38,30 +49,68 @@ class AnalyticsClient {
     static final String WORK_INPUT_KEY_EVENT_NAME = "eventName";
     static final String WORK_INPUT_KEY_INTEGRATION = "integration";
     static final String WORK_INPUT_KEY_SESSION_ID = "sessionId";
+    static final String WORK_INPUT_KEY_SNAPSHOT_KEY = "snapshotKey";
     static final String WORK_INPUT_KEY_TIMESTAMP = "timestamp";
 
     private final BraintreeHttpClient httpClient;
     private final DeviceInspector deviceInspector;
-    private final AnalyticsDatabase analyticsDatabase;
-    private final WorkManager workManager;
+    private final Context applicationContext;
+
+    // process-wide singletons backed by the Room database and WorkManager, which are slow to
+    // create; they are looked up on first use rather than when a BraintreeClient is constructed,
+    // which usually happens on the main thread
+    private volatile AnalyticsDatabase analyticsDatabase;
+    private volatile AnalyticsEventBuffer analyticsEventBuffer;
+    private volatile AnalyticsSnapshotStore analyticsSnapshotStore;
+    private volatile WorkManager workManager;
 
     private String lastKnownAnalyticsUrl;
 
     AnalyticsClient(Context context) {
-        this(
-                new BraintreeHttpClient(),
-                AnalyticsDatabase.getInstance(context.getApplicationContext()),
-                WorkManager.getInstance(context.getApplicationContext()),
-                new DeviceInspector()
-        );
+        this.applicationContext = context.getApplicationContext();
+        this.httpClient = new BraintreeHttpClient();
+        this.deviceInspector = new DeviceInspector();
     }
 
     @VisibleForTesting
-    AnalyticsClient(BraintreeHttpClient httpClient, AnalyticsDatabase analyticsDatabase, WorkManager workManager, DeviceInspector deviceInspector) {
+    AnalyticsClient(BraintreeHttpClient httpClient, AnalyticsDatabase analyticsDatabase, AnalyticsEventBuffer analyticsEventBuffer, AnalyticsSnapshotStore analyticsSnapshotStore, WorkManager workManager, DeviceInspector deviceInspector) {
+        this.applicationContext = null;
         this.httpClient = httpClient;
         this.workManager = workManager;
         this.deviceInspector = deviceInspector;
         this.analyticsDatabase = analyticsDatabase;
+        this.analyticsEventBuffer = analyticsEventBuffer;
+        this.analyticsSnapshotStore = analyticsSnapshotStore;
+    }
+
+    // each getInstance returns the same instance to every caller, so threads racing to set a
+    // field store the same value
+    private AnalyticsDatabase getAnalyticsDatabase() {
+        if (analyticsDatabase == null) {
+            analyticsDatabase = AnalyticsDatabase.getInstance(applicationContext);
+        }
+        return analyticsDatabase;
+    }
+
+    private AnalyticsEventBuffer getAnalyticsEventBuffer() {
+        if (analyticsEventBuffer == null) {
+            analyticsEventBuffer = AnalyticsEventBuffer.getInstance(applicationContext);
+        }
+        return analyticsEventBuffer;
+    }
+
+    private AnalyticsSnapshotStore getAnalyticsSnapshotStore() {
+        if (analyticsSnapshotStore == null) {
+            analyticsSnapshotStore = AnalyticsSnapshotStore.getInstance(applicationContext);
+        }
+        return analyticsSnapshotStore;
+    }
+
+    private WorkManager getWorkManager() {
+        if (workManager == null) {
+            workManager = WorkManager.getInstance(applicationContext);
+        }
+        return workManager;
     }
 
     void sendEvent(Configuration configuration, String eventName, String sessionId, String integration, Authorization authorization) {
@@ -74,25 +123,10 @@ class AnalyticsClient {
         lastKnownAnalyticsUrl = configuration.getAnalyticsUrl();
 
         String fullEventName = String.format("android.%s", eventName);
-        scheduleAnalyticsWrite(fullEventName, timestamp, authorization);
+        getAnalyticsEventBuffer().add(new AnalyticsEvent(fullEventName, timestamp));
         return scheduleAnalyticsUpload(configuration, authorization, sessionId, integration);
     }
 
-    private void scheduleAnalyticsWrite(String eventName, long timestamp, Authorization authorization) {
-        Data inputData = new Data.Builder()
-                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
-                .putString(WORK_INPUT_KEY_EVENT_NAME, eventName)
-                .putLong(WORK_INPUT_KEY_TIMESTAMP, timestamp)
-                .build();
-
-        OneTimeWorkRequest analyticsWorkRequest =
-                new OneTimeWorkRequest.Builder(AnalyticsWriteToDbWorker.class)
-                        .setInputData(inputData)
-                        .build();
-        workManager.enqueueUniqueWork(
-                WORK_NAME_ANALYTICS_WRITE, ExistingWorkPolicy.APPEND_OR_REPLACE, analyticsWorkRequest);
-    }
-
     ListenableWorker.Result writeAnalytics(Data inputData) {
         String eventName = inputData.getString(WORK_INPUT_KEY_EVENT_NAME);
         long timestamp = inputData.getLong(WORK_INPUT_KEY_TIMESTAMP, INVALID_TIMESTAMP);
@@ -102,7 +136,7 @@ class AnalyticsClient {
             result = ListenableWorker.Result.failure();
         } else {
             AnalyticsEvent event = new AnalyticsEvent(eventName, timestamp);
-            AnalyticsEventDao analyticsEventDao = analyticsDatabase.analyticsEventDao();
+            AnalyticsEventDao analyticsEventDao = getAnalyticsDatabase().analyticsEventDao();
             analyticsEventDao.insertEvent(event);
 
             result = ListenableWorker.Result.success();
@@ -111,9 +145,10 @@ class AnalyticsClient {
     }
 
     private UUID scheduleAnalyticsUpload(Configuration configuration, Authorization authorization, String sessionId, String integration) {
+        // the configuration is stored once instead of being copied into the input of every upload
+        String snapshotKey = getAnalyticsSnapshotStore().save(configuration, authorization);
         Data inputData = new Data.Builder()
-                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
-                .putString(WORK_INPUT_KEY_CONFIGURATION, configuration.toJson())
+                .putString(WORK_INPUT_KEY_SNAPSHOT_KEY, snapshotKey)
                 .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
                 .putString(WORK_INPUT_KEY_INTEGRATION, integration)
                 .build();
@@ -123,14 +158,25 @@ class AnalyticsClient {
                         .setInitialDelay(30, TimeUnit.SECONDS)
                         .setInputData(inputData)
                         .build();
-        workManager.enqueueUniqueWork(
+        getWorkManager().enqueueUniqueWork(
                 WORK_NAME_ANALYTICS_UPLOAD, ExistingWorkPolicy.KEEP, analyticsWorkRequest);
         return analyticsWorkRequest.getId();
     }
 
     ListenableWorker.Result uploadAnalytics(Context context, Data inputData) {
-        Configuration configuration = getConfigurationFromData(inputData);
-        Authorization authorization = getAuthorizationFromData(inputData);
+        Configuration configuration;
+        Authorization authorization;
+
+        String snapshotKey = inputData.getString(WORK_INPUT_KEY_SNAPSHOT_KEY);
+        if (snapshotKey != null) {
+            AnalyticsSnapshotStore.Entry snapshot = getAnalyticsSnapshotStore().load(snapshotKey);
+            configuration = (snapshot != null) ? snapshot.getConfiguration() : null;
+            authorization = (snapshot != null) ? snapshot.getAuthorization() : null;
+        } else {
+            // work enqueued by earlier versions carries the configuration and authorization
+            configuration = getConfigurationFromData(inputData);
+            authorization = getAuthorizationFromData(inputData);
+        }
 
         String sessionId = inputData.getString(WORK_INPUT_KEY_SESSION_ID);
         String integration = inputData.getString(WORK_INPUT_KEY_INTEGRATION);
@@ -142,17 +188,30 @@ class AnalyticsClient {
         }
 
         try {
-            AnalyticsEventDao analyticsEventDao = analyticsDatabase.analyticsEventDao();
-            List<AnalyticsEvent> events = analyticsEventDao.getAllEvents();
-
-            boolean shouldUploadAnalytics = !events.isEmpty();
-            if (shouldUploadAnalytics) {
-                DeviceMetadata metadata = deviceInspector.getDeviceMetadata(context, sessionId, integration);
-                JSONObject analyticsRequest = serializeEvents(authorization, events, metadata);
-
-                String analyticsUrl = configuration.getAnalyticsUrl();
+            // include events from this process that have not been written yet
+            getAnalyticsEventBuffer().flushOnCurrentThread();
+
+            AnalyticsEventDao analyticsEventDao = getAnalyticsDatabase().analyticsEventDao();
+            String analyticsUrl = configuration.getAnalyticsUrl();
+            DeviceMetadata metadata = null;
+
+            // upload oldest events first, deleting each uploaded chunk so a failure part way
+            // through does not send the same events again
+            int lastUploadedId = 0;
+            List<AnalyticsEvent> events = analyticsEventDao.getEventsAfter(lastUploadedId, MAX_EVENTS_PER_UPLOAD);
+            while (!events.isEmpty()) {
+                if (metadata == null) {
+                    metadata = deviceInspector.getDeviceMetadata(context, sessionId, integration);
+                    httpClient.setRequestCompressionThreshold(getCompressionThreshold(configuration));
+                }
+
+                List<AnalyticsEvent> chunk = limitToUploadSize(events);
+                JSONObject analyticsRequest = serializeEvents(authorization, chunk, metadata);
                 httpClient.post(analyticsUrl, analyticsRequest.toString(), configuration, authorization);
-                analyticsEventDao.deleteEvents(events);
+
+                lastUploadedId = chunk.get(chunk.size() - 1).id;
+                analyticsEventDao.deleteEventsUpTo(lastUploadedId);
+                events = analyticsEventDao.getEventsAfter(lastUploadedId, MAX_EVENTS_PER_UPLOAD);
             }
             return ListenableWorker.Result.success();
         } catch (Exception e) {
@@ -160,26 +219,50 @@ class AnalyticsClient {
         }
     }
 
-    void reportCrash(Context context, String sessionId, String integration, Authorization authorization) {
-        reportCrash(context, sessionId, integration, System.currentTimeMillis(), authorization);
+    private static int getCompressionThreshold(Configuration configuration) {
+        // gzip is opt in, since an analytics host that does not accept it rejects the upload
+        return configuration.isAnalyticsCompressionEnabled()
+                ? ANALYTICS_COMPRESSION_THRESHOLD_BYTES : HttpRequest.NO_COMPRESSION;
     }
 
-    @VisibleForTesting
-    void reportCrash(Context context, String sessionId, String integration, long timestamp, Authorization authorization) {
-        if (lastKnownAnalyticsUrl == null || authorization == null) {
-            return;
+    /**
+     * @return the longest prefix of {@code events} whose serialized size stays within
+     * {@link #MAX_UPLOAD_BYTES}, and at least one event.
+     */
+    private static List<AnalyticsEvent> limitToUploadSize(List<AnalyticsEvent> events) {
+        long uploadBytes = 0;
+        for (int i = 0; i < events.size(); i++) {
+            uploadBytes += events.get(i).getName().length() + SERIALIZED_EVENT_OVERHEAD_BYTES;
+            if (uploadBytes > MAX_UPLOAD_BYTES && i > 0) {
+                return events.subList(0, i);
+            }
         }
+        return events;
+    }
 
-        DeviceMetadata metadata = deviceInspector.getDeviceMetadata(context, sessionId, integration);
-        AnalyticsEvent event = new AnalyticsEvent("android.crash", timestamp);
-        List<AnalyticsEvent> events = Collections.singletonList(event);
-        try {
-            JSONObject analyticsRequest = serializeEvents(authorization, events, metadata);
-            httpClient.post(lastKnownAnalyticsUrl, analyticsRequest.toString(), null, authorization, new HttpNoResponse());
-        } catch (JSONException e) { /* ignored */ }
+    boolean reportCrash() {
+        return reportCrash(System.currentTimeMillis());
     }
 
-    private JSONObject serializeEvents(Authorization authorization, List<AnalyticsEvent> events, DeviceMetadata metadata) throws JSONException {
+    /**
+     * Writes a crash event, along with any buffered events, to the database. The process is
+     * about to die, so nothing is sent here; the events are uploaded with the next upload, which
+     * is usually scheduled the next time the app runs.
+     *
+     * @return true if a crash event was written, false if this client never sent analytics.
+     */
+    @VisibleForTesting
+    boolean reportCrash(long timestamp) {
+        boolean isAnalyticsInUse = (lastKnownAnalyticsUrl != null);
+        if (isAnalyticsInUse) {
+            getAnalyticsEventBuffer().add(new AnalyticsEvent("android.crash", timestamp));
+        }
+        getAnalyticsEventBuffer().flushAndWait(CRASH_FLUSH_TIMEOUT_MS);
+        return isAnalyticsInUse;
+    }
+
+    @VisibleForTesting
+    static JSONObject serializeEvents(Authorization authorization, List<AnalyticsEvent> events, DeviceMetadata metadata) throws JSONException {
         JSONObject requestObject = new JSONObject();
         if (authorization instanceof ClientToken) {
             requestObject.put(AUTHORIZATION_FINGERPRINT_KEY, authorization.getBearer());
@@ -10,8 +10,10 @@ import org.json.JSONObject;
 class AnalyticsConfiguration {
 
     private static final String URL_KEY = "url";
+    private static final String COMPRESSION_ENABLED_KEY = "compressionEnabled";
 
     private String url;
+    private boolean isCompressionEnabled;
 
     /**
      * Parse an {@link AnalyticsConfiguration} from json.
@@ -27,6 +29,7 @@ class AnalyticsConfiguration {
 
         AnalyticsConfiguration analyticsConfiguration = new AnalyticsConfiguration();
         analyticsConfiguration.url = Json.optString(json, URL_KEY, null);
+        analyticsConfiguration.isCompressionEnabled = json.optBoolean(COMPRESSION_ENABLED_KEY, false);
 
         return analyticsConfiguration;
     }
@@ -44,4 +47,12 @@ class AnalyticsConfiguration {
     boolean isEnabled() {
         return !TextUtils.isEmpty(url);
     }
+
+    /**
+     * @return {@code true} if the analytics service accepts gzip compressed uploads,
+     * {@code false} otherwise.
+     */
+    boolean isCompressionEnabled() {
+        return isCompressionEnabled;
+    }
 }
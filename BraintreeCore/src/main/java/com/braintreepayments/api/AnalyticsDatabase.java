@@ -2,15 +2,32 @@ package com.braintreepayments.api;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
-@Database(entities = {AnalyticsEvent.class}, version = 1)
+@Database(entities = {AnalyticsEvent.class, AnalyticsSnapshot.class}, version = 2)
 abstract class AnalyticsDatabase extends RoomDatabase {
 
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `analytics_snapshot` ("
+                    + "`snapshot_key` TEXT NOT NULL, "
+                    + "`configuration` TEXT NOT NULL, "
+                    + "`authorization` TEXT NOT NULL, "
+                    + "`updated_at` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`snapshot_key`))");
+        }
+    };
+
     abstract AnalyticsEventDao analyticsEventDao();
 
+    abstract AnalyticsSnapshotDao analyticsSnapshotDao();
+
     private static volatile AnalyticsDatabase INSTANCE;
 
     static AnalyticsDatabase getInstance(final Context context) {
@@ -21,7 +38,9 @@ abstract class AnalyticsDatabase extends RoomDatabase {
                     String dbName = "analytics_database";
                     Context appContext = context.getApplicationContext();
                     INSTANCE =
-                        Room.databaseBuilder(appContext, AnalyticsDatabase.class, dbName).build();
+                        Room.databaseBuilder(appContext, AnalyticsDatabase.class, dbName)
+                                .addMigrations(MIGRATION_1_2)
+                                .build();
                 }
             }
         }
@@ -0,0 +1,184 @@
+package com.braintreepayments.api;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects analytics events in memory and writes them to the {@link AnalyticsDatabase} in
+ * batches, instead of scheduling a database write for every event.
+ *
+ * Events are written when {@code flushThreshold} events are waiting, {@code flushIntervalMillis}
+ * after the first event that was not yet written, when the app moves to the background, and
+ * synchronously before a crash is reported. If a write fails the events are kept and written
+ * again {@code flushIntervalMillis} later. At most {@code capacity} events are kept; when the
+ * buffer is full the oldest event is dropped.
+ */
+class AnalyticsEventBuffer implements ComponentCallbacks2 {
+
+    static final int DEFAULT_CAPACITY = 500;
+    static final int DEFAULT_FLUSH_THRESHOLD = 20;
+    static final long DEFAULT_FLUSH_INTERVAL_MS = TimeUnit.SECONDS.toMillis(5);
+
+    // events that could not be uploaded, e.g. while the device was offline, are dropped oldest
+    // first once the database holds this many
+    static final int MAX_STORED_EVENT_COUNT = 10000;
+
+    private static volatile AnalyticsEventBuffer INSTANCE;
+
+    private final AnalyticsDatabase analyticsDatabase;
+    private final Scheduler scheduler;
+    private final int capacity;
+    private final int flushThreshold;
+    private final long flushIntervalMillis;
+
+    private final ConcurrentLinkedQueue<AnalyticsEvent> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean isFlushScheduled = new AtomicBoolean();
+    // keeps a burst of events past the threshold from queueing one flush per event
+    private final AtomicBoolean isImmediateFlushScheduled = new AtomicBoolean();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushOnCurrentThread();
+        }
+    };
+
+    static AnalyticsEventBuffer getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (AnalyticsEventBuffer.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    Context appContext = context.getApplicationContext();
+                    AnalyticsEventBuffer buffer = new AnalyticsEventBuffer(
+                            AnalyticsDatabase.getInstance(appContext),
+                            new ThreadScheduler(BackgroundThreadPool.PRIORITY_LOW),
+                            DEFAULT_CAPACITY,
+                            DEFAULT_FLUSH_THRESHOLD,
+                            DEFAULT_FLUSH_INTERVAL_MS
+                    );
+                    appContext.registerComponentCallbacks(buffer);
+                    INSTANCE = buffer;
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    AnalyticsEventBuffer(AnalyticsDatabase analyticsDatabase, Scheduler scheduler, int capacity, int flushThreshold, long flushIntervalMillis) {
+        this.analyticsDatabase = analyticsDatabase;
+        this.scheduler = scheduler;
+        this.capacity = capacity;
+        this.flushThreshold = flushThreshold;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    void add(AnalyticsEvent event) {
+        events.offer(event);
+        int currentSize = size.incrementAndGet();
+        if (currentSize > capacity && events.poll() != null) {
+            size.decrementAndGet();
+        }
+
+        if (currentSize >= flushThreshold) {
+            if (isImmediateFlushScheduled.compareAndSet(false, true)) {
+                scheduler.runOnBackground(flushTask);
+            }
+        } else if (isFlushScheduled.compareAndSet(false, true)) {
+            scheduler.runOnBackground(flushTask, flushIntervalMillis);
+        }
+    }
+
+    /**
+     * Writes all buffered events to the database in a single transaction. Must not be called on
+     * the main thread.
+     */
+    void flushOnCurrentThread() {
+        isFlushScheduled.set(false);
+        isImmediateFlushScheduled.set(false);
+
+        List<AnalyticsEvent> batch = new ArrayList<>();
+        AnalyticsEvent event;
+        while ((event = events.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            AnalyticsEventDao analyticsEventDao = analyticsDatabase.analyticsEventDao();
+            analyticsEventDao.insertEvents(batch);
+            analyticsEventDao.deleteEventsExceeding(MAX_STORED_EVENT_COUNT);
+        } catch (RuntimeException e) {
+            // keep the events for the next flush, dropping the oldest ones that no longer fit
+            int excess = size.get() + batch.size() - capacity;
+            if (excess > 0) {
+                batch = batch.subList(Math.min(excess, batch.size()), batch.size());
+            }
+            events.addAll(batch);
+            size.addAndGet(batch.size());
+
+            if (isFlushScheduled.compareAndSet(false, true)) {
+                scheduler.runOnBackground(flushTask, flushIntervalMillis);
+            }
+        }
+    }
+
+    void flush() {
+        scheduler.runOnBackground(flushTask);
+    }
+
+    /**
+     * Writes all buffered events to the database and waits up to {@code timeoutMillis} for the
+     * write to finish. Used when the process is about to die, so the write runs on its own thread:
+     * the calling thread may be the main thread, and the shared background pool may be busy.
+     */
+    void flushAndWait(long timeoutMillis) {
+        if (size.get() == 0) {
+            return;
+        }
+
+        Thread flushThread = new Thread(flushTask, "braintree-analytics-flush");
+        flushThread.start();
+        try {
+            flushThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @VisibleForTesting
+    int size() {
+        return size.get();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // the app was moved to the background and may be killed without further notice
+            flush();
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull android.content.res.Configuration newConfig) {
+    }
+
+    @Override
+    public void onLowMemory() {
+        flush();
+    }
+}
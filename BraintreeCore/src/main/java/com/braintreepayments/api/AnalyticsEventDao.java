@@ -1,7 +1,6 @@
 package com.braintreepayments.api;
 
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
 
@@ -13,9 +12,22 @@ interface AnalyticsEventDao {
     @Insert
     void insertEvent(AnalyticsEvent event);
 
-    @Query("SELECT * FROM analytics_event")
-    List<AnalyticsEvent> getAllEvents();
+    @Insert
+    void insertEvents(List<AnalyticsEvent> events);
+
+    /**
+     * @return up to {@code limit} events with an id greater than {@code afterId}, oldest first.
+     */
+    @Query("SELECT * FROM analytics_event WHERE _id > :afterId ORDER BY _id LIMIT :limit")
+    List<AnalyticsEvent> getEventsAfter(int afterId, int limit);
+
+    @Query("DELETE FROM analytics_event WHERE _id <= :id")
+    void deleteEventsUpTo(int id);
 
-    @Delete
-    void deleteEvents(List<AnalyticsEvent> events);
+    /**
+     * Deletes the oldest events so that at most {@code maxEventCount} events remain.
+     */
+    @Query("DELETE FROM analytics_event WHERE _id <= "
+            + "(SELECT _id FROM analytics_event ORDER BY _id DESC LIMIT 1 OFFSET :maxEventCount)")
+    void deleteEventsExceeding(int maxEventCount);
 }
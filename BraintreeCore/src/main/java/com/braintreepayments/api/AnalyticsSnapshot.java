@@ -0,0 +1,58 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * The configuration and authorization an analytics upload is sent with, stored once so that
+ * upload work only needs to carry its key.
+ * This class is used internally by the SDK and should not be used directly.
+ * It is not subject to semantic versioning and may change at any time.
+ */
+@Entity(tableName = "analytics_snapshot")
+public class AnalyticsSnapshot {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "snapshot_key")
+    private final String key;
+
+    @NonNull
+    @ColumnInfo(name = "configuration")
+    private final String configuration;
+
+    @NonNull
+    @ColumnInfo(name = "authorization")
+    private final String authorization;
+
+    @ColumnInfo(name = "updated_at")
+    private final long updatedAt;
+
+    AnalyticsSnapshot(@NonNull String key, @NonNull String configuration, @NonNull String authorization, long updatedAt) {
+        this.key = key;
+        this.configuration = configuration;
+        this.authorization = authorization;
+        this.updatedAt = updatedAt;
+    }
+
+    @NonNull
+    public String getKey() {
+        return key;
+    }
+
+    @NonNull
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    @NonNull
+    public String getAuthorization() {
+        return authorization;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+}
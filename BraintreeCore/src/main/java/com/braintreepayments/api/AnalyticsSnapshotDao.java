@@ -0,0 +1,24 @@
+package com.braintreepayments.api;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+@Dao
+interface AnalyticsSnapshotDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSnapshot(AnalyticsSnapshot snapshot);
+
+    @Query("SELECT * FROM analytics_snapshot WHERE snapshot_key = :key")
+    AnalyticsSnapshot getSnapshot(String key);
+
+    /**
+     * Deletes the least recently updated snapshots so that at most {@code maxSnapshotCount}
+     * snapshots remain.
+     */
+    @Query("DELETE FROM analytics_snapshot WHERE snapshot_key NOT IN "
+            + "(SELECT snapshot_key FROM analytics_snapshot ORDER BY updated_at DESC LIMIT :maxSnapshotCount)")
+    void deleteSnapshotsExceeding(int maxSnapshotCount);
+}
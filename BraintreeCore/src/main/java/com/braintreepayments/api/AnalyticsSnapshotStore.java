@@ -0,0 +1,157 @@
+package com.braintreepayments.api;
+
+import android.content.Context;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the configuration and authorization used for analytics uploads in the
+ * {@link AnalyticsDatabase}, keyed by a hash of the configuration URL and bearer.
+ *
+ * A snapshot is only written when its configuration changed since this process last wrote it,
+ * and parsed snapshots are kept in memory so that upload workers running in the same process do
+ * not parse the same configuration again.
+ */
+class AnalyticsSnapshotStore {
+
+    static final int MAX_STORED_SNAPSHOTS = 10;
+    private static final int MAX_PARSED_SNAPSHOTS = 4;
+
+    private static volatile AnalyticsSnapshotStore INSTANCE;
+
+    private final AnalyticsDatabase analyticsDatabase;
+
+    // configuration JSON this process last wrote for each key
+    private final Map<String, String> savedConfigurations = new HashMap<>();
+    private final Map<String, Entry> parsedSnapshots = new LinkedHashMap<String, Entry>(MAX_PARSED_SNAPSHOTS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_PARSED_SNAPSHOTS;
+        }
+    };
+
+    static AnalyticsSnapshotStore getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (AnalyticsSnapshotStore.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    INSTANCE = new AnalyticsSnapshotStore(AnalyticsDatabase.getInstance(context.getApplicationContext()));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    AnalyticsSnapshotStore(AnalyticsDatabase analyticsDatabase) {
+        this.analyticsDatabase = analyticsDatabase;
+    }
+
+    /**
+     * Stores {@code configuration} and {@code authorization} unless this process already stored
+     * them. Must not be called on the main thread.
+     *
+     * @return the key to load the snapshot with.
+     */
+    String save(Configuration configuration, Authorization authorization) {
+        String key = createKey(authorization);
+        String configurationJson = configuration.toJson();
+        synchronized (this) {
+            if (configurationJson.equals(savedConfigurations.get(key))) {
+                return key;
+            }
+        }
+
+        AnalyticsSnapshotDao analyticsSnapshotDao = analyticsDatabase.analyticsSnapshotDao();
+        analyticsSnapshotDao.insertSnapshot(new AnalyticsSnapshot(
+                key, configurationJson, authorization.toString(), System.currentTimeMillis()));
+        analyticsSnapshotDao.deleteSnapshotsExceeding(MAX_STORED_SNAPSHOTS);
+
+        synchronized (this) {
+            savedConfigurations.put(key, configurationJson);
+            parsedSnapshots.put(key, new Entry(configuration, authorization));
+        }
+        return key;
+    }
+
+    /**
+     * Must not be called on the main thread.
+     *
+     * @return the snapshot stored with {@code key}, or null if it does not exist or cannot be
+     * parsed.
+     */
+    Entry load(String key) {
+        synchronized (this) {
+            Entry entry = parsedSnapshots.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+
+        AnalyticsSnapshot snapshot = analyticsDatabase.analyticsSnapshotDao().getSnapshot(key);
+        if (snapshot == null) {
+            return null;
+        }
+
+        Entry entry;
+        try {
+            entry = new Entry(
+                    Configuration.fromJson(snapshot.getConfiguration()),
+                    Authorization.fromString(snapshot.getAuthorization())
+            );
+        } catch (JSONException e) {
+            return null;
+        }
+
+        synchronized (this) {
+            parsedSnapshots.put(key, entry);
+        }
+        return entry;
+    }
+
+    @VisibleForTesting
+    static String createKey(Authorization authorization) {
+        String value = String.format("%s%s", authorization.getConfigUrl(), authorization.getBearer());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(Charset.forName("UTF-8")));
+
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Android platform provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Entry {
+
+        private final Configuration configuration;
+        private final Authorization authorization;
+
+        Entry(Configuration configuration, Authorization authorization) {
+            this.configuration = configuration;
+            this.authorization = authorization;
+        }
+
+        Configuration getConfiguration() {
+            return configuration;
+        }
+
+        Authorization getAuthorization() {
+            return authorization;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.braintreepayments.api;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import org.json.JSONException;
@@ -12,6 +13,7 @@ class ApiClient {
     static final String PAYMENT_METHOD_ENDPOINT = "payment_methods";
 
     private final WeakReference<BraintreeClient> braintreeClientRef;
+    private final TokenizationCoalescer tokenizationCoalescer;
 
     ApiClient(BraintreeClient braintreeClient) {
         this(new WeakReference<>(braintreeClient));
@@ -19,31 +21,45 @@ class ApiClient {
 
     @VisibleForTesting
     ApiClient(WeakReference<BraintreeClient> braintreeClientRef) {
+        this(braintreeClientRef, TokenizationCoalescer.getInstance());
+    }
+
+    @VisibleForTesting
+    ApiClient(WeakReference<BraintreeClient> braintreeClientRef, TokenizationCoalescer tokenizationCoalescer) {
         this.braintreeClientRef = braintreeClientRef;
+        this.tokenizationCoalescer = tokenizationCoalescer;
     }
 
-    void tokenizeGraphQL(final JSONObject tokenizePayload, final TokenizeCallback callback) {
+    void tokenizeGraphQL(final GraphQLQuery query, final JSONObject tokenizePayload, final TokenizeCallback callback) {
         final BraintreeClient braintreeClient = braintreeClientRef.get();
         if (braintreeClient == null) {
             return;
         }
 
+        String key = getCoalescingKey(braintreeClient, query.getSha256Hash(), tokenizePayload,
+                GraphQLConstants.Keys.CLIENT_SDK_METADATA);
+        final TokenizationCoalescer.Request request = tokenizationCoalescer.start(key, callback);
+        if (request == null) {
+            // an identical request is in flight and will deliver its result to this callback
+            return;
+        }
+
         braintreeClient.sendAnalyticsEvent("card.graphql.tokenization.started");
-        braintreeClient.sendGraphQLPOST(tokenizePayload.toString(), new HttpResponseCallback() {
+        braintreeClient.sendGraphQLPOST(query, tokenizePayload, new HttpResponseCallback() {
 
             @Override
             public void onResult(String responseBody, Exception httpError) {
                 if (responseBody != null) {
                     try {
-                        callback.onResult(new JSONObject(responseBody), null);
+                        request.onSuccess(new JSONObject(responseBody));
                         braintreeClient.sendAnalyticsEvent("card.graphql.tokenization.success");
                     } catch (JSONException exception) {
                         braintreeClient.sendAnalyticsEvent("card.graphql.tokenization.failure");
-                        callback.onResult(null, exception);
+                        request.onFailure(exception);
                     }
                 } else {
                     braintreeClient.sendAnalyticsEvent("card.graphql.tokenization.failure");
-                    callback.onResult(null, httpError);
+                    request.onFailure(httpError);
                 }
             }
         });
@@ -60,25 +76,51 @@ class ApiClient {
 
         paymentMethod.setSessionId(braintreeClient.getSessionId());
 
+        JSONObject payload;
         try {
-            braintreeClient.sendPOST(url, paymentMethod.buildJSON().toString(), new HttpResponseCallback() {
-
-                @Override
-                public void onResult(String responseBody, Exception httpError) {
-                    if (responseBody != null) {
-                        try {
-                            callback.onResult(new JSONObject(responseBody), null);
-                        } catch (JSONException exception) {
-                            callback.onResult(null, exception);
-                        }
-                    } else {
-                        callback.onResult(null, httpError);
-                    }
-                }
-            });
+            payload = paymentMethod.buildJSON();
         } catch (JSONException exception) {
             callback.onResult(null, exception);
+            return;
+        }
+
+        String key = getCoalescingKey(braintreeClient, url, payload, MetadataBuilder.META_KEY);
+        final TokenizationCoalescer.Request request = tokenizationCoalescer.start(key, callback);
+        if (request == null) {
+            // an identical request is in flight and will deliver its result to this callback
+            return;
+        }
+
+        braintreeClient.sendPOST(url, payload.toString(), new HttpResponseCallback() {
+
+            @Override
+            public void onResult(String responseBody, Exception httpError) {
+                if (responseBody != null) {
+                    try {
+                        request.onSuccess(new JSONObject(responseBody));
+                    } catch (JSONException exception) {
+                        request.onFailure(exception);
+                    }
+                } else {
+                    request.onFailure(httpError);
+                }
+            }
+        });
+    }
+
+    /**
+     * Requests are only coalesced once their authorization is known, so that requests made with
+     * different authorizations never share a result. Metadata that differs between otherwise
+     * identical requests, such as the session id, is left out of the key.
+     */
+    @Nullable
+    private static String getCoalescingKey(BraintreeClient braintreeClient, String target,
+                                           JSONObject payload, String metadataKey) {
+        Authorization authorization = braintreeClient.getAuthorizationFromCache();
+        if (authorization == null) {
+            return null;
         }
+        return TokenizationCoalescer.computeKey(authorization.toString(), target, payload, metadataKey);
     }
 
     static String versionedPath(String path) {
@@ -3,13 +3,20 @@ package com.braintreepayments.api;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class AuthorizationLoader {
 
     private Authorization authorization;
     private final ClientTokenProvider clientTokenProvider;
 
+    // callbacks waiting on an in-flight client token fetch
+    private final List<AuthorizationCallback> pendingCallbacks;
+
     AuthorizationLoader(@Nullable String initialAuthString, @Nullable ClientTokenProvider clientTokenProvider) {
         this.clientTokenProvider = clientTokenProvider;
+        this.pendingCallbacks = new ArrayList<>();
         if (initialAuthString != null) {
             this.authorization = Authorization.fromString(initialAuthString);
         }
@@ -19,16 +26,25 @@ class AuthorizationLoader {
         if (authorization != null) {
             callback.onAuthorizationResult(authorization, null);
         } else if (clientTokenProvider != null) {
+            synchronized (pendingCallbacks) {
+                boolean isFetchInFlight = !pendingCallbacks.isEmpty();
+                pendingCallbacks.add(callback);
+                if (isFetchInFlight) {
+                    // a client token is already being fetched; wait for its result
+                    return;
+                }
+            }
+
             clientTokenProvider.getClientToken(new ClientTokenCallback() {
                 @Override
                 public void onSuccess(@NonNull String clientToken) {
                     authorization = Authorization.fromString(clientToken);
-                    callback.onAuthorizationResult(authorization, null);
+                    notifyPendingCallbacks(authorization, null);
                 }
 
                 @Override
                 public void onFailure(@NonNull Exception error) {
-                    callback.onAuthorizationResult(null, error);
+                    notifyPendingCallbacks(null, error);
                 }
             });
         } else {
@@ -39,6 +55,18 @@ class AuthorizationLoader {
         }
     }
 
+    private void notifyPendingCallbacks(Authorization authorization, Exception error) {
+        List<AuthorizationCallback> callbacks;
+        synchronized (pendingCallbacks) {
+            callbacks = new ArrayList<>(pendingCallbacks);
+            pendingCallbacks.clear();
+        }
+
+        for (AuthorizationCallback callback : callbacks) {
+            callback.onAuthorizationResult(authorization, error);
+        }
+    }
+
     @Nullable
     Authorization getAuthorizationFromCache() {
         return authorization;
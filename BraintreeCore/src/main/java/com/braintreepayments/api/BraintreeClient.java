@@ -9,6 +9,8 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.FragmentActivity;
 
+import org.json.JSONObject;
+
 import java.util.Locale;
 
 /**
@@ -22,8 +24,9 @@ public class BraintreeClient {
     private final BraintreeGraphQLClient graphQLClient;
     private final BrowserSwitchClient browserSwitchClient;
     private final ConfigurationLoader configurationLoader;
+    private final RequestPipeline requestPipeline;
+    private final RequestPipeline analyticsPipeline;
     private final Context applicationContext;
-    private final CrashReporter crashReporter;
     private final ManifestValidator manifestValidator;
     private final String sessionId;
     private final String integrationType;
@@ -68,7 +71,10 @@ public class BraintreeClient {
                 .browserSwitchClient(new BrowserSwitchClient())
                 .manifestValidator(new ManifestValidator())
                 .UUIDHelper(new UUIDHelper())
-                .configurationLoader(new ConfigurationLoader(httpClient));
+                .configurationLoader(new ConfigurationLoader(httpClient))
+                .sharedPreferencesWarmUpScheduler(new ThreadScheduler(BackgroundThreadPool.PRIORITY_LOW))
+                .requestScheduler(new ThreadScheduler(BackgroundThreadPool.PRIORITY_HIGH))
+                .analyticsScheduler(new ThreadScheduler(BackgroundThreadPool.PRIORITY_LOW));
     }
 
     /**
@@ -140,6 +146,19 @@ public class BraintreeClient {
         this.httpClient = params.getHttpClient();
         this.manifestValidator = params.getManifestValidator();
 
+        Scheduler requestScheduler = params.getRequestScheduler();
+        if (requestScheduler == null) {
+            requestScheduler = new ThreadScheduler(BackgroundThreadPool.PRIORITY_HIGH);
+        }
+        this.requestPipeline = new RequestPipeline(applicationContext, authorizationLoader, configurationLoader, requestScheduler);
+
+        // analytics events queue behind requests a merchant is waiting on
+        Scheduler analyticsScheduler = params.getAnalyticsScheduler();
+        if (analyticsScheduler == null) {
+            analyticsScheduler = new ThreadScheduler(BackgroundThreadPool.PRIORITY_LOW);
+        }
+        this.analyticsPipeline = new RequestPipeline(applicationContext, authorizationLoader, configurationLoader, analyticsScheduler);
+
         String sessionId = params.getSessionId();
         if (sessionId == null) {
             sessionId = params.getUUIDHelper().getFormattedUUID();
@@ -148,8 +167,14 @@ public class BraintreeClient {
         this.integrationType = params.getIntegrationType();
         this.returnUrlScheme = params.getReturnUrlScheme();
 
-        this.crashReporter = new CrashReporter(this);
-        this.crashReporter.start();
+        CrashReporter.getInstance().register(this);
+
+        Scheduler warmUpScheduler = params.getSharedPreferencesWarmUpScheduler();
+        if (warmUpScheduler != null) {
+            // create the encrypted shared preferences handle off the calling thread before the
+            // first configuration cache lookup needs it
+            BraintreeSharedPreferences.getInstance().warmUp(applicationContext, warmUpScheduler);
+        }
     }
 
     /**
@@ -170,70 +195,153 @@ public class BraintreeClient {
         });
     }
 
-    void getAuthorization(@NonNull final AuthorizationCallback callback) {
-        authorizationLoader.loadAuthorization(callback);
-    }
-
-    void sendAnalyticsEvent(final String eventName) {
+    /**
+     * Load authorization and configuration, and open connections to the Braintree gateway and
+     * GraphQL hosts ahead of the first payment request. Call this at app start or when a checkout
+     * screen is shown so the customer's first tap does not wait on these requests.
+     *
+     * Configuration is requested as soon as authorization is available, and connections are
+     * opened in parallel with the configuration request. Requests made by other methods while a
+     * warm-up is in progress share its client token and configuration requests.
+     *
+     * @param callback {@link WarmUpCallback} notified with a timing breakdown once every phase
+     *                 has completed
+     */
+    public void warmUp(@NonNull WarmUpCallback callback) {
+        final WarmUpOperation operation = new WarmUpOperation(callback);
         getAuthorization(new AuthorizationCallback() {
             @Override
-            public void onAuthorizationResult(@Nullable final Authorization authorization, @Nullable Exception error) {
-                if (authorization != null) {
-                    getConfiguration(new ConfigurationCallback() {
+            public void onAuthorizationResult(@Nullable Authorization authorization, @Nullable Exception error) {
+                if (authorization == null) {
+                    operation.onError(error);
+                    return;
+                }
+                operation.onAuthorizationLoaded();
+
+                if (!(authorization instanceof InvalidAuthorization)) {
+                    operation.onConnectionStarted();
+                    httpClient.warmUp(authorization.getConfigUrl(), new HttpResponseCallback() {
                         @Override
-                        public void onResult(@Nullable Configuration configuration, @Nullable Exception error) {
-                            if (isAnalyticsEnabled(configuration)) {
-                                analyticsClient.sendEvent(configuration, eventName, sessionId, getIntegrationType(), authorization);
-                            }
+                        public void onResult(String responseBody, Exception httpError) {
+                            operation.onConnectionFinished();
                         }
                     });
                 }
+
+                configurationLoader.loadConfiguration(applicationContext, authorization, new ConfigurationCallback() {
+                    @Override
+                    public void onResult(@Nullable Configuration configuration, @Nullable Exception configError) {
+                        if (configuration == null) {
+                            operation.onError(configError);
+                            return;
+                        }
+
+                        if (configuration.isGraphQLEnabled()) {
+                            operation.onConnectionStarted();
+                            graphQLClient.warmUp(configuration, new HttpResponseCallback() {
+                                @Override
+                                public void onResult(String responseBody, Exception httpError) {
+                                    operation.onConnectionFinished();
+                                }
+                            });
+                        }
+                        operation.onConfigurationLoaded();
+                    }
+                });
             }
         });
     }
 
-    void sendGET(final String url, final HttpResponseCallback responseCallback) {
-        getAuthorization(new AuthorizationCallback() {
+    /**
+     * Allow an expired configuration to be used while a fresh one is fetched in the background.
+     *
+     * By default, once the cached configuration is older than five minutes the next request waits
+     * for a new configuration to be downloaded. With this mode enabled, the expired configuration
+     * is returned immediately for up to {@code maxStalenessMillis} past its expiry, and the refresh
+     * only downloads the configuration again if it has changed.
+     *
+     * @param maxStalenessMillis how long past its expiry a configuration may be used, in
+     *                           milliseconds. Pass 0 to disable.
+     */
+    public void setConfigurationMaxStaleness(long maxStalenessMillis) {
+        configurationLoader.setMaxStaleness(maxStalenessMillis);
+    }
+
+    /**
+     * Background work from every {@link BraintreeClient} in the process runs on one shared pool
+     * of threads. Use this method to monitor how busy that pool is.
+     *
+     * @return a snapshot of the shared background thread pool
+     */
+    @NonNull
+    public ThreadPoolMetrics getThreadPoolMetrics() {
+        return BackgroundThreadPool.getInstance().getMetrics();
+    }
+
+    /**
+     * Identical card, PayPal and Venmo tokenize requests started while one is in flight, for
+     * example after a double tap, are sent once and share its result. Use this method to see how
+     * often that happens across every {@link BraintreeClient} in the process.
+     *
+     * @return the number of tokenize requests that shared the result of an identical request
+     * instead of being sent
+     */
+    public long getCoalescedTokenizationCount() {
+        return TokenizationCoalescer.getInstance().getCoalescedRequestCount();
+    }
+
+    /**
+     * Report the time spent in each stage of every request this client makes to the Braintree
+     * gateway and GraphQL API, and of every analytics event it records, for example to forward
+     * them to an application performance monitoring tool.
+     *
+     * Requests are only timed while a listener is set.
+     *
+     * @param listener {@link RequestMetricsListener} notified once each request has finished, or
+     *                 null to stop reporting
+     */
+    public void setRequestMetricsListener(@Nullable RequestMetricsListener listener) {
+        requestPipeline.setListener(listener);
+        analyticsPipeline.setListener(listener);
+    }
+
+    void getAuthorization(@NonNull final AuthorizationCallback callback) {
+        authorizationLoader.loadAuthorization(callback);
+    }
+
+    @Nullable
+    Authorization getAuthorizationFromCache() {
+        return authorizationLoader.getAuthorizationFromCache();
+    }
+
+    void sendAnalyticsEvent(final String eventName) {
+        analyticsPipeline.execute(RequestMetrics.REQUEST_TYPE_ANALYTICS, eventName, new RequestPipeline.Request() {
             @Override
-            public void onAuthorizationResult(@Nullable final Authorization authorization, @Nullable Exception authError) {
-                if (authorization != null) {
-                    getConfiguration(new ConfigurationCallback() {
-                        @Override
-                        public void onResult(@Nullable Configuration configuration, @Nullable Exception configError) {
-                            if (configuration != null) {
-                                httpClient.get(url, configuration, authorization, responseCallback);
-                            } else {
-                                responseCallback.onResult(null, configError);
-                            }
-                        }
-                    });
-                } else {
-                    responseCallback.onResult(null, authError);
+            public String send(Configuration configuration, Authorization authorization, HttpRequestTiming timing) {
+                if (isAnalyticsEnabled(configuration)) {
+                    analyticsClient.sendEvent(configuration, eventName, sessionId, getIntegrationType(), authorization);
                 }
+                return null;
             }
-        });
+        }, null);
+    }
+
+    void sendGET(final String url, final HttpResponseCallback responseCallback) {
+        requestPipeline.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, url, new RequestPipeline.Request() {
+            @Override
+            public String send(Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
+                return httpClient.get(url, configuration, authorization, timing);
+            }
+        }, responseCallback);
     }
 
     void sendPOST(final String url, final String data, final HttpResponseCallback responseCallback) {
-        getAuthorization(new AuthorizationCallback() {
+        requestPipeline.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, url, new RequestPipeline.Request() {
             @Override
-            public void onAuthorizationResult(@Nullable final Authorization authorization, @Nullable Exception authError) {
-                if (authorization != null) {
-                    getConfiguration(new ConfigurationCallback() {
-                        @Override
-                        public void onResult(@Nullable Configuration configuration, @Nullable Exception configError) {
-                            if (configuration != null) {
-                                httpClient.post(url, data, configuration, authorization, responseCallback);
-                            } else {
-                                responseCallback.onResult(null, configError);
-                            }
-                        }
-                    });
-                } else {
-                    responseCallback.onResult(null, authError);
-                }
+            public String send(Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
+                return httpClient.post(url, data, configuration, authorization, timing);
             }
-        });
+        }, responseCallback);
     }
 
     String getSessionId() {
@@ -245,25 +353,30 @@ public class BraintreeClient {
     }
 
     void sendGraphQLPOST(final String payload, final HttpResponseCallback responseCallback) {
-        getAuthorization(new AuthorizationCallback() {
+        // only parse the payload for its operation name when the request is being timed
+        String operationName =
+                requestPipeline.hasListener() ? GraphQLQueryHelper.getOperationName(payload) : null;
+        requestPipeline.execute(RequestMetrics.REQUEST_TYPE_GRAPHQL, operationName, new RequestPipeline.Request() {
             @Override
-            public void onAuthorizationResult(@Nullable final Authorization authorization, @Nullable Exception authError) {
-                if (authorization != null) {
-                    getConfiguration(new ConfigurationCallback() {
-                        @Override
-                        public void onResult(@Nullable Configuration configuration, @Nullable Exception configError) {
-                            if (configuration != null) {
-                                graphQLClient.post(payload, configuration, authorization, responseCallback);
-                            } else {
-                                responseCallback.onResult(null, configError);
-                            }
-                        }
-                    });
-                } else {
-                    responseCallback.onResult(null, authError);
-                }
+            public String send(Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
+                return graphQLClient.post(payload, configuration, authorization, timing);
             }
-        });
+        }, responseCallback);
+    }
+
+    /**
+     * Sends {@code query} to the GraphQL API, by the hash of its document where the configuration
+     * enables persisted queries.
+     *
+     * @param payload the request body without the query, e.g. the variables of the query
+     */
+    void sendGraphQLPOST(final GraphQLQuery query, final JSONObject payload, final HttpResponseCallback responseCallback) {
+        requestPipeline.execute(RequestMetrics.REQUEST_TYPE_GRAPHQL, query.getOperationName(), new RequestPipeline.Request() {
+            @Override
+            public String send(Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
+                return graphQLClient.post(query, payload, configuration, authorization, timing);
+            }
+        }, responseCallback);
     }
 
     void startBrowserSwitch(FragmentActivity activity, BrowserSwitchOptions browserSwitchOptions) throws BrowserSwitchException {
@@ -309,9 +422,11 @@ public class BraintreeClient {
         return manifestValidator.getActivityInfo(applicationContext, klass);
     }
 
-    void reportCrash() {
-        Authorization authorization = authorizationLoader.getAuthorizationFromCache();
-        analyticsClient.reportCrash(applicationContext, sessionId, integrationType, authorization);
+    /**
+     * @return true if a crash event was recorded for upload.
+     */
+    boolean reportCrash() {
+        return analyticsClient.reportCrash();
     }
 
     static boolean isAnalyticsEnabled(Configuration configuration) {
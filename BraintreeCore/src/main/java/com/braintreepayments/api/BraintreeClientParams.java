@@ -18,6 +18,9 @@ class BraintreeClientParams {
     private BrowserSwitchClient browserSwitchClient;
     private ManifestValidator manifestValidator;
     private UUIDHelper uuidHelper;
+    private Scheduler sharedPreferencesWarmUpScheduler;
+    private Scheduler requestScheduler;
+    private Scheduler analyticsScheduler;
 
     AuthorizationLoader getAuthorizationLoader() {
         return authorizationLoader;
@@ -126,4 +129,31 @@ class BraintreeClientParams {
         this.returnUrlScheme = returnUrlScheme;
         return this;
     }
+
+    Scheduler getSharedPreferencesWarmUpScheduler() {
+        return sharedPreferencesWarmUpScheduler;
+    }
+
+    BraintreeClientParams sharedPreferencesWarmUpScheduler(Scheduler sharedPreferencesWarmUpScheduler) {
+        this.sharedPreferencesWarmUpScheduler = sharedPreferencesWarmUpScheduler;
+        return this;
+    }
+
+    Scheduler getRequestScheduler() {
+        return requestScheduler;
+    }
+
+    BraintreeClientParams requestScheduler(Scheduler requestScheduler) {
+        this.requestScheduler = requestScheduler;
+        return this;
+    }
+
+    Scheduler getAnalyticsScheduler() {
+        return analyticsScheduler;
+    }
+
+    BraintreeClientParams analyticsScheduler(Scheduler analyticsScheduler) {
+        this.analyticsScheduler = analyticsScheduler;
+        return this;
+    }
 }
@@ -1,11 +1,5 @@
 package com.braintreepayments.api;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
-
-import javax.net.ssl.SSLException;
-
 class BraintreeGatewayCertificate {
 
     private static final String CERTIFICATE =
@@ -434,11 +428,7 @@ class BraintreeGatewayCertificate {
         "MrY=\n" +
         "-----END CERTIFICATE-----\n";
 
-    static InputStream getCertInputStream() throws SSLException {
-        try {
-            return new ByteArrayInputStream(CERTIFICATE.getBytes("UTF-8"));
-        } catch (UnsupportedEncodingException e) {
-            throw new SSLException(e.getMessage());
-        }
+    static String getCertificate() {
+        return CERTIFICATE;
     }
 }
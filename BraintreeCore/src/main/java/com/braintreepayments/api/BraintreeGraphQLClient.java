@@ -2,15 +2,37 @@ package com.braintreepayments.api;
 
 import androidx.annotation.VisibleForTesting;
 
+import com.braintreepayments.api.GraphQLConstants.ErrorMessages;
+import com.braintreepayments.api.GraphQLConstants.Features;
+import com.braintreepayments.api.GraphQLConstants.Keys;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSocketFactory;
 
 class BraintreeGraphQLClient {
 
+    // the pinned socket factory is built on the first request instead of on the thread that
+    // constructs the client, which is usually the main thread
+    private static final SSLSocketFactoryLoader SOCKET_FACTORY_LOADER = new SSLSocketFactoryLoader() {
+        @Override
+        public SSLSocketFactory load() throws SSLException {
+            return TLSSocketFactoryCache.getInstance().getSocketFactory(BraintreeGraphQLCertificate.getCertificate());
+        }
+    };
+
+    private static final int PERSISTED_QUERY_VERSION = 1;
+
     private final HttpClient httpClient;
 
+    // cleared when the server reports that it does not support persisted queries, so that later
+    // requests send the full document right away
+    private volatile boolean isPersistedQuerySupported = true;
+
     BraintreeGraphQLClient() {
-        this(new HttpClient(getSocketFactory(), new BraintreeGraphQLResponseParser()));
+        this(new HttpClient(SOCKET_FACTORY_LOADER, new BraintreeGraphQLResponseParser()));
     }
 
     @VisibleForTesting
@@ -18,12 +40,8 @@ class BraintreeGraphQLClient {
         this.httpClient = httpClient;
     }
 
-    private static SSLSocketFactory getSocketFactory() {
-        try {
-            return new TLSSocketFactory(BraintreeGraphQLCertificate.getCertInputStream());
-        } catch (SSLException e) {
-            return null;
-        }
+    void warmUp(Configuration configuration, HttpResponseCallback callback) {
+        httpClient.warmUp(configuration.getGraphQLUrl(), callback);
     }
 
     void post(String path, String data, Configuration configuration, Authorization authorization, HttpResponseCallback callback) {
@@ -62,7 +80,22 @@ class BraintreeGraphQLClient {
         httpClient.sendRequest(request, callback);
     }
 
+    String post(String data, Configuration configuration, Authorization authorization) throws Exception {
+        return post("", data, configuration, authorization, null);
+    }
+
+    String post(String data, Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
+        return post("", data, configuration, authorization, timing);
+    }
+
     String post(String path, String data, Configuration configuration, Authorization authorization) throws Exception {
+        return post(path, data, configuration, authorization, null);
+    }
+
+    /**
+     * @param timing records the network phases of the request, or null
+     */
+    String post(String path, String data, Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
         if (authorization instanceof InvalidAuthorization) {
             String message = ((InvalidAuthorization) authorization).getErrorMessage();
             throw new BraintreeException(message);
@@ -75,7 +108,49 @@ class BraintreeGraphQLClient {
                 .baseUrl(configuration.getGraphQLUrl())
                 .addHeader("User-Agent", "braintree/android/" + BuildConfig.VERSION_NAME)
                 .addHeader("Authorization", String.format("Bearer %s", authorization.getBearer()))
-                .addHeader("Braintree-Version", GraphQLConstants.Headers.API_VERSION);
+                .addHeader("Braintree-Version", GraphQLConstants.Headers.API_VERSION)
+                .timing(timing);
         return httpClient.sendRequest(request);
     }
+
+    /**
+     * Sends {@code query} with the variables and other fields of {@code payload}.
+     *
+     * When the configuration enables persisted queries, only the hash of the query document is
+     * sent. If the server does not know the hash yet, the request is sent once more with the full
+     * document, which also registers it under the hash for later requests.
+     *
+     * @param payload the request body without the query; the query or its hash is added to it
+     * @param timing records the network phases of the request, or null
+     */
+    String post(GraphQLQuery query, JSONObject payload, Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
+        boolean usePersistedQuery = isPersistedQuerySupported
+                && configuration.isGraphQLFeatureEnabled(Features.PERSISTED_QUERIES);
+        if (!usePersistedQuery) {
+            payload.put(Keys.QUERY, query.getDocument());
+            return post("", payload.toString(), configuration, authorization, timing);
+        }
+
+        payload.put(Keys.EXTENSIONS, createPersistedQueryExtensions(query));
+        try {
+            return post("", payload.toString(), configuration, authorization, timing);
+        } catch (UnexpectedException e) {
+            if (ErrorMessages.PERSISTED_QUERY_NOT_SUPPORTED.equals(e.getMessage())) {
+                isPersistedQuerySupported = false;
+                payload.remove(Keys.EXTENSIONS);
+            } else if (!ErrorMessages.PERSISTED_QUERY_NOT_FOUND.equals(e.getMessage())) {
+                throw e;
+            }
+        }
+
+        payload.put(Keys.QUERY, query.getDocument());
+        return post("", payload.toString(), configuration, authorization, timing);
+    }
+
+    private static JSONObject createPersistedQueryExtensions(GraphQLQuery query) throws JSONException {
+        JSONObject persistedQuery = new JSONObject()
+                .put(Keys.VERSION, PERSISTED_QUERY_VERSION)
+                .put(Keys.SHA256_HASH, query.getSha256Hash());
+        return new JSONObject().put(Keys.PERSISTED_QUERY, persistedQuery);
+    }
 }
@@ -41,13 +41,13 @@ class BraintreeGraphQLResponseParser implements HttpResponseParser {
                 String message = Json.optString(error, GraphQLConstants.Keys.MESSAGE, "An Unexpected Exception Occurred");
 
                 if (extensions == null) {
-                    throw new UnexpectedException(message);
+                    throw new UnexpectedException(message, response);
                 }
 
                 if (Json.optString(extensions, GraphQLConstants.Keys.LEGACY_CODE, "").equals(GraphQLConstants.LegacyErrorCodes.VALIDATION_NOT_ALLOWED)) {
-                    throw new AuthorizationException(error.getString(GraphQLConstants.Keys.MESSAGE));
+                    throw new AuthorizationException(error.getString(GraphQLConstants.Keys.MESSAGE), response);
                 } else if (!Json.optString(extensions, GraphQLConstants.Keys.ERROR_TYPE, "").equals(GraphQLConstants.ErrorTypes.USER)) {
-                    throw new UnexpectedException(message);
+                    throw new UnexpectedException(message, response);
                 }
             }
 
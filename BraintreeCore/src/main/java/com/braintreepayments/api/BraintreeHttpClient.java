@@ -20,11 +20,23 @@ class BraintreeHttpClient {
     private static final String AUTHORIZATION_FINGERPRINT_KEY = "authorizationFingerprint";
     private static final String USER_AGENT_HEADER = "User-Agent";
     private static final String CLIENT_KEY_HEADER = "Client-Key";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    // the pinned socket factory is built on the first request instead of on the thread that
+    // constructs the client, which is usually the main thread
+    private static final SSLSocketFactoryLoader SOCKET_FACTORY_LOADER = new SSLSocketFactoryLoader() {
+        @Override
+        public SSLSocketFactory load() throws SSLException {
+            return TLSSocketFactoryCache.getInstance().getSocketFactory(BraintreeGatewayCertificate.getCertificate());
+        }
+    };
 
     private final HttpClient httpClient;
 
+    private int requestCompressionThreshold = HttpRequest.NO_COMPRESSION;
+
     BraintreeHttpClient() {
-        this(new HttpClient(getSocketFactory(), new BraintreeHttpResponseParser()));
+        this(new HttpClient(SOCKET_FACTORY_LOADER, new BraintreeHttpResponseParser()));
     }
 
     @VisibleForTesting
@@ -32,12 +44,14 @@ class BraintreeHttpClient {
         this.httpClient = httpClient;
     }
 
-    private static SSLSocketFactory getSocketFactory() {
-        try {
-            return new TLSSocketFactory(BraintreeGatewayCertificate.getCertInputStream());
-        } catch (SSLException e) {
-            return null;
-        }
+    /**
+     * Gzip compress the body of POST requests that are at least {@code minimumBytes} long. Only
+     * enable this for clients that exclusively post to endpoints that accept compressed bodies.
+     *
+     * @param minimumBytes the smallest body to compress, or {@link HttpRequest#NO_COMPRESSION}.
+     */
+    void setRequestCompressionThreshold(int minimumBytes) {
+        this.requestCompressionThreshold = minimumBytes;
     }
 
     /**
@@ -62,18 +76,115 @@ class BraintreeHttpClient {
      * @param callback {@link HttpResponseCallback}
      */
     void get(String path, Configuration configuration, Authorization authorization, @RetryStrategy int retryStrategy, HttpResponseCallback callback) {
+        HttpRequest request;
+        try {
+            request = createGetRequest(path, configuration, authorization);
+        } catch (BraintreeException e) {
+            callback.onResult(null, e);
+            return;
+        }
+        httpClient.sendRequest(request, retryStrategy, callback);
+    }
+
+    /**
+     * Make a conditional HTTP GET request to Braintree. When {@code eTag} is not null it is sent as
+     * an {@code If-None-Match} header, and an unchanged resource is reported to the callback as a
+     * {@link NotModifiedException} instead of being downloaded again.
+     * @param path The path or url to request from the server via GET
+     * @param configuration configuration for the Braintree Android SDK.
+     * @param authorization
+     * @param eTag the {@code ETag} of the cached copy of the resource, or null if there is none
+     * @param retryStrategy retry strategy
+     * @param callback {@link ETagHttpResponseCallback}
+     */
+    void get(String path, Configuration configuration, Authorization authorization, String eTag, @RetryStrategy int retryStrategy, final ETagHttpResponseCallback callback) {
+        final HttpRequest request;
+        try {
+            request = createGetRequest(path, configuration, authorization);
+        } catch (BraintreeException e) {
+            callback.onResult(null, null, e);
+            return;
+        }
+
+        if (eTag != null) {
+            request.addHeader(IF_NONE_MATCH_HEADER, eTag);
+        }
+
+        httpClient.sendRequest(request, retryStrategy, new HttpResponseCallback() {
+            @Override
+            public void onResult(String responseBody, Exception httpError) {
+                callback.onResult(responseBody, request.getResponseETag(), httpError);
+            }
+        });
+    }
+
+    /**
+     * Makes a synchronous HTTP GET request to Braintree.
+     * @param path The path or url to request from the server via GET
+     * @param configuration configuration for the Braintree Android SDK.
+     * @param authorization
+     * @return the HTTP response body
+     */
+    String get(String path, Configuration configuration, Authorization authorization) throws Exception {
+        return get(path, configuration, authorization, null);
+    }
+
+    /**
+     * Makes a synchronous HTTP GET request to Braintree.
+     * @param path The path or url to request from the server via GET
+     * @param configuration configuration for the Braintree Android SDK.
+     * @param authorization
+     * @param timing records the network phases of the request, or null
+     * @return the HTTP response body
+     */
+    String get(String path, Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
+        HttpRequest request = createGetRequest(path, configuration, authorization)
+                .timing(timing);
+        return httpClient.sendRequest(request);
+    }
+
+    /**
+     * Makes a conditional HTTP GET request to Braintree, sending the first attempt on the calling
+     * thread. The result is delivered to {@code callback} on the calling thread, or on a background
+     * thread if the request was retried.
+     * @see #get(String, Configuration, Authorization, String, int, ETagHttpResponseCallback)
+     */
+    void getOnCurrentThread(String path, Configuration configuration, Authorization authorization, String eTag, @RetryStrategy int retryStrategy, final ETagHttpResponseCallback callback) {
+        HttpRequest request;
+        try {
+            request = createGetRequest(path, configuration, authorization);
+        } catch (BraintreeException e) {
+            callback.onResult(null, null, e);
+            return;
+        }
+
+        if (eTag != null) {
+            request.addHeader(IF_NONE_MATCH_HEADER, eTag);
+        }
+
+        final HttpRequest sentRequest = request;
+        httpClient.sendRequestOnCurrentThread(request, retryStrategy, new HttpResponseCallback() {
+            @Override
+            public void onResult(String responseBody, Exception httpError) {
+                if (httpError != null) {
+                    callback.onResult(null, null, httpError);
+                } else {
+                    callback.onResult(responseBody, sentRequest.getResponseETag(), null);
+                }
+            }
+        });
+    }
+
+    private HttpRequest createGetRequest(String path, Configuration configuration, Authorization authorization) throws BraintreeException {
         if (authorization instanceof InvalidAuthorization) {
             String message = ((InvalidAuthorization) authorization).getErrorMessage();
-            callback.onResult(null, new BraintreeException(message));
-            return;
+            throw new BraintreeException(message);
         }
 
         boolean isRelativeURL = !path.startsWith("http");
         if (configuration == null && isRelativeURL) {
             String message = "Braintree HTTP GET request without configuration cannot have a relative path.";
-            BraintreeException relativeURLNotAllowedError = new BraintreeException(message);
-            callback.onResult(null, relativeURLNotAllowedError);
-            return;
+            throw new BraintreeException(message);
         }
 
         String targetPath;
@@ -98,8 +209,16 @@ class BraintreeHttpClient {
         if (authorization instanceof TokenizationKey) {
             request.addHeader(CLIENT_KEY_HEADER, authorization.getBearer());
         }
+        return request;
+    }
 
-        httpClient.sendRequest(request, retryStrategy, callback);
+    /**
+     * Open a connection to the host of {@code url} ahead of the first request to it.
+     * @param url any url on the host to connect to
+     * @param callback {@link HttpResponseCallback}
+     */
+    void warmUp(String url, HttpResponseCallback callback) {
+        httpClient.warmUp(url, callback);
     }
 
     /**
@@ -145,6 +264,7 @@ class BraintreeHttpClient {
                 .method("POST")
                 .path(path)
                 .data(requestData)
+                .compressData(requestCompressionThreshold)
                 .addHeader(USER_AGENT_HEADER, "braintree/android/" + BuildConfig.VERSION_NAME);
 
         if (isRelativeURL && configuration != null) {
@@ -167,6 +287,20 @@ class BraintreeHttpClient {
      * @return the HTTP response body
      */
     String post(String path, String data, Configuration configuration, Authorization authorization) throws Exception {
+        return post(path, data, configuration, authorization, null);
+    }
+
+    /**
+     * Makes a synchronous HTTP POST request to Braintree.
+     *
+     * @param path the path or url to request from the server via HTTP POST
+     * @param data the body of the post request
+     * @param configuration configuration for the Braintree Android SDK.
+     * @param authorization
+     * @param timing records the network phases of the request, or null
+     * @return the HTTP response body
+     */
+    String post(String path, String data, Configuration configuration, Authorization authorization, HttpRequestTiming timing) throws Exception {
         if (authorization instanceof InvalidAuthorization) {
             String message = ((InvalidAuthorization) authorization).getErrorMessage();
             throw new BraintreeException(message);
@@ -192,6 +326,8 @@ class BraintreeHttpClient {
                 .method("POST")
                 .path(path)
                 .data(requestData)
+                .compressData(requestCompressionThreshold)
+                .timing(timing)
                 .addHeader(USER_AGENT_HEADER, "braintree/android/" + BuildConfig.VERSION_NAME);
 
         if (isRelativeURL && configuration != null) {
@@ -361,6 +361,13 @@ public class Configuration {
         return analyticsConfiguration.isEnabled();
     }
 
+    /**
+     * @return {@code true} if analytics uploads may be gzip compressed, {@code false} otherwise.
+     */
+    boolean isAnalyticsCompressionEnabled() {
+        return analyticsConfiguration.isCompressionEnabled();
+    }
+
     /**
      * @return {@code true} if Visa Checkout is enabled for the merchant account; {@code false} otherwise.
      */
@@ -8,7 +8,7 @@ import java.util.concurrent.TimeUnit;
 
 class ConfigurationCache {
 
-    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
+    static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
 
     private static volatile ConfigurationCache INSTANCE;
     private final BraintreeSharedPreferences braintreeSharedPreferences;
@@ -36,10 +36,18 @@ class ConfigurationCache {
 
     @VisibleForTesting
     String getConfiguration(Context context, String cacheKey, long currentTimeMillis) {
+        return getConfiguration(context, cacheKey, currentTimeMillis, TIME_TO_LIVE);
+    }
+
+    /**
+     * @param maxAgeMillis the maximum age of a configuration that may be returned, which may be
+     *                     longer than {@link #TIME_TO_LIVE} when stale configurations are accepted.
+     */
+    String getConfiguration(Context context, String cacheKey, long currentTimeMillis, long maxAgeMillis) {
         String timestampKey = cacheKey + "_timestamp";
         if (braintreeSharedPreferences.containsKey(context, timestampKey)) {
             long timeInCache = (currentTimeMillis - braintreeSharedPreferences.getLong(context, timestampKey));
-            if (timeInCache < TIME_TO_LIVE) {
+            if (timeInCache < maxAgeMillis) {
                 return braintreeSharedPreferences.getString(context, cacheKey, "");
             }
         }
@@ -47,6 +55,14 @@ class ConfigurationCache {
         return null;
     }
 
+    /**
+     * @return the time the cached configuration for {@code cacheKey} was saved, or 0 if there is
+     * no cached configuration.
+     */
+    long getConfigurationTimestamp(Context context, String cacheKey) {
+        return braintreeSharedPreferences.getLong(context, cacheKey + "_timestamp");
+    }
+
     void saveConfiguration(Context context, Configuration configuration, String cacheKey) {
         saveConfiguration(context, configuration, cacheKey, System.currentTimeMillis());
     }
@@ -56,4 +72,16 @@ class ConfigurationCache {
         String timestampKey = String.format("%s_timestamp", cacheKey);
         braintreeSharedPreferences.putStringAndLong(context, cacheKey, configuration.toJson(), timestampKey, currentTimeMillis);
     }
+
+    /**
+     * @return the {@code ETag} the gateway returned with the cached configuration for
+     * {@code cacheKey}, or null if there is none.
+     */
+    String getConfigurationETag(Context context, String cacheKey) {
+        return braintreeSharedPreferences.getString(context, cacheKey + "_etag", null);
+    }
+
+    void saveConfigurationETag(Context context, String cacheKey, String eTag) {
+        braintreeSharedPreferences.putString(context, cacheKey + "_etag", eTag);
+    }
 }
@@ -4,26 +4,68 @@ import android.content.Context;
 import android.net.Uri;
 import android.util.Base64;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 
 import org.json.JSONException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 class ConfigurationLoader {
 
     private final BraintreeHttpClient httpClient;
     private final ConfigurationCache configurationCache;
+    private final InMemoryConfigurationCache inMemoryConfigurationCache;
+    private final Scheduler scheduler;
+
+    // callbacks waiting on an in-flight configuration request, keyed by cache key
+    private final Map<String, List<ConfigurationCallback>> pendingCallbacks;
+
+    private volatile long maxStalenessMillis;
 
     ConfigurationLoader(BraintreeHttpClient httpClient) {
-        this(httpClient, ConfigurationCache.getInstance());
+        this(httpClient, ConfigurationCache.getInstance(), InMemoryConfigurationCache.getInstance());
     }
 
     @VisibleForTesting
     ConfigurationLoader(BraintreeHttpClient httpClient, ConfigurationCache configurationCache) {
+        this(httpClient, configurationCache, new InMemoryConfigurationCache(InMemoryConfigurationCache.DEFAULT_MAX_ENTRIES));
+    }
+
+    @VisibleForTesting
+    ConfigurationLoader(BraintreeHttpClient httpClient, ConfigurationCache configurationCache, InMemoryConfigurationCache inMemoryConfigurationCache) {
+        this(httpClient, configurationCache, inMemoryConfigurationCache, new ThreadScheduler());
+    }
+
+    @VisibleForTesting
+    ConfigurationLoader(BraintreeHttpClient httpClient, ConfigurationCache configurationCache, InMemoryConfigurationCache inMemoryConfigurationCache, Scheduler scheduler) {
         this.httpClient = httpClient;
         this.configurationCache = configurationCache;
+        this.inMemoryConfigurationCache = inMemoryConfigurationCache;
+        this.scheduler = scheduler;
+        this.pendingCallbacks = new HashMap<>();
     }
 
-    void loadConfiguration(final Context context, final Authorization authorization, final ConfigurationCallback callback) {
+    void loadConfiguration(Context context, Authorization authorization, ConfigurationCallback callback) {
+        loadConfiguration(context, authorization, callback, false);
+    }
+
+    /**
+     * Load configuration without leaving the calling background thread. On a cache miss the
+     * configuration is fetched on the calling thread and {@code callback} is invoked there. If the
+     * fetch has to be retried, or a request for the configuration is already in flight,
+     * {@code callback} is invoked on the background thread that completes the request instead.
+     */
+    @WorkerThread
+    void loadConfigurationOnCurrentThread(Context context, Authorization authorization, ConfigurationCallback callback) {
+        loadConfiguration(context, authorization, callback, true);
+    }
+
+    private void loadConfiguration(final Context context, final Authorization authorization, final ConfigurationCallback callback, boolean fetchOnCurrentThread) {
         if (authorization instanceof InvalidAuthorization) {
             String message = ((InvalidAuthorization) authorization).getErrorMessage();
             callback.onResult(null, new BraintreeException(message));
@@ -35,46 +77,238 @@ class ConfigurationLoader {
                 .appendQueryParameter("configVersion", "3")
                 .build()
                 .toString();
+        final String cacheKey = createCacheKey(authorization, configUrl);
 
-        Configuration cachedConfig = getCachedConfiguration(context, authorization, configUrl);
+        Configuration cachedConfig = getCachedConfiguration(context, cacheKey);
         if (cachedConfig != null) {
             callback.onResult(cachedConfig, null);
+            return;
+        }
+
+        long maxStalenessMillis = this.maxStalenessMillis;
+        if (maxStalenessMillis > 0) {
+            Configuration staleConfig = getStaleConfiguration(context, cacheKey, ConfigurationCache.TIME_TO_LIVE + maxStalenessMillis);
+            if (staleConfig != null) {
+                // serve the stale configuration now and refresh it for the next caller
+                callback.onResult(staleConfig, null);
+                revalidateConfiguration(context, authorization, configUrl, cacheKey);
+                return;
+            }
+        }
+
+        synchronized (pendingCallbacks) {
+            List<ConfigurationCallback> callbacks = pendingCallbacks.get(cacheKey);
+            if (callbacks != null) {
+                // a request for this configuration is already in flight; wait for its result
+                callbacks.add(callback);
+                return;
+            }
+            callbacks = new ArrayList<>();
+            if (!fetchOnCurrentThread) {
+                callbacks.add(callback);
+            }
+            pendingCallbacks.put(cacheKey, callbacks);
+        }
+
+        if (fetchOnCurrentThread) {
+            fetchConfigurationOnCurrentThread(context, authorization, configUrl, cacheKey, callback);
+        } else if (maxStalenessMillis > 0) {
+            fetchConfigurationConditionally(context, authorization, configUrl, cacheKey);
+        } else {
+            fetchConfiguration(context, authorization, configUrl, cacheKey);
+        }
+    }
+
+    /**
+     * Opt in to stale-while-revalidate. Once a cached configuration is older than
+     * {@link ConfigurationCache#TIME_TO_LIVE} it is still returned for up to
+     * {@code maxStalenessMillis} longer while a refresh runs in the background. Refreshes send the
+     * cached {@code ETag} so an unchanged configuration is not downloaded again.
+     *
+     * @param maxStalenessMillis how long past its time to live a configuration may be served, or 0
+     *                           to always wait for the network once the time to live has passed.
+     */
+    void setMaxStaleness(long maxStalenessMillis) {
+        this.maxStalenessMillis = Math.max(0, maxStalenessMillis);
+    }
+
+    private void revalidateConfiguration(Context context, Authorization authorization, String configUrl, String cacheKey) {
+        synchronized (pendingCallbacks) {
+            if (pendingCallbacks.containsKey(cacheKey)) {
+                // a refresh is already in flight
+                return;
+            }
+            pendingCallbacks.put(cacheKey, new ArrayList<ConfigurationCallback>());
+        }
+        fetchConfigurationConditionally(context, authorization, configUrl, cacheKey);
+    }
+
+    private void fetchConfiguration(final Context context, Authorization authorization, String configUrl, final String cacheKey) {
+        httpClient.get(configUrl, null, authorization, HttpClient.RETRY_MAX_3_TIMES, new HttpResponseCallback() {
+
+            @Override
+            public void onResult(String responseBody, Exception httpError) {
+                // this request does not read response headers, so the configuration is saved without an ETag
+                onConfigurationResponse(context, cacheKey, responseBody, null, httpError, createPendingCallbacksNotifier(cacheKey));
+            }
+        });
+    }
+
+    private void fetchConfigurationConditionally(final Context context, Authorization authorization, String configUrl, final String cacheKey) {
+        String eTag = configurationCache.getConfigurationETag(context, cacheKey);
+        httpClient.get(configUrl, null, authorization, eTag, HttpClient.RETRY_MAX_3_TIMES, new ETagHttpResponseCallback() {
+
+            @Override
+            public void onResult(String responseBody, String eTag, Exception httpError) {
+                onConditionalConfigurationResponse(context, cacheKey, responseBody, eTag, httpError, createPendingCallbacksNotifier(cacheKey));
+            }
+        });
+    }
+
+    private void fetchConfigurationOnCurrentThread(final Context context, Authorization authorization, String configUrl, final String cacheKey, final ConfigurationCallback callback) {
+        final boolean isConditional = maxStalenessMillis > 0;
+        String eTag = isConditional ? configurationCache.getConfigurationETag(context, cacheKey) : null;
+
+        final ConfigurationCallback completion = new ConfigurationCallback() {
+            @Override
+            public void onResult(@Nullable Configuration configuration, @Nullable Exception error) {
+                // callers that joined this request expect their result on the main thread
+                notifyPendingCallbacksOnMainThread(cacheKey, configuration, error);
+                callback.onResult(configuration, error);
+            }
+        };
+
+        httpClient.getOnCurrentThread(configUrl, null, authorization, eTag, HttpClient.RETRY_MAX_3_TIMES, new ETagHttpResponseCallback() {
+
+            @Override
+            public void onResult(String responseBody, String eTag, Exception httpError) {
+                if (isConditional) {
+                    onConditionalConfigurationResponse(context, cacheKey, responseBody, eTag, httpError, completion);
+                } else {
+                    onConfigurationResponse(context, cacheKey, responseBody, eTag, httpError, completion);
+                }
+            }
+        });
+    }
+
+    private void onConditionalConfigurationResponse(Context context, String cacheKey, String responseBody, String eTag, Exception httpError, ConfigurationCallback completion) {
+        if (httpError instanceof NotModifiedException) {
+            onConfigurationNotModified(context, cacheKey, completion);
+            return;
+        }
+        onConfigurationResponse(context, cacheKey, responseBody, eTag, httpError, completion);
+    }
+
+    /**
+     * @param eTag the {@code ETag} of {@code responseBody}, or null if there is none or it was not
+     *             read. It replaces the cached {@code ETag} whenever a new configuration is saved, so
+     *             a later revalidation never sends the validator of an older configuration.
+     */
+    private void onConfigurationResponse(Context context, String cacheKey, String responseBody, String eTag, Exception httpError, ConfigurationCallback completion) {
+        if (responseBody != null) {
+            try {
+                Configuration configuration = Configuration.fromJson(responseBody);
+                saveConfigurationToCache(context, configuration, cacheKey);
+                configurationCache.saveConfigurationETag(context, cacheKey, eTag);
+                completion.onResult(configuration, null);
+            } catch (JSONException jsonException) {
+                completion.onResult(null, jsonException);
+            }
         } else {
+            String errorMessageFormat = "Request for configuration has failed: %s";
+            String errorMessage = String.format(errorMessageFormat, httpError.getMessage());
+
+            ConfigurationException configurationException = new ConfigurationException(errorMessage, httpError);
+            completion.onResult(null, configurationException);
+        }
+    }
+
+    private void onConfigurationNotModified(Context context, String cacheKey, ConfigurationCallback completion) {
+        // the cached configuration is still current regardless of its age; restart its time to live
+        String cachedConfigResponse = configurationCache.getConfiguration(context, cacheKey, System.currentTimeMillis(), Long.MAX_VALUE);
+        try {
+            Configuration configuration = Configuration.fromJson(cachedConfigResponse);
+            saveConfigurationToCache(context, configuration, cacheKey);
+            completion.onResult(configuration, null);
+        } catch (JSONException jsonException) {
+            // the cached copy is gone, so the ETag no longer refers to anything we can serve
+            configurationCache.saveConfigurationETag(context, cacheKey, null);
+            completion.onResult(null, new ConfigurationException("Request for configuration has failed: cached configuration is unavailable", jsonException));
+        }
+    }
+
+    private ConfigurationCallback createPendingCallbacksNotifier(final String cacheKey) {
+        return new ConfigurationCallback() {
+            @Override
+            public void onResult(@Nullable Configuration configuration, @Nullable Exception error) {
+                notifyPendingCallbacks(cacheKey, configuration, error);
+            }
+        };
+    }
+
+    private void notifyPendingCallbacks(String cacheKey, Configuration configuration, Exception error) {
+        List<ConfigurationCallback> callbacks;
+        synchronized (pendingCallbacks) {
+            callbacks = pendingCallbacks.remove(cacheKey);
+        }
 
-            httpClient.get(configUrl, null, authorization, HttpClient.RETRY_MAX_3_TIMES, new HttpResponseCallback() {
+        if (callbacks != null) {
+            for (ConfigurationCallback callback : callbacks) {
+                callback.onResult(configuration, error);
+            }
+        }
+    }
+
+    private void notifyPendingCallbacksOnMainThread(final String cacheKey, final Configuration configuration, final Exception error) {
+        final List<ConfigurationCallback> callbacks;
+        synchronized (pendingCallbacks) {
+            callbacks = pendingCallbacks.remove(cacheKey);
+        }
 
+        if (callbacks != null && !callbacks.isEmpty()) {
+            scheduler.runOnMain(new Runnable() {
                 @Override
-                public void onResult(String responseBody, Exception httpError) {
-                    if (responseBody != null) {
-                        try {
-                            Configuration configuration = Configuration.fromJson(responseBody);
-                            saveConfigurationToCache(context, configuration, authorization, configUrl);
-                            callback.onResult(configuration, null);
-                        } catch (JSONException jsonException) {
-                            callback.onResult(null, jsonException);
-                        }
-                    } else {
-                        String errorMessageFormat = "Request for configuration has failed: %s";
-                        String errorMessage = String.format(errorMessageFormat, httpError.getMessage());
-
-                        ConfigurationException configurationException = new ConfigurationException(errorMessage, httpError);
-                        callback.onResult(null, configurationException);
+                public void run() {
+                    for (ConfigurationCallback callback : callbacks) {
+                        callback.onResult(configuration, error);
                     }
                 }
             });
         }
     }
 
-    private void saveConfigurationToCache(Context context, Configuration configuration, Authorization authorization, String configUrl) {
-        String cacheKey = createCacheKey(authorization, configUrl);
+    private void saveConfigurationToCache(Context context, Configuration configuration, String cacheKey) {
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, configuration, System.currentTimeMillis());
         configurationCache.saveConfiguration(context, configuration, cacheKey);
     }
 
-    private Configuration getCachedConfiguration(Context context, Authorization authorization, String configUrl) {
-        String cacheKey = createCacheKey(authorization, configUrl);
+    private Configuration getCachedConfiguration(Context context, String cacheKey) {
+        Configuration inMemoryConfig = inMemoryConfigurationCache.getConfiguration(cacheKey);
+        if (inMemoryConfig != null) {
+            return inMemoryConfig;
+        }
+
         String cachedConfigResponse = configurationCache.getConfiguration(context, cacheKey);
+        return parseAndRemember(context, cacheKey, cachedConfigResponse);
+    }
+
+    private Configuration getStaleConfiguration(Context context, String cacheKey, long maxAgeMillis) {
+        long now = System.currentTimeMillis();
+        Configuration inMemoryConfig = inMemoryConfigurationCache.getConfiguration(cacheKey, now, maxAgeMillis);
+        if (inMemoryConfig != null) {
+            return inMemoryConfig;
+        }
+
+        String cachedConfigResponse = configurationCache.getConfiguration(context, cacheKey, now, maxAgeMillis);
+        return parseAndRemember(context, cacheKey, cachedConfigResponse);
+    }
+
+    private Configuration parseAndRemember(Context context, String cacheKey, String cachedConfigResponse) {
         try {
-            return Configuration.fromJson(cachedConfigResponse);
+            Configuration configuration = Configuration.fromJson(cachedConfigResponse);
+            long timestamp = configurationCache.getConfigurationTimestamp(context, cacheKey);
+            inMemoryConfigurationCache.saveConfiguration(cacheKey, configuration, timestamp);
+            return configuration;
         } catch (JSONException e) {
             return null;
         }
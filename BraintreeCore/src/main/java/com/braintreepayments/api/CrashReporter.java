@@ -4,14 +4,21 @@ import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.lang.Thread.UncaughtExceptionHandler;
 import java.lang.annotation.Retention;
-import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import static java.lang.annotation.RetentionPolicy.SOURCE;
 
+/**
+ * Process-wide uncaught exception handler that records crashes caused by Braintree or PayPal
+ * code. It is registered once, the first time a {@link BraintreeClient} is created, and keeps
+ * weak references to the live clients so that it does not keep them from being collected.
+ *
+ * Every crash is forwarded to the handler that was registered before this one.
+ */
 class CrashReporter implements Thread.UncaughtExceptionHandler {
 
     @Retention(SOURCE)
@@ -21,68 +28,118 @@ class CrashReporter implements Thread.UncaughtExceptionHandler {
     static final int CAUSE_RELATED_TO_PAYPAL = 1;
     static final int CAUSE_RELATED_TO_BRAINTREE = 2;
 
-    private Thread.UncaughtExceptionHandler defaultExceptionHandler;
+    private static final String BRAINTREE_PACKAGE_PREFIX = "com.braintreepayments.";
+    private static final String PAYPAL_PACKAGE_PREFIX = "com.paypal.";
+
+    // bounds the walk through the cause chain, which may contain a cycle
+    private static final int MAX_CAUSE_DEPTH = 32;
 
-    private final WeakReference<BraintreeClient> braintreeClientRef;
+    private static volatile CrashReporter INSTANCE;
 
-    CrashReporter(BraintreeClient braintreeClient) {
-        this(new WeakReference<>(braintreeClient));
+    // values are unused; the map only serves as a set of weakly referenced clients
+    private final Map<BraintreeClient, Boolean> braintreeClients = new WeakHashMap<>();
+
+    private Thread.UncaughtExceptionHandler defaultExceptionHandler;
+    private boolean isStarted;
+
+    static CrashReporter getInstance() {
+        if (INSTANCE == null) {
+            synchronized (CrashReporter.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    CrashReporter crashReporter = new CrashReporter();
+                    crashReporter.start();
+                    INSTANCE = crashReporter;
+                }
+            }
+        }
+        return INSTANCE;
     }
 
     @VisibleForTesting
-    CrashReporter(WeakReference<BraintreeClient> braintreeClientRef) {
-        this.braintreeClientRef = braintreeClientRef;
+    CrashReporter() {
+    }
+
+    synchronized void start() {
+        if (!isStarted) {
+            defaultExceptionHandler = Thread.getDefaultUncaughtExceptionHandler();
+            Thread.setDefaultUncaughtExceptionHandler(this);
+            isStarted = true;
+        }
     }
 
-    private void registerExceptionHandler(UncaughtExceptionHandler handler) {
-        defaultExceptionHandler = Thread.getDefaultUncaughtExceptionHandler();
-        Thread.setDefaultUncaughtExceptionHandler(handler);
+    synchronized void register(BraintreeClient braintreeClient) {
+        braintreeClients.put(braintreeClient, Boolean.TRUE);
     }
 
-    private void restoreDefaultExceptionHandler() {
-        Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
-        defaultExceptionHandler = null;
+    private synchronized List<BraintreeClient> getBraintreeClients() {
+        return new ArrayList<>(braintreeClients.keySet());
     }
 
+    @VisibleForTesting
     @Cause
-    private int determineExceptionCause(Throwable ex) {
-        StringWriter stringWriter = new StringWriter();
-        ex.printStackTrace(new PrintWriter(stringWriter));
-
-        @Cause int result;
-        if (stringWriter.toString().contains("com.braintreepayments")) {
-            result = CAUSE_RELATED_TO_BRAINTREE;
-        } else if (stringWriter.toString().contains("com.paypal")) {
-            result = CAUSE_RELATED_TO_PAYPAL;
-        } else {
-            result = CAUSE_UNKNOWN;
+    static int determineExceptionCause(Throwable exception) {
+        boolean isRelatedToPayPal = false;
+
+        Throwable throwable = exception;
+        for (int depth = 0; throwable != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            @Cause int cause = getCauseFromClassName(throwable.getClass().getName());
+            if (cause == CAUSE_RELATED_TO_BRAINTREE) {
+                return CAUSE_RELATED_TO_BRAINTREE;
+            }
+            isRelatedToPayPal |= (cause == CAUSE_RELATED_TO_PAYPAL);
+
+            for (StackTraceElement element : throwable.getStackTrace()) {
+                cause = getCauseFromClassName(element.getClassName());
+                if (cause == CAUSE_RELATED_TO_BRAINTREE) {
+                    return CAUSE_RELATED_TO_BRAINTREE;
+                }
+                isRelatedToPayPal |= (cause == CAUSE_RELATED_TO_PAYPAL);
+            }
+            throwable = throwable.getCause();
         }
-        return result;
+        return isRelatedToPayPal ? CAUSE_RELATED_TO_PAYPAL : CAUSE_UNKNOWN;
     }
 
-    private void handleExceptionWithDefaultBehavior(Thread thread, Throwable ex) {
-        if (defaultExceptionHandler != null) {
-            defaultExceptionHandler.uncaughtException(thread, ex);
+    @Cause
+    private static int getCauseFromClassName(String className) {
+        if (className == null) {
+            return CAUSE_UNKNOWN;
+        } else if (className.startsWith(BRAINTREE_PACKAGE_PREFIX)) {
+            return CAUSE_RELATED_TO_BRAINTREE;
+        } else if (className.startsWith(PAYPAL_PACKAGE_PREFIX)) {
+            return CAUSE_RELATED_TO_PAYPAL;
         }
+        return CAUSE_UNKNOWN;
     }
 
-    void start() {
-        registerExceptionHandler(this);
+    private void handleExceptionWithDefaultBehavior(Thread thread, Throwable ex) {
+        Thread.UncaughtExceptionHandler handler;
+        synchronized (this) {
+            handler = defaultExceptionHandler;
+        }
+        if (handler != null) {
+            handler.uncaughtException(thread, ex);
+        }
     }
 
     @Override
     public void uncaughtException(@NonNull Thread thread, @NonNull Throwable exception) {
-        BraintreeClient braintreeClient = braintreeClientRef.get();
-        if (braintreeClient == null) {
+        try {
+            @Cause int result = determineExceptionCause(exception);
+            if (result == CAUSE_RELATED_TO_BRAINTREE || result == CAUSE_RELATED_TO_PAYPAL) {
+                // record a single crash event for the process; clients that never sent
+                // analytics have nowhere to upload it
+                for (BraintreeClient braintreeClient : getBraintreeClients()) {
+                    if (braintreeClient.reportCrash()) {
+                        break;
+                    }
+                }
+            }
+        } catch (RuntimeException ignored) {
+            // reporting must never keep the crash from reaching the default handler
+        } finally {
             handleExceptionWithDefaultBehavior(thread, exception);
-            restoreDefaultExceptionHandler();
-            return;
-        }
-
-        @CrashReporter.Cause int result = determineExceptionCause(exception);
-        if (result == CAUSE_RELATED_TO_BRAINTREE || result == CAUSE_RELATED_TO_PAYPAL) {
-            braintreeClient.reportCrash();
         }
-        handleExceptionWithDefaultBehavior(thread, exception);
     }
 }
@@ -35,6 +35,7 @@ class DeviceInspector {
     private final Runtime runtime;
     private final File superUserApkFile;
     private final SignatureVerifier signatureVerifier;
+    private final DeviceMetadataCache deviceMetadataCache;
 
     DeviceInspector() {
         this(
@@ -43,18 +44,20 @@ class DeviceInspector {
                 new UUIDHelper(),
                 new SignatureVerifier(),
                 Runtime.getRuntime(),
-                new File("/system/app/Superuser.apk")
+                new File("/system/app/Superuser.apk"),
+                DeviceMetadataCache.getInstance()
         );
     }
 
     @VisibleForTesting
-    DeviceInspector(AppHelper appHelper, ClassHelper classHelper, UUIDHelper uuidHelper, SignatureVerifier signatureVerifier, Runtime runtime, File superUserApkFile) {
+    DeviceInspector(AppHelper appHelper, ClassHelper classHelper, UUIDHelper uuidHelper, SignatureVerifier signatureVerifier, Runtime runtime, File superUserApkFile, DeviceMetadataCache deviceMetadataCache) {
         this.appHelper = appHelper;
         this.classHelper = classHelper;
         this.uuidHelper = uuidHelper;
         this.signatureVerifier = signatureVerifier;
         this.runtime = runtime;
         this.superUserApkFile = superUserApkFile;
+        this.deviceMetadataCache = deviceMetadataCache;
     }
 
     DeviceMetadata getDeviceMetadata(Context context, String sessionId, String integration) {
@@ -64,7 +67,23 @@ class DeviceInspector {
 
     @VisibleForTesting
     DeviceMetadata getDeviceMetadata(Context context, String sessionId, String integration, String buildTags) {
-        return new DeviceMetadata.Builder()
+        // network type and orientation can change at any time, so they are read on every call
+        return new DeviceMetadata.Builder(getStaticDeviceMetadata(context))
+                .sessionId(sessionId)
+                .integration(integration)
+                .networkType(getNetworkType(context))
+                .userOrientation(getUserOrientation(context))
+                .build();
+    }
+
+    private DeviceMetadata getStaticDeviceMetadata(Context context) {
+        DeviceMetadata cachedMetadata = deviceMetadataCache.get();
+        if (cachedMetadata != null) {
+            return cachedMetadata;
+        }
+
+        int generation = deviceMetadataCache.getGeneration();
+        DeviceMetadata metadata = new DeviceMetadata.Builder()
                 .platform("Android")
                 .platformVersion(Integer.toString(Build.VERSION.SDK_INT))
                 .sdkVersion(BuildConfig.VERSION_NAME)
@@ -74,15 +93,13 @@ class DeviceInspector {
                 .deviceModel(Build.MODEL)
                 .devicePersistentUUID(uuidHelper.getPersistentUUID(context))
                 .isSimulator(isDeviceEmulator())
-                .sessionId(sessionId)
-                .integration(integration)
-                .networkType(getNetworkType(context))
-                .userOrientation(getUserOrientation(context))
                 .appVersion(getAppVersion(context))
                 .dropInVersion(getDropInVersion())
                 .isPayPalInstalled(isPayPalInstalled(context))
                 .isVenmoInstalled(isVenmoInstalled(context))
                 .build();
+        deviceMetadataCache.put(context, metadata, generation);
+        return metadata;
     }
 
     /**
@@ -32,6 +32,13 @@ class DeviceMetadata {
             instance = new DeviceMetadata();
         }
 
+        /**
+         * Creates a builder that starts with the values of {@code deviceMetadata}.
+         */
+        Builder(DeviceMetadata deviceMetadata) {
+            instance = new DeviceMetadata(deviceMetadata);
+        }
+
         Builder appVersion(String appVersion) {
             instance.appVersion = appVersion;
             return this;
@@ -143,6 +150,26 @@ class DeviceMetadata {
     private DeviceMetadata() {
     }
 
+    private DeviceMetadata(DeviceMetadata other) {
+        appVersion = other.appVersion;
+        deviceManufacturer = other.deviceManufacturer;
+        deviceModel = other.deviceModel;
+        devicePersistentUUID = other.devicePersistentUUID;
+        dropInVersion = other.dropInVersion;
+        integration = other.integration;
+        isPayPalInstalled = other.isPayPalInstalled;
+        isSimulator = other.isSimulator;
+        isVenmoInstalled = other.isVenmoInstalled;
+        merchantAppId = other.merchantAppId;
+        merchantAppName = other.merchantAppName;
+        networkType = other.networkType;
+        platform = other.platform;
+        platformVersion = other.platformVersion;
+        sdkVersion = other.sdkVersion;
+        sessionId = other.sessionId;
+        userOrientation = other.userOrientation;
+    }
+
     JSONObject toJSON() throws JSONException {
         return new JSONObject()
                 .put(SESSION_ID_KEY, sessionId)
@@ -0,0 +1,100 @@
+package com.braintreepayments.api;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the parts of {@link DeviceMetadata} that do not change while the app is running, such as
+ * the app name and version, the persistent device UUID and whether the PayPal and Venmo apps are
+ * installed, so that they are not read from the {@link android.content.pm.PackageManager} and
+ * encrypted shared preferences for every analytics upload.
+ *
+ * The cached metadata is discarded when a package is installed, removed or updated.
+ */
+class DeviceMetadataCache extends BroadcastReceiver {
+
+    private static volatile DeviceMetadataCache INSTANCE;
+
+    private final AtomicBoolean isReceiverRegistered = new AtomicBoolean();
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private volatile DeviceMetadata deviceMetadata;
+
+    static DeviceMetadataCache getInstance() {
+        if (INSTANCE == null) {
+            synchronized (DeviceMetadataCache.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    INSTANCE = new DeviceMetadataCache();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    DeviceMetadataCache() {
+    }
+
+    /**
+     * @return the cached metadata, or null if it has not been computed or was invalidated.
+     */
+    DeviceMetadata get() {
+        return deviceMetadata;
+    }
+
+    /**
+     * @return a value to pass to {@link #put(Context, DeviceMetadata, int)}, read before the
+     * metadata is computed so that a change during the computation is not overwritten.
+     */
+    int getGeneration() {
+        return generation.get();
+    }
+
+    void put(Context context, DeviceMetadata deviceMetadata, int generation) {
+        registerReceiver(context);
+        synchronized (this) {
+            if (this.generation.get() == generation) {
+                this.deviceMetadata = deviceMetadata;
+            }
+        }
+    }
+
+    void invalidate() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            deviceMetadata = null;
+        }
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        invalidate();
+    }
+
+    private void registerReceiver(Context context) {
+        if (context == null || !isReceiverRegistered.compareAndSet(false, true)) {
+            return;
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addDataScheme("package");
+
+        Context applicationContext = context.getApplicationContext();
+        if (applicationContext == null) {
+            applicationContext = context;
+        }
+        applicationContext.registerReceiver(this, filter);
+    }
+}
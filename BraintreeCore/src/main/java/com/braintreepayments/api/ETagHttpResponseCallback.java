@@ -0,0 +1,9 @@
+package com.braintreepayments.api;
+
+/**
+ * Callback for conditional HTTP requests that also reports the {@code ETag} of the response.
+ */
+interface ETagHttpResponseCallback {
+
+    void onResult(String responseBody, String eTag, Exception httpError);
+}
@@ -10,10 +10,15 @@ final class GraphQLConstants {
         static final String ERROR_TYPE = "errorType";
         static final String EXTENSIONS = "extensions";
         static final String INPUT_PATH = "inputPath";
+        static final String PATH = "path";
+        static final String CLIENT_SDK_METADATA = "clientSdkMetadata";
         static final String LEGACY_CODE = "legacyCode";
         static final String URL = "url";
         static final String FEATURES = "features";
         static final String OPERATION_NAME = "operationName";
+        static final String PERSISTED_QUERY = "persistedQuery";
+        static final String VERSION = "version";
+        static final String SHA256_HASH = "sha256Hash";
     }
 
     final class ErrorTypes {
@@ -23,6 +28,8 @@ final class GraphQLConstants {
     final class ErrorMessages {
         static final String UNKNOWN = "An unknown error occurred.";
         static final String USER = "Input is invalid.";
+        static final String PERSISTED_QUERY_NOT_FOUND = "PersistedQueryNotFound";
+        static final String PERSISTED_QUERY_NOT_SUPPORTED = "PersistedQueryNotSupported";
     }
 
     final class LegacyErrorCodes {
@@ -35,6 +42,7 @@ final class GraphQLConstants {
 
     final class Features {
         static final String TOKENIZE_CREDIT_CARDS = "tokenize_credit_cards";
+        static final String PERSISTED_QUERIES = "persisted_queries";
     }
 
     static final String CERTIFICATE =
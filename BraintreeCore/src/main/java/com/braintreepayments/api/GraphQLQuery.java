@@ -0,0 +1,52 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A GraphQL query or mutation document, along with its operation name and the hex encoded
+ * SHA-256 hash of the document that identifies it in persisted query requests.
+ *
+ * Queries are declared as constants next to the code that sends them, with the hash computed
+ * ahead of time, so that sending a request neither builds the document nor hashes it. Each
+ * declaring module has a unit test that checks the hash against the document.
+ */
+class GraphQLQuery {
+
+    private final String operationName;
+    private final String document;
+    private final String sha256Hash;
+
+    GraphQLQuery(String operationName, String document, String sha256Hash) {
+        this.operationName = operationName;
+        this.document = document;
+        this.sha256Hash = sha256Hash;
+    }
+
+    String getOperationName() {
+        return operationName;
+    }
+
+    String getDocument() {
+        return document;
+    }
+
+    String getSha256Hash() {
+        return sha256Hash;
+    }
+
+    @VisibleForTesting
+    static String computeSha256Hash(String document) throws NoSuchAlgorithmException {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        byte[] digest = messageDigest.digest(document.getBytes(Charset.forName("UTF-8")));
+
+        StringBuilder hash = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hash.append(String.format("%02x", b));
+        }
+        return hash.toString();
+    }
+}
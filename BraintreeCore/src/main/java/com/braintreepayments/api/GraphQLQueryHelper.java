@@ -3,12 +3,34 @@ package com.braintreepayments.api;
 import android.content.Context;
 import android.content.res.Resources;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 class GraphQLQueryHelper {
 
+    private static final Pattern OPERATION_NAME_PATTERN =
+            Pattern.compile("^\\s*(?:query|mutation)\\s+(\\w+)");
+
+    // raw resources do not change while the app runs, so each query is read once per process
+    private static final Map<Integer, String> QUERY_CACHE = new ConcurrentHashMap<>();
+
     static String getQuery(Context context, int queryResource) throws Resources.NotFoundException, IOException {
+        String query = QUERY_CACHE.get(queryResource);
+        if (query == null) {
+            query = readQuery(context, queryResource);
+            QUERY_CACHE.put(queryResource, query);
+        }
+        return query;
+    }
+
+    private static String readQuery(Context context, int queryResource) throws Resources.NotFoundException, IOException {
         InputStream inputStream = null;
         try {
             inputStream = context.getResources().openRawResource(queryResource);
@@ -19,4 +41,27 @@ class GraphQLQueryHelper {
             }
         }
     }
+
+    /**
+     * @param payload the body of a GraphQL request
+     * @return the {@code operationName} of the request, or the name of its query or mutation if
+     * the payload does not specify one, or an empty string if the request has no name.
+     */
+    static String getOperationName(String payload) {
+        try {
+            JSONObject json = new JSONObject(payload);
+            String operationName = Json.optString(json, GraphQLConstants.Keys.OPERATION_NAME, null);
+            if (operationName != null) {
+                return operationName;
+            }
+
+            Matcher matcher = OPERATION_NAME_PATTERN.matcher(json.optString(GraphQLConstants.Keys.QUERY));
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        } catch (JSONException ignored) {
+            // the request is still sent and reported, just without an operation name
+        }
+        return "";
+    }
 }
@@ -0,0 +1,88 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-resident LRU of parsed {@link Configuration} objects that sits in front of
+ * {@link ConfigurationCache}. Entries are keyed by the same cache key and expire after the same
+ * time to live, so reads within the TTL skip decrypting and re-parsing the persisted JSON.
+ */
+class InMemoryConfigurationCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 4;
+
+    private static volatile InMemoryConfigurationCache INSTANCE;
+
+    private final Map<String, Entry> entries;
+
+    static InMemoryConfigurationCache getInstance() {
+        if (INSTANCE == null) {
+            synchronized (InMemoryConfigurationCache.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    INSTANCE = new InMemoryConfigurationCache(DEFAULT_MAX_ENTRIES);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    InMemoryConfigurationCache(final int maxEntries) {
+        // access-ordered map so the least recently used entry is evicted first
+        this.entries = new LinkedHashMap<String, Entry>(maxEntries + 1, 1.0f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    Configuration getConfiguration(String cacheKey) {
+        return getConfiguration(cacheKey, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    Configuration getConfiguration(String cacheKey, long currentTimeMillis) {
+        return getConfiguration(cacheKey, currentTimeMillis, ConfigurationCache.TIME_TO_LIVE);
+    }
+
+    /**
+     * @param maxAgeMillis the maximum age of a configuration that may be returned. Entries older
+     *                     than the time to live are kept so a caller that accepts stale
+     *                     configurations can still read them.
+     */
+    synchronized Configuration getConfiguration(String cacheKey, long currentTimeMillis, long maxAgeMillis) {
+        Entry entry = entries.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+
+        long timeInCache = currentTimeMillis - entry.timestamp;
+        if (timeInCache < maxAgeMillis) {
+            return entry.configuration;
+        }
+        return null;
+    }
+
+    /**
+     * @param timestamp the time the configuration was fetched from the network, which may be
+     *                  earlier than now if it was read back from {@link ConfigurationCache}.
+     */
+    synchronized void saveConfiguration(String cacheKey, Configuration configuration, long timestamp) {
+        entries.put(cacheKey, new Entry(configuration, timestamp));
+    }
+
+    private static class Entry {
+        final Configuration configuration;
+        final long timestamp;
+
+        Entry(Configuration configuration, long timestamp) {
+            this.configuration = configuration;
+            this.timestamp = timestamp;
+        }
+    }
+}
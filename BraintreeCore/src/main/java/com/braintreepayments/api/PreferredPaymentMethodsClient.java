@@ -6,6 +6,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import org.json.JSONObject;
+
 /**
  * Fetches information about which payment methods are preferred on the device.
  * Used to determine which payment methods are given preference in your UI,
@@ -14,6 +16,11 @@ import androidx.annotation.VisibleForTesting;
  */
 public class PreferredPaymentMethodsClient {
 
+    static final GraphQLQuery PREFERRED_PAYMENT_METHODS_QUERY = new GraphQLQuery(
+            "PreferredPaymentMethods",
+            "query PreferredPaymentMethods { preferredPaymentMethods { paypalPreferred } }",
+            "84c7ee110f6f85fd8516823fd57140e5c32322cdf516cdcdd03f4a3a14046940");
+
     private final BraintreeClient braintreeClient;
     private final DeviceInspector deviceInspector;
 
@@ -63,9 +70,7 @@ public class PreferredPaymentMethodsClient {
                     return;
                 }
 
-                final String query = "{ \"query\": \"query PreferredPaymentMethods { preferredPaymentMethods { paypalPreferred } }\" }";
-
-                braintreeClient.sendGraphQLPOST(query, new HttpResponseCallback() {
+                braintreeClient.sendGraphQLPOST(PREFERRED_PAYMENT_METHODS_QUERY, new JSONObject(), new HttpResponseCallback() {
 
                     @Override
                     public void onResult(String responseBody, Exception httpError) {
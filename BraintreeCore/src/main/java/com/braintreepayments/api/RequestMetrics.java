@@ -0,0 +1,171 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Timing breakdown of a single request made by a {@link BraintreeClient}, reported to a
+ * {@link RequestMetricsListener}. All durations are in milliseconds. Stages that were not reached
+ * because an earlier stage failed report a duration of 0.
+ */
+public class RequestMetrics {
+
+    @IntDef({REQUEST_TYPE_GATEWAY, REQUEST_TYPE_GRAPHQL, REQUEST_TYPE_ANALYTICS})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface RequestType {
+    }
+
+    /**
+     * A request to the Braintree gateway. The operation is the requested path or url.
+     */
+    public static final int REQUEST_TYPE_GATEWAY = 0;
+
+    /**
+     * A request to the Braintree GraphQL API. The operation is the GraphQL operation name.
+     */
+    public static final int REQUEST_TYPE_GRAPHQL = 1;
+
+    /**
+     * An analytics event. The operation is the event name. Events are stored and uploaded later,
+     * so no network phases are reported.
+     */
+    public static final int REQUEST_TYPE_ANALYTICS = 2;
+
+    private final int requestType;
+    private final String operation;
+    private final long authorizationDuration;
+    private final long configurationDuration;
+    private final long queueDuration;
+    private final long connectDuration;
+    private final long tlsHandshakeDuration;
+    private final long timeToFirstByte;
+    private final long responseReadDuration;
+    private final long responseSize;
+    private final int retryCount;
+    private final long totalDuration;
+    private final Exception error;
+
+    RequestMetrics(@RequestType int requestType, String operation, long authorizationDuration, long configurationDuration, long queueDuration, long connectDuration, long tlsHandshakeDuration, long timeToFirstByte, long responseReadDuration, long responseSize, int retryCount, long totalDuration, Exception error) {
+        this.requestType = requestType;
+        this.operation = operation;
+        this.authorizationDuration = authorizationDuration;
+        this.configurationDuration = configurationDuration;
+        this.queueDuration = queueDuration;
+        this.connectDuration = connectDuration;
+        this.tlsHandshakeDuration = tlsHandshakeDuration;
+        this.timeToFirstByte = timeToFirstByte;
+        this.responseReadDuration = responseReadDuration;
+        this.responseSize = responseSize;
+        this.retryCount = retryCount;
+        this.totalDuration = totalDuration;
+        this.error = error;
+    }
+
+    /**
+     * @return the kind of request, one of the {@code REQUEST_TYPE_} constants.
+     */
+    @RequestType
+    public int getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * @return the endpoint or operation that was requested. See {@link #getRequestType()}.
+     */
+    @NonNull
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the time spent waiting for authorization, including fetching a client token from a
+     * {@link ClientTokenProvider}.
+     */
+    public long getAuthorizationDuration() {
+        return authorizationDuration;
+    }
+
+    /**
+     * @return the time spent waiting for configuration from the cache or the Braintree gateway.
+     */
+    public long getConfigurationDuration() {
+        return configurationDuration;
+    }
+
+    /**
+     * @return the time the request waited for a background thread. See
+     * {@link BraintreeClient#getThreadPoolMetrics()}.
+     */
+    public long getQueueDuration() {
+        return queueDuration;
+    }
+
+    /**
+     * @return the time spent opening a TCP connection, or 0 when an open connection was reused.
+     */
+    public long getConnectDuration() {
+        return connectDuration;
+    }
+
+    /**
+     * @return the time spent on the TLS handshake, or 0 when an open connection was reused.
+     */
+    public long getTlsHandshakeDuration() {
+        return tlsHandshakeDuration;
+    }
+
+    /**
+     * @return the time from sending the request until the first byte of the response arrived.
+     */
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * @return the time spent reading the response body.
+     */
+    public long getResponseReadDuration() {
+        return responseReadDuration;
+    }
+
+    /**
+     * @return the size of the response body in bytes, or 0 if no response was received.
+     */
+    public long getResponseSize() {
+        return responseSize;
+    }
+
+    /**
+     * @return how many times the request was sent again after a failed attempt. The network
+     * phases describe the last attempt.
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * @return the time from the start of the request until its result was available.
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * @return true if the request completed without an error.
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return the error the request failed with, or null if it succeeded.
+     */
+    @Nullable
+    public Exception getError() {
+        return error;
+    }
+}
@@ -0,0 +1,19 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Listener for receiving {@link RequestMetrics} of every request made by a
+ * {@link BraintreeClient}. See {@link BraintreeClient#setRequestMetricsListener(RequestMetricsListener)}.
+ */
+public interface RequestMetricsListener {
+
+    /**
+     * Called once a request has finished, before its result is delivered. This may be called on
+     * any thread, including background threads that send payment requests, so implementations
+     * should return quickly.
+     *
+     * @param requestMetrics the time spent in each stage of the request
+     */
+    void onRequestFinished(@NonNull RequestMetrics requestMetrics);
+}
@@ -0,0 +1,75 @@
+package com.braintreepayments.api;
+
+/**
+ * Tracks the stages of a single request as it moves through a {@link RequestPipeline}. Only
+ * created while a {@link RequestMetricsListener} is registered.
+ *
+ * Stages run one after another, each handing off to the next through the scheduler or a
+ * callback, so the recorder is never used by two threads at once.
+ */
+class RequestMetricsRecorder {
+
+    private final int requestType;
+    private final String operation;
+    private final HttpRequestTiming transportTiming = new HttpRequestTiming();
+    private final long startTime;
+
+    private long stageStartTime;
+    private long authorizationDuration;
+    private long configurationDuration;
+    private long queueDuration;
+
+    RequestMetricsRecorder(@RequestMetrics.RequestType int requestType, String operation) {
+        this.requestType = requestType;
+        this.operation = operation;
+        this.startTime = System.currentTimeMillis();
+        this.stageStartTime = startTime;
+    }
+
+    HttpRequestTiming getTransportTiming() {
+        return transportTiming;
+    }
+
+    void onAuthorizationLoaded() {
+        authorizationDuration = finishStage();
+    }
+
+    void onTaskScheduled() {
+        stageStartTime = System.currentTimeMillis();
+    }
+
+    void onTaskStarted() {
+        queueDuration += finishStage();
+    }
+
+    void onConfigurationLoaded() {
+        configurationDuration = finishStage();
+    }
+
+    RequestMetrics onRequestFinished(Exception error) {
+        long now = System.currentTimeMillis();
+        int retryCount = Math.max(0, transportTiming.getAttemptCount() - 1);
+        return new RequestMetrics(
+                requestType,
+                (operation != null) ? operation : "",
+                authorizationDuration,
+                configurationDuration,
+                queueDuration,
+                transportTiming.getConnectDuration(),
+                transportTiming.getTlsHandshakeDuration(),
+                transportTiming.getTimeToFirstByte(),
+                transportTiming.getResponseReadDuration(),
+                transportTiming.getResponseSize(),
+                retryCount,
+                now - startTime,
+                error
+        );
+    }
+
+    private long finishStage() {
+        long now = System.currentTimeMillis();
+        long duration = now - stageStartTime;
+        stageStartTime = now;
+        return duration;
+    }
+}
@@ -0,0 +1,172 @@
+package com.braintreepayments.api;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Runs a request to Braintree through its authorization, configuration and transport stages.
+ *
+ * Once authorization is available, configuration is loaded and the request is sent from the same
+ * background thread, so a request that has to fetch configuration first does not bounce through
+ * the main thread between stages. Only the final result is delivered on the main thread.
+ *
+ * While a {@link RequestMetricsListener} is set, each request records the time spent in every
+ * stage and reports it to the listener before the result is delivered.
+ */
+class RequestPipeline {
+
+    /**
+     * Builds and sends a request once authorization and configuration are available.
+     */
+    interface Request {
+
+        /**
+         * Called on a background thread.
+         *
+         * @param timing attach to the {@link HttpRequest} that is sent, or null if the request is
+         *               not being timed
+         * @return the response body
+         */
+        String send(Configuration configuration, Authorization authorization, @Nullable HttpRequestTiming timing) throws Exception;
+    }
+
+    private final Context applicationContext;
+    private final AuthorizationLoader authorizationLoader;
+    private final ConfigurationLoader configurationLoader;
+    private final Scheduler scheduler;
+
+    private volatile RequestMetricsListener listener;
+
+    RequestPipeline(Context applicationContext, AuthorizationLoader authorizationLoader, ConfigurationLoader configurationLoader, Scheduler scheduler) {
+        this.applicationContext = applicationContext;
+        this.authorizationLoader = authorizationLoader;
+        this.configurationLoader = configurationLoader;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param listener notified with the {@link RequestMetrics} of every request that starts after
+     *                 this call, or null to stop timing requests
+     */
+    void setListener(@Nullable RequestMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    boolean hasListener() {
+        return listener != null;
+    }
+
+    /**
+     * @param requestType the kind of request, reported in its {@link RequestMetrics}
+     * @param operation the endpoint or operation, reported in its {@link RequestMetrics}
+     * @param request the request to send
+     * @param callback notified on the main thread with the response body, or null if the result
+     *                 is not needed
+     */
+    void execute(@RequestMetrics.RequestType int requestType, String operation, final Request request, final HttpResponseCallback callback) {
+        // requests are only timed while a listener is registered
+        final RequestMetricsRecorder recorder =
+                (listener != null) ? new RequestMetricsRecorder(requestType, operation) : null;
+        authorizationLoader.loadAuthorization(new AuthorizationCallback() {
+            @Override
+            public void onAuthorizationResult(@Nullable final Authorization authorization, @Nullable Exception authError) {
+                if (recorder != null) {
+                    recorder.onAuthorizationLoaded();
+                }
+                if (authorization == null) {
+                    notifyListener(recorder, authError);
+                    if (callback != null) {
+                        callback.onResult(null, authError);
+                    }
+                    return;
+                }
+
+                runOnBackground(recorder, new Runnable() {
+                    @Override
+                    public void run() {
+                        loadConfiguration(request, authorization, recorder, callback);
+                    }
+                });
+            }
+        });
+    }
+
+    private void loadConfiguration(final Request request, final Authorization authorization, final RequestMetricsRecorder recorder, final HttpResponseCallback callback) {
+        final Thread stageThread = Thread.currentThread();
+        configurationLoader.loadConfigurationOnCurrentThread(applicationContext, authorization, new ConfigurationCallback() {
+            @Override
+            public void onResult(@Nullable final Configuration configuration, @Nullable Exception configError) {
+                if (recorder != null) {
+                    recorder.onConfigurationLoaded();
+                }
+                if (configuration == null) {
+                    notifyListener(recorder, configError);
+                    notifyOnMainThread(callback, null, configError);
+                    return;
+                }
+
+                if (Thread.currentThread() == stageThread) {
+                    send(request, configuration, authorization, recorder, callback);
+                } else {
+                    // the configuration came from a request that was already in flight and
+                    // finished on another thread
+                    runOnBackground(recorder, new Runnable() {
+                        @Override
+                        public void run() {
+                            send(request, configuration, authorization, recorder, callback);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void send(Request request, Configuration configuration, Authorization authorization, RequestMetricsRecorder recorder, HttpResponseCallback callback) {
+        HttpRequestTiming timing = (recorder != null) ? recorder.getTransportTiming() : null;
+        String responseBody = null;
+        Exception error = null;
+        try {
+            responseBody = request.send(configuration, authorization, timing);
+        } catch (Exception e) {
+            error = e;
+        }
+
+        notifyListener(recorder, error);
+        notifyOnMainThread(callback, responseBody, error);
+    }
+
+    private void runOnBackground(final RequestMetricsRecorder recorder, final Runnable task) {
+        if (recorder == null) {
+            scheduler.runOnBackground(task);
+            return;
+        }
+
+        recorder.onTaskScheduled();
+        scheduler.runOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                recorder.onTaskStarted();
+                task.run();
+            }
+        });
+    }
+
+    private void notifyListener(RequestMetricsRecorder recorder, Exception error) {
+        RequestMetricsListener listener = this.listener;
+        if (recorder != null && listener != null) {
+            listener.onRequestFinished(recorder.onRequestFinished(error));
+        }
+    }
+
+    private void notifyOnMainThread(final HttpResponseCallback callback, final String responseBody, final Exception error) {
+        if (callback != null) {
+            scheduler.runOnMain(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onResult(responseBody, error);
+                }
+            });
+        }
+    }
+}
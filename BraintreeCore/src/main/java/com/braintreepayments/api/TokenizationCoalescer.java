@@ -0,0 +1,222 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide registry of in-flight tokenize requests, used to send a request only once when
+ * identical requests are started while it is in flight, for example after a double tap or when
+ * a fragment is re-created. Callers that join a request receive the same result as the caller
+ * that started it.
+ *
+ * Requests are identified by a SHA-256 digest of their authorization, target and payload, so
+ * only the digest is held as a key. A request is forgotten as soon as it completes, so a request
+ * started afterwards is always sent, even if it is identical.
+ */
+class TokenizationCoalescer {
+
+    // an entry that stays in flight longer than this is assumed lost and is not joined
+    static final long MAX_IN_FLIGHT_MILLIS = 60000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile TokenizationCoalescer INSTANCE;
+
+    private final Map<String, Request> requests = new HashMap<>();
+    private final AtomicLong coalescedRequestCount = new AtomicLong();
+
+    static TokenizationCoalescer getInstance() {
+        if (INSTANCE == null) {
+            synchronized (TokenizationCoalescer.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    INSTANCE = new TokenizationCoalescer();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    TokenizationCoalescer() {
+    }
+
+    /**
+     * Start a tokenize request, or join an identical one.
+     *
+     * @param key the key returned by {@link #computeKey(String, String, JSONObject, String)}, or
+     *            null to send the request without coalescing it
+     * @param callback notified once with the result of the request
+     * @return a {@link Request} the caller must send and complete, or null if the callback joined
+     * a request that is in flight
+     */
+    @Nullable
+    Request start(@Nullable String key, TokenizeCallback callback) {
+        return start(key, callback, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    @Nullable
+    Request start(@Nullable String key, TokenizeCallback callback, long currentTimeMillis) {
+        if (key == null) {
+            return new Request(null, callback, currentTimeMillis);
+        }
+
+        synchronized (requests) {
+            removeExpiredRequests(currentTimeMillis);
+
+            Request request = requests.get(key);
+            if (request == null) {
+                request = new Request(key, callback, currentTimeMillis);
+                requests.put(key, request);
+                return request;
+            }
+
+            coalescedRequestCount.incrementAndGet();
+            request.callbacks.add(callback);
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of tokenize requests that joined another request instead of being sent
+     */
+    long getCoalescedRequestCount() {
+        return coalescedRequestCount.get();
+    }
+
+    private void removeExpiredRequests(long currentTimeMillis) {
+        Iterator<Request> iterator = requests.values().iterator();
+        while (iterator.hasNext()) {
+            Request request = iterator.next();
+            if (currentTimeMillis - request.startedAtMillis >= MAX_IN_FLIGHT_MILLIS) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void onComplete(Request request, @Nullable JSONObject response, @Nullable Exception error) {
+        List<TokenizeCallback> callbacks;
+        synchronized (requests) {
+            callbacks = new ArrayList<>(request.callbacks);
+            request.callbacks.clear();
+
+            if (request.key != null && requests.get(request.key) == request) {
+                requests.remove(request.key);
+            }
+        }
+
+        // only the first callback receives the parsed response; the others read their own copy
+        String responseBody = null;
+        if (response != null && callbacks.size() > 1) {
+            responseBody = response.toString();
+        }
+
+        for (int i = 0; i < callbacks.size(); i++) {
+            TokenizeCallback callback = callbacks.get(i);
+            if (i == 0 && response != null) {
+                if (callback != null) {
+                    callback.onResult(response, null);
+                }
+            } else {
+                deliver(callback, responseBody, error);
+            }
+        }
+    }
+
+    private static void deliver(TokenizeCallback callback, @Nullable String responseBody, @Nullable Exception error) {
+        if (callback == null) {
+            return;
+        }
+
+        if (responseBody != null) {
+            // every caller gets its own copy of the response to read or modify
+            try {
+                callback.onResult(new JSONObject(responseBody), null);
+            } catch (JSONException exception) {
+                callback.onResult(null, exception);
+            }
+        } else {
+            callback.onResult(null, error);
+        }
+    }
+
+    /**
+     * Compute the key of a tokenize request. The value of {@code excludedKey}, which holds
+     * metadata such as the session id that differs between otherwise identical requests, is left
+     * out of the digest.
+     *
+     * @return the hex encoded digest, or null if it cannot be computed
+     */
+    @Nullable
+    static String computeKey(String authorization, String target, JSONObject payload, @Nullable String excludedKey) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+
+        update(messageDigest, authorization);
+        update(messageDigest, target);
+        Iterator<String> keys = payload.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!key.equals(excludedKey)) {
+                update(messageDigest, key);
+                update(messageDigest, String.valueOf(payload.opt(key)));
+            }
+        }
+
+        byte[] digest = messageDigest.digest();
+        StringBuilder hash = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hash.append(String.format("%02x", b));
+        }
+        return hash.toString();
+    }
+
+    private static void update(MessageDigest messageDigest, String value) {
+        messageDigest.update(value.getBytes(UTF_8));
+        // separates values so that different splits of the same characters differ
+        messageDigest.update((byte) 0);
+    }
+
+    /**
+     * A tokenize request started by {@link #start(String, TokenizeCallback)}. Complete it with
+     * the response once it has been sent.
+     */
+    class Request {
+
+        private final String key;
+        private final long startedAtMillis;
+        private final List<TokenizeCallback> callbacks = new ArrayList<>();
+
+        private Request(String key, TokenizeCallback callback, long startedAtMillis) {
+            this.key = key;
+            this.startedAtMillis = startedAtMillis;
+            callbacks.add(callback);
+        }
+
+        void onSuccess(JSONObject response) {
+            onComplete(this, response, null);
+        }
+
+        void onFailure(Exception error) {
+            onComplete(this, null, error);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Callback for receiving result of {@link BraintreeClient#warmUp(WarmUpCallback)}.
+ */
+public interface WarmUpCallback {
+
+    /**
+     * @param warmUpResult the time spent in each phase of the warm-up
+     * @param error an exception that occurred while fetching authorization or configuration
+     */
+    void onResult(@Nullable WarmUpResult warmUpResult, @Nullable Exception error);
+}
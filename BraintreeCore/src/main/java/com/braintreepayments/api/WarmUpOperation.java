@@ -0,0 +1,85 @@
+package com.braintreepayments.api;
+
+/**
+ * Tracks the phases of a single {@link BraintreeClient#warmUp(WarmUpCallback)} call and notifies
+ * the callback once configuration has loaded and every connection has been opened.
+ */
+class WarmUpOperation {
+
+    private final WarmUpCallback callback;
+    private final long startTime;
+
+    private long authorizationDuration;
+    private long configurationDuration;
+    private long connectionStartTime;
+    private long connectionDuration;
+
+    private boolean isConfigurationLoaded;
+    private int pendingConnections;
+    private boolean isFinished;
+
+    WarmUpOperation(WarmUpCallback callback) {
+        this.callback = callback;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    synchronized void onAuthorizationLoaded() {
+        long now = System.currentTimeMillis();
+        authorizationDuration = now - startTime;
+        connectionStartTime = now;
+    }
+
+    /**
+     * Must be called before {@link #onConfigurationLoaded()} for connections that are opened once
+     * configuration is available.
+     */
+    synchronized void onConnectionStarted() {
+        pendingConnections++;
+    }
+
+    void onConnectionFinished() {
+        WarmUpResult result;
+        synchronized (this) {
+            pendingConnections--;
+            connectionDuration = System.currentTimeMillis() - connectionStartTime;
+            result = createResultIfFinished();
+        }
+        notifySuccess(result);
+    }
+
+    void onConfigurationLoaded() {
+        WarmUpResult result;
+        synchronized (this) {
+            configurationDuration = System.currentTimeMillis() - startTime - authorizationDuration;
+            isConfigurationLoaded = true;
+            result = createResultIfFinished();
+        }
+        notifySuccess(result);
+    }
+
+    void onError(Exception error) {
+        synchronized (this) {
+            if (isFinished) {
+                return;
+            }
+            isFinished = true;
+        }
+        callback.onResult(null, error);
+    }
+
+    private WarmUpResult createResultIfFinished() {
+        if (isFinished || !isConfigurationLoaded || pendingConnections > 0) {
+            return null;
+        }
+        isFinished = true;
+
+        long totalDuration = System.currentTimeMillis() - startTime;
+        return new WarmUpResult(authorizationDuration, configurationDuration, connectionDuration, totalDuration);
+    }
+
+    private void notifySuccess(WarmUpResult result) {
+        if (result != null) {
+            callback.onResult(result, null);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.braintreepayments.api;
+
+/**
+ * Timing breakdown of a {@link BraintreeClient#warmUp(WarmUpCallback)} call. All durations are in
+ * milliseconds.
+ */
+public class WarmUpResult {
+
+    private final long authorizationDuration;
+    private final long configurationDuration;
+    private final long connectionDuration;
+    private final long totalDuration;
+
+    WarmUpResult(long authorizationDuration, long configurationDuration, long connectionDuration, long totalDuration) {
+        this.authorizationDuration = authorizationDuration;
+        this.configurationDuration = configurationDuration;
+        this.connectionDuration = connectionDuration;
+        this.totalDuration = totalDuration;
+    }
+
+    /**
+     * @return the time spent loading authorization, including fetching a client token from a
+     * {@link ClientTokenProvider}.
+     */
+    public long getAuthorizationDuration() {
+        return authorizationDuration;
+    }
+
+    /**
+     * @return the time spent loading configuration from the cache or the Braintree gateway.
+     */
+    public long getConfigurationDuration() {
+        return configurationDuration;
+    }
+
+    /**
+     * @return the time spent opening connections to the Braintree gateway and GraphQL hosts. This
+     * overlaps with {@link #getConfigurationDuration()}.
+     */
+    public long getConnectionDuration() {
+        return connectionDuration;
+    }
+
+    /**
+     * @return the time from the start of the warm-up until all phases completed.
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+}
@@ -5,15 +5,22 @@ import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_CONFIGURA
 import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_EVENT_NAME;
 import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_INTEGRATION;
 import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_SESSION_ID;
+import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_SNAPSHOT_KEY;
 import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_TIMESTAMP;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -35,12 +42,15 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.robolectric.RobolectricTestRunner;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
@@ -60,6 +70,8 @@ public class AnalyticsClientUnitTest {
     private WorkManager workManager;
     private AnalyticsDatabase analyticsDatabase;
     private AnalyticsEventDao analyticsEventDao;
+    private AnalyticsEventBuffer analyticsEventBuffer;
+    private AnalyticsSnapshotStore analyticsSnapshotStore;
 
     @Before
     public void beforeEach() throws InvalidArgumentException, GeneralSecurityException, IOException {
@@ -77,35 +89,44 @@ public class AnalyticsClientUnitTest {
         analyticsDatabase = mock(AnalyticsDatabase.class);
         analyticsEventDao = mock(AnalyticsEventDao.class);
         when(analyticsDatabase.analyticsEventDao()).thenReturn(analyticsEventDao);
+        analyticsEventBuffer = mock(AnalyticsEventBuffer.class);
+        analyticsSnapshotStore = mock(AnalyticsSnapshotStore.class);
+        when(analyticsSnapshotStore.save(any(Configuration.class), any(Authorization.class))).thenReturn("snapshot-key");
 
         workManager = mock(WorkManager.class);
     }
 
     @Test
-    public void sendEvent_enqueuesAnalyticsWriteToDbWorker() throws JSONException {
+    public void sendEvent_addsEventToAnalyticsEventBuffer() throws JSONException {
         Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         sut.sendEvent(configuration, eventName, sessionId, integration, 123, authorization);
 
-        ArgumentCaptor<OneTimeWorkRequest> captor = ArgumentCaptor.forClass(OneTimeWorkRequest.class);
-        verify(workManager)
-                .enqueueUniqueWork(eq("writeAnalyticsToDb"), eq(ExistingWorkPolicy.APPEND_OR_REPLACE), captor.capture());
+        ArgumentCaptor<AnalyticsEvent> captor = ArgumentCaptor.forClass(AnalyticsEvent.class);
+        verify(analyticsEventBuffer).add(captor.capture());
 
-        OneTimeWorkRequest workRequest = captor.getValue();
-        WorkSpec workSpec = workRequest.getWorkSpec();
-        assertEquals(AnalyticsWriteToDbWorker.class.getName(), workSpec.workerClassName);
+        AnalyticsEvent event = captor.getValue();
+        assertEquals("android.sample-event-name", event.getName());
+        assertEquals(123, event.getTimestamp());
+    }
+
+    @Test
+    public void sendEvent_doesNotEnqueueAnalyticsWriteToDbWorker() throws JSONException {
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
 
-        assertEquals(authorization.toString(), workSpec.input.getString("authorization"));
-        assertEquals("android.sample-event-name", workSpec.input.getString("eventName"));
-        assertEquals(123, workSpec.input.getLong("timestamp", 0));
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        sut.sendEvent(configuration, eventName, sessionId, integration, 123, authorization);
+
+        verify(workManager, never())
+                .enqueueUniqueWork(eq("writeAnalyticsToDb"), any(ExistingWorkPolicy.class), any(OneTimeWorkRequest.class));
     }
 
     @Test
     public void sendEvent_enqueuesAnalyticsUploadWorker() throws JSONException {
         Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         sut.sendEvent(configuration, eventName, sessionId, integration, 123, authorization);
 
         ArgumentCaptor<OneTimeWorkRequest> captor = ArgumentCaptor.forClass(OneTimeWorkRequest.class);
@@ -117,10 +138,12 @@ public class AnalyticsClientUnitTest {
         assertEquals(30000, workSpec.initialDelay);
         assertEquals(AnalyticsUploadWorker.class.getName(), workSpec.workerClassName);
 
-        assertEquals(configuration.toJson(), workSpec.input.getString("configuration"));
-        assertEquals(authorization.toString(), workSpec.input.getString("authorization"));
+        assertEquals("snapshot-key", workSpec.input.getString("snapshotKey"));
+        assertNull(workSpec.input.getString("configuration"));
+        assertNull(workSpec.input.getString("authorization"));
         assertEquals("sample-session-id", workSpec.input.getString("sessionId"));
         assertEquals("sample-integration", workSpec.input.getString("integration"));
+        verify(analyticsSnapshotStore).save(configuration, authorization);
     }
 
     @Test
@@ -130,7 +153,7 @@ public class AnalyticsClientUnitTest {
                 .putLong(WORK_INPUT_KEY_TIMESTAMP, timestamp)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         ListenableWorker.Result result = sut.writeAnalytics(inputData);
         assertTrue(result instanceof ListenableWorker.Result.Success);
     }
@@ -141,7 +164,7 @@ public class AnalyticsClientUnitTest {
                 .putLong(WORK_INPUT_KEY_TIMESTAMP, timestamp)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         ListenableWorker.Result result = sut.writeAnalytics(inputData);
         assertTrue(result instanceof ListenableWorker.Result.Failure);
     }
@@ -152,7 +175,7 @@ public class AnalyticsClientUnitTest {
                 .putString(WORK_INPUT_KEY_EVENT_NAME, eventName)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         ListenableWorker.Result result = sut.writeAnalytics(inputData);
         assertTrue(result instanceof ListenableWorker.Result.Failure);
     }
@@ -164,7 +187,7 @@ public class AnalyticsClientUnitTest {
                 .putLong(WORK_INPUT_KEY_TIMESTAMP, timestamp)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         sut.writeAnalytics(inputData);
 
         ArgumentCaptor<AnalyticsEvent> captor = ArgumentCaptor.forClass(AnalyticsEvent.class);
@@ -185,7 +208,7 @@ public class AnalyticsClientUnitTest {
                 .putString(WORK_INPUT_KEY_INTEGRATION, integration)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         sut.uploadAnalytics(context, inputData);
 
         verifyZeroInteractions(httpClient);
@@ -205,12 +228,13 @@ public class AnalyticsClientUnitTest {
         when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(metadata);
 
         List<AnalyticsEvent> events = new ArrayList<>();
-        events.add(new AnalyticsEvent("event0", 123));
-        events.add(new AnalyticsEvent("event1", 456));
+        events.add(createEvent(1, "event0", 123));
+        events.add(createEvent(2, "event1", 456));
 
-        when(analyticsEventDao.getAllEvents()).thenReturn(events);
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt()))
+                .thenReturn(events, Collections.<AnalyticsEvent>emptyList());
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         sut.uploadAnalytics(context, inputData);
 
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
@@ -233,6 +257,108 @@ public class AnalyticsClientUnitTest {
         assertEquals(456, Long.parseLong(eventTwo.getString("timestamp")));
     }
 
+    @Test
+    public void uploadAnalytics_byDefault_doesNotCompressUploads() throws Exception {
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
+                .putString(WORK_INPUT_KEY_CONFIGURATION, configuration.toJson())
+                .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
+                .putString(WORK_INPUT_KEY_INTEGRATION, integration)
+                .build();
+
+        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(createSampleDeviceMetadata());
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt()))
+                .thenReturn(Collections.singletonList(createEvent(1, "event0", 123)), Collections.<AnalyticsEvent>emptyList());
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        sut.uploadAnalytics(context, inputData);
+
+        InOrder inOrder = inOrder(httpClient);
+        inOrder.verify(httpClient).setRequestCompressionThreshold(HttpRequest.NO_COMPRESSION);
+        inOrder.verify(httpClient).post(anyString(), anyString(), any(Configuration.class), any(Authorization.class));
+    }
+
+    @Test
+    public void uploadAnalytics_whenConfigurationEnablesCompression_compressesUploads() throws Exception {
+        JSONObject configurationJson = new JSONObject(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        configurationJson.getJSONObject("analytics").put("compressionEnabled", true);
+        Configuration configuration = Configuration.fromJson(configurationJson.toString());
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
+                .putString(WORK_INPUT_KEY_CONFIGURATION, configuration.toJson())
+                .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
+                .putString(WORK_INPUT_KEY_INTEGRATION, integration)
+                .build();
+
+        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(createSampleDeviceMetadata());
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt()))
+                .thenReturn(Collections.singletonList(createEvent(1, "event0", 123)), Collections.<AnalyticsEvent>emptyList());
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        sut.uploadAnalytics(context, inputData);
+
+        InOrder inOrder = inOrder(httpClient);
+        inOrder.verify(httpClient).setRequestCompressionThreshold(AnalyticsClient.ANALYTICS_COMPRESSION_THRESHOLD_BYTES);
+        inOrder.verify(httpClient).post(anyString(), anyString(), any(Configuration.class), any(Authorization.class));
+    }
+
+    @Test
+    public void uploadAnalytics_writesBufferedEventsBeforeReadingDatabase() throws Exception {
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
+                .putString(WORK_INPUT_KEY_CONFIGURATION, configuration.toJson())
+                .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
+                .putString(WORK_INPUT_KEY_INTEGRATION, integration)
+                .build();
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        sut.uploadAnalytics(context, inputData);
+
+        InOrder inOrder = inOrder(analyticsEventBuffer, analyticsEventDao);
+        inOrder.verify(analyticsEventBuffer).flushOnCurrentThread();
+        inOrder.verify(analyticsEventDao).getEventsAfter(0, AnalyticsClient.MAX_EVENTS_PER_UPLOAD);
+    }
+
+    @Test
+    public void uploadAnalytics_withSnapshotKey_usesStoredConfigurationAndAuthorization() throws Exception {
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        when(analyticsSnapshotStore.load("snapshot-key"))
+                .thenReturn(new AnalyticsSnapshotStore.Entry(configuration, authorization));
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_SNAPSHOT_KEY, "snapshot-key")
+                .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
+                .putString(WORK_INPUT_KEY_INTEGRATION, integration)
+                .build();
+
+        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(createSampleDeviceMetadata());
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt())).thenReturn(
+                Collections.singletonList(createEvent(1, "event0", 123)),
+                Collections.<AnalyticsEvent>emptyList());
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
+
+        assertTrue(result instanceof ListenableWorker.Result.Success);
+        verify(httpClient).post(eq("analytics_url"), anyString(), same(configuration), same(authorization));
+    }
+
+    @Test
+    public void uploadAnalytics_whenSnapshotIsMissing_returnsFailure() {
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_SNAPSHOT_KEY, "snapshot-key")
+                .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
+                .putString(WORK_INPUT_KEY_INTEGRATION, integration)
+                .build();
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
+
+        assertTrue(result instanceof ListenableWorker.Result.Failure);
+        verifyZeroInteractions(httpClient);
+    }
+
     @Test
     public void uploadAnalytics_whenConfigurationIsNull_doesNothing() {
         Data inputData = new Data.Builder()
@@ -241,7 +367,7 @@ public class AnalyticsClientUnitTest {
                 .putString(WORK_INPUT_KEY_INTEGRATION, integration)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
 
         ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
         assertTrue(result instanceof ListenableWorker.Result.Failure);
@@ -257,7 +383,7 @@ public class AnalyticsClientUnitTest {
                 .putString(WORK_INPUT_KEY_INTEGRATION, integration)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
 
         ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
         assertTrue(result instanceof ListenableWorker.Result.Failure);
@@ -273,7 +399,7 @@ public class AnalyticsClientUnitTest {
                 .putString(WORK_INPUT_KEY_INTEGRATION, integration)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
 
         ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
         assertTrue(result instanceof ListenableWorker.Result.Failure);
@@ -289,7 +415,7 @@ public class AnalyticsClientUnitTest {
                 .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
                 .build();
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
 
         ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
         assertTrue(result instanceof ListenableWorker.Result.Failure);
@@ -310,15 +436,77 @@ public class AnalyticsClientUnitTest {
         when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(metadata);
 
         List<AnalyticsEvent> events = new ArrayList<>();
-        events.add(new AnalyticsEvent("event0", 123));
-        events.add(new AnalyticsEvent("event1", 456));
+        events.add(createEvent(1, "event0", 123));
+        events.add(createEvent(2, "event1", 456));
+
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt()))
+                .thenReturn(events, Collections.<AnalyticsEvent>emptyList());
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        sut.uploadAnalytics(context, inputData);
+
+        verify(analyticsEventDao).deleteEventsUpTo(2);
+    }
+
+    @Test
+    public void uploadAnalytics_requestsPagesAfterLastUploadedEvent() throws Exception {
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
+                .putString(WORK_INPUT_KEY_CONFIGURATION, configuration.toJson())
+                .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
+                .putString(WORK_INPUT_KEY_INTEGRATION, integration)
+                .build();
+
+        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(createSampleDeviceMetadata());
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt())).thenReturn(
+                Collections.singletonList(createEvent(7, "event0", 123)),
+                Collections.singletonList(createEvent(9, "event1", 456)),
+                Collections.<AnalyticsEvent>emptyList());
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
+        assertTrue(result instanceof ListenableWorker.Result.Success);
+
+        InOrder inOrder = inOrder(analyticsEventDao);
+        inOrder.verify(analyticsEventDao).getEventsAfter(0, AnalyticsClient.MAX_EVENTS_PER_UPLOAD);
+        inOrder.verify(analyticsEventDao).deleteEventsUpTo(7);
+        inOrder.verify(analyticsEventDao).getEventsAfter(7, AnalyticsClient.MAX_EVENTS_PER_UPLOAD);
+        inOrder.verify(analyticsEventDao).deleteEventsUpTo(9);
+        inOrder.verify(analyticsEventDao).getEventsAfter(9, AnalyticsClient.MAX_EVENTS_PER_UPLOAD);
+        verify(httpClient, times(2)).post(anyString(), anyString(), any(Configuration.class), any(Authorization.class));
+    }
+
+    @Test
+    public void uploadAnalytics_splitsEventsThatExceedMaxUploadSize() throws Exception {
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
+                .putString(WORK_INPUT_KEY_CONFIGURATION, configuration.toJson())
+                .putString(WORK_INPUT_KEY_SESSION_ID, sessionId)
+                .putString(WORK_INPUT_KEY_INTEGRATION, integration)
+                .build();
+
+        char[] longName = new char[AnalyticsClient.MAX_UPLOAD_BYTES / 2];
+        Arrays.fill(longName, 'a');
+        List<AnalyticsEvent> events = new ArrayList<>();
+        events.add(createEvent(1, new String(longName), 123));
+        events.add(createEvent(2, new String(longName), 456));
+        events.add(createEvent(3, "event2", 789));
 
-        when(analyticsEventDao.getAllEvents()).thenReturn(events);
+        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(createSampleDeviceMetadata());
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt())).thenReturn(
+                events, events.subList(1, 3), Collections.<AnalyticsEvent>emptyList());
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         sut.uploadAnalytics(context, inputData);
 
-        verify(analyticsEventDao).deleteEvents(events);
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(httpClient, times(2)).post(anyString(), captor.capture(), any(Configuration.class), any(Authorization.class));
+        assertEquals(1, new JSONObject(captor.getAllValues().get(0)).getJSONArray("analytics").length());
+        assertEquals(2, new JSONObject(captor.getAllValues().get(1)).getJSONArray("analytics").length());
+        verify(analyticsEventDao).deleteEventsUpTo(1);
+        verify(analyticsEventDao).deleteEventsUpTo(3);
     }
 
     @Test
@@ -335,70 +523,73 @@ public class AnalyticsClientUnitTest {
         when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(metadata);
 
         List<AnalyticsEvent> events = new ArrayList<>();
-        events.add(new AnalyticsEvent("event0", 123));
-        events.add(new AnalyticsEvent("event1", 456));
+        events.add(createEvent(1, "event0", 123));
+        events.add(createEvent(2, "event1", 456));
 
-        when(analyticsEventDao.getAllEvents()).thenReturn(events);
+        when(analyticsEventDao.getEventsAfter(anyInt(), anyInt()))
+                .thenReturn(events, Collections.<AnalyticsEvent>emptyList());
 
         Exception httpError = new Exception("error");
         when(httpClient.post(anyString(), anyString(), any(Configuration.class), any(Authorization.class))).thenThrow(httpError);
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
         assertTrue(result instanceof ListenableWorker.Result.Failure);
+        verify(analyticsEventDao, never()).deleteEventsUpTo(anyInt());
     }
 
     @Test
-    public void reportCrash_whenLastKnownAnalyticsUrlExists_sendsCrashAnalyticsEvent() throws Exception {
-        DeviceMetadata metadata = createSampleDeviceMetadata();
-        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(metadata);
-
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
+    public void reportCrash_whenLastKnownAnalyticsUrlExists_writesCrashEventToDatabase() throws JSONException {
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
         Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
 
         sut.sendEvent(configuration, eventName, sessionId, integration, authorization);
-        sut.reportCrash(context, sessionId, integration, 123, authorization);
-
-        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(httpClient).post(eq("analytics_url"), captor.capture(), (Configuration) isNull(), same(authorization), any(HttpNoResponse.class));
-
-        JSONObject analyticsJson = new JSONObject(captor.getValue());
-
-        JSONObject meta = analyticsJson.getJSONObject("_meta");
-        JSONAssert.assertEquals(metadata.toJSON(), meta, true);
+        assertTrue(sut.reportCrash(123));
 
-        JSONArray array = analyticsJson.getJSONArray("analytics");
-        assertEquals(1, array.length());
+        ArgumentCaptor<AnalyticsEvent> captor = ArgumentCaptor.forClass(AnalyticsEvent.class);
+        InOrder inOrder = inOrder(analyticsEventBuffer);
+        inOrder.verify(analyticsEventBuffer, times(2)).add(captor.capture());
+        inOrder.verify(analyticsEventBuffer).flushAndWait(anyLong());
 
-        JSONObject eventOne = array.getJSONObject(0);
-        assertEquals("android.crash", eventOne.getString("kind"));
-        assertEquals(123, Long.parseLong(eventOne.getString("timestamp")));
+        AnalyticsEvent crashEvent = captor.getAllValues().get(1);
+        assertEquals("android.crash", crashEvent.getName());
+        assertEquals(123, crashEvent.getTimestamp());
     }
 
     @Test
-    public void reportCrash_whenLastKnownAnalyticsUrlMissing_doesNothing() throws JSONException {
-        DeviceMetadata metadata = createSampleDeviceMetadata();
-        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(metadata);
+    public void reportCrash_doesNotSendRequest() throws JSONException {
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
-        sut.reportCrash(context, sessionId, integration, 123, authorization);
+        sut.sendEvent(configuration, eventName, sessionId, integration, authorization);
+        sut.reportCrash(123);
 
         verifyZeroInteractions(httpClient);
     }
 
     @Test
-    public void reportCrash_whenAuthorizationIsNull_doesNothing() throws JSONException {
-        DeviceMetadata metadata = createSampleDeviceMetadata();
-        when(deviceInspector.getDeviceMetadata(context, sessionId, integration)).thenReturn(metadata);
+    public void reportCrash_writesBufferedEventsToDatabase() {
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+        sut.reportCrash(123);
 
-        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, workManager, deviceInspector);
-        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        verify(analyticsEventBuffer).flushAndWait(anyLong());
+    }
 
-        sut.sendEvent(configuration, eventName, sessionId, integration, authorization);
-        sut.reportCrash(context, sessionId, integration, 123, null);
+    @Test
+    public void reportCrash_whenLastKnownAnalyticsUrlMissing_doesNotAddCrashEvent() {
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase, analyticsEventBuffer, analyticsSnapshotStore, workManager, deviceInspector);
+
+        assertFalse(sut.reportCrash(123));
+        verify(analyticsEventBuffer, never()).add(any(AnalyticsEvent.class));
         verifyZeroInteractions(httpClient);
     }
 
+    private static AnalyticsEvent createEvent(int id, String name, long timestamp) {
+        AnalyticsEvent event = new AnalyticsEvent(name, timestamp);
+        event.id = id;
+        return event;
+    }
+
     private static DeviceMetadata createSampleDeviceMetadata() {
         return new DeviceMetadata.Builder()
                 .integration("sample-integration")
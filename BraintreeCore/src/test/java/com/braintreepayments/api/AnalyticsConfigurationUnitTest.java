@@ -17,11 +17,13 @@ public class AnalyticsConfigurationUnitTest {
     @Test
     public void fromJson_parsesFullInput() throws JSONException {
         JSONObject input = new JSONObject()
-                .put("url", "https://example.com/analytics");
+                .put("url", "https://example.com/analytics")
+                .put("compressionEnabled", true);
 
         AnalyticsConfiguration sut = AnalyticsConfiguration.fromJson(input);
         assertTrue(sut.isEnabled());
         assertEquals("https://example.com/analytics", sut.getUrl());
+        assertTrue(sut.isCompressionEnabled());
     }
 
     @Test
@@ -29,6 +31,7 @@ public class AnalyticsConfigurationUnitTest {
         AnalyticsConfiguration sut = AnalyticsConfiguration.fromJson(null);
         assertFalse(sut.isEnabled());
         assertNull(sut.getUrl());
+        assertFalse(sut.isCompressionEnabled());
     }
 
     @Test
@@ -36,5 +39,6 @@ public class AnalyticsConfigurationUnitTest {
         AnalyticsConfiguration sut = AnalyticsConfiguration.fromJson(new JSONObject());
         assertFalse(sut.isEnabled());
         assertNull(sut.getUrl());
+        assertFalse(sut.isCompressionEnabled());
     }
 }
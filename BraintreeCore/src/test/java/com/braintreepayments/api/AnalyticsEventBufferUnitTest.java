@@ -0,0 +1,208 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AnalyticsEventBufferUnitTest {
+
+    private AnalyticsDatabase analyticsDatabase;
+    private AnalyticsEventDao analyticsEventDao;
+    private MockThreadScheduler scheduler;
+
+    @Before
+    public void beforeEach() {
+        analyticsDatabase = mock(AnalyticsDatabase.class);
+        analyticsEventDao = mock(AnalyticsEventDao.class);
+        when(analyticsDatabase.analyticsEventDao()).thenReturn(analyticsEventDao);
+
+        scheduler = new MockThreadScheduler();
+    }
+
+    @Test
+    public void add_schedulesSingleDelayedFlush() {
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 10, 5000);
+        sut.add(new AnalyticsEvent("event0", 123));
+        sut.add(new AnalyticsEvent("event1", 456));
+
+        assertEquals(Collections.singletonList(5000L), scheduler.getBackgroundThreadDelays());
+        verify(analyticsEventDao, never()).insertEvents(anyList());
+    }
+
+    @Test
+    public void add_whenFlushRuns_writesAllEventsInOneBatch() {
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 10, 5000);
+        sut.add(new AnalyticsEvent("event0", 123));
+        sut.add(new AnalyticsEvent("event1", 456));
+        scheduler.flushBackgroundThread();
+
+        ArgumentCaptor<List<AnalyticsEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(analyticsEventDao).insertEvents(captor.capture());
+
+        List<AnalyticsEvent> events = captor.getValue();
+        assertEquals(2, events.size());
+        assertEquals("event0", events.get(0).getName());
+        assertEquals("event1", events.get(1).getName());
+        assertEquals(0, sut.size());
+        verify(analyticsEventDao).deleteEventsExceeding(AnalyticsEventBuffer.MAX_STORED_EVENT_COUNT);
+    }
+
+    @Test
+    public void add_whenFlushThresholdIsReached_flushesImmediately() {
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 2, 5000);
+        sut.add(new AnalyticsEvent("event0", 123));
+        sut.add(new AnalyticsEvent("event1", 456));
+
+        // one delayed flush for the first event, one immediate flush for the threshold
+        assertEquals(Collections.singletonList(5000L), scheduler.getBackgroundThreadDelays());
+
+        scheduler.flushBackgroundThread();
+        verify(analyticsEventDao, times(1)).insertEvents(anyList());
+    }
+
+    @Test
+    public void add_whenEventsArriveAboveFlushThreshold_schedulesSingleImmediateFlush() {
+        MockThreadScheduler scheduler = spy(this.scheduler);
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 2, 5000);
+        for (int i = 0; i < 10; i++) {
+            sut.add(new AnalyticsEvent("event" + i, i));
+        }
+
+        verify(scheduler, times(1)).runOnBackground(any(Runnable.class));
+
+        scheduler.flushBackgroundThread();
+        verify(analyticsEventDao, times(1)).insertEvents(anyList());
+
+        sut.add(new AnalyticsEvent("event10", 10));
+        sut.add(new AnalyticsEvent("event11", 11));
+        verify(scheduler, times(2)).runOnBackground(any(Runnable.class));
+    }
+
+    @Test
+    public void add_whenCapacityIsExceeded_dropsOldestEvent() {
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 2, 10, 5000);
+        sut.add(new AnalyticsEvent("event0", 1));
+        sut.add(new AnalyticsEvent("event1", 2));
+        sut.add(new AnalyticsEvent("event2", 3));
+        assertEquals(2, sut.size());
+
+        sut.flushOnCurrentThread();
+
+        ArgumentCaptor<List<AnalyticsEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(analyticsEventDao).insertEvents(captor.capture());
+        assertEquals("event1", captor.getValue().get(0).getName());
+        assertEquals("event2", captor.getValue().get(1).getName());
+    }
+
+    @Test
+    public void flushOnCurrentThread_whenWriteFails_keepsEventsForNextFlush() {
+        doThrow(new IllegalStateException("error"))
+                .doNothing()
+                .when(analyticsEventDao).insertEvents(anyList());
+
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 10, 5000);
+        sut.add(new AnalyticsEvent("event0", 123));
+
+        sut.flushOnCurrentThread();
+        assertEquals(1, sut.size());
+
+        sut.flushOnCurrentThread();
+        assertEquals(0, sut.size());
+        verify(analyticsEventDao, times(2)).insertEvents(anyList());
+    }
+
+    @Test
+    public void flushOnCurrentThread_whenWriteFails_schedulesRetryFlush() {
+        doThrow(new IllegalStateException("error"))
+                .doNothing()
+                .when(analyticsEventDao).insertEvents(anyList());
+
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 10, 5000);
+        sut.add(new AnalyticsEvent("event0", 123));
+        scheduler.flushBackgroundThread();
+
+        assertEquals(Arrays.asList(5000L, 5000L), scheduler.getBackgroundThreadDelays());
+        assertEquals(0, sut.size());
+        verify(analyticsEventDao, times(2)).insertEvents(anyList());
+    }
+
+    @Test
+    public void flushOnCurrentThread_whenWriteFails_dropsOldestEventsThatNoLongerFit() {
+        final AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 2, 10, 5000);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                // an event arrives while the failing write is in progress
+                sut.add(new AnalyticsEvent("event2", 3));
+                throw new IllegalStateException("error");
+            }
+        }).doNothing().when(analyticsEventDao).insertEvents(anyList());
+
+        sut.add(new AnalyticsEvent("event0", 1));
+        sut.add(new AnalyticsEvent("event1", 2));
+        sut.flushOnCurrentThread();
+        assertEquals(2, sut.size());
+
+        sut.flushOnCurrentThread();
+
+        ArgumentCaptor<List<AnalyticsEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(analyticsEventDao, times(2)).insertEvents(captor.capture());
+        List<AnalyticsEvent> events = captor.getValue();
+        assertEquals(2, events.size());
+        assertEquals("event2", events.get(0).getName());
+        assertEquals("event1", events.get(1).getName());
+    }
+
+    @Test
+    public void flushOnCurrentThread_whenEmpty_doesNotWrite() {
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 10, 5000);
+        sut.flushOnCurrentThread();
+
+        verify(analyticsEventDao, never()).insertEvents(anyList());
+    }
+
+    @Test(timeout = 5000)
+    public void flushAndWait_writesEventsBeforeReturning() {
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 10, 5000);
+        sut.add(new AnalyticsEvent("event0", 123));
+
+        sut.flushAndWait(5000);
+
+        verify(analyticsEventDao).insertEvents(anyList());
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void onTrimMemory_whenUiIsHidden_flushes() {
+        AnalyticsEventBuffer sut = new AnalyticsEventBuffer(analyticsDatabase, scheduler, 100, 10, 5000);
+        sut.add(new AnalyticsEvent("event0", 123));
+
+        sut.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        scheduler.flushBackgroundThread();
+
+        verify(analyticsEventDao).insertEvents(anyList());
+    }
+}
@@ -0,0 +1,104 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class AnalyticsSnapshotStoreUnitTest {
+
+    private AnalyticsDatabase analyticsDatabase;
+    private Configuration configuration;
+    private Authorization authorization;
+
+    @Before
+    public void beforeEach() throws Exception {
+        analyticsDatabase = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AnalyticsDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        authorization = Authorization.fromString(Fixtures.TOKENIZATION_KEY);
+    }
+
+    @After
+    public void afterEach() {
+        analyticsDatabase.close();
+    }
+
+    @Test
+    public void save_storesSnapshotThatCanBeLoadedByAnotherStore() {
+        AnalyticsSnapshotStore sut = new AnalyticsSnapshotStore(analyticsDatabase);
+        String key = sut.save(configuration, authorization);
+
+        AnalyticsSnapshotStore.Entry entry = new AnalyticsSnapshotStore(analyticsDatabase).load(key);
+
+        assertNotNull(entry);
+        assertEquals(configuration.toJson(), entry.getConfiguration().toJson());
+        assertEquals(authorization.toString(), entry.getAuthorization().toString());
+    }
+
+    @Test
+    public void load_reusesParsedInstances() {
+        AnalyticsSnapshotStore sut = new AnalyticsSnapshotStore(analyticsDatabase);
+        String key = sut.save(configuration, authorization);
+
+        assertSame(configuration, sut.load(key).getConfiguration());
+        assertSame(sut.load(key), sut.load(key));
+    }
+
+    @Test
+    public void save_whenConfigurationIsUnchanged_writesSnapshotOnce() {
+        AnalyticsDatabase database = mock(AnalyticsDatabase.class);
+        AnalyticsSnapshotDao snapshotDao = mock(AnalyticsSnapshotDao.class);
+        when(database.analyticsSnapshotDao()).thenReturn(snapshotDao);
+
+        AnalyticsSnapshotStore sut = new AnalyticsSnapshotStore(database);
+        sut.save(configuration, authorization);
+        sut.save(configuration, authorization);
+
+        verify(snapshotDao, times(1)).insertSnapshot(any(AnalyticsSnapshot.class));
+    }
+
+    @Test
+    public void save_whenConfigurationChanges_replacesSnapshot() throws Exception {
+        AnalyticsSnapshotStore sut = new AnalyticsSnapshotStore(analyticsDatabase);
+        String firstKey = sut.save(configuration, authorization);
+        Configuration updatedConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_SANDBOX_ANALYTICS);
+        String secondKey = sut.save(updatedConfiguration, authorization);
+
+        assertEquals(firstKey, secondKey);
+        AnalyticsSnapshotStore.Entry entry = new AnalyticsSnapshotStore(analyticsDatabase).load(secondKey);
+        assertEquals(updatedConfiguration.toJson(), entry.getConfiguration().toJson());
+    }
+
+    @Test
+    public void load_whenSnapshotDoesNotExist_returnsNull() {
+        AnalyticsSnapshotStore sut = new AnalyticsSnapshotStore(analyticsDatabase);
+        assertNull(sut.load("missing"));
+    }
+
+    @Test
+    public void createKey_dependsOnAuthorization() throws Exception {
+        Authorization otherAuthorization = Authorization.fromString(Fixtures.PROD_TOKENIZATION_KEY);
+
+        assertEquals(AnalyticsSnapshotStore.createKey(authorization), AnalyticsSnapshotStore.createKey(authorization));
+        assertNotEquals(AnalyticsSnapshotStore.createKey(authorization), AnalyticsSnapshotStore.createKey(otherAuthorization));
+        assertEquals(64, AnalyticsSnapshotStore.createKey(authorization).length());
+    }
+}
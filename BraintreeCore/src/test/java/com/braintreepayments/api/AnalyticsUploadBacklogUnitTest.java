@@ -0,0 +1,182 @@
+package com.braintreepayments.api;
+
+import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_AUTHORIZATION;
+import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_CONFIGURATION;
+import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_INTEGRATION;
+import static com.braintreepayments.api.AnalyticsClient.WORK_INPUT_KEY_SESSION_ID;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.Data;
+import androidx.work.ListenableWorker;
+import androidx.work.WorkManager;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uploads a large backlog, as left behind by a long offline period, through a real Room database.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AnalyticsUploadBacklogUnitTest {
+
+    private static final int EVENT_COUNT = 100000;
+    private static final int INSERT_BATCH_SIZE = 10000;
+
+    private Context context;
+    private AnalyticsDatabase roomDatabase;
+    private RecordingAnalyticsEventDao analyticsEventDao;
+    private AnalyticsDatabase analyticsDatabase;
+    private BraintreeHttpClient httpClient;
+    private DeviceInspector deviceInspector;
+
+    @Before
+    public void beforeEach() {
+        context = ApplicationProvider.getApplicationContext();
+        roomDatabase = Room.inMemoryDatabaseBuilder(context, AnalyticsDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+
+        analyticsEventDao = new RecordingAnalyticsEventDao(roomDatabase.analyticsEventDao());
+        analyticsDatabase = mock(AnalyticsDatabase.class);
+        when(analyticsDatabase.analyticsEventDao()).thenReturn(analyticsEventDao);
+
+        httpClient = mock(BraintreeHttpClient.class);
+        deviceInspector = mock(DeviceInspector.class);
+        when(deviceInspector.getDeviceMetadata(any(Context.class), anyString(), anyString()))
+                .thenReturn(new DeviceMetadata.Builder().sessionId("session-id").integration("custom").build());
+    }
+
+    @After
+    public void afterEach() {
+        roomDatabase.close();
+    }
+
+    @Test(timeout = 120000)
+    public void uploadAnalytics_withLargeBacklog_uploadsEveryEventInBoundedChunks() throws Exception {
+        for (int i = 0; i < EVENT_COUNT; i += INSERT_BATCH_SIZE) {
+            List<AnalyticsEvent> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            for (int j = i; j < i + INSERT_BATCH_SIZE; j++) {
+                batch.add(new AnalyticsEvent("android.event-" + j, j));
+            }
+            analyticsEventDao.insertEvents(batch);
+        }
+
+        final int[] uploadedEventCount = new int[1];
+        final int[] maxUploadLength = new int[1];
+        when(httpClient.post(anyString(), anyString(), any(Configuration.class), any(Authorization.class)))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) throws Throwable {
+                        String body = invocation.getArgument(1);
+                        JSONObject request = new JSONObject(body);
+                        uploadedEventCount[0] += request.getJSONArray("analytics").length();
+                        maxUploadLength[0] = Math.max(maxUploadLength[0], request.getJSONArray("analytics").toString().length());
+                        return "";
+                    }
+                });
+
+        Authorization authorization = Authorization.fromString(Fixtures.TOKENIZATION_KEY);
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ANALYTICS);
+        Data inputData = new Data.Builder()
+                .putString(WORK_INPUT_KEY_AUTHORIZATION, authorization.toString())
+                .putString(WORK_INPUT_KEY_CONFIGURATION, configuration.toJson())
+                .putString(WORK_INPUT_KEY_SESSION_ID, "session-id")
+                .putString(WORK_INPUT_KEY_INTEGRATION, "custom")
+                .build();
+
+        AnalyticsClient sut = new AnalyticsClient(httpClient, analyticsDatabase,
+                mock(AnalyticsEventBuffer.class), mock(AnalyticsSnapshotStore.class), mock(WorkManager.class), deviceInspector);
+        ListenableWorker.Result result = sut.uploadAnalytics(context, inputData);
+
+        assertTrue(result instanceof ListenableWorker.Result.Success);
+        assertEquals(EVENT_COUNT, uploadedEventCount[0]);
+        assertTrue(maxUploadLength[0] <= AnalyticsClient.MAX_UPLOAD_BYTES);
+        // no more events are held in memory at once than fit in a single page
+        assertTrue(analyticsEventDao.maxPageSize <= AnalyticsClient.MAX_EVENTS_PER_UPLOAD);
+        assertTrue(analyticsEventDao.getEventsAfter(0, 1).isEmpty());
+    }
+
+    @Test
+    public void deleteEventsExceeding_keepsNewestEvents() {
+        List<AnalyticsEvent> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new AnalyticsEvent("android.event-" + i, i));
+        }
+        analyticsEventDao.insertEvents(events);
+
+        analyticsEventDao.deleteEventsExceeding(4);
+
+        List<AnalyticsEvent> remaining = analyticsEventDao.getEventsAfter(0, 100);
+        assertEquals(4, remaining.size());
+        assertEquals("android.event-6", remaining.get(0).getName());
+        assertEquals("android.event-9", remaining.get(3).getName());
+    }
+
+    @Test
+    public void deleteEventsExceeding_whenBelowLimit_keepsAllEvents() {
+        List<AnalyticsEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(new AnalyticsEvent("android.event-" + i, i));
+        }
+        analyticsEventDao.insertEvents(events);
+
+        analyticsEventDao.deleteEventsExceeding(4);
+
+        assertEquals(3, analyticsEventDao.getEventsAfter(0, 100).size());
+    }
+
+    private static class RecordingAnalyticsEventDao implements AnalyticsEventDao {
+
+        private final AnalyticsEventDao delegate;
+        private int maxPageSize;
+
+        RecordingAnalyticsEventDao(AnalyticsEventDao delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void insertEvent(AnalyticsEvent event) {
+            delegate.insertEvent(event);
+        }
+
+        @Override
+        public void insertEvents(List<AnalyticsEvent> events) {
+            delegate.insertEvents(events);
+        }
+
+        @Override
+        public List<AnalyticsEvent> getEventsAfter(int afterId, int limit) {
+            List<AnalyticsEvent> events = delegate.getEventsAfter(afterId, limit);
+            maxPageSize = Math.max(maxPageSize, events.size());
+            return events;
+        }
+
+        @Override
+        public void deleteEventsUpTo(int id) {
+            delegate.deleteEventsUpTo(id);
+        }
+
+        @Override
+        public void deleteEventsExceeding(int maxEventCount) {
+            delegate.deleteEventsExceeding(maxEventCount);
+        }
+    }
+}
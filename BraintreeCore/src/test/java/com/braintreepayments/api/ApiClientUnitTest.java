@@ -17,12 +17,17 @@ import org.robolectric.RobolectricTestRunner;
 import java.lang.ref.WeakReference;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 @RunWith(RobolectricTestRunner.class)
@@ -86,13 +91,11 @@ public class ApiClientUnitTest {
         ApiClient sut = new ApiClient(braintreeClient);
         Card card = new Card();
 
-        sut.tokenizeGraphQL(card.buildJSONForGraphQL(), null);
+        JSONObject tokenizePayload = card.buildJSONForGraphQL();
+        sut.tokenizeGraphQL(card.getGraphQLQuery(), tokenizePayload, null);
 
         verify(braintreeClient, never()).sendPOST(anyString(), anyString(), any(HttpResponseCallback.class));
-
-        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(braintreeClient).sendGraphQLPOST(captor.capture(), any(HttpResponseCallback.class));
-        assertEquals(card.buildJSONForGraphQL().toString(), captor.getValue());
+        verify(braintreeClient).sendGraphQLPOST(same(Card.TOKENIZE_CREDIT_CARD_QUERY), same(tokenizePayload), any(HttpResponseCallback.class));
     }
 
     @Test
@@ -104,7 +107,7 @@ public class ApiClientUnitTest {
         Card card = new Card();
 
         ApiClient sut = new ApiClient(braintreeClient);
-        sut.tokenizeGraphQL(card.buildJSONForGraphQL(), null);
+        sut.tokenizeGraphQL(card.getGraphQLQuery(), card.buildJSONForGraphQL(), null);
 
         verify(braintreeClient).sendAnalyticsEvent("card.graphql.tokenization.started");
     }
@@ -122,6 +125,7 @@ public class ApiClientUnitTest {
         sut.tokenizeREST(new VenmoAccount(), null);
 
         verify(braintreeClient, never()).sendGraphQLPOST(anyString(), any(HttpResponseCallback.class));
+        verify(braintreeClient, never()).sendGraphQLPOST(any(GraphQLQuery.class), any(JSONObject.class), any(HttpResponseCallback.class));
     }
 
     @Test
@@ -134,7 +138,7 @@ public class ApiClientUnitTest {
         Card card = new Card();
 
         ApiClient sut = new ApiClient(braintreeClient);
-        sut.tokenizeGraphQL(card.buildJSONForGraphQL(), new TokenizeCallback() {
+        sut.tokenizeGraphQL(card.getGraphQLQuery(), card.buildJSONForGraphQL(), new TokenizeCallback() {
             @Override
             public void onResult(JSONObject tokenizationResponse, Exception exception) {
 
@@ -154,7 +158,7 @@ public class ApiClientUnitTest {
         Card card = new Card();
 
         ApiClient sut = new ApiClient(braintreeClient);
-        sut.tokenizeGraphQL(card.buildJSONForGraphQL(), new TokenizeCallback() {
+        sut.tokenizeGraphQL(card.getGraphQLQuery(), card.buildJSONForGraphQL(), new TokenizeCallback() {
             @Override
             public void onResult(JSONObject tokenizationResponse, Exception exception) {
 
@@ -164,6 +168,98 @@ public class ApiClientUnitTest {
         verify(braintreeClient).sendAnalyticsEvent("card.graphql.tokenization.failure");
     }
 
+    @Test
+    public void tokenizeREST_whenIdenticalRequestInFlight_sendsOnceAndSharesResult() throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .sessionId("session-id")
+                .build();
+        when(braintreeClient.getAuthorizationFromCache())
+                .thenReturn(Authorization.fromString(Fixtures.TOKENIZATION_KEY));
+        TokenizationCoalescer tokenizationCoalescer = new TokenizationCoalescer();
+        TokenizeCallback callback1 = mock(TokenizeCallback.class);
+        TokenizeCallback callback2 = mock(TokenizeCallback.class);
+
+        new ApiClient(new WeakReference<>(braintreeClient), tokenizationCoalescer)
+                .tokenizeREST(new PayPalAccount(), callback1);
+        new ApiClient(new WeakReference<>(braintreeClient), tokenizationCoalescer)
+                .tokenizeREST(new PayPalAccount(), callback2);
+
+        ArgumentCaptor<HttpResponseCallback> httpCallbackCaptor = ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(braintreeClient, times(1)).sendPOST(anyString(), anyString(), httpCallbackCaptor.capture());
+        verifyZeroInteractions(callback1, callback2);
+
+        httpCallbackCaptor.getValue().onResult(Fixtures.PAYMENT_METHODS_PAYPAL_ACCOUNT_RESPONSE, null);
+
+        ArgumentCaptor<JSONObject> response1Captor = ArgumentCaptor.forClass(JSONObject.class);
+        ArgumentCaptor<JSONObject> response2Captor = ArgumentCaptor.forClass(JSONObject.class);
+        verify(callback1).onResult(response1Captor.capture(), (Exception) isNull());
+        verify(callback2).onResult(response2Captor.capture(), (Exception) isNull());
+        assertNotSame(response1Captor.getValue(), response2Captor.getValue());
+        assertEquals(response1Captor.getValue().toString(), response2Captor.getValue().toString());
+        assertEquals(1, tokenizationCoalescer.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void tokenizeREST_withDifferentPayloads_sendsEachRequest() throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        when(braintreeClient.getAuthorizationFromCache())
+                .thenReturn(Authorization.fromString(Fixtures.TOKENIZATION_KEY));
+
+        ApiClient sut = new ApiClient(new WeakReference<>(braintreeClient), new TokenizationCoalescer());
+        Card card1 = new Card();
+        card1.setNumber("4111111111111111");
+        Card card2 = new Card();
+        card2.setNumber("5555555555554444");
+        sut.tokenizeREST(card1, null);
+        sut.tokenizeREST(card2, null);
+
+        verify(braintreeClient, times(2)).sendPOST(anyString(), anyString(), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void tokenizeREST_withoutCachedAuthorization_doesNotCoalesceRequests() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+
+        ApiClient sut = new ApiClient(new WeakReference<>(braintreeClient), new TokenizationCoalescer());
+        sut.tokenizeREST(new PayPalAccount(), null);
+        sut.tokenizeREST(new PayPalAccount(), null);
+
+        verify(braintreeClient, times(2)).sendPOST(anyString(), anyString(), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void tokenizeGraphQL_whenIdenticalRequestInFlight_sendsOnceAndSharesError() throws BraintreeException, JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+        when(braintreeClient.getAuthorizationFromCache())
+                .thenReturn(Authorization.fromString(Fixtures.TOKENIZATION_KEY));
+        TokenizeCallback callback1 = mock(TokenizeCallback.class);
+        TokenizeCallback callback2 = mock(TokenizeCallback.class);
+        Card card = new Card();
+        card.setNumber("4111111111111111");
+
+        ApiClient sut = new ApiClient(new WeakReference<>(braintreeClient), new TokenizationCoalescer());
+        sut.tokenizeGraphQL(card.getGraphQLQuery(), card.buildJSONForGraphQL(), callback1);
+        sut.tokenizeGraphQL(card.getGraphQLQuery(), card.buildJSONForGraphQL(), callback2);
+
+        ArgumentCaptor<HttpResponseCallback> httpCallbackCaptor = ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(braintreeClient, times(1)).sendGraphQLPOST(any(GraphQLQuery.class), any(JSONObject.class), httpCallbackCaptor.capture());
+        verify(braintreeClient, times(1)).sendAnalyticsEvent("card.graphql.tokenization.started");
+
+        Exception error = new Exception("error");
+        httpCallbackCaptor.getValue().onResult(null, error);
+
+        verify(callback1).onResult(null, error);
+        verify(callback2).onResult(null, error);
+        verify(braintreeClient, times(1)).sendAnalyticsEvent("card.graphql.tokenization.failure");
+    }
+
     @Test
     public void versionedPath_returnsv1Path() {
         assertEquals("/v1/test/path", ApiClient.versionedPath("test/path"));
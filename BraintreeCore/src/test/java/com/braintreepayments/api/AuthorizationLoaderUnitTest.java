@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -94,6 +95,47 @@ public class AuthorizationLoaderUnitTest {
         verify(clientTokenProvider, times(1)).getClientToken(any(ClientTokenCallback.class));
     }
 
+    @Test
+    public void loadAuthorization_whenClientTokenFetchInFlight_sharesSingleFetch() {
+        ClientTokenProvider clientTokenProvider = mock(ClientTokenProvider.class);
+        sut = new AuthorizationLoader(null, clientTokenProvider);
+
+        AuthorizationCallback callback = mock(AuthorizationCallback.class);
+        AuthorizationCallback secondCallback = mock(AuthorizationCallback.class);
+        sut.loadAuthorization(callback);
+        sut.loadAuthorization(secondCallback);
+
+        ArgumentCaptor<ClientTokenCallback> captor = ArgumentCaptor.forClass(ClientTokenCallback.class);
+        verify(clientTokenProvider, times(1)).getClientToken(captor.capture());
+        captor.getValue().onSuccess(Fixtures.BASE64_CLIENT_TOKEN);
+
+        ArgumentCaptor<Authorization> authCaptor = ArgumentCaptor.forClass(Authorization.class);
+        verify(callback).onAuthorizationResult(authCaptor.capture(), (Exception) isNull());
+        verify(secondCallback).onAuthorizationResult(same(authCaptor.getValue()), (Exception) isNull());
+    }
+
+    @Test
+    public void loadAuthorization_whenSharedClientTokenFetchFails_forwardsErrorAndAllowsRetry() {
+        ClientTokenProvider clientTokenProvider = mock(ClientTokenProvider.class);
+        sut = new AuthorizationLoader(null, clientTokenProvider);
+
+        AuthorizationCallback callback = mock(AuthorizationCallback.class);
+        AuthorizationCallback secondCallback = mock(AuthorizationCallback.class);
+        sut.loadAuthorization(callback);
+        sut.loadAuthorization(secondCallback);
+
+        Exception error = new Exception("error");
+        ArgumentCaptor<ClientTokenCallback> captor = ArgumentCaptor.forClass(ClientTokenCallback.class);
+        verify(clientTokenProvider).getClientToken(captor.capture());
+        captor.getValue().onFailure(error);
+
+        verify(callback).onAuthorizationResult(null, error);
+        verify(secondCallback).onAuthorizationResult(null, error);
+
+        sut.loadAuthorization(callback);
+        verify(clientTokenProvider, times(2)).getClientToken(any(ClientTokenCallback.class));
+    }
+
     @Test
     public void loadAuthorization_whenInitialAuthDoesNotExistAndInvalidateClientTokenCalled_returnsNewClientToken() {
         AuthorizationCallback callback = mock(AuthorizationCallback.class);
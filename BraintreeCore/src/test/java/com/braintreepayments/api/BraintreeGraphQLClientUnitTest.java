@@ -1,6 +1,7 @@
 package com.braintreepayments.api;
 
 import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,16 +15,23 @@ import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 public class BraintreeGraphQLClientUnitTest {
 
+    private static final GraphQLQuery QUERY =
+            new GraphQLQuery("TestQuery", "query TestQuery { test }", "test-hash");
+
     private HttpClient httpClient;
     private HttpResponseCallback httpResponseCallback;
 
@@ -140,4 +148,111 @@ public class BraintreeGraphQLClientUnitTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void post_withQuery_whenPersistedQueriesDisabled_sendsDocument() throws Exception {
+        when(httpClient.sendRequest(any(HttpRequest.class))).thenReturn("sample response");
+
+        BraintreeGraphQLClient sut = new BraintreeGraphQLClient(httpClient);
+        String result = sut.post(QUERY, createPayload(), configuration, authorization, null);
+        assertEquals("sample response", result);
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).sendRequest(captor.capture());
+
+        JSONObject body = getBody(captor.getValue());
+        assertEquals("query TestQuery { test }", body.getString("query"));
+        assertFalse(body.has("extensions"));
+        assertEquals("value", body.getJSONObject("variables").getString("key"));
+    }
+
+    @Test
+    public void post_withQuery_whenPersistedQueriesEnabled_sendsHashOnly() throws Exception {
+        when(httpClient.sendRequest(any(HttpRequest.class))).thenReturn("sample response");
+
+        BraintreeGraphQLClient sut = new BraintreeGraphQLClient(httpClient);
+        String result = sut.post(QUERY, createPayload(), createPersistedQueriesConfiguration(), authorization, null);
+        assertEquals("sample response", result);
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).sendRequest(captor.capture());
+
+        JSONObject body = getBody(captor.getValue());
+        assertFalse(body.has("query"));
+        JSONObject persistedQuery = body.getJSONObject("extensions").getJSONObject("persistedQuery");
+        assertEquals(1, persistedQuery.getInt("version"));
+        assertEquals("test-hash", persistedQuery.getString("sha256Hash"));
+        assertEquals("value", body.getJSONObject("variables").getString("key"));
+    }
+
+    @Test
+    public void post_withQuery_whenPersistedQueryNotFound_retriesWithDocumentAndHash() throws Exception {
+        when(httpClient.sendRequest(any(HttpRequest.class)))
+                .thenThrow(new UnexpectedException("PersistedQueryNotFound"))
+                .thenReturn("sample response");
+
+        BraintreeGraphQLClient sut = new BraintreeGraphQLClient(httpClient);
+        String result = sut.post(QUERY, createPayload(), createPersistedQueriesConfiguration(), authorization, null);
+        assertEquals("sample response", result);
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient, times(2)).sendRequest(captor.capture());
+
+        JSONObject retryBody = getBody(captor.getAllValues().get(1));
+        assertEquals("query TestQuery { test }", retryBody.getString("query"));
+        assertEquals("test-hash", retryBody.getJSONObject("extensions")
+                .getJSONObject("persistedQuery").getString("sha256Hash"));
+    }
+
+    @Test
+    public void post_withQuery_whenPersistedQueriesNotSupported_sendsDocumentFromThenOn() throws Exception {
+        when(httpClient.sendRequest(any(HttpRequest.class)))
+                .thenThrow(new UnexpectedException("PersistedQueryNotSupported"))
+                .thenReturn("sample response");
+        Configuration configuration = createPersistedQueriesConfiguration();
+
+        BraintreeGraphQLClient sut = new BraintreeGraphQLClient(httpClient);
+        assertEquals("sample response", sut.post(QUERY, createPayload(), configuration, authorization, null));
+        assertEquals("sample response", sut.post(QUERY, createPayload(), configuration, authorization, null));
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient, times(3)).sendRequest(captor.capture());
+
+        for (HttpRequest request : captor.getAllValues().subList(1, 3)) {
+            JSONObject body = getBody(request);
+            assertEquals("query TestQuery { test }", body.getString("query"));
+            assertFalse(body.has("extensions"));
+        }
+    }
+
+    @Test
+    public void post_withQuery_whenOtherErrorOccurs_throwsWithoutRetrying() throws Exception {
+        UnexpectedException error = new UnexpectedException("error");
+        when(httpClient.sendRequest(any(HttpRequest.class))).thenThrow(error);
+
+        BraintreeGraphQLClient sut = new BraintreeGraphQLClient(httpClient);
+        try {
+            sut.post(QUERY, createPayload(), createPersistedQueriesConfiguration(), authorization, null);
+            fail("expected exception");
+        } catch (UnexpectedException e) {
+            assertSame(error, e);
+        }
+
+        verify(httpClient, times(1)).sendRequest(any(HttpRequest.class));
+    }
+
+    private static JSONObject createPayload() throws JSONException {
+        return new JSONObject()
+                .put("variables", new JSONObject().put("key", "value"));
+    }
+
+    private static Configuration createPersistedQueriesConfiguration() {
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getGraphQLUrl()).thenReturn("https://example-graphql.com/graphql");
+        when(configuration.isGraphQLFeatureEnabled(GraphQLConstants.Features.PERSISTED_QUERIES)).thenReturn(true);
+        return configuration;
+    }
+
+    private static JSONObject getBody(HttpRequest request) throws JSONException {
+        return new JSONObject(new String(request.getData(), StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,6 @@
 package com.braintreepayments.api;
 
+import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -37,6 +38,23 @@ public class BraintreeGraphQLResponseParserUnitTest {
         assertEquals(responseWithSuccess, result);
     }
 
+    @Test(expected = JSONException.class)
+    public void parse_whenResponseIsMalformed_throwsJSONException() throws Exception {
+        when(baseParser.parse(123, urlConnection)).thenReturn("{\"data\":");
+
+        BraintreeGraphQLResponseParser sut = new BraintreeGraphQLResponseParser(baseParser);
+        sut.parse(123, urlConnection);
+    }
+
+    @Test
+    public void parse_whenErrorsKeyIsNotAtTopLevel_forwardsResult() throws Exception {
+        String response = "{\"data\":{\"errors\":\"none\"}}";
+        when(baseParser.parse(123, urlConnection)).thenReturn(response);
+
+        BraintreeGraphQLResponseParser sut = new BraintreeGraphQLResponseParser(baseParser);
+        assertEquals(response, sut.parse(123, urlConnection));
+    }
+
     @Test
     public void parse_propagatesExceptionsByDefault() throws Exception {
         exceptionRule.expect(Exception.class);
@@ -76,6 +94,7 @@ public class BraintreeGraphQLResponseParserUnitTest {
         } catch (AuthorizationException e) {
             assertEquals("Validation is not supported for requests authorized with a tokenization key.",
                     e.getMessage());
+            assertEquals(responseWithValidationNotAllowed, e.getResponseBody());
         }
     }
 
@@ -90,6 +109,7 @@ public class BraintreeGraphQLResponseParserUnitTest {
             fail("No exception was thrown");
         } catch (UnexpectedException e) {
             assertEquals("Variable 'input' has coerced Null value for NonNull type 'String!'", e.getMessage());
+            assertEquals(responseWithCoercionError, e.getResponseBody());
         }
     }
 
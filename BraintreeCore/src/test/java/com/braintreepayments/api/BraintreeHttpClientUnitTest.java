@@ -5,6 +5,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 
 import java.net.MalformedURLException;
@@ -16,12 +18,15 @@ import java.util.Map;
 import static com.braintreepayments.api.FixturesHelper.base64Encode;
 import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -113,6 +118,102 @@ public class BraintreeHttpClientUnitTest {
         assertEquals("GET", httpRequest.getMethod());
     }
 
+    @Test
+    public void get_withETag_sendsIfNoneMatchHeaderAndForwardsResponseETag() throws Exception {
+        Authorization tokenizationKey = TokenizationKey.fromString(Fixtures.TOKENIZATION_KEY);
+        BraintreeHttpClient sut = new BraintreeHttpClient(httpClient);
+
+        ETagHttpResponseCallback callback = mock(ETagHttpResponseCallback.class);
+        sut.get("https://example.com/config", null, tokenizationKey, "\"etag\"", HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+        ArgumentCaptor<HttpResponseCallback> callbackCaptor = ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(httpClient).sendRequest(requestCaptor.capture(), eq(HttpClient.RETRY_MAX_3_TIMES), callbackCaptor.capture());
+
+        HttpRequest httpRequest = requestCaptor.getValue();
+        assertEquals("\"etag\"", httpRequest.getHeaders().get("If-None-Match"));
+        assertEquals(Fixtures.TOKENIZATION_KEY, httpRequest.getHeaders().get("Client-Key"));
+
+        httpRequest.setResponseETag("\"new-etag\"");
+        callbackCaptor.getValue().onResult("response body", null);
+        verify(callback).onResult("response body", "\"new-etag\"", null);
+    }
+
+    @Test
+    public void get_withoutETag_doesNotSendIfNoneMatchHeader() throws Exception {
+        Authorization tokenizationKey = TokenizationKey.fromString(Fixtures.TOKENIZATION_KEY);
+        BraintreeHttpClient sut = new BraintreeHttpClient(httpClient);
+
+        ETagHttpResponseCallback callback = mock(ETagHttpResponseCallback.class);
+        sut.get("https://example.com/config", null, tokenizationKey, null, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).sendRequest(requestCaptor.capture(), eq(HttpClient.RETRY_MAX_3_TIMES), any(HttpResponseCallback.class));
+        assertNull(requestCaptor.getValue().getHeaders().get("If-None-Match"));
+    }
+
+    @Test
+    public void getSync_withTokenizationKey_forwardsHttpRequestToHttpClient() throws Exception {
+        Authorization tokenizationKey = TokenizationKey.fromString(Fixtures.TOKENIZATION_KEY);
+        BraintreeHttpClient sut = new BraintreeHttpClient(httpClient);
+
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getClientApiUrl()).thenReturn("https://example.com");
+        when(httpClient.sendRequest(any(HttpRequest.class))).thenReturn("sample result");
+
+        assertEquals("sample result", sut.get("sample/path", configuration, tokenizationKey));
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).sendRequest(captor.capture());
+
+        HttpRequest httpRequest = captor.getValue();
+        assertEquals(new URL("https://example.com/sample/path"), httpRequest.getURL());
+        assertEquals(Fixtures.TOKENIZATION_KEY, httpRequest.getHeaders().get("Client-Key"));
+        assertEquals("GET", httpRequest.getMethod());
+    }
+
+    @Test
+    public void getOnCurrentThread_withETag_sendsRequestOnCurrentThreadAndForwardsResponseETag() throws Exception {
+        Authorization tokenizationKey = TokenizationKey.fromString(Fixtures.TOKENIZATION_KEY);
+        BraintreeHttpClient sut = new BraintreeHttpClient(httpClient);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                HttpRequest request = (HttpRequest) invocation.getArguments()[0];
+                assertEquals("\"etag\"", request.getHeaders().get("If-None-Match"));
+                request.setResponseETag("\"new-etag\"");
+                ((HttpResponseCallback) invocation.getArguments()[2]).onResult("response body", null);
+                return null;
+            }
+        }).when(httpClient).sendRequestOnCurrentThread(any(HttpRequest.class), eq(HttpClient.RETRY_MAX_3_TIMES), any(HttpResponseCallback.class));
+
+        ETagHttpResponseCallback callback = mock(ETagHttpResponseCallback.class);
+        sut.getOnCurrentThread("https://example.com/config", null, tokenizationKey, "\"etag\"", HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        verify(callback).onResult("response body", "\"new-etag\"", null);
+    }
+
+    @Test
+    public void getOnCurrentThread_onHttpError_forwardsErrorToCallback() throws Exception {
+        Authorization tokenizationKey = TokenizationKey.fromString(Fixtures.TOKENIZATION_KEY);
+        BraintreeHttpClient sut = new BraintreeHttpClient(httpClient);
+
+        final Exception httpError = new Exception("http error");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((HttpResponseCallback) invocation.getArguments()[2]).onResult(null, httpError);
+                return null;
+            }
+        }).when(httpClient).sendRequestOnCurrentThread(any(HttpRequest.class), eq(HttpClient.RETRY_MAX_3_TIMES), any(HttpResponseCallback.class));
+
+        ETagHttpResponseCallback callback = mock(ETagHttpResponseCallback.class);
+        sut.getOnCurrentThread("https://example.com/config", null, tokenizationKey, null, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        verify(callback).onResult(null, null, httpError);
+    }
+
     @Test
     public void get_withInvalidToken_forwardsExceptionToCallback() {
         Authorization authorization = new InvalidAuthorization("invalid", "token invalid");
@@ -154,6 +255,33 @@ public class BraintreeHttpClientUnitTest {
         assertEquals("{}", new String(httpRequest.getData(), StandardCharsets.UTF_8));
     }
 
+    @Test
+    public void postSync_whenRequestCompressionThresholdIsSet_compressesLargeRequests() throws Exception {
+        Authorization tokenizationKey = TokenizationKey.fromString(Fixtures.TOKENIZATION_KEY);
+        BraintreeHttpClient sut = new BraintreeHttpClient(httpClient);
+        sut.setRequestCompressionThreshold(8);
+
+        sut.post("https://example.com/sample/path", "{\"key\":\"value\"}", null, tokenizationKey);
+        sut.post("https://example.com/sample/path", "{}", null, tokenizationKey);
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient, times(2)).sendRequest(captor.capture());
+        assertTrue(captor.getAllValues().get(0).shouldCompressData());
+        assertFalse(captor.getAllValues().get(1).shouldCompressData());
+    }
+
+    @Test
+    public void postSync_byDefault_doesNotCompressRequests() throws Exception {
+        Authorization tokenizationKey = TokenizationKey.fromString(Fixtures.TOKENIZATION_KEY);
+        BraintreeHttpClient sut = new BraintreeHttpClient(httpClient);
+
+        sut.post("https://example.com/sample/path", "{\"key\":\"value\"}", null, tokenizationKey);
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).sendRequest(captor.capture());
+        assertFalse(captor.getValue().shouldCompressData());
+    }
+
     @Test
     public void postSync_withClientToken_forwardsHttpRequestToHttpClient() throws Exception {
         ClientToken clientToken = (ClientToken) Authorization.fromString(base64Encode(Fixtures.CLIENT_TOKEN));
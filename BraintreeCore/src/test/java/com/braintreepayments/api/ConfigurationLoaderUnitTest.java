@@ -8,17 +8,26 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -151,4 +160,298 @@ public class ConfigurationLoaderUnitTest {
         verify(braintreeHttpClient, times(0)).get(anyString(), (Configuration) isNull(), same(authorization), anyInt(), any(HttpResponseCallback.class));
         verify(callback).onResult(any(Configuration.class), (Exception) isNull());
     }
+
+    @Test
+    public void loadConfiguration_whenConfigurationInMemory_doesNotReadPersistentCache() throws JSONException {
+        String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+        Configuration configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, configuration, System.currentTimeMillis());
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(configurationCache, never()).getConfiguration(any(Context.class), anyString());
+        verify(braintreeHttpClient, never()).get(anyString(), (Configuration) isNull(), same(authorization), anyInt(), any(HttpResponseCallback.class));
+        verify(callback).onResult(same(configuration), (Exception) isNull());
+    }
+
+    @Test
+    public void loadConfiguration_whenCachedConfigurationAvailable_savesParsedConfigurationInMemory() {
+        String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+        when(configurationCache.getConfiguration(context, cacheKey)).thenReturn(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN);
+        when(configurationCache.getConfigurationTimestamp(context, cacheKey)).thenReturn(System.currentTimeMillis());
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.loadConfiguration(context, authorization, callback);
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(configurationCache, times(1)).getConfiguration(context, cacheKey);
+        verify(callback, times(2)).onResult(any(Configuration.class), (Exception) isNull());
+    }
+
+    @Test
+    public void loadConfiguration_whenFetchedFromNetwork_savesConfigurationInMemory() {
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache);
+        sut.loadConfiguration(context, authorization, callback);
+
+        ArgumentCaptor<HttpResponseCallback> captor = ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(braintreeHttpClient).get(anyString(), (Configuration) isNull(), same(authorization), eq(HttpClient.RETRY_MAX_3_TIMES), captor.capture());
+        captor.getValue().onResult(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, null);
+
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(braintreeHttpClient, times(1)).get(anyString(), (Configuration) isNull(), same(authorization), anyInt(), any(HttpResponseCallback.class));
+        verify(callback, times(2)).onResult(any(Configuration.class), (Exception) isNull());
+    }
+
+    @Test
+    public void loadConfiguration_whenRequestAlreadyInFlight_sharesSingleNetworkRequest() {
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        ConfigurationCallback secondCallback = mock(ConfigurationCallback.class);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache);
+        sut.loadConfiguration(context, authorization, callback);
+        sut.loadConfiguration(context, authorization, secondCallback);
+
+        ArgumentCaptor<HttpResponseCallback> captor = ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(braintreeHttpClient, times(1)).get(anyString(), (Configuration) isNull(), same(authorization), eq(HttpClient.RETRY_MAX_3_TIMES), captor.capture());
+        captor.getValue().onResult(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, null);
+
+        ArgumentCaptor<Configuration> configurationCaptor = ArgumentCaptor.forClass(Configuration.class);
+        verify(callback).onResult(configurationCaptor.capture(), (Exception) isNull());
+        verify(secondCallback).onResult(same(configurationCaptor.getValue()), (Exception) isNull());
+    }
+
+    @Test
+    public void loadConfiguration_whenSharedRequestFails_forwardsErrorToAllCallbacks() {
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        ConfigurationCallback secondCallback = mock(ConfigurationCallback.class);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache);
+        sut.loadConfiguration(context, authorization, callback);
+        sut.loadConfiguration(context, authorization, secondCallback);
+
+        ArgumentCaptor<HttpResponseCallback> captor = ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(braintreeHttpClient, times(1)).get(anyString(), (Configuration) isNull(), same(authorization), eq(HttpClient.RETRY_MAX_3_TIMES), captor.capture());
+        captor.getValue().onResult(null, new Exception("http error"));
+
+        verify(callback).onResult((Configuration) isNull(), any(ConfigurationException.class));
+        verify(secondCallback).onResult((Configuration) isNull(), any(ConfigurationException.class));
+
+        // a subsequent request retries the network call
+        sut.loadConfiguration(context, authorization, callback);
+        verify(braintreeHttpClient, times(2)).get(anyString(), (Configuration) isNull(), same(authorization), eq(HttpClient.RETRY_MAX_3_TIMES), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void loadConfiguration_whenStaleConfigurationWithinMaxStaleness_returnsItAndRevalidatesWithETag() throws JSONException {
+        String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+        Configuration staleConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+        when(configurationCache.getConfigurationETag(context, cacheKey)).thenReturn("\"etag\"");
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        long fetchedAt = System.currentTimeMillis() - ConfigurationCache.TIME_TO_LIVE - 1000;
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, staleConfiguration, fetchedAt);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.setMaxStaleness(60000);
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(callback).onResult(same(staleConfiguration), (Exception) isNull());
+        verify(braintreeHttpClient).get(eq("https://example.com/config?configVersion=3"), (Configuration) isNull(), same(authorization), eq("\"etag\""), eq(HttpClient.RETRY_MAX_3_TIMES), any(ETagHttpResponseCallback.class));
+    }
+
+    @Test
+    public void loadConfiguration_whenStaleConfigurationServedTwice_revalidatesOnce() throws JSONException {
+        String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        long fetchedAt = System.currentTimeMillis() - ConfigurationCache.TIME_TO_LIVE - 1000;
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN), fetchedAt);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.setMaxStaleness(60000);
+        sut.loadConfiguration(context, authorization, callback);
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(callback, times(2)).onResult(any(Configuration.class), (Exception) isNull());
+        verify(braintreeHttpClient, times(1)).get(anyString(), (Configuration) isNull(), same(authorization), (String) isNull(), anyInt(), any(ETagHttpResponseCallback.class));
+    }
+
+    @Test
+    public void loadConfiguration_whenStaleConfigurationExceedsMaxStaleness_waitsForNetwork() throws JSONException {
+        String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        long fetchedAt = System.currentTimeMillis() - ConfigurationCache.TIME_TO_LIVE - 120000;
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN), fetchedAt);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.setMaxStaleness(60000);
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(callback, never()).onResult(any(Configuration.class), any(Exception.class));
+
+        ArgumentCaptor<ETagHttpResponseCallback> captor = ArgumentCaptor.forClass(ETagHttpResponseCallback.class);
+        verify(braintreeHttpClient).get(anyString(), (Configuration) isNull(), same(authorization), (String) isNull(), eq(HttpClient.RETRY_MAX_3_TIMES), captor.capture());
+        captor.getValue().onResult(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, "\"new-etag\"", null);
+
+        verify(configurationCache).saveConfigurationETag(context, cacheKey, "\"new-etag\"");
+        verify(configurationCache).saveConfiguration(same(context), any(Configuration.class), eq(cacheKey));
+        verify(callback).onResult(any(Configuration.class), (Exception) isNull());
+    }
+
+    @Test
+    public void loadConfiguration_whenRevalidationReturnsNotModified_restartsTimeToLiveOfCachedConfiguration() throws JSONException {
+        String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+        when(configurationCache.getConfigurationETag(context, cacheKey)).thenReturn("\"etag\"");
+        when(configurationCache.getConfiguration(same(context), eq(cacheKey), anyLong(), eq(Long.MAX_VALUE)))
+                .thenReturn(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN);
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        long fetchedAt = System.currentTimeMillis() - ConfigurationCache.TIME_TO_LIVE - 1000;
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN), fetchedAt);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.setMaxStaleness(60000);
+        sut.loadConfiguration(context, authorization, callback);
+
+        ArgumentCaptor<ETagHttpResponseCallback> captor = ArgumentCaptor.forClass(ETagHttpResponseCallback.class);
+        verify(braintreeHttpClient).get(anyString(), (Configuration) isNull(), same(authorization), eq("\"etag\""), anyInt(), captor.capture());
+        captor.getValue().onResult(null, null, new NotModifiedException());
+
+        verify(configurationCache).saveConfiguration(same(context), any(Configuration.class), eq(cacheKey));
+        verify(configurationCache, never()).saveConfigurationETag(any(Context.class), anyString(), (String) isNull());
+        assertNotNull(inMemoryConfigurationCache.getConfiguration(cacheKey));
+    }
+
+    @Test
+    public void loadConfiguration_whenFullFetchHasNoETag_revalidatesWithoutPreviousETag() throws JSONException {
+        final String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        // the ETag of a configuration that was cached before the full fetch
+        final Map<String, String> eTags = new HashMap<>();
+        eTags.put(cacheKey, "\"old-etag\"");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                eTags.put((String) invocation.getArgument(1), (String) invocation.getArgument(2));
+                return null;
+            }
+        }).when(configurationCache).saveConfigurationETag(any(Context.class), anyString(), (String) any());
+        when(configurationCache.getConfigurationETag(context, cacheKey)).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                return eTags.get(cacheKey);
+            }
+        });
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.loadConfiguration(context, authorization, callback);
+
+        ArgumentCaptor<HttpResponseCallback> fetchCaptor = ArgumentCaptor.forClass(HttpResponseCallback.class);
+        verify(braintreeHttpClient).get(anyString(), (Configuration) isNull(), same(authorization), eq(HttpClient.RETRY_MAX_3_TIMES), fetchCaptor.capture());
+        fetchCaptor.getValue().onResult(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, null);
+
+        // let the fetched configuration go stale so that the next load revalidates it
+        long fetchedAt = System.currentTimeMillis() - ConfigurationCache.TIME_TO_LIVE - 1000;
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN), fetchedAt);
+        sut.setMaxStaleness(60000);
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(braintreeHttpClient).get(anyString(), (Configuration) isNull(), same(authorization), (String) isNull(), eq(HttpClient.RETRY_MAX_3_TIMES), any(ETagHttpResponseCallback.class));
+        verify(braintreeHttpClient, never()).get(anyString(), (Configuration) isNull(), same(authorization), eq("\"old-etag\""), anyInt(), any(ETagHttpResponseCallback.class));
+    }
+
+    @Test
+    public void loadConfiguration_whenMaxStalenessNotSet_doesNotServeStaleConfiguration() throws JSONException {
+        String cacheKey = Base64.encodeToString(String.format("%s%s", "https://example.com/config?configVersion=3", "bearer").getBytes(), 0);
+
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        InMemoryConfigurationCache inMemoryConfigurationCache = new InMemoryConfigurationCache(4);
+        long fetchedAt = System.currentTimeMillis() - ConfigurationCache.TIME_TO_LIVE - 1000;
+        inMemoryConfigurationCache.saveConfiguration(cacheKey, Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN), fetchedAt);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache, inMemoryConfigurationCache);
+        sut.loadConfiguration(context, authorization, callback);
+
+        verify(callback, never()).onResult(any(Configuration.class), any(Exception.class));
+        verify(braintreeHttpClient).get(anyString(), (Configuration) isNull(), same(authorization), eq(HttpClient.RETRY_MAX_3_TIMES), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void loadConfigurationOnCurrentThread_fetchesConfigurationAndForwardsResultOnCallingThread() {
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache);
+        sut.loadConfigurationOnCurrentThread(context, authorization, callback);
+
+        String expectedConfigUrl = "https://example.com/config?configVersion=3";
+        ArgumentCaptor<ETagHttpResponseCallback> captor = ArgumentCaptor.forClass(ETagHttpResponseCallback.class);
+        verify(braintreeHttpClient).getOnCurrentThread(eq(expectedConfigUrl), (Configuration) isNull(), same(authorization), (String) isNull(), eq(HttpClient.RETRY_MAX_3_TIMES), captor.capture());
+        verify(braintreeHttpClient, never()).get(anyString(), any(Configuration.class), any(Authorization.class), anyInt(), any(HttpResponseCallback.class));
+
+        captor.getValue().onResult(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, null, null);
+        verify(callback).onResult(any(Configuration.class), (Exception) isNull());
+    }
+
+    @Test
+    public void loadConfigurationOnCurrentThread_whenOtherCallersJoinRequest_notifiesThemOnMainThread() {
+        when(authorization.getConfigUrl()).thenReturn("https://example.com/config");
+        when(authorization.getBearer()).thenReturn("bearer");
+
+        MockThreadScheduler scheduler = new MockThreadScheduler();
+        ConfigurationCallback joiningCallback = mock(ConfigurationCallback.class);
+
+        ConfigurationLoader sut = new ConfigurationLoader(braintreeHttpClient, configurationCache,
+                new InMemoryConfigurationCache(InMemoryConfigurationCache.DEFAULT_MAX_ENTRIES), scheduler);
+        sut.loadConfigurationOnCurrentThread(context, authorization, callback);
+        sut.loadConfiguration(context, authorization, joiningCallback);
+
+        ArgumentCaptor<ETagHttpResponseCallback> captor = ArgumentCaptor.forClass(ETagHttpResponseCallback.class);
+        verify(braintreeHttpClient, times(1)).getOnCurrentThread(anyString(), (Configuration) isNull(), same(authorization), (String) isNull(), anyInt(), captor.capture());
+        verify(braintreeHttpClient, never()).get(anyString(), any(Configuration.class), any(Authorization.class), anyInt(), any(HttpResponseCallback.class));
+
+        captor.getValue().onResult(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, null, null);
+        verify(callback).onResult(any(Configuration.class), (Exception) isNull());
+        verify(joiningCallback, never()).onResult(any(Configuration.class), any(Exception.class));
+
+        scheduler.flushMainThread();
+        verify(joiningCallback).onResult(any(Configuration.class), (Exception) isNull());
+    }
 }
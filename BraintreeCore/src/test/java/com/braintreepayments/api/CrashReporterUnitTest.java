@@ -1,59 +1,79 @@
 package com.braintreepayments.api;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
-import java.lang.ref.WeakReference;
-
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertSame;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 public class CrashReporterUnitTest {
 
+    private Thread.UncaughtExceptionHandler originalExceptionHandler;
     private Thread.UncaughtExceptionHandler defaultExceptionHandler;
     private BraintreeClient braintreeClient;
 
     @Before
     public void setup() {
+        originalExceptionHandler = Thread.getDefaultUncaughtExceptionHandler();
         braintreeClient = mock(BraintreeClient.class);
         defaultExceptionHandler = mock(Thread.UncaughtExceptionHandler.class);
     }
 
+    @After
+    public void teardown() {
+        Thread.setDefaultUncaughtExceptionHandler(originalExceptionHandler);
+    }
+
     @Test
     public void start_setsSelfAsThreadDefaultExceptionHandler() {
-        CrashReporter sut = new CrashReporter(braintreeClient);
+        CrashReporter sut = new CrashReporter();
 
         sut.start();
         assertSame(sut, Thread.getDefaultUncaughtExceptionHandler());
     }
 
     @Test
-    public void uncaughtExceptionHandler_whenClientReferenceNull_forwardsInvocationToDefaultExceptionHandler() {
+    public void start_whenCalledTwice_forwardsToOriginalDefaultExceptionHandlerOnce() {
         Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
 
         Thread thread = mock(Thread.class);
         Exception exception = new Exception("error");
 
-        CrashReporter sut = new CrashReporter(new WeakReference<BraintreeClient>(null));
+        CrashReporter sut = new CrashReporter();
+        sut.start();
         sut.start();
         sut.uncaughtException(thread, exception);
 
-        verify(defaultExceptionHandler).uncaughtException(thread, exception);
+        verify(defaultExceptionHandler, times(1)).uncaughtException(thread, exception);
+    }
+
+    @Test
+    public void getInstance_returnsSameInstance() {
+        assertSame(CrashReporter.getInstance(), CrashReporter.getInstance());
     }
 
     @Test
-    public void uncaughtExceptionHandler_whenClientReferenceNull_restoresOriginalDefaultExceptionHandler() {
+    public void uncaughtExceptionHandler_whenNoClientRegistered_forwardsInvocationToDefaultExceptionHandler() {
         Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
 
-        CrashReporter sut = new CrashReporter(new WeakReference<BraintreeClient>(null));
+        Thread thread = mock(Thread.class);
+        Exception exception = createException("com.braintreepayments.api.CrashReporting");
+
+        CrashReporter sut = new CrashReporter();
         sut.start();
-        sut.uncaughtException(mock(Thread.class), new Exception("error"));
+        sut.uncaughtException(thread, exception);
 
-        assertSame(defaultExceptionHandler, Thread.getDefaultUncaughtExceptionHandler());
+        verify(defaultExceptionHandler).uncaughtException(thread, exception);
     }
 
     @Test
@@ -61,13 +81,14 @@ public class CrashReporterUnitTest {
         Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
 
         Thread thread = mock(Thread.class);
-        Exception exception = new Exception();
-        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement("test", "test", "test", 1) });
+        Exception exception = createException("test");
 
-        CrashReporter sut = new CrashReporter(braintreeClient);
+        CrashReporter sut = new CrashReporter();
+        sut.register(braintreeClient);
         sut.start();
         sut.uncaughtException(thread, exception);
 
+        verify(braintreeClient, never()).reportCrash();
         verify(defaultExceptionHandler).uncaughtException(thread, exception);
     }
 
@@ -76,10 +97,10 @@ public class CrashReporterUnitTest {
         Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
 
         Thread thread = mock(Thread.class);
-        Exception exception = new Exception();
-        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.braintreepayments.api.CrashReporting", "test", "test", 1) });
+        Exception exception = createException("com.braintreepayments.api.CrashReporting");
 
-        CrashReporter sut = new CrashReporter(braintreeClient);
+        CrashReporter sut = new CrashReporter();
+        sut.register(braintreeClient);
         sut.start();
         sut.uncaughtException(thread, exception);
 
@@ -92,14 +113,95 @@ public class CrashReporterUnitTest {
         Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
 
         Thread thread = mock(Thread.class);
-        Exception exception = new Exception();
-        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.paypal.CrashReporting", "test", "test", 1) });
+        Exception exception = createException("com.paypal.CrashReporting");
 
-        CrashReporter sut = new CrashReporter(braintreeClient);
+        CrashReporter sut = new CrashReporter();
+        sut.register(braintreeClient);
         sut.start();
         sut.uncaughtException(thread, exception);
 
         verify(braintreeClient).reportCrash();
         verify(defaultExceptionHandler).uncaughtException(thread, exception);
     }
+
+    @Test
+    public void uncaughtExceptionHandler_whenReportingFails_forwardsInvocationToDefaultExceptionHandler() {
+        Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
+        when(braintreeClient.reportCrash()).thenThrow(new IllegalStateException("error"));
+
+        Thread thread = mock(Thread.class);
+        Exception exception = createException("com.braintreepayments.api.CrashReporting");
+
+        CrashReporter sut = new CrashReporter();
+        sut.register(braintreeClient);
+        sut.start();
+        sut.uncaughtException(thread, exception);
+
+        verify(defaultExceptionHandler).uncaughtException(thread, exception);
+    }
+
+    @Test
+    public void uncaughtExceptionHandler_withSeveralClients_reportsCrashOnce() {
+        BraintreeClient otherBraintreeClient = mock(BraintreeClient.class);
+        when(braintreeClient.reportCrash()).thenReturn(true);
+        when(otherBraintreeClient.reportCrash()).thenReturn(true);
+
+        CrashReporter sut = new CrashReporter();
+        sut.register(braintreeClient);
+        sut.register(otherBraintreeClient);
+        sut.uncaughtException(mock(Thread.class), createException("com.braintreepayments.api.CrashReporting"));
+
+        int reportCount = getInvocationCount(braintreeClient) + getInvocationCount(otherBraintreeClient);
+        assertEquals(1, reportCount);
+    }
+
+    @Test
+    public void uncaughtExceptionHandler_whenFirstClientDoesNotRecordCrash_reportsCrashWithNextClient() {
+        BraintreeClient otherBraintreeClient = mock(BraintreeClient.class);
+
+        CrashReporter sut = new CrashReporter();
+        sut.register(braintreeClient);
+        sut.register(otherBraintreeClient);
+        sut.uncaughtException(mock(Thread.class), createException("com.braintreepayments.api.CrashReporting"));
+
+        verify(braintreeClient).reportCrash();
+        verify(otherBraintreeClient).reportCrash();
+    }
+
+    @Test
+    public void determineExceptionCause_whenBraintreeInCause_returnsBraintree() {
+        Exception exception = new RuntimeException(createException("com.braintreepayments.api.CardClient"));
+        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.example.App", "test", "test", 1) });
+
+        assertEquals(CrashReporter.CAUSE_RELATED_TO_BRAINTREE, CrashReporter.determineExceptionCause(exception));
+    }
+
+    @Test
+    public void determineExceptionCause_whenPayPalAndBraintreeInStackTrace_returnsBraintree() {
+        Exception exception = new Exception();
+        exception.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("com.paypal.checkout.Checkout", "test", "test", 1),
+                new StackTraceElement("com.braintreepayments.api.PayPalClient", "test", "test", 1)
+        });
+
+        assertEquals(CrashReporter.CAUSE_RELATED_TO_BRAINTREE, CrashReporter.determineExceptionCause(exception));
+    }
+
+    @Test
+    public void determineExceptionCause_whenPackageOnlyInMessage_returnsUnknown() {
+        Exception exception = new Exception("com.braintreepayments.api");
+        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.example.App", "test", "test", 1) });
+
+        assertEquals(CrashReporter.CAUSE_UNKNOWN, CrashReporter.determineExceptionCause(exception));
+    }
+
+    private static int getInvocationCount(BraintreeClient braintreeClient) {
+        return mockingDetails(braintreeClient).getInvocations().size();
+    }
+
+    private static Exception createException(String className) {
+        Exception exception = new Exception();
+        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement(className, "test", "test", 1) });
+        return exception;
+    }
 }
@@ -7,12 +7,14 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
@@ -51,6 +53,7 @@ public class DeviceInspectorUnitTest {
     private Runtime runtime;
     private Process process;
     private File superUserApkFile;
+    private DeviceMetadataCache deviceMetadataCache;
 
     private DeviceInspector sut;
 
@@ -80,7 +83,8 @@ public class DeviceInspectorUnitTest {
 
         when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(connectivityManager);
 
-        sut = new DeviceInspector(appHelper, classHelper, uuidHelper, signatureVerifier, runtime, superUserApkFile);
+        deviceMetadataCache = new DeviceMetadataCache();
+        sut = new DeviceInspector(appHelper, classHelper, uuidHelper, signatureVerifier, runtime, superUserApkFile, deviceMetadataCache);
     }
 
     @Test
@@ -236,6 +240,58 @@ public class DeviceInspectorUnitTest {
         assertEquals("none", metadata.toJSON().getString("deviceNetworkType"));
     }
 
+    @Test
+    public void getDeviceMetadata_readsStaticMetadataOnce() throws JSONException {
+        when(uuidHelper.getPersistentUUID(context)).thenReturn("persistent-uuid");
+
+        sut.getDeviceMetadata(context, "session-id", "integration-type");
+        DeviceMetadata metadata = sut.getDeviceMetadata(context, "other-session-id", "other-integration-type");
+
+        verify(uuidHelper, times(1)).getPersistentUUID(context);
+        verify(appHelper, times(1)).isAppInstalled(context, "com.paypal.android.p2pmobile");
+        assertEquals("persistent-uuid", metadata.toJSON().getString("deviceAppGeneratedPersistentUuid"));
+        assertEquals("other-session-id", metadata.toJSON().getString("sessionId"));
+        assertEquals("other-integration-type", metadata.toJSON().getString("integrationType"));
+    }
+
+    @Test
+    public void getDeviceMetadata_readsNetworkTypeAndOrientationOnEveryCall() throws JSONException {
+        configuration.orientation = Configuration.ORIENTATION_PORTRAIT;
+        sut.getDeviceMetadata(context, "session-id", "integration-type");
+
+        NetworkInfo networkInfo = mock(NetworkInfo.class);
+        when(networkInfo.getTypeName()).thenReturn("network-type-name");
+        when(connectivityManager.getActiveNetworkInfo()).thenReturn(networkInfo);
+        configuration.orientation = Configuration.ORIENTATION_LANDSCAPE;
+
+        DeviceMetadata metadata = sut.getDeviceMetadata(context, "session-id", "integration-type");
+        assertEquals("network-type-name", metadata.toJSON().getString("deviceNetworkType"));
+        assertEquals("Landscape", metadata.toJSON().getString("userInterfaceOrientation"));
+    }
+
+    @Test
+    public void getDeviceMetadata_whenPackageChanges_readsStaticMetadataAgain() throws JSONException {
+        when(appHelper.isAppInstalled(context, "com.venmo")).thenReturn(false);
+        sut.getDeviceMetadata(context, "session-id", "integration-type");
+
+        when(appHelper.isAppInstalled(context, "com.venmo")).thenReturn(true);
+        deviceMetadataCache.onReceive(context, new Intent(Intent.ACTION_PACKAGE_ADDED));
+
+        DeviceMetadata metadata = sut.getDeviceMetadata(context, "session-id", "integration-type");
+        assertTrue(metadata.toJSON().getBoolean("venmoInstalled"));
+    }
+
+    @Test
+    public void getDeviceMetadata_registersForPackageChanges() {
+        sut.getDeviceMetadata(context, "session-id", "integration-type");
+        sut.getDeviceMetadata(context, "session-id", "integration-type");
+
+        ArgumentCaptor<IntentFilter> captor = ArgumentCaptor.forClass(IntentFilter.class);
+        verify(context, times(1)).registerReceiver(same(deviceMetadataCache), captor.capture());
+        assertTrue(captor.getValue().hasAction(Intent.ACTION_PACKAGE_ADDED));
+        assertTrue(captor.getValue().hasAction(Intent.ACTION_PACKAGE_REMOVED));
+    }
+
     @Test
     public void getDeviceMetadata_whenDeviceOrientationIsPortrait_returnsPortraitForUserInterfaceOrientation() throws JSONException {
         configuration.orientation = Configuration.ORIENTATION_PORTRAIT;
@@ -0,0 +1,46 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class DeviceMetadataCacheUnitTest {
+
+    @Test
+    public void put_storesMetadata() {
+        DeviceMetadataCache sut = new DeviceMetadataCache();
+        DeviceMetadata metadata = new DeviceMetadata.Builder().build();
+
+        sut.put(mock(Context.class), metadata, sut.getGeneration());
+
+        assertSame(metadata, sut.get());
+    }
+
+    @Test
+    public void invalidate_clearsMetadata() {
+        DeviceMetadataCache sut = new DeviceMetadataCache();
+        sut.put(mock(Context.class), new DeviceMetadata.Builder().build(), sut.getGeneration());
+
+        sut.invalidate();
+
+        assertNull(sut.get());
+    }
+
+    @Test
+    public void put_whenInvalidatedWhileMetadataWasComputed_doesNotStoreMetadata() {
+        DeviceMetadataCache sut = new DeviceMetadataCache();
+        int generation = sut.getGeneration();
+
+        sut.invalidate();
+        sut.put(mock(Context.class), new DeviceMetadata.Builder().build(), generation);
+
+        assertNull(sut.get());
+    }
+}
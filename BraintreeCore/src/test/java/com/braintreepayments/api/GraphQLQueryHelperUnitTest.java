@@ -0,0 +1,33 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class GraphQLQueryHelperUnitTest {
+
+    @Test
+    public void getOperationName_returnsOperationName() {
+        String payload = "{\"query\":\"mutation TokenizeCreditCard { tokenizeCreditCard { token } }\",\"operationName\":\"ClientTokenize\"}";
+        assertEquals("ClientTokenize", GraphQLQueryHelper.getOperationName(payload));
+    }
+
+    @Test
+    public void getOperationName_withoutOperationName_returnsNameOfQuery() {
+        String payload = "{ \"query\": \"query PreferredPaymentMethods { preferredPaymentMethods { paypalPreferred } }\" }";
+        assertEquals("PreferredPaymentMethods", GraphQLQueryHelper.getOperationName(payload));
+    }
+
+    @Test
+    public void getOperationName_withAnonymousQuery_returnsEmptyString() {
+        assertEquals("", GraphQLQueryHelper.getOperationName("{ \"query\": \"{ clientConfiguration { analyticsUrl } }\" }"));
+    }
+
+    @Test
+    public void getOperationName_withInvalidJson_returnsEmptyString() {
+        assertEquals("", GraphQLQueryHelper.getOperationName("not json"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.braintreepayments.api;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class InMemoryConfigurationCacheUnitTest {
+
+    private Configuration configuration;
+
+    @Before
+    public void beforeEach() throws JSONException {
+        configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN);
+    }
+
+    @Test
+    public void getConfiguration_returnsSavedConfigurationInstance() {
+        InMemoryConfigurationCache sut = new InMemoryConfigurationCache(4);
+        sut.saveConfiguration("cacheKey", configuration, 0);
+
+        assertSame(configuration, sut.getConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(5) - 1));
+    }
+
+    @Test
+    public void getConfiguration_whenEntryExpires_returnsNull() {
+        InMemoryConfigurationCache sut = new InMemoryConfigurationCache(4);
+        sut.saveConfiguration("cacheKey", configuration, 0);
+
+        assertNull(sut.getConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(5)));
+    }
+
+    @Test
+    public void getConfiguration_whenKeyMissing_returnsNull() {
+        InMemoryConfigurationCache sut = new InMemoryConfigurationCache(4);
+
+        assertNull(sut.getConfiguration("cacheKey", 0));
+    }
+
+    @Test
+    public void saveConfiguration_whenMaxEntriesExceeded_evictsLeastRecentlyUsedEntry() {
+        InMemoryConfigurationCache sut = new InMemoryConfigurationCache(2);
+        sut.saveConfiguration("first", configuration, 0);
+        sut.saveConfiguration("second", configuration, 0);
+
+        // touch "first" so that "second" becomes the least recently used entry
+        sut.getConfiguration("first", 0);
+        sut.saveConfiguration("third", configuration, 0);
+
+        assertSame(configuration, sut.getConfiguration("first", 0));
+        assertNull(sut.getConfiguration("second", 0));
+        assertSame(configuration, sut.getConfiguration("third", 0));
+    }
+}
@@ -5,12 +5,14 @@ import android.content.Context;
 import androidx.annotation.NonNull;
 
 import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 
+import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
@@ -120,11 +122,11 @@ public class PreferredPaymentMethodsClientUnitTest {
         sut.fetchPreferredPaymentMethods(context, new PreferredPaymentMethodsCallback() {
             @Override
             public void onResult(@NonNull PreferredPaymentMethodsResult preferredPaymentMethodsResult) {
-                ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+                ArgumentCaptor<GraphQLQuery> captor = ArgumentCaptor.forClass(GraphQLQuery.class);
 
-                verify(braintreeClient).sendGraphQLPOST(captor.capture(), any(HttpResponseCallback.class));
-                String expectedQuery = "{ \"query\": \"query PreferredPaymentMethods { preferredPaymentMethods { paypalPreferred } }\" }";
-                assertEquals(expectedQuery, captor.getValue());
+                verify(braintreeClient).sendGraphQLPOST(captor.capture(), any(JSONObject.class), any(HttpResponseCallback.class));
+                String expectedQuery = "query PreferredPaymentMethods { preferredPaymentMethods { paypalPreferred } }";
+                assertEquals(expectedQuery, captor.getValue().getDocument());
                 countDownLatch.countDown();
             }
         });
@@ -213,4 +215,10 @@ public class PreferredPaymentMethodsClientUnitTest {
 
         countDownLatch.await();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void preferredPaymentMethodsQuery_hasSha256HashOfDocument() throws NoSuchAlgorithmException {
+        GraphQLQuery query = PreferredPaymentMethodsClient.PREFERRED_PAYMENT_METHODS_QUERY;
+        assertEquals(GraphQLQuery.computeSha256Hash(query.getDocument()), query.getSha256Hash());
+    }
+}
@@ -0,0 +1,296 @@
+package com.braintreepayments.api;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.same;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class RequestPipelineUnitTest {
+
+    private Context context;
+    private Authorization authorization;
+    private Configuration configuration;
+    private MockThreadScheduler scheduler;
+
+    @Before
+    public void beforeEach() {
+        context = mock(Context.class);
+        authorization = mock(Authorization.class);
+        configuration = mock(Configuration.class);
+        scheduler = new MockThreadScheduler();
+    }
+
+    @Test
+    public void execute_onAuthorizationFailure_forwardsErrorToCallbackImmediately() {
+        Exception authError = new Exception("authorization error");
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorizationError(authError)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder().build();
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, callback);
+
+        verify(callback).onResult(null, authError);
+        verifyZeroInteractions(request);
+    }
+
+    @Test
+    public void execute_onConfigurationFailure_forwardsErrorToCallbackOnMainThread() throws Exception {
+        Exception configError = new Exception("configuration error");
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder()
+                .configurationError(configError)
+                .build();
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, callback);
+        scheduler.flushBackgroundThread();
+        verify(callback, never()).onResult(anyString(), any(Exception.class));
+
+        scheduler.flushMainThread();
+        verify(callback).onResult(null, configError);
+        verify(request, never()).send(any(Configuration.class), any(Authorization.class), (HttpRequestTiming) any());
+    }
+
+    @Test
+    public void execute_loadsConfigurationAndSendsRequestOnSameBackgroundTask() throws Exception {
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder()
+                .configuration(configuration)
+                .build();
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+        when(request.send(configuration, authorization, null)).thenReturn("response-body");
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, callback);
+        verify(request, never()).send(any(Configuration.class), any(Authorization.class), (HttpRequestTiming) any());
+
+        scheduler.flushBackgroundThread();
+        verify(configurationLoader).loadConfigurationOnCurrentThread(same(context), same(authorization), any(ConfigurationCallback.class));
+        verify(request).send(configuration, authorization, null);
+        verify(callback, never()).onResult(anyString(), any(Exception.class));
+
+        scheduler.flushMainThread();
+        verify(callback).onResult("response-body", null);
+    }
+
+    @Test
+    public void execute_onRequestError_forwardsErrorToCallbackOnMainThread() throws Exception {
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder()
+                .configuration(configuration)
+                .build();
+        Exception requestError = new Exception("request error");
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+        when(request.send(configuration, authorization, null)).thenThrow(requestError);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, callback);
+        scheduler.flushBackgroundThread();
+        scheduler.flushMainThread();
+
+        verify(callback).onResult(null, requestError);
+    }
+
+    @Test
+    public void execute_withoutCallback_sendsRequest() throws Exception {
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder()
+                .configuration(configuration)
+                .build();
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, null);
+        scheduler.flushBackgroundThread();
+        scheduler.flushMainThread();
+
+        verify(request).send(configuration, authorization, null);
+    }
+
+    @Test
+    public void execute_whenConfigurationArrivesOnAnotherThread_sendsRequestOnBackgroundThread() throws Exception {
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = mock(ConfigurationLoader.class);
+        final AtomicReference<ConfigurationCallback> configurationCallback = new AtomicReference<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                configurationCallback.set((ConfigurationCallback) invocation.getArguments()[2]);
+                return null;
+            }
+        }).when(configurationLoader).loadConfigurationOnCurrentThread(any(Context.class), any(Authorization.class), any(ConfigurationCallback.class));
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+        when(request.send(configuration, authorization, null)).thenReturn("response-body");
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, callback);
+        scheduler.flushBackgroundThread();
+
+        Thread otherThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                configurationCallback.get().onResult(configuration, null);
+            }
+        });
+        otherThread.start();
+        otherThread.join();
+        verify(request, never()).send(any(Configuration.class), any(Authorization.class), (HttpRequestTiming) any());
+
+        scheduler.flushBackgroundThread();
+        verify(request).send(configuration, authorization, null);
+
+        scheduler.flushMainThread();
+        verify(callback).onResult("response-body", null);
+    }
+
+    @Test
+    public void execute_notifiesListenerWithRequestMetrics() throws Exception {
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder()
+                .configuration(configuration)
+                .build();
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+        RequestMetricsListener listener = mock(RequestMetricsListener.class);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+        sut.setListener(listener);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, null);
+        verifyZeroInteractions(listener);
+
+        scheduler.flushBackgroundThread();
+        ArgumentCaptor<RequestMetrics> captor = ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(listener).onRequestFinished(captor.capture());
+
+        RequestMetrics metrics = captor.getValue();
+        assertEquals(RequestMetrics.REQUEST_TYPE_GATEWAY, metrics.getRequestType());
+        assertEquals("sample-url", metrics.getOperation());
+        assertEquals(0, metrics.getRetryCount());
+        assertTrue(metrics.isSuccessful());
+    }
+
+    @Test
+    public void execute_withListener_passesTimingToRequest() throws Exception {
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder()
+                .configuration(configuration)
+                .build();
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+        when(request.send(same(configuration), same(authorization), any(HttpRequestTiming.class))).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                HttpRequestTiming timing = invocation.getArgument(2);
+                // two failed attempts before the request succeeded
+                timing.onAttemptStarted();
+                timing.onAttemptStarted();
+                timing.onAttemptStarted();
+                timing.onResponseRead(5, 128);
+                return "response-body";
+            }
+        });
+        RequestMetricsListener listener = mock(RequestMetricsListener.class);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+        sut.setListener(listener);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, null);
+        scheduler.flushBackgroundThread();
+
+        ArgumentCaptor<RequestMetrics> captor = ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(listener).onRequestFinished(captor.capture());
+        assertEquals(2, captor.getValue().getRetryCount());
+        assertEquals(5, captor.getValue().getResponseReadDuration());
+        assertEquals(128, captor.getValue().getResponseSize());
+    }
+
+    @Test
+    public void execute_onRequestError_notifiesListenerWithError() throws Exception {
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorization(authorization)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder()
+                .configuration(configuration)
+                .build();
+        Exception requestError = new Exception("request error");
+        RequestPipeline.Request request = mock(RequestPipeline.Request.class);
+        when(request.send(same(configuration), same(authorization), any(HttpRequestTiming.class))).thenThrow(requestError);
+        RequestMetricsListener listener = mock(RequestMetricsListener.class);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+        sut.setListener(listener);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", request, null);
+        scheduler.flushBackgroundThread();
+
+        ArgumentCaptor<RequestMetrics> captor = ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(listener).onRequestFinished(captor.capture());
+        assertFalse(captor.getValue().isSuccessful());
+        assertSame(requestError, captor.getValue().getError());
+    }
+
+    @Test
+    public void execute_onAuthorizationFailure_notifiesListenerWithoutLaterStages() {
+        Exception authError = new Exception("authorization error");
+        AuthorizationLoader authorizationLoader = new MockAuthorizationLoaderBuilder()
+                .authorizationError(authError)
+                .build();
+        ConfigurationLoader configurationLoader = new MockConfigurationLoaderBuilder().build();
+        RequestMetricsListener listener = mock(RequestMetricsListener.class);
+
+        RequestPipeline sut = new RequestPipeline(context, authorizationLoader, configurationLoader, scheduler);
+        sut.setListener(listener);
+        sut.execute(RequestMetrics.REQUEST_TYPE_GATEWAY, "sample-url", mock(RequestPipeline.Request.class), null);
+
+        ArgumentCaptor<RequestMetrics> captor = ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(listener).onRequestFinished(captor.capture());
+        RequestMetrics metrics = captor.getValue();
+        assertEquals(0, metrics.getConfigurationDuration());
+        assertEquals(0, metrics.getQueueDuration());
+        assertEquals(0, metrics.getConnectDuration());
+        assertSame(authError, metrics.getError());
+    }
+}
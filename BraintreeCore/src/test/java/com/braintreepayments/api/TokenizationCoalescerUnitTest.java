@@ -0,0 +1,133 @@
+package com.braintreepayments.api;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(RobolectricTestRunner.class)
+public class TokenizationCoalescerUnitTest {
+
+    private TokenizationCoalescer sut;
+    private TokenizeCallback callback1;
+    private TokenizeCallback callback2;
+
+    @Before
+    public void beforeEach() {
+        sut = new TokenizationCoalescer();
+        callback1 = mock(TokenizeCallback.class);
+        callback2 = mock(TokenizeCallback.class);
+    }
+
+    @Test
+    public void start_whenIdenticalRequestInFlight_joinsIt() throws JSONException {
+        TokenizationCoalescer.Request request = sut.start("key", callback1, 0);
+
+        assertNotNull(request);
+        assertNull(sut.start("key", callback2, 100));
+        verifyZeroInteractions(callback2);
+
+        JSONObject response = new JSONObject("{\"nonce\":\"fake-nonce\"}");
+        request.onSuccess(response);
+
+        ArgumentCaptor<JSONObject> captor = ArgumentCaptor.forClass(JSONObject.class);
+        verify(callback1).onResult(response, null);
+        verify(callback2).onResult(captor.capture(), (Exception) isNull());
+        assertEquals("fake-nonce", captor.getValue().getString("nonce"));
+        assertEquals(1, sut.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void start_withDifferentKeys_startsEachRequest() {
+        assertNotNull(sut.start("key1", callback1, 0));
+        assertNotNull(sut.start("key2", callback2, 0));
+        assertEquals(0, sut.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void start_withoutKey_neverJoinsRequests() {
+        assertNotNull(sut.start(null, callback1, 0));
+        assertNotNull(sut.start(null, callback2, 0));
+        assertEquals(0, sut.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void start_afterSuccess_startsNewRequest() throws JSONException {
+        TokenizationCoalescer.Request request = sut.start("key", callback1, 0);
+        request.onSuccess(new JSONObject("{\"nonce\":\"fake-nonce\"}"));
+
+        assertNotNull(sut.start("key", callback2, 1));
+        verifyZeroInteractions(callback2);
+        assertEquals(0, sut.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void start_afterFailure_startsNewRequest() {
+        TokenizationCoalescer.Request request = sut.start("key", callback1, 0);
+        sut.start("key", callback2, 0);
+
+        Exception error = new Exception("error");
+        request.onFailure(error);
+
+        verify(callback1).onResult(null, error);
+        verify(callback2).onResult(null, error);
+        assertNotNull(sut.start("key", mock(TokenizeCallback.class), 1));
+    }
+
+    @Test
+    public void start_whenRequestInFlightTooLong_startsNewRequest() throws JSONException {
+        TokenizationCoalescer.Request staleRequest = sut.start("key", callback1, 0);
+
+        TokenizationCoalescer.Request request =
+                sut.start("key", callback2, TokenizationCoalescer.MAX_IN_FLIGHT_MILLIS);
+        assertNotNull(request);
+
+        // the stale request still completes its own callback without replacing the new one
+        JSONObject response = new JSONObject("{}");
+        staleRequest.onSuccess(response);
+        verify(callback1).onResult(response, null);
+        verifyZeroInteractions(callback2);
+        assertNull(sut.start("key", mock(TokenizeCallback.class), TokenizationCoalescer.MAX_IN_FLIGHT_MILLIS + 2));
+    }
+
+    @Test
+    public void computeKey_ignoresExcludedKeyAndDependsOnEverythingElse() throws JSONException {
+        JSONObject payload = new JSONObject()
+                .put("creditCard", new JSONObject().put("number", "4111111111111111"))
+                .put("_meta", new JSONObject().put("sessionId", "session-1"));
+        JSONObject otherSession = new JSONObject()
+                .put("creditCard", new JSONObject().put("number", "4111111111111111"))
+                .put("_meta", new JSONObject().put("sessionId", "session-2"));
+        JSONObject otherCard = new JSONObject()
+                .put("creditCard", new JSONObject().put("number", "5555555555554444"))
+                .put("_meta", new JSONObject().put("sessionId", "session-1"));
+
+        String key = TokenizationCoalescer.computeKey("authorization", "/v1/path", payload, "_meta");
+
+        assertEquals(64, key.length());
+        assertFalse(key.contains("4111"));
+        assertEquals(key, TokenizationCoalescer.computeKey("authorization", "/v1/path", otherSession, "_meta"));
+        assertFalse(key.equals(TokenizationCoalescer.computeKey("authorization", "/v1/path", otherCard, "_meta")));
+        assertFalse(key.equals(TokenizationCoalescer.computeKey("other", "/v1/path", payload, "_meta")));
+        assertFalse(key.equals(TokenizationCoalescer.computeKey("authorization", "/v1/other", payload, "_meta")));
+        assertFalse(key.equals(TokenizationCoalescer.computeKey("authorization", "/v1/path", payload, null)));
+    }
+
+    @Test
+    public void getInstance_returnsSingleton() {
+        assertSame(TokenizationCoalescer.getInstance(), TokenizationCoalescer.getInstance());
+    }
+}
@@ -0,0 +1,78 @@
+package com.braintreepayments.api;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class WarmUpOperationUnitTest {
+
+    @Test
+    public void onConfigurationLoaded_whenNoConnectionsPending_notifiesResult() {
+        WarmUpCallback callback = mock(WarmUpCallback.class);
+        WarmUpOperation sut = new WarmUpOperation(callback);
+
+        sut.onAuthorizationLoaded();
+        sut.onConfigurationLoaded();
+
+        ArgumentCaptor<WarmUpResult> captor = ArgumentCaptor.forClass(WarmUpResult.class);
+        verify(callback).onResult(captor.capture(), (Exception) isNull());
+
+        WarmUpResult result = captor.getValue();
+        assertTrue(result.getAuthorizationDuration() >= 0);
+        assertTrue(result.getConfigurationDuration() >= 0);
+        assertTrue(result.getTotalDuration() >= result.getAuthorizationDuration() + result.getConfigurationDuration());
+    }
+
+    @Test
+    public void onConfigurationLoaded_whenConnectionsPending_waitsForConnections() {
+        WarmUpCallback callback = mock(WarmUpCallback.class);
+        WarmUpOperation sut = new WarmUpOperation(callback);
+
+        sut.onAuthorizationLoaded();
+        sut.onConnectionStarted();
+        sut.onConnectionStarted();
+        sut.onConfigurationLoaded();
+        sut.onConnectionFinished();
+        verify(callback, never()).onResult(any(WarmUpResult.class), any(Exception.class));
+
+        sut.onConnectionFinished();
+        verify(callback).onResult(any(WarmUpResult.class), (Exception) isNull());
+    }
+
+    @Test
+    public void onConnectionFinished_beforeConfigurationLoaded_waitsForConfiguration() {
+        WarmUpCallback callback = mock(WarmUpCallback.class);
+        WarmUpOperation sut = new WarmUpOperation(callback);
+
+        sut.onAuthorizationLoaded();
+        sut.onConnectionStarted();
+        sut.onConnectionFinished();
+        verify(callback, never()).onResult(any(WarmUpResult.class), any(Exception.class));
+
+        sut.onConfigurationLoaded();
+        verify(callback).onResult(any(WarmUpResult.class), (Exception) isNull());
+    }
+
+    @Test
+    public void onError_notifiesErrorOnceAndIgnoresLaterPhases() {
+        WarmUpCallback callback = mock(WarmUpCallback.class);
+        WarmUpOperation sut = new WarmUpOperation(callback);
+        Exception error = new Exception("error");
+
+        sut.onAuthorizationLoaded();
+        sut.onConnectionStarted();
+        sut.onError(error);
+        sut.onError(error);
+        sut.onConnectionFinished();
+
+        verify(callback, times(1)).onResult(null, error);
+        verify(callback, never()).onResult(any(WarmUpResult.class), (Exception) isNull());
+    }
+}
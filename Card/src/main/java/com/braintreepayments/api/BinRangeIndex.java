@@ -0,0 +1,447 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An index of card number ranges by their leading digits (BIN / IIN) that answers card type,
+ * length and CVV rules, and coarse {@link BinData} for a card number locally, without a network
+ * request. Use it to validate and route a card while it is being typed; the values returned by
+ * the gateway when the card is tokenized remain authoritative.
+ * <p>
+ * {@link #find(CharSequence)} returns the position of the range that contains every card number
+ * starting with the given digits, which is then passed to the accessors. Neither allocates, so
+ * they can be called on every keystroke.
+ * <p>
+ * {@link #getDefault()} covers the publicly documented ranges of each card type and has no
+ * {@link BinData}. An index with more specific ranges can be loaded from a file with
+ * {@link #fromFile(File)}, which memory maps it. The file format, in big-endian byte order, is:
+ * <pre>
+ * int    magic ('BTBR')
+ * int    version (1)
+ * int    string count, followed by each string as a short byte length and UTF-8 bytes
+ * int    range count, followed by each range as
+ *        int  lowest 8 digit prefix of the range
+ *        int  highest 8 digit prefix of the range
+ *        long attributes: card type and country string indices, lengths, CVV length and flags
+ * </pre>
+ * Ranges are sorted and do not overlap.
+ */
+public final class BinRangeIndex {
+
+    /**
+     * Returned by {@link #find(CharSequence)} when no single range matches.
+     */
+    public static final int NOT_FOUND = -1;
+
+    static final int MAGIC = 0x42544252;
+    static final int VERSION = 1;
+
+    // ranges are keyed by the first 8 digits of the card number
+    static final int PREFIX_DIGITS = 8;
+    private static final int[] POWERS_OF_TEN = {
+            1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000
+    };
+
+    private static final int RECORD_SIZE = 16;
+
+    private static final int NO_STRING = 0xFF;
+    private static final int FLAG_UNKNOWN = 0;
+    private static final int FLAG_YES = 1;
+    private static final int FLAG_NO = 2;
+
+    // attribute bit layout
+    private static final int CARD_TYPE_SHIFT = 0;
+    private static final int COUNTRY_SHIFT = 8;
+    private static final int MIN_LENGTH_SHIFT = 16;
+    private static final int MAX_LENGTH_SHIFT = 21;
+    private static final int CVV_LENGTH_SHIFT = 26;
+    private static final int PREPAID_SHIFT = 29;
+    private static final int DEBIT_SHIFT = 31;
+    private static final int COMMERCIAL_SHIFT = 33;
+
+    private static volatile BinRangeIndex DEFAULT;
+
+    private final ByteBuffer buffer;
+    private final String[] strings;
+    private final int recordsOffset;
+    private final int rangeCount;
+
+    /**
+     * @return an index of the publicly documented ranges of each card type
+     */
+    @NonNull
+    public static BinRangeIndex getDefault() {
+        if (DEFAULT == null) {
+            synchronized (BinRangeIndex.class) {
+                // double check that instance was not created in another thread
+                if (DEFAULT == null) {
+                    try {
+                        DEFAULT = fromByteBuffer(buildDefaultRanges());
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Memory maps an index file, e.g. one downloaded to refresh the ranges of {@link #getDefault()}.
+     * @param file an index file in the format described in {@link BinRangeIndex}
+     * @return {@link BinRangeIndex}
+     * @throws IOException if the file cannot be read or is not a valid index
+     */
+    @NonNull
+    public static BinRangeIndex fromFile(@NonNull File file) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = inputStream.getChannel();
+            // the mapping remains valid after the channel is closed
+            return fromByteBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * @param buffer an index in the format described in {@link BinRangeIndex}. The index reads
+     * from the buffer without copying it, so it must not be modified afterwards.
+     * @return {@link BinRangeIndex}
+     * @throws IOException if the buffer is not a valid index
+     */
+    @NonNull
+    public static BinRangeIndex fromByteBuffer(@NonNull ByteBuffer buffer) throws IOException {
+        ByteBuffer source = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (source.getInt() != MAGIC || source.getInt() != VERSION) {
+                throw new IOException("Unsupported BIN range index format");
+            }
+
+            String[] strings = new String[source.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[source.getShort() & 0xFFFF];
+                source.get(bytes);
+                strings[i] = new String(bytes, Charset.forName("UTF-8"));
+            }
+
+            int rangeCount = source.getInt();
+            int recordsOffset = source.position();
+            if (rangeCount < 0 || source.remaining() / RECORD_SIZE < rangeCount) {
+                throw new IOException("Truncated BIN range index");
+            }
+
+            BinRangeIndex index = new BinRangeIndex(source, strings, recordsOffset, rangeCount);
+            index.validate();
+            return index;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, NegativeArraySizeException, ...
+            throw new IOException("Invalid BIN range index", e);
+        }
+    }
+
+    private BinRangeIndex(ByteBuffer buffer, String[] strings, int recordsOffset, int rangeCount) {
+        this.buffer = buffer;
+        this.strings = strings;
+        this.recordsOffset = recordsOffset;
+        this.rangeCount = rangeCount;
+    }
+
+    private void validate() throws IOException {
+        int previousHigh = -1;
+        for (int i = 0; i < rangeCount; i++) {
+            int low = getLow(i);
+            int high = getHigh(i);
+            if (low <= previousHigh || high < low || high >= POWERS_OF_TEN[PREFIX_DIGITS]) {
+                throw new IOException("BIN ranges must be sorted and must not overlap");
+            }
+            int cardType = getField(i, CARD_TYPE_SHIFT, 0xFF);
+            int country = getField(i, COUNTRY_SHIFT, 0xFF);
+            if (cardType >= strings.length || (country != NO_STRING && country >= strings.length)) {
+                throw new IOException("BIN range references an unknown string");
+            }
+            previousHigh = high;
+        }
+    }
+
+    /**
+     * @return the number of ranges in the index
+     */
+    public int size() {
+        return rangeCount;
+    }
+
+    /**
+     * Finds the range of a full or partial card number. Spaces and dashes are ignored.
+     * @param cardNumber the card number, or the digits typed so far
+     * @return the position of the range that contains every card number starting with the digits
+     * of {@code cardNumber}, or {@link #NOT_FOUND} if there is no such range, e.g. because too few
+     * digits have been typed to tell card types apart
+     */
+    public int find(@NonNull CharSequence cardNumber) {
+        int prefix = 0;
+        int digits = 0;
+        for (int i = 0; i < cardNumber.length() && digits < PREFIX_DIGITS; i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                prefix = prefix * 10 + (c - '0');
+                digits++;
+            } else if (c != ' ' && c != '-') {
+                return NOT_FOUND;
+            }
+        }
+        if (digits == 0) {
+            return NOT_FOUND;
+        }
+
+        // every card number starting with the typed digits lies in [low, high]
+        int scale = POWERS_OF_TEN[PREFIX_DIGITS - digits];
+        int low = prefix * scale;
+        int high = low + scale - 1;
+
+        // find the last range starting at or before low
+        int start = 0;
+        int end = rangeCount - 1;
+        int candidate = NOT_FOUND;
+        while (start <= end) {
+            int middle = (start + end) >>> 1;
+            if (getLow(middle) <= low) {
+                candidate = middle;
+                start = middle + 1;
+            } else {
+                end = middle - 1;
+            }
+        }
+        return (candidate != NOT_FOUND && getHigh(candidate) >= high) ? candidate : NOT_FOUND;
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return the card type of the range, in the form of {@link CardNonce#getCardType()}
+     */
+    @NonNull
+    public String getCardType(int position) {
+        return strings[getField(position, CARD_TYPE_SHIFT, 0xFF)];
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return the shortest valid card number length of the range
+     */
+    public int getMinLength(int position) {
+        return getField(position, MIN_LENGTH_SHIFT, 0x1F);
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return the longest valid card number length of the range
+     */
+    public int getMaxLength(int position) {
+        return getField(position, MAX_LENGTH_SHIFT, 0x1F);
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return the CVV length of the range
+     */
+    public int getCvvLength(int position) {
+        return getField(position, CVV_LENGTH_SHIFT, 0x7);
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return Whether cards of the range are prepaid. Possible {@link BinData.BinType} values are
+     * {@link BinData#YES}, {@link BinData#NO} or {@link BinData#UNKNOWN}
+     */
+    @BinData.BinType
+    @NonNull
+    public String getPrepaid(int position) {
+        return toBinType(getField(position, PREPAID_SHIFT, 0x3));
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return Whether cards of the range are debit cards. Possible {@link BinData.BinType} values
+     * are {@link BinData#YES}, {@link BinData#NO} or {@link BinData#UNKNOWN}
+     */
+    @BinData.BinType
+    @NonNull
+    public String getDebit(int position) {
+        return toBinType(getField(position, DEBIT_SHIFT, 0x3));
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return Whether cards of the range are commercial cards. Possible {@link BinData.BinType}
+     * values are {@link BinData#YES}, {@link BinData#NO} or {@link BinData#UNKNOWN}
+     */
+    @BinData.BinType
+    @NonNull
+    public String getCommercial(int position) {
+        return toBinType(getField(position, COMMERCIAL_SHIFT, 0x3));
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @return the country of issuance of the range, or {@link BinData#UNKNOWN}
+     */
+    @NonNull
+    public String getCountryOfIssuance(int position) {
+        int country = getField(position, COUNTRY_SHIFT, 0xFF);
+        return (country == NO_STRING) ? BinData.UNKNOWN : strings[country];
+    }
+
+    /**
+     * @param position a position returned by {@link #find(CharSequence)}
+     * @param length the number of digits of a card number
+     * @return whether {@code length} is a valid card number length for the range
+     */
+    public boolean isValidLength(int position, int length) {
+        return length >= getMinLength(position) && length <= getMaxLength(position);
+    }
+
+    private int getLow(int position) {
+        return buffer.getInt(recordsOffset + position * RECORD_SIZE);
+    }
+
+    private int getHigh(int position) {
+        return buffer.getInt(recordsOffset + position * RECORD_SIZE + 4);
+    }
+
+    private int getField(int position, int shift, int mask) {
+        if (position < 0 || position >= rangeCount) {
+            throw new IndexOutOfBoundsException("Invalid BIN range position: " + position);
+        }
+        long attributes = buffer.getLong(recordsOffset + position * RECORD_SIZE + 8);
+        return (int) (attributes >>> shift) & mask;
+    }
+
+    private static String toBinType(int flag) {
+        switch (flag) {
+            case FLAG_YES:
+                return BinData.YES;
+            case FLAG_NO:
+                return BinData.NO;
+            default:
+                return BinData.UNKNOWN;
+        }
+    }
+
+    private static ByteBuffer buildDefaultRanges() {
+        String visa = "Visa";
+        String mastercard = "MasterCard";
+        String amex = "American Express";
+        String discover = "Discover";
+        String jcb = "JCB";
+        String diners = "Diners";
+        String unionPay = "UnionPay";
+        String maestro = "Maestro";
+
+        return new Builder()
+                .addRange(22210000, 27209999, mastercard, 16, 16, 3)
+                .addRange(30000000, 30599999, diners, 14, 19, 3)
+                .addRange(34000000, 34999999, amex, 15, 15, 4)
+                .addRange(35280000, 35899999, jcb, 16, 19, 3)
+                .addRange(36000000, 36999999, diners, 14, 19, 3)
+                .addRange(37000000, 37999999, amex, 15, 15, 4)
+                .addRange(38000000, 39999999, diners, 14, 19, 3)
+                .addRange(40000000, 49999999, visa, 16, 19, 3)
+                .addRange(50180000, 50189999, maestro, 12, 19, 3)
+                .addRange(50200000, 50209999, maestro, 12, 19, 3)
+                .addRange(50380000, 50389999, maestro, 12, 19, 3)
+                .addRange(51000000, 55999999, mastercard, 16, 16, 3)
+                .addRange(56000000, 59999999, maestro, 12, 19, 3)
+                .addRange(60110000, 60119999, discover, 16, 19, 3)
+                .addRange(60200000, 60209999, maestro, 12, 19, 3)
+                .addRange(62000000, 62999999, unionPay, 16, 19, 3)
+                .addRange(63040000, 63049999, maestro, 12, 19, 3)
+                .addRange(64400000, 65999999, discover, 16, 19, 3)
+                .addRange(67030000, 67039999, maestro, 12, 19, 3)
+                .addRange(67590000, 67599999, maestro, 12, 19, 3)
+                .addRange(67610000, 67639999, maestro, 12, 19, 3)
+                .addRange(81000000, 81719999, unionPay, 16, 19, 3)
+                .build();
+    }
+
+    /**
+     * Writes ranges in the index format. Ranges must be added in ascending order.
+     */
+    @VisibleForTesting
+    static class Builder {
+
+        private final List<String> strings = new ArrayList<>();
+        private final List<long[]> ranges = new ArrayList<>();
+
+        Builder addRange(int low, int high, String cardType, int minLength, int maxLength, int cvvLength) {
+            return addRange(low, high, cardType, minLength, maxLength, cvvLength,
+                    BinData.UNKNOWN, BinData.UNKNOWN, BinData.UNKNOWN, null);
+        }
+
+        Builder addRange(int low, int high, String cardType, int minLength, int maxLength, int cvvLength,
+                         String prepaid, String debit, String commercial, @Nullable String countryOfIssuance) {
+            long attributes = ((long) indexOf(cardType) << CARD_TYPE_SHIFT)
+                    | ((long) (countryOfIssuance == null ? NO_STRING : indexOf(countryOfIssuance)) << COUNTRY_SHIFT)
+                    | ((long) minLength << MIN_LENGTH_SHIFT)
+                    | ((long) maxLength << MAX_LENGTH_SHIFT)
+                    | ((long) cvvLength << CVV_LENGTH_SHIFT)
+                    | ((long) toFlag(prepaid) << PREPAID_SHIFT)
+                    | ((long) toFlag(debit) << DEBIT_SHIFT)
+                    | ((long) toFlag(commercial) << COMMERCIAL_SHIFT);
+            ranges.add(new long[] { low, high, attributes });
+            return this;
+        }
+
+        ByteBuffer build() {
+            List<byte[]> encodedStrings = new ArrayList<>();
+            int size = 16;
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(Charset.forName("UTF-8"));
+                encodedStrings.add(bytes);
+                size += 2 + bytes.length;
+            }
+            size += ranges.size() * RECORD_SIZE;
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(encodedStrings.size());
+            for (byte[] bytes : encodedStrings) {
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+            buffer.putInt(ranges.size());
+            for (long[] range : ranges) {
+                buffer.putInt((int) range[0]).putInt((int) range[1]).putLong(range[2]);
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private int indexOf(String string) {
+            int index = strings.indexOf(string);
+            if (index < 0) {
+                index = strings.size();
+                strings.add(string);
+            }
+            return index;
+        }
+
+        private static int toFlag(String binType) {
+            if (BinData.YES.equals(binType)) {
+                return FLAG_YES;
+            } else if (BinData.NO.equals(binType)) {
+                return FLAG_NO;
+            }
+            return FLAG_UNKNOWN;
+        }
+    }
+}
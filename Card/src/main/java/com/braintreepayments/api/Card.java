@@ -11,6 +11,8 @@ import com.braintreepayments.api.GraphQLConstants.Keys;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.List;
+
 /**
  * Use to construct a card tokenization request.
  */
@@ -22,6 +24,57 @@ public class Card extends BaseCard implements Parcelable {
     private static final String AUTHENTICATION_INSIGHT_REQUESTED_KEY = "authenticationInsight";
     private static final String AUTHENTICATION_INSIGHT_INPUT_KEY = "authenticationInsightInput";
 
+    private static final String TOKENIZE_CREDIT_CARD_OPERATION_NAME = "TokenizeCreditCard";
+    private static final String TOKENIZE_CREDIT_CARDS_OPERATION_NAME = "TokenizeCreditCards";
+    private static final String BATCH_ALIAS_PREFIX = "card";
+
+    // fields of the tokenizeCreditCard payload, shared by single and batch tokenization
+    private static final String TOKENIZE_CREDIT_CARD_FIELDS = "" +
+            "    token" +
+            "    creditCard {" +
+            "      bin" +
+            "      brand" +
+            "      expirationMonth" +
+            "      expirationYear" +
+            "      cardholderName" +
+            "      last4" +
+            "      binData {" +
+            "        prepaid" +
+            "        healthcare" +
+            "        debit" +
+            "        durbinRegulated" +
+            "        commercial" +
+            "        payroll" +
+            "        issuingBank" +
+            "        countryOfIssuance" +
+            "        productId" +
+            "      }" +
+            "    }";
+
+    private static final String AUTHENTICATION_INSIGHT_FIELDS = "" +
+            "      customerAuthenticationRegulationEnvironment" +
+            "    }";
+
+    static final GraphQLQuery TOKENIZE_CREDIT_CARD_QUERY = new GraphQLQuery(
+            TOKENIZE_CREDIT_CARD_OPERATION_NAME,
+            "mutation TokenizeCreditCard($input: TokenizeCreditCardInput!) {" +
+                    "  tokenizeCreditCard(input: $input) {" +
+                    TOKENIZE_CREDIT_CARD_FIELDS +
+                    "  }" +
+                    "}",
+            "4cc48a61b39fd5b90d9973acf4dd18010860a8a4e08ff8f8154b80af8caaa2b6");
+
+    static final GraphQLQuery TOKENIZE_CREDIT_CARD_WITH_AUTHENTICATION_INSIGHT_QUERY = new GraphQLQuery(
+            TOKENIZE_CREDIT_CARD_OPERATION_NAME,
+            "mutation TokenizeCreditCard($input: TokenizeCreditCardInput!, $authenticationInsightInput: AuthenticationInsightInput!) {" +
+                    "  tokenizeCreditCard(input: $input) {" +
+                    TOKENIZE_CREDIT_CARD_FIELDS +
+                    "    authenticationInsight(input: $authenticationInsightInput) {" +
+                    AUTHENTICATION_INSIGHT_FIELDS +
+                    "  }" +
+                    "}",
+            "f5e16d9f1af5785852f885051c1e50e553e7ab999d604eb395d861ce09d63703");
+
     private String merchantAccountId;
     private boolean authenticationInsightRequested;
 
@@ -29,26 +82,97 @@ public class Card extends BaseCard implements Parcelable {
 
     JSONObject buildJSONForGraphQL() throws BraintreeException, JSONException {
         JSONObject base = new JSONObject();
-        JSONObject input = new JSONObject();
         JSONObject variables = new JSONObject();
 
         base.put(GRAPHQL_CLIENT_SDK_METADATA_KEY, buildMetadataJSON());
 
-        JSONObject optionsJson = new JSONObject();
-        optionsJson.put(VALIDATE_KEY, shouldValidate);
-        input.put(OPTIONS_KEY, optionsJson);
+        JSONObject input = buildGraphQLInput();
         variables.put(Keys.INPUT, input);
 
-        if (TextUtils.isEmpty(merchantAccountId) && authenticationInsightRequested) {
-            throw new BraintreeException("A merchant account ID is required when authenticationInsightRequested is true.");
+        if (authenticationInsightRequested) {
+            variables.put(AUTHENTICATION_INSIGHT_INPUT_KEY, buildAuthenticationInsightInput());
         }
 
-        if (authenticationInsightRequested) {
-            variables.put(AUTHENTICATION_INSIGHT_INPUT_KEY, new JSONObject().put(MERCHANT_ACCOUNT_ID_KEY, merchantAccountId));
+        base.put(OPERATION_NAME_KEY, TOKENIZE_CREDIT_CARD_OPERATION_NAME);
+        base.put(Keys.VARIABLES, variables);
+
+        return base;
+    }
+
+    /**
+     * Builds a single GraphQL request that tokenizes all {@code cards}, with one aliased
+     * {@code tokenizeCreditCard} mutation per card. The payload for the card at index {@code i}
+     * is returned under {@link #getBatchAlias(int)}.
+     *
+     * @throws BraintreeException if the cards do not all have the same {@link #getBatchKey()},
+     * since the request has a single set of client metadata.
+     */
+    static String buildBatchJSONForGraphQL(List<Card> cards) throws BraintreeException, JSONException {
+        String batchKey = cards.get(0).getBatchKey();
+        for (int i = 1; i < cards.size(); i++) {
+            if (!batchKey.equals(cards.get(i).getBatchKey())) {
+                throw new BraintreeException("Cards tokenized in one request must have the same merchant account ID, " +
+                        "authentication insight setting and metadata.");
+            }
+        }
+
+        JSONObject variables = new JSONObject();
+        StringBuilder arguments = new StringBuilder();
+        StringBuilder mutations = new StringBuilder();
+
+        for (int i = 0; i < cards.size(); i++) {
+            Card card = cards.get(i);
+            String alias = getBatchAlias(i);
+            String inputName = Keys.INPUT + i;
+
+            variables.put(inputName, card.buildGraphQLInput());
+            arguments.append(i == 0 ? "" : ", ").append('$').append(inputName).append(": TokenizeCreditCardInput!");
+            mutations.append("  ").append(alias).append(": tokenizeCreditCard(input: $").append(inputName).append(") {")
+                    .append(TOKENIZE_CREDIT_CARD_FIELDS);
+
+            if (card.authenticationInsightRequested) {
+                String authenticationInsightInputName = AUTHENTICATION_INSIGHT_INPUT_KEY + i;
+                variables.put(authenticationInsightInputName, card.buildAuthenticationInsightInput());
+                arguments.append(", $").append(authenticationInsightInputName).append(": AuthenticationInsightInput!");
+                mutations.append("    authenticationInsight(input: $").append(authenticationInsightInputName).append(") {")
+                        .append(AUTHENTICATION_INSIGHT_FIELDS);
+            }
+            mutations.append("  }");
+        }
+
+        String query = "mutation " + TOKENIZE_CREDIT_CARDS_OPERATION_NAME + "(" + arguments + ") {" + mutations + "}";
+        return new JSONObject()
+                .put(GRAPHQL_CLIENT_SDK_METADATA_KEY, cards.get(0).buildMetadataJSON())
+                .put(Keys.QUERY, query)
+                .put(OPERATION_NAME_KEY, TOKENIZE_CREDIT_CARDS_OPERATION_NAME)
+                .put(Keys.VARIABLES, variables)
+                .toString();
+    }
+
+    static String getBatchAlias(int index) {
+        return BATCH_ALIAS_PREFIX + index;
+    }
+
+    /**
+     * @return a key that is equal for cards that can be tokenized in the same batch request.
+     */
+    String getBatchKey() {
+        return buildMetadataJSON().toString() + '\n' + merchantAccountId + '\n' + authenticationInsightRequested;
+    }
+
+    private JSONObject buildAuthenticationInsightInput() throws BraintreeException, JSONException {
+        if (TextUtils.isEmpty(merchantAccountId)) {
+            throw new BraintreeException("A merchant account ID is required when authenticationInsightRequested is true.");
         }
+        return new JSONObject().put(MERCHANT_ACCOUNT_ID_KEY, merchantAccountId);
+    }
 
-        base.put(Keys.QUERY, getCardTokenizationGraphQLMutation());
-        base.put(OPERATION_NAME_KEY, "TokenizeCreditCard");
+    private JSONObject buildGraphQLInput() throws JSONException {
+        JSONObject input = new JSONObject();
+
+        JSONObject optionsJson = new JSONObject();
+        optionsJson.put(VALIDATE_KEY, shouldValidate);
+        input.put(OPTIONS_KEY, optionsJson);
 
         JSONObject creditCard = new JSONObject()
                 .put(NUMBER_KEY, getNumber())
@@ -73,9 +197,7 @@ public class Card extends BaseCard implements Parcelable {
         }
 
         input.put(CREDIT_CARD_KEY, creditCard);
-        base.put(Keys.VARIABLES, variables);
-
-        return base;
+        return input;
     }
 
     public Card() {
@@ -170,48 +292,9 @@ public class Card extends BaseCard implements Parcelable {
         }
     };
 
-    private String getCardTokenizationGraphQLMutation() {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("mutation TokenizeCreditCard($input: TokenizeCreditCardInput!");
-
-        if (authenticationInsightRequested) {
-            stringBuilder.append(", $authenticationInsightInput: AuthenticationInsightInput!");
-        }
-
-        stringBuilder.append(") {" +
-                "  tokenizeCreditCard(input: $input) {" +
-                "    token" +
-                "    creditCard {" +
-                "      bin" +
-                "      brand" +
-                "      expirationMonth" +
-                "      expirationYear" +
-                "      cardholderName" +
-                "      last4" +
-                "      binData {" +
-                "        prepaid" +
-                "        healthcare" +
-                "        debit" +
-                "        durbinRegulated" +
-                "        commercial" +
-                "        payroll" +
-                "        issuingBank" +
-                "        countryOfIssuance" +
-                "        productId" +
-                "      }" +
-                "    }");
-
-        if (authenticationInsightRequested) {
-            stringBuilder.append("" +
-                    "    authenticationInsight(input: $authenticationInsightInput) {" +
-                    "      customerAuthenticationRegulationEnvironment" +
-                    "    }");
-        }
-
-        stringBuilder.append("" +
-                "  }" +
-                "}");
-
-        return stringBuilder.toString();
+    GraphQLQuery getGraphQLQuery() {
+        return authenticationInsightRequested
+                ? TOKENIZE_CREDIT_CARD_WITH_AUTHENTICATION_INSIGHT_QUERY
+                : TOKENIZE_CREDIT_CARD_QUERY;
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Callback for receiving result of {@link CardClient#tokenize(List, CardBatchTokenizeCallback)}.
+ */
+public interface CardBatchTokenizeCallback {
+
+    /**
+     * @param results one {@link CardTokenizeResult} per card, in the order the cards were passed
+     * @param error an exception that kept the batch from being tokenized at all, or, alongside
+     *              {@code results}, an error the server reported for a request rather than for
+     *              one card
+     */
+    void onResult(@Nullable List<CardTokenizeResult> results, @Nullable Exception error);
+}
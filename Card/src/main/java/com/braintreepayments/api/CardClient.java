@@ -4,17 +4,42 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import com.braintreepayments.api.GraphQLConstants.Keys;
+
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Used to tokenize credit or debit cards using a {@link Card}. For more information see the
  * <a href="https://developer.paypal.com/braintree/docs/guides/credit-cards/overview">documentation</a>
  */
 public class CardClient {
 
+    // keeps a single GraphQL request, and the server work behind it, to a reasonable size
+    @VisibleForTesting
+    static final int MAX_GRAPHQL_BATCH_SIZE = 25;
+
+    // REST has no batch endpoint; bound the number of requests a batch keeps in flight so it
+    // does not crowd out other requests on the shared thread pool
+    @VisibleForTesting
+    static final int MAX_CONCURRENT_REST_TOKENIZATIONS = 4;
+
+    private static final String GRAPHQL_DATA_KEY = "data";
+
     private final BraintreeClient braintreeClient;
     private final ApiClient apiClient;
+    private final CardValidator cardValidator;
+
+    private volatile boolean isLocalValidationEnabled;
 
     public CardClient(@NonNull BraintreeClient braintreeClient) {
         this(braintreeClient, new ApiClient(braintreeClient));
@@ -22,8 +47,24 @@ public class CardClient {
 
     @VisibleForTesting
     CardClient(BraintreeClient braintreeClient, ApiClient apiClient) {
+        this(braintreeClient, apiClient, new CardValidator());
+    }
+
+    @VisibleForTesting
+    CardClient(BraintreeClient braintreeClient, ApiClient apiClient, CardValidator cardValidator) {
         this.braintreeClient = braintreeClient;
         this.apiClient = apiClient;
+        this.cardValidator = cardValidator;
+    }
+
+    /**
+     * When enabled, cards are checked with a {@link CardValidator} before they are sent, and a
+     * card that fails the checks is returned as an {@link ErrorWithResponse} without a request
+     * to the gateway. Disabled by default.
+     * @param isLocalValidationEnabled whether to check cards before tokenizing them
+     */
+    public void setLocalValidationEnabled(boolean isLocalValidationEnabled) {
+        this.isLocalValidationEnabled = isLocalValidationEnabled;
     }
 
     /**
@@ -55,6 +96,13 @@ public class CardClient {
                     return;
                 }
 
+                ErrorWithResponse validationError = validateLocally(card, configuration);
+                if (validationError != null) {
+                    callback.onResult(null, validationError);
+                    braintreeClient.sendAnalyticsEvent("card.local-validation.failed");
+                    return;
+                }
+
                 boolean shouldTokenizeViaGraphQL =
                     configuration.isGraphQLFeatureEnabled(GraphQLConstants.Features.TOKENIZE_CREDIT_CARDS);
 
@@ -62,7 +110,7 @@ public class CardClient {
                     card.setSessionId(braintreeClient.getSessionId());
                     try {
                         JSONObject tokenizePayload = card.buildJSONForGraphQL();
-                        apiClient.tokenizeGraphQL(tokenizePayload, new TokenizeCallback() {
+                        apiClient.tokenizeGraphQL(card.getGraphQLQuery(), tokenizePayload, new TokenizeCallback() {
                             @Override
                             public void onResult(JSONObject tokenizationResponse, Exception exception) {
                                 handleTokenizeResponse(tokenizationResponse, exception, callback);
@@ -83,6 +131,259 @@ public class CardClient {
         });
     }
 
+    /**
+     * Create a {@link CardNonce} for each card in {@code cards}.
+     * <p>
+     * When GraphQL tokenization is enabled, the cards are tokenized with a single GraphQL request
+     * per {@value #MAX_GRAPHQL_BATCH_SIZE} cards. Cards with a different merchant account ID or
+     * authentication insight setting are sent in separate requests. Otherwise, each card is
+     * tokenized with its own REST request, with at most
+     * {@value #MAX_CONCURRENT_REST_TOKENIZATIONS} requests in flight.
+     *
+     * <p>
+     * The {@link CardBatchTokenizeCallback#onResult(List, Exception)} method is invoked once,
+     * with one {@link CardTokenizeResult} per card in the order of {@code cards}. A card that
+     * fails validation has an {@link ErrorWithResponse} result without failing the other cards.
+     * An error the server reports for a whole request is also passed to the callback alongside
+     * the results, and is the result of each card in that request that was not tokenized.
+     *
+     * <p>
+     * If the configuration cannot be fetched, the callback is invoked with an {@link Exception}
+     * describing the error and no results.
+     * @param cards the cards to tokenize
+     * @param callback {@link CardBatchTokenizeCallback}
+     */
+    public void tokenize(@NonNull final List<Card> cards, @NonNull final CardBatchTokenizeCallback callback) {
+        braintreeClient.getConfiguration(new ConfigurationCallback() {
+            @Override
+            public void onResult(@Nullable Configuration configuration, @Nullable Exception error) {
+                if (error != null) {
+                    callback.onResult(null, error);
+                    return;
+                }
+
+                if (cards.isEmpty()) {
+                    callback.onResult(new ArrayList<CardTokenizeResult>(), null);
+                    return;
+                }
+
+                braintreeClient.sendAnalyticsEvent("card.batch-tokenization.started");
+                BatchTokenization batch = new BatchTokenization(cards.size(), callback);
+
+                // cards that fail local validation get their result without being sent
+                List<Card> pendingCards = new ArrayList<>(cards.size());
+                int[] positions = new int[cards.size()];
+                for (int i = 0; i < cards.size(); i++) {
+                    Card card = cards.get(i);
+                    ErrorWithResponse validationError = validateLocally(card, configuration);
+                    if (validationError != null) {
+                        batch.setResult(i, new CardTokenizeResult(null, validationError));
+                    } else {
+                        positions[pendingCards.size()] = i;
+                        pendingCards.add(card);
+                    }
+                }
+
+                boolean shouldTokenizeViaGraphQL =
+                    configuration.isGraphQLFeatureEnabled(GraphQLConstants.Features.TOKENIZE_CREDIT_CARDS);
+
+                if (shouldTokenizeViaGraphQL) {
+                    String sessionId = braintreeClient.getSessionId();
+                    for (Card card : pendingCards) {
+                        card.setSessionId(sessionId);
+                    }
+                    // a request carries one set of metadata and card options, so cards that differ
+                    // in them are sent in separate requests
+                    Map<String, List<Integer>> groups = new LinkedHashMap<>();
+                    for (int i = 0; i < pendingCards.size(); i++) {
+                        String batchKey = pendingCards.get(i).getBatchKey();
+                        List<Integer> group = groups.get(batchKey);
+                        if (group == null) {
+                            group = new ArrayList<>();
+                            groups.put(batchKey, group);
+                        }
+                        group.add(i);
+                    }
+
+                    for (List<Integer> group : groups.values()) {
+                        for (int offset = 0; offset < group.size(); offset += MAX_GRAPHQL_BATCH_SIZE) {
+                            int end = Math.min(offset + MAX_GRAPHQL_BATCH_SIZE, group.size());
+                            List<Card> chunk = new ArrayList<>(end - offset);
+                            int[] chunkPositions = new int[end - offset];
+                            for (int i = offset; i < end; i++) {
+                                int pendingIndex = group.get(i);
+                                chunk.add(pendingCards.get(pendingIndex));
+                                chunkPositions[i - offset] = positions[pendingIndex];
+                            }
+                            tokenizeViaGraphQL(chunk, chunkPositions, batch);
+                        }
+                    }
+                } else {
+                    AtomicInteger nextIndex = new AtomicInteger();
+                    int concurrency = Math.min(MAX_CONCURRENT_REST_TOKENIZATIONS, pendingCards.size());
+                    for (int i = 0; i < concurrency; i++) {
+                        tokenizeNextViaREST(pendingCards, positions, nextIndex, batch);
+                    }
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private ErrorWithResponse validateLocally(Card card, Configuration configuration) {
+        if (!isLocalValidationEnabled) {
+            return null;
+        }
+        return CardValidator.toError(cardValidator.validate(card, configuration));
+    }
+
+    /**
+     * Tokenizes {@code cards}, whose results belong at {@code positions}.
+     */
+    private void tokenizeViaGraphQL(final List<Card> cards, final int[] positions, final BatchTokenization batch) {
+        String payload;
+        try {
+            payload = Card.buildBatchJSONForGraphQL(cards);
+        } catch (BraintreeException | JSONException e) {
+            for (int position : positions) {
+                batch.setResult(position, new CardTokenizeResult(null, e));
+            }
+            return;
+        }
+
+        braintreeClient.sendGraphQLPOST(payload, new HttpResponseCallback() {
+            @Override
+            public void onResult(String responseBody, Exception httpError) {
+                handleBatchGraphQLResponse(responseBody, httpError, positions, batch);
+            }
+        });
+    }
+
+    private void handleBatchGraphQLResponse(String responseBody, Exception httpError, int[] positions, BatchTokenization batch) {
+        Exception error = httpError;
+        JSONObject data = null;
+        JSONArray errors = null;
+        try {
+            // the response parser fails the whole request when any card has an error; the cards
+            // that were tokenized are still in the original response
+            String json = responseBody;
+            if (json == null) {
+                json = getResponseBody(httpError);
+            }
+            if (json != null) {
+                JSONObject response = new JSONObject(json);
+                data = response.optJSONObject(GRAPHQL_DATA_KEY);
+                errors = response.optJSONArray(Keys.ERRORS);
+            }
+        } catch (JSONException e) {
+            error = e;
+        }
+
+        // errors without a path belong to the request rather than to a card
+        Exception requestError = null;
+        JSONArray requestErrors = getErrorsForAlias(errors, null);
+        if (requestErrors.length() > 0) {
+            if (httpError == null || httpError instanceof ErrorWithResponse) {
+                try {
+                    String errorJson = new JSONObject().put(Keys.ERRORS, requestErrors).toString();
+                    requestError = ErrorWithResponse.fromGraphQLJson(errorJson);
+                } catch (JSONException e) {
+                    requestError = e;
+                }
+            } else {
+                requestError = httpError;
+            }
+            batch.setRequestError(requestError);
+        }
+
+        for (int i = 0; i < positions.length; i++) {
+            String alias = Card.getBatchAlias(i);
+            JSONObject payload = (data != null) ? data.optJSONObject(alias) : null;
+
+            JSONArray cardErrors = getErrorsForAlias(errors, alias);
+
+            CardTokenizeResult result;
+            try {
+                if (payload != null) {
+                    result = new CardTokenizeResult(CardNonce.fromGraphQLTokenizationJSON(payload), null);
+                } else if (cardErrors.length() > 0) {
+                    String errorJson = new JSONObject().put(Keys.ERRORS, cardErrors).toString();
+                    result = new CardTokenizeResult(null, ErrorWithResponse.fromGraphQLJson(errorJson));
+                } else if (requestError != null) {
+                    result = new CardTokenizeResult(null, requestError);
+                } else if (error != null) {
+                    result = new CardTokenizeResult(null, error);
+                } else {
+                    result = new CardTokenizeResult(null,
+                            new BraintreeException("Failed to parse GraphQL response JSON"));
+                }
+            } catch (JSONException e) {
+                result = new CardTokenizeResult(null, e);
+            }
+            batch.setResult(positions[i], result);
+        }
+    }
+
+    @Nullable
+    private static String getResponseBody(Exception httpError) {
+        if (httpError instanceof ErrorWithResponse) {
+            return ((ErrorWithResponse) httpError).getErrorResponse();
+        } else if (httpError instanceof UnexpectedException) {
+            return ((UnexpectedException) httpError).getResponseBody();
+        } else if (httpError instanceof AuthorizationException) {
+            return ((AuthorizationException) httpError).getResponseBody();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the errors whose path starts with {@code alias}, or the errors without a path if
+     * {@code alias} is null.
+     */
+    private static JSONArray getErrorsForAlias(JSONArray errors, @Nullable String alias) {
+        JSONArray result = new JSONArray();
+        if (errors == null) {
+            return result;
+        }
+        for (int i = 0; i < errors.length(); i++) {
+            JSONObject error = errors.optJSONObject(i);
+            if (error == null) {
+                continue;
+            }
+            JSONArray path = error.optJSONArray(Keys.PATH);
+            boolean hasPath = path != null && path.length() > 0;
+            if (alias == null ? !hasPath : hasPath && alias.equals(path.optString(0))) {
+                result.put(error);
+            }
+        }
+        return result;
+    }
+
+    private void tokenizeNextViaREST(final List<Card> cards, final int[] positions, final AtomicInteger nextIndex, final BatchTokenization batch) {
+        final int index = nextIndex.getAndIncrement();
+        if (index >= cards.size()) {
+            return;
+        }
+
+        apiClient.tokenizeREST(cards.get(index), new TokenizeCallback() {
+            @Override
+            public void onResult(JSONObject tokenizationResponse, Exception exception) {
+                CardTokenizeResult result;
+                if (tokenizationResponse != null) {
+                    try {
+                        result = new CardTokenizeResult(CardNonce.fromJSON(tokenizationResponse), null);
+                    } catch (JSONException e) {
+                        result = new CardTokenizeResult(null, e);
+                    }
+                } else {
+                    result = new CardTokenizeResult(null, exception);
+                }
+                batch.setResult(positions[index], result);
+                tokenizeNextViaREST(cards, positions, nextIndex, batch);
+            }
+        });
+    }
+
     private void handleTokenizeResponse(JSONObject tokenizationResponse, Exception exception, CardTokenizeCallback callback) {
         if (tokenizationResponse != null) {
             try {
@@ -100,4 +401,51 @@ public class CardClient {
             braintreeClient.sendAnalyticsEvent("card.nonce-failed");
         }
     }
+
+    /**
+     * Collects the results of a batch and reports them, along with a single analytics event for
+     * the batch, once every card has a result.
+     */
+    private class BatchTokenization {
+
+        private final CardTokenizeResult[] results;
+        private final AtomicInteger remaining;
+        private final CardBatchTokenizeCallback callback;
+        private final AtomicReference<Exception> requestError = new AtomicReference<>();
+
+        BatchTokenization(int size, CardBatchTokenizeCallback callback) {
+            this.results = new CardTokenizeResult[size];
+            this.remaining = new AtomicInteger(size);
+            this.callback = callback;
+        }
+
+        /**
+         * Records an error that applies to a request rather than to one card. Only the first
+         * error is reported to the callback.
+         */
+        void setRequestError(Exception error) {
+            requestError.compareAndSet(null, error);
+        }
+
+        void setResult(int index, CardTokenizeResult result) {
+            results[index] = result;
+            if (remaining.decrementAndGet() == 0) {
+                int failureCount = 0;
+                for (CardTokenizeResult cardResult : results) {
+                    if (cardResult.getCardNonce() == null) {
+                        failureCount++;
+                    }
+                }
+
+                callback.onResult(Arrays.asList(results), requestError.get());
+                if (failureCount == 0) {
+                    braintreeClient.sendAnalyticsEvent("card.batch-tokenization.succeeded");
+                } else if (failureCount == results.length) {
+                    braintreeClient.sendAnalyticsEvent("card.batch-tokenization.failed");
+                } else {
+                    braintreeClient.sendAnalyticsEvent("card.batch-tokenization.partially-failed");
+                }
+            }
+        }
+    }
 }
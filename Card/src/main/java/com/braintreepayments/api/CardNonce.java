@@ -123,28 +123,36 @@ public class CardNonce extends PaymentMethodNonce {
         JSONObject data = inputJson.getJSONObject(DATA_KEY);
 
         if (data.has(GRAPHQL_TOKENIZE_CREDIT_CARD_KEY)) {
-            JSONObject payload = data.getJSONObject(GRAPHQL_TOKENIZE_CREDIT_CARD_KEY);
-
-            JSONObject creditCard = payload.getJSONObject(GRAPHQL_CREDIT_CARD_KEY);
-            String lastFour = Json.optString(creditCard, GRAPHQL_LAST_FOUR_KEY, "");
-            String lastTwo = lastFour.length() < 4 ? "" : lastFour.substring(2);
-            String cardType = Json.optString(creditCard, GRAPHQL_BRAND_KEY, "Unknown");
-            ThreeDSecureInfo threeDSecureInfo = ThreeDSecureInfo.fromJson(null);
-            String bin = Json.optString(creditCard, "bin", "");
-            BinData binData = BinData.fromJson(creditCard.optJSONObject(BIN_DATA_KEY));
-            String nonce = payload.getString(TOKEN_KEY);
-            AuthenticationInsight authenticationInsight = AuthenticationInsight.fromJson(payload.optJSONObject(AUTHENTICATION_INSIGHT_KEY));
-            String expirationMonth = Json.optString(creditCard, EXPIRATION_MONTH_KEY, "");
-            String expirationYear = Json.optString(creditCard, EXPIRATION_YEAR_KEY, "");
-            String cardholderName = Json.optString(creditCard, CARDHOLDER_NAME_KEY, "");
-
-            return new CardNonce(cardType, lastTwo, lastFour, threeDSecureInfo, bin, binData, authenticationInsight, expirationMonth, expirationYear, cardholderName, nonce, false);
-
+            return CardNonce.fromGraphQLTokenizationJSON(data.getJSONObject(GRAPHQL_TOKENIZE_CREDIT_CARD_KEY));
         } else {
             throw new JSONException("Failed to parse GraphQL response JSON");
         }
     }
 
+    /**
+     * Parse card nonce from the payload of a single GraphQL {@code tokenizeCreditCard} mutation.
+     * @param payload the {@code tokenizeCreditCard} JSON object
+     * @return {@link CardNonce}
+     * @throws JSONException if nonce could not be parsed successfully
+     */
+    @NonNull
+    static CardNonce fromGraphQLTokenizationJSON(JSONObject payload) throws JSONException {
+        JSONObject creditCard = payload.getJSONObject(GRAPHQL_CREDIT_CARD_KEY);
+        String lastFour = Json.optString(creditCard, GRAPHQL_LAST_FOUR_KEY, "");
+        String lastTwo = lastFour.length() < 4 ? "" : lastFour.substring(2);
+        String cardType = Json.optString(creditCard, GRAPHQL_BRAND_KEY, "Unknown");
+        ThreeDSecureInfo threeDSecureInfo = ThreeDSecureInfo.fromJson(null);
+        String bin = Json.optString(creditCard, "bin", "");
+        BinData binData = BinData.fromJson(creditCard.optJSONObject(BIN_DATA_KEY));
+        String nonce = payload.getString(TOKEN_KEY);
+        AuthenticationInsight authenticationInsight = AuthenticationInsight.fromJson(payload.optJSONObject(AUTHENTICATION_INSIGHT_KEY));
+        String expirationMonth = Json.optString(creditCard, EXPIRATION_MONTH_KEY, "");
+        String expirationYear = Json.optString(creditCard, EXPIRATION_YEAR_KEY, "");
+        String cardholderName = Json.optString(creditCard, CARDHOLDER_NAME_KEY, "");
+
+        return new CardNonce(cardType, lastTwo, lastFour, threeDSecureInfo, bin, binData, authenticationInsight, expirationMonth, expirationYear, cardholderName, nonce, false);
+    }
+
     private CardNonce(String cardType, String lastTwo, String lastFour, ThreeDSecureInfo threeDSecureInfo, String bin, BinData binData, AuthenticationInsight authenticationInsight, String expirationMonth, String expirationYear, String cardholderName, String nonce, boolean isDefault) {
         super(nonce, isDefault);
         this.cardType = cardType;
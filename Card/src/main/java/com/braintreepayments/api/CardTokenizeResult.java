@@ -0,0 +1,36 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The result of tokenizing one {@link Card} of a batch passed to
+ * {@link CardClient#tokenize(java.util.List, CardBatchTokenizeCallback)}. Exactly one of
+ * {@link #getCardNonce()} and {@link #getError()} is non-null.
+ */
+public class CardTokenizeResult {
+
+    private final CardNonce cardNonce;
+    private final Exception error;
+
+    CardTokenizeResult(@Nullable CardNonce cardNonce, @Nullable Exception error) {
+        this.cardNonce = cardNonce;
+        this.error = error;
+    }
+
+    /**
+     * @return the {@link CardNonce} for the card, or {@code null} if the card could not be tokenized
+     */
+    @Nullable
+    public CardNonce getCardNonce() {
+        return cardNonce;
+    }
+
+    /**
+     * @return an {@link ErrorWithResponse} if the card failed validation, another exception if
+     * the card could not be tokenized for a different reason, or {@code null} on success
+     */
+    @Nullable
+    public Exception getError() {
+        return error;
+    }
+}
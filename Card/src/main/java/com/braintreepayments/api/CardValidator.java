@@ -0,0 +1,316 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Checks the fields of a card for errors that the gateway would reject it for, so that a card
+ * that cannot be tokenized fails without a network request.
+ * <p>
+ * {@link #validate(BaseCard, Configuration)} returns a bit mask of failed checks and does not
+ * allocate; {@link #toError(int)} converts a non-zero mask to the {@link ErrorWithResponse} the
+ * gateway returns for the same errors, with the same field names and error codes.
+ * <p>
+ * The checks are conservative: a card that passes them may still be declined by the gateway,
+ * but a card that fails them would not be accepted.
+ */
+public class CardValidator {
+
+    /**
+     * No check failed.
+     */
+    public static final int VALID = 0;
+    public static final int NUMBER_REQUIRED = 1;
+    public static final int NUMBER_INVALID = 1 << 1;
+    public static final int NUMBER_LENGTH_INVALID = 1 << 2;
+    public static final int EXPIRATION_DATE_REQUIRED = 1 << 3;
+    public static final int EXPIRATION_MONTH_INVALID = 1 << 4;
+    public static final int EXPIRATION_YEAR_INVALID = 1 << 5;
+    public static final int EXPIRATION_DATE_INVALID = 1 << 6;
+    public static final int CVV_REQUIRED = 1 << 7;
+    public static final int CVV_LENGTH_INVALID = 1 << 8;
+    public static final int POSTAL_CODE_REQUIRED = 1 << 9;
+
+    private static final int MIN_NUMBER_LENGTH = 12;
+    private static final int MAX_NUMBER_LENGTH = 19;
+
+    private static final String UNION_PAY = "UnionPay";
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    // a card expires at the end of its expiration month in the last time zone to reach it,
+    // UTC-12, so that no card is rejected while the gateway may still accept it
+    private static final long LATEST_TIME_ZONE_OFFSET_MILLIS = -12 * 60 * 60 * 1000L;
+
+    private static final String CREDIT_CARD_FIELD = "creditCard";
+    private static final String BILLING_ADDRESS_FIELD = "billingAddress";
+
+    private final BinRangeIndex binRangeIndex;
+
+    public CardValidator() {
+        this(BinRangeIndex.getDefault());
+    }
+
+    /**
+     * @param binRangeIndex the index to read card type specific length and CVV rules from
+     */
+    public CardValidator(@NonNull BinRangeIndex binRangeIndex) {
+        this.binRangeIndex = binRangeIndex;
+    }
+
+    /**
+     * @param card the card to check
+     * @param configuration the configuration, whose CVV and postal code challenges decide whether
+     * those fields are required
+     * @return {@link #VALID}, or a bit mask of the checks that failed
+     */
+    public int validate(@NonNull BaseCard card, @NonNull Configuration configuration) {
+        return validate(card, configuration.isCvvChallengePresent(),
+                configuration.isPostalCodeChallengePresent());
+    }
+
+    /**
+     * @param card the card to check
+     * @param isCvvRequired whether a missing CVV is an error
+     * @param isPostalCodeRequired whether a missing postal code is an error
+     * @return {@link #VALID}, or a bit mask of the checks that failed
+     */
+    public int validate(@NonNull BaseCard card, boolean isCvvRequired, boolean isPostalCodeRequired) {
+        return validate(card, isCvvRequired, isPostalCodeRequired, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    int validate(BaseCard card, boolean isCvvRequired, boolean isPostalCodeRequired, long currentTimeMillis) {
+        String number = card.getNumber();
+        int position = (number == null) ? BinRangeIndex.NOT_FOUND : binRangeIndex.find(number);
+
+        int failures = validateNumber(number, position);
+        failures |= validateExpirationDate(card.getExpirationMonth(), card.getExpirationYear(), currentTimeMillis);
+        failures |= validateCvv(card.getCvv(), position, isCvvRequired);
+
+        if (isPostalCodeRequired && isBlank(card.getPostalCode())) {
+            failures |= POSTAL_CODE_REQUIRED;
+        }
+        return failures;
+    }
+
+    private int validateNumber(String number, int position) {
+        int digits = 0;
+        int sum = 0;
+        if (number != null) {
+            // Luhn checksum, doubling every second digit from the right
+            for (int i = number.length() - 1; i >= 0; i--) {
+                char c = number.charAt(i);
+                if (c == ' ' || c == '-') {
+                    continue;
+                } else if (c < '0' || c > '9') {
+                    return NUMBER_INVALID;
+                }
+
+                int digit = c - '0';
+                if (digits % 2 == 1) {
+                    digit *= 2;
+                    if (digit > 9) {
+                        digit -= 9;
+                    }
+                }
+                sum += digit;
+                digits++;
+            }
+        }
+
+        if (digits == 0) {
+            return NUMBER_REQUIRED;
+        }
+
+        boolean isValidLength = (position == BinRangeIndex.NOT_FOUND)
+                ? digits >= MIN_NUMBER_LENGTH && digits <= MAX_NUMBER_LENGTH
+                : binRangeIndex.isValidLength(position, digits);
+        if (!isValidLength) {
+            return NUMBER_LENGTH_INVALID;
+        }
+
+        // some UnionPay cards are issued without a Luhn check digit
+        boolean isLuhnExempt = position != BinRangeIndex.NOT_FOUND
+                && UNION_PAY.equals(binRangeIndex.getCardType(position));
+        return (isLuhnExempt || sum % 10 == 0) ? VALID : NUMBER_INVALID;
+    }
+
+    private static int validateExpirationDate(String expirationMonth, String expirationYear, long currentTimeMillis) {
+        boolean isMonthBlank = isBlank(expirationMonth);
+        boolean isYearBlank = isBlank(expirationYear);
+        if (isMonthBlank && isYearBlank) {
+            return EXPIRATION_DATE_REQUIRED;
+        }
+
+        int month = isMonthBlank ? -1 : parseDigits(expirationMonth, 2);
+        int year = isYearBlank ? -1 : parseDigits(expirationYear, 4);
+
+        int failures = VALID;
+        if (month < 1 || month > 12) {
+            failures |= EXPIRATION_MONTH_INVALID;
+        }
+        // two digit years are in this century; four digit years must not have leading zeros
+        boolean isTwoDigitYear = !isYearBlank && year >= 0 && countDigits(expirationYear) == 2;
+        if (year < 0 || (!isTwoDigitYear && year < 1000)) {
+            failures |= EXPIRATION_YEAR_INVALID;
+        } else if (isTwoDigitYear) {
+            year += 2000;
+        }
+
+        if (failures == VALID) {
+            int currentYearMonth = getYearMonth(currentTimeMillis + LATEST_TIME_ZONE_OFFSET_MILLIS);
+            if (year * 100 + month < currentYearMonth) {
+                failures |= EXPIRATION_DATE_INVALID;
+            }
+        }
+        return failures;
+    }
+
+    private int validateCvv(String cvv, int position, boolean isCvvRequired) {
+        if (isBlank(cvv)) {
+            return isCvvRequired ? CVV_REQUIRED : VALID;
+        }
+
+        if (parseDigits(cvv, 4) < 0) {
+            return CVV_LENGTH_INVALID;
+        }
+
+        int length = countDigits(cvv);
+        boolean isValidLength = (position == BinRangeIndex.NOT_FOUND)
+                ? length == 3 || length == 4
+                : length == binRangeIndex.getCvvLength(position);
+        return isValidLength ? VALID : CVV_LENGTH_INVALID;
+    }
+
+    /**
+     * @return the value of {@code value}, ignoring surrounding whitespace, or -1 if it is not a
+     * number of at most {@code maxDigits} digits
+     */
+    private static int parseDigits(String value, int maxDigits) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end || end - start > maxDigits) {
+            return -1;
+        }
+
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static int countDigits(String value) {
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the year and month of {@code millis} since the epoch in UTC as {@code year * 100 + month}
+     */
+    @VisibleForTesting
+    static int getYearMonth(long millis) {
+        // converts days since the epoch to a proleptic Gregorian date without a Calendar
+        long days = millis / MILLIS_PER_DAY;
+        if (millis % MILLIS_PER_DAY < 0) {
+            days--;
+        }
+        // days since 0000-03-01, positive for any date this code will see
+        days += 719468;
+        long era = days / 146097;
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 100 + month);
+    }
+
+    /**
+     * @param failures a bit mask returned by {@link #validate(BaseCard, Configuration)}
+     * @return an {@link ErrorWithResponse} with a {@link BraintreeError} for each failed check,
+     * nested under {@code creditCard} as in gateway responses, or {@code null} if no check failed
+     */
+    @Nullable
+    public static ErrorWithResponse toError(int failures) {
+        if (failures == VALID) {
+            return null;
+        }
+
+        try {
+            JSONArray creditCardErrors = new JSONArray();
+            addFieldError(creditCardErrors, failures, NUMBER_REQUIRED, "number", 81714, "Credit card number is required");
+            addFieldError(creditCardErrors, failures, NUMBER_INVALID, "number", 81715, "Credit card number is invalid");
+            addFieldError(creditCardErrors, failures, NUMBER_LENGTH_INVALID, "number", 81716, "Credit card number must be 12-19 digits");
+            addFieldError(creditCardErrors, failures, EXPIRATION_DATE_REQUIRED, "expirationDate", 81709, "Expiration date is required");
+            addFieldError(creditCardErrors, failures, EXPIRATION_MONTH_INVALID, "expirationMonth", 81712, "Expiration month is invalid");
+            addFieldError(creditCardErrors, failures, EXPIRATION_YEAR_INVALID, "expirationYear", 81713, "Expiration year is invalid");
+            addFieldError(creditCardErrors, failures, EXPIRATION_DATE_INVALID, "expirationDate", 81710, "Expiration date is invalid");
+            addFieldError(creditCardErrors, failures, CVV_REQUIRED, "cvv", 81706, "CVV is required");
+            addFieldError(creditCardErrors, failures, CVV_LENGTH_INVALID, "cvv", 81707, "CVV must be 4 digits for American Express and 3 digits for other card types");
+
+            JSONArray billingAddressErrors = new JSONArray();
+            addFieldError(billingAddressErrors, failures, POSTAL_CODE_REQUIRED, "postalCode", 81808, "Postal code is required");
+            if (billingAddressErrors.length() > 0) {
+                creditCardErrors.put(new JSONObject()
+                        .put("field", BILLING_ADDRESS_FIELD)
+                        .put("fieldErrors", billingAddressErrors));
+            }
+
+            String json = new JSONObject()
+                    .put("error", new JSONObject().put("message", "Credit card is invalid"))
+                    .put("fieldErrors", new JSONArray().put(new JSONObject()
+                            .put("field", CREDIT_CARD_FIELD)
+                            .put("fieldErrors", creditCardErrors)))
+                    .toString();
+            return new ErrorWithResponse(422, json);
+        } catch (JSONException e) {
+            // unreachable; only non-finite numbers are rejected
+            return new ErrorWithResponse(422, "");
+        }
+    }
+
+    private static void addFieldError(JSONArray errors, int failures, int failure, String field, int code, String message) throws JSONException {
+        if ((failures & failure) != 0) {
+            errors.put(new JSONObject()
+                    .put("field", field)
+                    .put("code", code)
+                    .put("message", message));
+        }
+    }
+}
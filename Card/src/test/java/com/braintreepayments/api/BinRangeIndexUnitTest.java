@@ -0,0 +1,126 @@
+package com.braintreepayments.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class BinRangeIndexUnitTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void find_withDefaultIndex_returnsCardTypeOfKnownPrefixes() {
+        BinRangeIndex sut = BinRangeIndex.getDefault();
+
+        assertEquals("Visa", sut.getCardType(sut.find("4")));
+        assertEquals("MasterCard", sut.getCardType(sut.find("2221")));
+        assertEquals("MasterCard", sut.getCardType(sut.find("5555 5555 5555 4444")));
+        assertEquals("American Express", sut.getCardType(sut.find("378282246310005")));
+        assertEquals("Discover", sut.getCardType(sut.find("6011-1111-1111-1117")));
+        assertEquals("JCB", sut.getCardType(sut.find("3530111333300000")));
+        assertEquals("Diners", sut.getCardType(sut.find("36")));
+        assertEquals("UnionPay", sut.getCardType(sut.find("6212345678901232")));
+        assertEquals("Maestro", sut.getCardType(sut.find("6304000000000000")));
+    }
+
+    @Test
+    public void find_withDefaultIndex_returnsLengthAndCvvRules() {
+        BinRangeIndex sut = BinRangeIndex.getDefault();
+        int amex = sut.find("34");
+
+        assertEquals(15, sut.getMinLength(amex));
+        assertEquals(15, sut.getMaxLength(amex));
+        assertEquals(4, sut.getCvvLength(amex));
+        assertTrue(sut.isValidLength(amex, 15));
+        assertFalse(sut.isValidLength(amex, 16));
+        assertEquals(BinData.UNKNOWN, sut.getPrepaid(amex));
+        assertEquals(BinData.UNKNOWN, sut.getCountryOfIssuance(amex));
+    }
+
+    @Test
+    public void find_whenPrefixSpansSeveralRanges_returnsNotFound() {
+        BinRangeIndex sut = BinRangeIndex.getDefault();
+
+        // 3 may be American Express, Diners or JCB
+        assertEquals(BinRangeIndex.NOT_FOUND, sut.find("3"));
+        assertEquals(BinRangeIndex.NOT_FOUND, sut.find("2"));
+    }
+
+    @Test
+    public void find_withoutDigitsOrUnknownPrefix_returnsNotFound() {
+        BinRangeIndex sut = BinRangeIndex.getDefault();
+
+        assertEquals(BinRangeIndex.NOT_FOUND, sut.find(""));
+        assertEquals(BinRangeIndex.NOT_FOUND, sut.find("  "));
+        assertEquals(BinRangeIndex.NOT_FOUND, sut.find("4111a"));
+        assertEquals(BinRangeIndex.NOT_FOUND, sut.find("9999"));
+    }
+
+    @Test
+    public void fromFile_readsRangesAndBinData() throws IOException {
+        ByteBuffer buffer = new BinRangeIndex.Builder()
+                .addRange(40000000, 41111099, "Visa", 16, 19, 3)
+                .addRange(41111100, 41111199, "Visa", 16, 16, 3, BinData.YES, BinData.NO, BinData.UNKNOWN, "USA")
+                .build();
+        File file = temporaryFolder.newFile("bin-ranges");
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.getChannel().write(buffer);
+        outputStream.close();
+
+        BinRangeIndex sut = BinRangeIndex.fromFile(file);
+        int position = sut.find("4111 1111 1111 1111");
+
+        assertEquals(2, sut.size());
+        assertEquals(1, position);
+        assertEquals("Visa", sut.getCardType(position));
+        assertEquals(BinData.YES, sut.getPrepaid(position));
+        assertEquals(BinData.NO, sut.getDebit(position));
+        assertEquals(BinData.UNKNOWN, sut.getCommercial(position));
+        assertEquals("USA", sut.getCountryOfIssuance(position));
+        assertEquals(BinRangeIndex.NOT_FOUND, sut.find("41"));
+    }
+
+    @Test
+    public void fromByteBuffer_whenRangesOverlap_throwsIOException() {
+        ByteBuffer buffer = new BinRangeIndex.Builder()
+                .addRange(40000000, 49999999, "Visa", 16, 19, 3)
+                .addRange(41111100, 41111199, "Visa", 16, 16, 3)
+                .build();
+
+        try {
+            BinRangeIndex.fromByteBuffer(buffer);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("BIN ranges must be sorted and must not overlap", e.getMessage());
+        }
+    }
+
+    @Test
+    public void fromByteBuffer_whenTruncated_throwsIOException() {
+        ByteBuffer buffer = new BinRangeIndex.Builder()
+                .addRange(40000000, 49999999, "Visa", 16, 19, 3)
+                .build();
+        buffer.limit(buffer.limit() - 1);
+
+        try {
+            BinRangeIndex.fromByteBuffer(buffer);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("Truncated BIN range index", e.getMessage());
+        }
+    }
+}
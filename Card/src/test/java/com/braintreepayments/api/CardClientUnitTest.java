@@ -2,6 +2,7 @@ package com.braintreepayments.api;
 
 import android.content.Context;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Before;
@@ -10,13 +11,29 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.isNull;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -58,7 +75,7 @@ public class CardClientUnitTest {
 
         InOrder inOrder = Mockito.inOrder(card, apiClient);
         inOrder.verify(card).setSessionId("session-id");
-        inOrder.verify(apiClient).tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+        inOrder.verify(apiClient).tokenizeGraphQL(any(GraphQLQuery.class), any(JSONObject.class), any(TokenizeCallback.class));
     }
 
     @Test
@@ -215,4 +232,398 @@ public class CardClientUnitTest {
 
         verify(cardTokenizeCallback).onResult(null, configError);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void tokenizeBatch_whenGraphQLEnabled_tokenizesAllCardsWithOneRequest() throws JSONException {
+        String response = new JSONObject()
+                .put("data", new JSONObject()
+                        .put("card0", createGraphQLTokenizationPayload("nonce-0", "1111"))
+                        .put("card1", createGraphQLTokenizationPayload("nonce-1", "4444")))
+                .toString();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .sendGraphQLPOSTSuccessfulResponse(response)
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(Arrays.asList(new Card(), new Card()), callback);
+
+        verify(braintreeClient, times(1)).sendGraphQLPOST(anyString(), any(HttpResponseCallback.class));
+        verify(apiClient, never()).tokenizeGraphQL(any(GraphQLQuery.class), any(JSONObject.class), any(TokenizeCallback.class));
+
+        List<CardTokenizeResult> results = captureBatchResults(callback);
+        assertEquals(2, results.size());
+        assertEquals("nonce-0", results.get(0).getCardNonce().getString());
+        assertEquals("11", results.get(0).getCardNonce().getLastTwo());
+        assertEquals("nonce-1", results.get(1).getCardNonce().getString());
+        assertNull(results.get(1).getError());
+        verify(braintreeClient).sendAnalyticsEvent("card.batch-tokenization.succeeded");
+    }
+
+    @Test
+    public void tokenizeBatch_whenGraphQLEnabled_setsSessionIdOnEachCard() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+        when(braintreeClient.getSessionId()).thenReturn("session-id");
+
+        Card firstCard = spy(new Card());
+        Card secondCard = spy(new Card());
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        sut.tokenize(Arrays.asList(firstCard, secondCard), mock(CardBatchTokenizeCallback.class));
+
+        verify(firstCard).setSessionId("session-id");
+        verify(secondCard).setSessionId("session-id");
+    }
+
+    @Test
+    public void tokenizeBatch_whenGraphQLEnabled_andOneCardFailsValidation_returnsResultPerCard() throws JSONException {
+        JSONObject errorJson = new JSONObject()
+                .put("message", "Credit card number is invalid")
+                .put("path", new JSONArray().put("card1"))
+                .put("extensions", new JSONObject()
+                        .put("errorType", "user_error")
+                        .put("legacyCode", "81715")
+                        .put("inputPath", new JSONArray().put("input1").put("creditCard").put("number")));
+        String response = new JSONObject()
+                .put("data", new JSONObject()
+                        .put("card0", createGraphQLTokenizationPayload("nonce-0", "1111"))
+                        .put("card1", JSONObject.NULL))
+                .put("errors", new JSONArray().put(errorJson))
+                .toString();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .sendGraphQLPOSTErrorResponse(ErrorWithResponse.fromGraphQLJson(response))
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(Arrays.asList(new Card(), new Card()), callback);
+
+        List<CardTokenizeResult> results = captureBatchResults(callback);
+        assertEquals("nonce-0", results.get(0).getCardNonce().getString());
+        assertNull(results.get(1).getCardNonce());
+
+        ErrorWithResponse error = (ErrorWithResponse) results.get(1).getError();
+        assertEquals(422, error.getStatusCode());
+        assertEquals("Credit card number is invalid",
+                error.errorFor("creditCard").errorFor("number").getMessage());
+        verify(braintreeClient).sendAnalyticsEvent("card.batch-tokenization.partially-failed");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void tokenizeBatch_whenGraphQLEnabled_andErrorHasNoPath_returnsItAsRequestError() throws JSONException {
+        JSONObject cardError = new JSONObject()
+                .put("message", "Credit card number is invalid")
+                .put("path", new JSONArray().put("card1"))
+                .put("extensions", new JSONObject()
+                        .put("errorType", "user_error")
+                        .put("legacyCode", "81715")
+                        .put("inputPath", new JSONArray().put("input1").put("creditCard").put("number")));
+        JSONObject requestError = new JSONObject()
+                .put("message", "Merchant account is suspended")
+                .put("extensions", new JSONObject()
+                        .put("errorType", "user_error")
+                        .put("legacyCode", "91003"));
+        String response = new JSONObject()
+                .put("data", new JSONObject()
+                        .put("card0", createGraphQLTokenizationPayload("nonce-0", "1111"))
+                        .put("card1", JSONObject.NULL)
+                        .put("card2", JSONObject.NULL))
+                .put("errors", new JSONArray().put(cardError).put(requestError))
+                .toString();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .sendGraphQLPOSTErrorResponse(ErrorWithResponse.fromGraphQLJson(response))
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(Arrays.asList(new Card(), new Card(), new Card()), callback);
+
+        ArgumentCaptor<List> resultsCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Exception> errorCaptor = ArgumentCaptor.forClass(Exception.class);
+        verify(callback).onResult(resultsCaptor.capture(), errorCaptor.capture());
+
+        ErrorWithResponse error = (ErrorWithResponse) errorCaptor.getValue();
+        assertEquals("Merchant account is suspended", error.getMessage());
+
+        List<CardTokenizeResult> results = (List<CardTokenizeResult>) resultsCaptor.getValue();
+        assertEquals("nonce-0", results.get(0).getCardNonce().getString());
+        ErrorWithResponse cardOneError = (ErrorWithResponse) results.get(1).getError();
+        assertEquals("Credit card number is invalid",
+                cardOneError.errorFor("creditCard").errorFor("number").getMessage());
+        assertFalse(cardOneError.getErrorResponse().contains("Merchant account is suspended"));
+        assertSame(error, results.get(2).getError());
+    }
+
+    @Test
+    public void tokenizeBatch_whenGraphQLEnabled_andRequestFailsWithPartialData_keepsTokenizedCards() throws JSONException {
+        JSONObject errorJson = new JSONObject()
+                .put("message", "An unexpected error occurred")
+                .put("path", new JSONArray().put("card1"))
+                .put("extensions", new JSONObject()
+                        .put("errorType", "developer_error"));
+        String response = new JSONObject()
+                .put("data", new JSONObject()
+                        .put("card0", createGraphQLTokenizationPayload("nonce-0", "1111"))
+                        .put("card1", JSONObject.NULL))
+                .put("errors", new JSONArray().put(errorJson))
+                .toString();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .sendGraphQLPOSTErrorResponse(new UnexpectedException("An unexpected error occurred", response))
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(Arrays.asList(new Card(), new Card()), callback);
+
+        List<CardTokenizeResult> results = captureBatchResults(callback);
+        assertEquals("nonce-0", results.get(0).getCardNonce().getString());
+        assertNull(results.get(1).getCardNonce());
+        assertEquals("An unexpected error occurred", results.get(1).getError().getMessage());
+        verify(braintreeClient).sendAnalyticsEvent("card.batch-tokenization.partially-failed");
+    }
+
+    @Test
+    public void tokenizeBatch_whenGraphQLEnabled_andRequestFails_returnsErrorForEachCard() {
+        Exception error = new Exception("network error");
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .sendGraphQLPOSTErrorResponse(error)
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(Arrays.asList(new Card(), new Card()), callback);
+
+        List<CardTokenizeResult> results = captureBatchResults(callback);
+        assertSame(error, results.get(0).getError());
+        assertSame(error, results.get(1).getError());
+        verify(braintreeClient).sendAnalyticsEvent("card.batch-tokenization.failed");
+    }
+
+    @Test
+    public void tokenizeBatch_whenGraphQLEnabled_splitsLargeBatchesIntoSeveralRequests() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < CardClient.MAX_GRAPHQL_BATCH_SIZE + 1; i++) {
+            cards.add(new Card());
+        }
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        sut.tokenize(cards, mock(CardBatchTokenizeCallback.class));
+
+        verify(braintreeClient, times(2)).sendGraphQLPOST(anyString(), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void tokenizeBatch_whenGraphQLEnabled_sendsCardsWithDifferentOptionsInSeparateRequests() throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+
+        Card firstCard = new Card();
+        firstCard.setNumber("4111111111111111");
+        Card secondCard = new Card();
+        secondCard.setNumber("5555555555554444");
+        secondCard.setMerchantAccountId("merchant-account-id");
+        secondCard.setAuthenticationInsightRequested(true);
+        Card thirdCard = new Card();
+        thirdCard.setNumber("378282246310005");
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        sut.tokenize(Arrays.asList(firstCard, secondCard, thirdCard), mock(CardBatchTokenizeCallback.class));
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(braintreeClient, times(2)).sendGraphQLPOST(captor.capture(), any(HttpResponseCallback.class));
+
+        JSONObject firstVariables = new JSONObject(captor.getAllValues().get(0)).getJSONObject("variables");
+        assertEquals("4111111111111111", firstVariables.getJSONObject("input0").getJSONObject("creditCard").getString("number"));
+        assertEquals("378282246310005", firstVariables.getJSONObject("input1").getJSONObject("creditCard").getString("number"));
+        assertFalse(firstVariables.has("authenticationInsightInput0"));
+
+        JSONObject secondVariables = new JSONObject(captor.getAllValues().get(1)).getJSONObject("variables");
+        assertEquals("5555555555554444", secondVariables.getJSONObject("input0").getJSONObject("creditCard").getString("number"));
+        assertEquals("merchant-account-id", secondVariables.getJSONObject("authenticationInsightInput0").getString("merchantAccountId"));
+    }
+
+    @Test
+    public void tokenizeBatch_whenGraphQLDisabled_limitsConcurrentRESTRequests() throws JSONException {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+
+        int cardCount = CardClient.MAX_CONCURRENT_REST_TOKENIZATIONS + 2;
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < cardCount; i++) {
+            cards.add(new Card());
+        }
+
+        final List<TokenizeCallback> tokenizeCallbacks = new ArrayList<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                tokenizeCallbacks.add((TokenizeCallback) invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(apiClient).tokenizeREST(any(PaymentMethod.class), any(TokenizeCallback.class));
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(cards, callback);
+
+        assertEquals(CardClient.MAX_CONCURRENT_REST_TOKENIZATIONS, tokenizeCallbacks.size());
+
+        tokenizeCallbacks.get(0).onResult(new JSONObject(Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD), null);
+        assertEquals(CardClient.MAX_CONCURRENT_REST_TOKENIZATIONS + 1, tokenizeCallbacks.size());
+
+        // each completion starts the next card, so the list grows while it is drained
+        Exception error = new Exception("error");
+        for (int i = 1; i < tokenizeCallbacks.size(); i++) {
+            tokenizeCallbacks.get(i).onResult(null, error);
+        }
+        assertEquals(cardCount, tokenizeCallbacks.size());
+
+        List<CardTokenizeResult> results = captureBatchResults(callback);
+        assertEquals(cardCount, results.size());
+        assertEquals("123456-12345-12345-a-adfa", results.get(0).getCardNonce().getString());
+        for (int i = 1; i < cardCount; i++) {
+            assertSame(error, results.get(i).getError());
+        }
+        verify(braintreeClient).sendAnalyticsEvent("card.batch-tokenization.partially-failed");
+    }
+
+    @Test
+    public void tokenizeBatch_withNoCards_returnsEmptyResults() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(new ArrayList<Card>(), callback);
+
+        assertTrue(captureBatchResults(callback).isEmpty());
+        verify(braintreeClient, never()).sendGraphQLPOST(anyString(), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void tokenizeBatch_propagatesConfigurationFetchError() {
+        Exception configError = new Exception("Configuration error.");
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configurationError(configError)
+                .build();
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(Collections.singletonList(card), callback);
+
+        verify(callback).onResult(null, configError);
+    }
+
+    @Test
+    public void tokenize_whenLocalValidationEnabled_andCardInvalid_returnsErrorWithoutRequest() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .build();
+        card.setNumber("4111111111111112");
+
+        CardClient sut = new CardClient(braintreeClient, apiClient);
+        sut.setLocalValidationEnabled(true);
+        sut.tokenize(card, cardTokenizeCallback);
+
+        ArgumentCaptor<Exception> captor = ArgumentCaptor.forClass(Exception.class);
+        verify(cardTokenizeCallback).onResult((CardNonce) isNull(), captor.capture());
+
+        ErrorWithResponse error = (ErrorWithResponse) captor.getValue();
+        assertEquals(81715, error.errorFor("number").getCode());
+        verify(apiClient, never()).tokenizeGraphQL(any(GraphQLQuery.class), any(JSONObject.class), any(TokenizeCallback.class));
+        verify(braintreeClient).sendAnalyticsEvent("card.local-validation.failed");
+    }
+
+    @Test
+    public void tokenize_whenLocalValidationEnabled_andCardValid_tokenizes() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        CardValidator cardValidator = mock(CardValidator.class);
+        when(cardValidator.validate(card, graphQLDisabledConfig)).thenReturn(CardValidator.VALID);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, cardValidator);
+        sut.setLocalValidationEnabled(true);
+        sut.tokenize(card, cardTokenizeCallback);
+
+        verify(apiClient).tokenizeREST(same(card), any(TokenizeCallback.class));
+    }
+
+    @Test
+    public void tokenize_whenLocalValidationDisabled_doesNotValidateCard() {
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLDisabledConfig)
+                .build();
+        CardValidator cardValidator = mock(CardValidator.class);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, cardValidator);
+        sut.tokenize(card, cardTokenizeCallback);
+
+        verify(cardValidator, never()).validate(any(BaseCard.class), any(Configuration.class));
+        verify(apiClient).tokenizeREST(same(card), any(TokenizeCallback.class));
+    }
+
+    @Test
+    public void tokenizeBatch_whenLocalValidationEnabled_onlySendsValidCards() throws JSONException {
+        String response = new JSONObject()
+                .put("data", new JSONObject()
+                        .put("card0", createGraphQLTokenizationPayload("nonce-0", "1111")))
+                .toString();
+        BraintreeClient braintreeClient = new MockBraintreeClientBuilder()
+                .configuration(graphQLEnabledConfig)
+                .sendGraphQLPOSTSuccessfulResponse(response)
+                .build();
+
+        Card invalidCard = new Card();
+        Card validCard = new Card();
+        CardValidator cardValidator = mock(CardValidator.class);
+        when(cardValidator.validate(invalidCard, graphQLEnabledConfig)).thenReturn(CardValidator.CVV_LENGTH_INVALID);
+        when(cardValidator.validate(validCard, graphQLEnabledConfig)).thenReturn(CardValidator.VALID);
+
+        CardClient sut = new CardClient(braintreeClient, apiClient, cardValidator);
+        sut.setLocalValidationEnabled(true);
+        CardBatchTokenizeCallback callback = mock(CardBatchTokenizeCallback.class);
+        sut.tokenize(Arrays.asList(invalidCard, validCard), callback);
+
+        ArgumentCaptor<String> payloadCaptor = ArgumentCaptor.forClass(String.class);
+        verify(braintreeClient).sendGraphQLPOST(payloadCaptor.capture(), any(HttpResponseCallback.class));
+        JSONObject variables = new JSONObject(payloadCaptor.getValue()).getJSONObject("variables");
+        assertTrue(variables.has("input0"));
+        assertFalse(variables.has("input1"));
+
+        List<CardTokenizeResult> results = captureBatchResults(callback);
+        ErrorWithResponse error = (ErrorWithResponse) results.get(0).getError();
+        assertEquals(81707, error.errorFor("cvv").getCode());
+        assertEquals("nonce-0", results.get(1).getCardNonce().getString());
+    }
+
+    private static JSONObject createGraphQLTokenizationPayload(String token, String lastFour) throws JSONException {
+        return new JSONObject()
+                .put("token", token)
+                .put("creditCard", new JSONObject()
+                        .put("brand", "Visa")
+                        .put("last4", lastFour));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CardTokenizeResult> captureBatchResults(CardBatchTokenizeCallback callback) {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(callback).onResult(captor.capture(), (Exception) isNull());
+        return (List<CardTokenizeResult>) captor.getValue();
+    }
+}
@@ -4,6 +4,7 @@ import android.os.Parcel
 import com.braintreepayments.api.CardNumber.VISA
 import junit.framework.TestCase.*
 import org.json.JSONException
+import org.json.JSONObject
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
@@ -310,7 +311,7 @@ class CardUnitTest {
                 .getJSONObject(PaymentMethod.OPTIONS_KEY)
         val jsonMetadata = json.getJSONObject("clientSdkMetadata")
 
-        assertEquals(GRAPH_QL_MUTATION_WITH_AUTH_INSIGHT_REQUESTED, json.getString(GraphQLConstants.Keys.QUERY))
+        assertEquals(GRAPH_QL_MUTATION_WITH_AUTH_INSIGHT_REQUESTED, card.graphQLQuery.document)
         assertEquals(VISA, jsonCard.getString("number"))
         assertEquals("01", jsonCard.getString("expirationMonth"))
         assertEquals("2015", jsonCard.getString("expirationYear"))
@@ -482,7 +483,7 @@ class CardUnitTest {
         val variablesJson = json.optJSONObject(GraphQLConstants.Keys.VARIABLES)
 
         assertEquals(variablesJson!!.getJSONObject("authenticationInsightInput")["merchantAccountId"], "merchant-account-id")
-        assertEquals(GRAPH_QL_MUTATION_WITH_AUTH_INSIGHT_REQUESTED, json.getString(GraphQLConstants.Keys.QUERY))
+        assertEquals(GRAPH_QL_MUTATION_WITH_AUTH_INSIGHT_REQUESTED, card.graphQLQuery.document)
     }
 
     @Test
@@ -496,7 +497,7 @@ class CardUnitTest {
         val variablesJson = json.optJSONObject(GraphQLConstants.Keys.VARIABLES)
 
         assertNull(variablesJson?.optJSONObject("authenticationInsightInput"))
-        assertEquals(GRAPH_QL_MUTATION, json.getString(GraphQLConstants.Keys.QUERY))
+        assertEquals(GRAPH_QL_MUTATION, card.graphQLQuery.document)
     }
 
     @Test
@@ -524,7 +525,7 @@ class CardUnitTest {
         val variablesJson = json.optJSONObject(GraphQLConstants.Keys.VARIABLES)
 
         assertNull(variablesJson?.optJSONObject("authenticationInsightInput"))
-        assertEquals(GRAPH_QL_MUTATION, json.getString(GraphQLConstants.Keys.QUERY))
+        assertEquals(GRAPH_QL_MUTATION, card.graphQLQuery.document)
     }
 
     @Test
@@ -602,4 +603,77 @@ class CardUnitTest {
 
         assertEquals("USA", actual.countryCode)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun buildJSONForGraphQL_doesNotIncludeQuery() {
+        val json = Card().buildJSONForGraphQL()
+
+        assertFalse(json.has(GraphQLConstants.Keys.QUERY))
+        assertEquals("TokenizeCreditCard", json.getString("operationName"))
+    }
+
+    @Test
+    fun graphQLQueries_haveSha256HashOfDocument() {
+        for (query in listOf(Card.TOKENIZE_CREDIT_CARD_QUERY, Card.TOKENIZE_CREDIT_CARD_WITH_AUTHENTICATION_INSIGHT_QUERY)) {
+            assertEquals(GraphQLQuery.computeSha256Hash(query.document), query.sha256Hash)
+        }
+    }
+
+    @Test
+    fun buildBatchJSONForGraphQL_aliasesOneMutationPerCard() {
+        val firstCard = Card()
+        firstCard.number = VISA
+        firstCard.merchantAccountId = "merchant-account-id"
+        firstCard.isAuthenticationInsightRequested = true
+        val secondCard = Card()
+        secondCard.number = "5555555555554444"
+        secondCard.merchantAccountId = "merchant-account-id"
+        secondCard.isAuthenticationInsightRequested = true
+
+        val json = JSONObject(Card.buildBatchJSONForGraphQL(listOf(firstCard, secondCard)))
+        val query = json.getString(GraphQLConstants.Keys.QUERY)
+        val variables = json.getJSONObject(GraphQLConstants.Keys.VARIABLES)
+
+        assertEquals("TokenizeCreditCards", json.getString("operationName"))
+        assertTrue(query.startsWith("mutation TokenizeCreditCards(\$input0: TokenizeCreditCardInput!, " +
+                "\$authenticationInsightInput0: AuthenticationInsightInput!, " +
+                "\$input1: TokenizeCreditCardInput!, \$authenticationInsightInput1: AuthenticationInsightInput!) {"))
+        assertTrue(query.contains("card0: tokenizeCreditCard(input: \$input0) {"))
+        assertTrue(query.contains("card1: tokenizeCreditCard(input: \$input1) {"))
+        assertTrue(query.contains("authenticationInsight(input: \$authenticationInsightInput0) {"))
+        assertTrue(query.contains("authenticationInsight(input: \$authenticationInsightInput1) {"))
+        assertEquals(VISA, variables.getJSONObject("input0").getJSONObject("creditCard").getString("number"))
+        assertEquals("5555555555554444", variables.getJSONObject("input1").getJSONObject("creditCard").getString("number"))
+        assertEquals("merchant-account-id", variables.getJSONObject("authenticationInsightInput0").getString("merchantAccountId"))
+        assertEquals("merchant-account-id", variables.getJSONObject("authenticationInsightInput1").getString("merchantAccountId"))
+        assertTrue(json.has("clientSdkMetadata"))
+    }
+
+    @Test
+    fun buildBatchJSONForGraphQL_whenMerchantAccountIdIsNull_andAuthInsightRequestedIsTrue_throwsException() {
+        val firstCard = Card()
+        firstCard.isAuthenticationInsightRequested = true
+        val secondCard = Card()
+        secondCard.isAuthenticationInsightRequested = true
+
+        val expectedException = assertFailsWith<BraintreeException> {
+            Card.buildBatchJSONForGraphQL(listOf(firstCard, secondCard))
+        }
+
+        assertEquals("A merchant account ID is required when authenticationInsightRequested is true.", expectedException.message)
+    }
+
+    @Test
+    fun buildBatchJSONForGraphQL_whenCardsHaveDifferentOptions_throwsException() {
+        val card = Card()
+        card.merchantAccountId = "merchant-account-id"
+        card.isAuthenticationInsightRequested = true
+
+        val expectedException = assertFailsWith<BraintreeException> {
+            Card.buildBatchJSONForGraphQL(listOf(Card(), card))
+        }
+
+        assertEquals("Cards tokenized in one request must have the same merchant account ID, " +
+                "authentication insight setting and metadata.", expectedException.message)
+    }
+}
@@ -0,0 +1,188 @@
+package com.braintreepayments.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class CardValidatorUnitTest {
+
+    // 2026-10-18T00:00:00Z
+    private static final long NOW = 1792281600000L;
+
+    private CardValidator sut;
+    private Card card;
+
+    @Before
+    public void beforeEach() {
+        sut = new CardValidator();
+
+        card = new Card();
+        card.setNumber("4111111111111111");
+        card.setExpirationMonth("12");
+        card.setExpirationYear("2030");
+        card.setCvv("123");
+        card.setPostalCode("12345");
+    }
+
+    @Test
+    public void validate_withValidCard_returnsValid() {
+        assertEquals(CardValidator.VALID, sut.validate(card, true, true, NOW));
+    }
+
+    @Test
+    public void validate_ignoresSpacesAndDashesInNumber() {
+        card.setNumber("4111 1111-1111 1111");
+
+        assertEquals(CardValidator.VALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenLuhnCheckFails_returnsNumberInvalid() {
+        card.setNumber("4111111111111112");
+
+        assertEquals(CardValidator.NUMBER_INVALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenNumberContainsLetters_returnsNumberInvalid() {
+        card.setNumber("4111a11111111111");
+
+        assertEquals(CardValidator.NUMBER_INVALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenNumberMissing_returnsNumberRequired() {
+        card.setNumber(null);
+
+        assertEquals(CardValidator.NUMBER_REQUIRED, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenLengthInvalidForCardType_returnsNumberLengthInvalid() {
+        // passes the Luhn check, but American Express numbers have 15 digits
+        card.setNumber("3782822463100005");
+        card.setCvv("1234");
+
+        assertEquals(CardValidator.NUMBER_LENGTH_INVALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_withUnionPayCard_skipsLuhnCheck() {
+        card.setNumber("6212345678901232");
+
+        assertEquals(CardValidator.VALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenCvvLengthInvalidForCardType_returnsCvvLengthInvalid() {
+        card.setNumber("378282246310005");
+        card.setCvv("123");
+
+        assertEquals(CardValidator.CVV_LENGTH_INVALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenCvvMissing_returnsCvvRequiredOnlyWhenChallengePresent() {
+        card.setCvv(null);
+
+        assertEquals(CardValidator.CVV_REQUIRED, sut.validate(card, true, false, NOW));
+        assertEquals(CardValidator.VALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenPostalCodeMissing_returnsPostalCodeRequiredOnlyWhenChallengePresent() {
+        card.setPostalCode(null);
+
+        assertEquals(CardValidator.POSTAL_CODE_REQUIRED, sut.validate(card, false, true, NOW));
+        assertEquals(CardValidator.VALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_withConfiguration_usesChallenges() {
+        Configuration configuration = new TestConfigurationBuilder()
+                .challenges("cvv", "postal_code")
+                .buildConfiguration();
+        card.setCvv(null);
+        card.setPostalCode(null);
+
+        assertEquals(CardValidator.CVV_REQUIRED | CardValidator.POSTAL_CODE_REQUIRED,
+                sut.validate(card, configuration));
+    }
+
+    @Test
+    public void validate_whenCardExpiredLastMonth_returnsExpirationDateInvalid() {
+        card.setExpirationMonth("09");
+        card.setExpirationYear("2026");
+
+        assertEquals(CardValidator.EXPIRATION_DATE_INVALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenCardExpiresThisMonth_returnsValid() {
+        card.setExpirationDate("10/26");
+
+        assertEquals(CardValidator.VALID, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_doesNotTreatCardAsExpiredUntilMonthEndsInEveryTimeZone() {
+        card.setExpirationDate("10/2026");
+
+        // 2026-11-01T05:00:00Z is still October in UTC-12
+        assertEquals(CardValidator.VALID, sut.validate(card, false, false, 1793509200000L));
+        // 2026-11-01T13:00:00Z is November everywhere
+        assertEquals(CardValidator.EXPIRATION_DATE_INVALID, sut.validate(card, false, false, 1793538000000L));
+    }
+
+    @Test
+    public void validate_whenExpirationMonthAndYearInvalid_returnsBothFailures() {
+        card.setExpirationMonth("13");
+        card.setExpirationYear("026");
+
+        assertEquals(CardValidator.EXPIRATION_MONTH_INVALID | CardValidator.EXPIRATION_YEAR_INVALID,
+                sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void validate_whenExpirationDateMissing_returnsExpirationDateRequired() {
+        card.setExpirationMonth(null);
+        card.setExpirationYear(null);
+
+        assertEquals(CardValidator.EXPIRATION_DATE_REQUIRED, sut.validate(card, false, false, NOW));
+    }
+
+    @Test
+    public void getYearMonth_convertsMillisInUTC() {
+        assertEquals(197001, CardValidator.getYearMonth(0));
+        assertEquals(202410, CardValidator.getYearMonth(1730419199999L));
+        assertEquals(202411, CardValidator.getYearMonth(1730419200000L));
+        assertEquals(202402, CardValidator.getYearMonth(1709164800000L));
+    }
+
+    @Test
+    public void toError_whenValid_returnsNull() {
+        assertNull(CardValidator.toError(CardValidator.VALID));
+    }
+
+    @Test
+    public void toError_returnsGatewayFieldErrorsNestedUnderCreditCard() {
+        ErrorWithResponse error = CardValidator.toError(
+                CardValidator.NUMBER_INVALID | CardValidator.CVV_REQUIRED | CardValidator.POSTAL_CODE_REQUIRED);
+
+        assertEquals(422, error.getStatusCode());
+        assertEquals("Credit card is invalid", error.getMessage());
+        assertEquals(1, error.getFieldErrors().size());
+        assertEquals("creditCard", error.getFieldErrors().get(0).getField());
+
+        BraintreeError numberError = error.errorFor("number");
+        assertEquals(81715, numberError.getCode());
+        assertEquals("Credit card number is invalid", numberError.getMessage());
+        assertEquals(81706, error.errorFor("cvv").getCode());
+        assertEquals(81808, error.errorFor("billingAddress").errorFor("postalCode").getCode());
+    }
+}
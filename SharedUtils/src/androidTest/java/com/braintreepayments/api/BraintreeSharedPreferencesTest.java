@@ -2,6 +2,7 @@ package com.braintreepayments.api;
 
 import static com.braintreepayments.api.BraintreeSharedPreferences.getSharedPreferences;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
 import static junit.framework.TestCase.assertTrue;
 
 import android.content.Context;
@@ -17,6 +18,8 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
 
 @RunWith(AndroidJUnit4ClassRunner.class)
 public class BraintreeSharedPreferencesTest {
@@ -122,4 +125,38 @@ public class BraintreeSharedPreferencesTest {
         assertEquals("testValueString", sharedPreferences.getString("testKeyString", null));
         assertEquals(2L, sharedPreferences.getLong("testKeyLong", 0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getSharedPreferences_returnsSameInstanceOnSubsequentCalls() {
+        SharedPreferences first = getSharedPreferences(context);
+        SharedPreferences second = getSharedPreferences(context);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void warmUp_createsSharedPreferencesOnBackgroundScheduler() {
+        final List<Runnable> backgroundRunnables = new ArrayList<>();
+        Scheduler scheduler = new Scheduler() {
+            @Override
+            public void runOnMain(Runnable runnable) {}
+
+            @Override
+            public void runOnBackground(Runnable runnable) {
+                backgroundRunnables.add(runnable);
+            }
+
+            @Override
+            public void runOnBackground(Runnable runnable, long delayMillis) {
+                backgroundRunnables.add(runnable);
+            }
+        };
+
+        BraintreeSharedPreferences sut = BraintreeSharedPreferences.getInstance();
+        sut.warmUp(context, scheduler);
+
+        assertEquals(1, backgroundRunnables.size());
+        backgroundRunnables.get(0).run();
+        assertSame(getSharedPreferences(context), getSharedPreferences(context));
+    }
+}
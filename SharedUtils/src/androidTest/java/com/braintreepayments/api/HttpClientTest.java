@@ -8,6 +8,8 @@ import org.junit.runner.RunWith;
 
 import java.util.concurrent.CountDownLatch;
 
+import javax.net.ssl.SSLSocketFactory;
+
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
@@ -24,7 +26,7 @@ public class HttpClientTest {
 
     @Test(timeout = 5000)
     public void sendRequest_whenErrorOccurs_callsFailure() throws InterruptedException {
-        HttpClient sut = new HttpClient(null, new BaseHttpResponseParser());
+        HttpClient sut = new HttpClient((SSLSocketFactory) null, new BaseHttpResponseParser());
 
         HttpRequest httpRequest = new HttpRequest()
                 .method("GET")
@@ -0,0 +1,154 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.VisibleForTesting;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide pool that runs the background work of every {@link ThreadScheduler}.
+ *
+ * The pool has a fixed number of named threads that time out when idle, so a burst of requests
+ * queues up instead of creating a thread per request, and an idle SDK holds no threads. Queued
+ * tasks run in order of priority, so a tokenization request submitted behind a backlog of
+ * analytics uploads is picked up by the next free thread. Tasks with the same priority run in the
+ * order they were submitted.
+ */
+class BackgroundThreadPool {
+
+    @IntDef({ PRIORITY_HIGH, PRIORITY_NORMAL, PRIORITY_LOW })
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Priority {
+    }
+
+    /**
+     * Requests a merchant is waiting on, such as tokenization.
+     */
+    static final int PRIORITY_HIGH = 0;
+
+    static final int PRIORITY_NORMAL = 1;
+
+    /**
+     * Work nobody is waiting on, such as analytics and cache warm-up.
+     */
+    static final int PRIORITY_LOW = 2;
+
+    static final int DEFAULT_POOL_SIZE = 4;
+    static final long KEEP_ALIVE_DURATION_MS = TimeUnit.SECONDS.toMillis(60);
+
+    private static final String THREAD_NAME_PREFIX = "braintree-background-";
+
+    private static volatile BackgroundThreadPool INSTANCE;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence;
+
+    private final AtomicLong startedTaskCount;
+    private final AtomicLong totalWaitTimeNanos;
+    private final AtomicLong maxWaitTimeNanos;
+
+    static BackgroundThreadPool getInstance() {
+        if (INSTANCE == null) {
+            synchronized (BackgroundThreadPool.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    INSTANCE = new BackgroundThreadPool(DEFAULT_POOL_SIZE);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    BackgroundThreadPool(int poolSize) {
+        executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_DURATION_MS,
+                TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), new NamedThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+
+        sequence = new AtomicLong();
+        startedTaskCount = new AtomicLong();
+        totalWaitTimeNanos = new AtomicLong();
+        maxWaitTimeNanos = new AtomicLong();
+    }
+
+    void execute(Runnable runnable, @Priority int priority) {
+        executor.execute(new Task(runnable, priority, sequence.getAndIncrement(), System.nanoTime()));
+    }
+
+    /**
+     * @return a snapshot of the current state of the pool.
+     */
+    ThreadPoolMetrics getMetrics() {
+        long startedTasks = startedTaskCount.get();
+        long averageWaitTimeNanos = (startedTasks == 0) ? 0 : totalWaitTimeNanos.get() / startedTasks;
+        return new ThreadPoolMetrics(
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                executor.getPoolSize(),
+                executor.getMaximumPoolSize(),
+                executor.getCompletedTaskCount(),
+                TimeUnit.NANOSECONDS.toMillis(averageWaitTimeNanos),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitTimeNanos.get()));
+    }
+
+    private void recordWaitTime(long waitTimeNanos) {
+        startedTaskCount.incrementAndGet();
+        totalWaitTimeNanos.addAndGet(waitTimeNanos);
+
+        long currentMax;
+        do {
+            currentMax = maxWaitTimeNanos.get();
+        } while (waitTimeNanos > currentMax && !maxWaitTimeNanos.compareAndSet(currentMax, waitTimeNanos));
+    }
+
+    private class Task implements Runnable, Comparable<Task> {
+
+        private final Runnable runnable;
+        private final int priority;
+        private final long sequence;
+        private final long enqueuedAtNanos;
+
+        Task(Runnable runnable, int priority, long sequence, long enqueuedAtNanos) {
+            this.runnable = runnable;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+
+        @Override
+        public void run() {
+            recordWaitTime(System.nanoTime() - enqueuedAtNanos);
+            try {
+                runnable.run();
+            } catch (RuntimeException ignored) {
+                // tasks used to be submitted to an ExecutorService, which captured exceptions in a
+                // Future nobody read; keep the worker thread alive the same way
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return (priority < other.priority) ? -1 : 1;
+            }
+            return (sequence < other.sequence) ? -1 : ((sequence == other.sequence) ? 0 : 1);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+        }
+    }
+}
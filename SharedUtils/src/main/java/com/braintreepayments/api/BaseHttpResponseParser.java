@@ -1,8 +1,9 @@
 package com.braintreepayments.api;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.zip.GZIPInputStream;
@@ -12,6 +13,7 @@ import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_CREATED;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
@@ -25,6 +27,10 @@ class BaseHttpResponseParser implements HttpResponseParser {
     private static final int HTTP_UPGRADE_REQUIRED = 426;
     private static final int HTTP_TOO_MANY_REQUESTS = 429;
 
+    private static final int BUFFER_SIZE = 8192;
+    private static final int DEFAULT_BODY_CAPACITY = 1024;
+    private static final int MAX_INITIAL_BODY_CAPACITY = 1024 * 1024;
+
 
     /**
      * @param responseCode the response code returned when the http request was made.
@@ -36,6 +42,8 @@ class BaseHttpResponseParser implements HttpResponseParser {
         switch (responseCode) {
             case HTTP_OK: case HTTP_CREATED: case HTTP_ACCEPTED:
                 return responseBody;
+            case HTTP_NOT_MODIFIED:
+                throw new NotModifiedException();
             case HTTP_BAD_REQUEST: case HTTP_UNPROCESSABLE_ENTITY:
                 throw new UnprocessableEntityException(responseBody);
             case HTTP_UNAUTHORIZED:
@@ -57,10 +65,16 @@ class BaseHttpResponseParser implements HttpResponseParser {
 
     private String parseBody(int responseCode, HttpURLConnection connection) throws IOException {
         boolean gzip = "gzip".equals(connection.getContentEncoding());
+        int contentLength = connection.getContentLength();
         switch (responseCode) {
             case HTTP_OK: case HTTP_CREATED: case HTTP_ACCEPTED:
-                return readStream(connection.getInputStream(), gzip);
+                return readStream(connection.getInputStream(), gzip, contentLength);
+            case HTTP_NOT_MODIFIED:
+                // a 304 response never has a body
+                return null;
             case HTTP_TOO_MANY_REQUESTS:
+                // drain the body so the connection can be returned to the keep-alive pool
+                readStream(connection.getErrorStream(), gzip, contentLength);
                 return null;
             case HTTP_UNAUTHORIZED:
             case HTTP_FORBIDDEN:
@@ -70,26 +84,36 @@ class BaseHttpResponseParser implements HttpResponseParser {
             case HTTP_INTERNAL_ERROR:
             case HTTP_UNAVAILABLE:
             default:
-                return readStream(connection.getErrorStream(), gzip);
+                return readStream(connection.getErrorStream(), gzip, contentLength);
         }
     }
 
-    private String readStream(InputStream in, boolean gzip) throws IOException {
+    /**
+     * Decodes the body while it is read, so the only copy of the body besides the returned
+     * {@link String} is a builder sized from {@code Content-Length} when the server sends it.
+     */
+    private String readStream(InputStream in, boolean gzip, int contentLength) throws IOException {
         if (in == null) {
             return null;
         }
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
             if (gzip) {
-                in = new GZIPInputStream(in);
+                in = new GZIPInputStream(in, BUFFER_SIZE);
             }
 
-            byte[] buffer = new byte[1024];
-            for (int count; (count = in.read(buffer)) != -1; ) {
-                out.write(buffer, 0, count);
+            // a UTF-8 body never has more characters than bytes; a gzipped body inflates to an
+            // unknown size, so its compressed length is only a lower bound
+            int initialCapacity = (contentLength > 0)
+                    ? Math.min(contentLength, MAX_INITIAL_BODY_CAPACITY) : DEFAULT_BODY_CAPACITY;
+            StringBuilder out = new StringBuilder(initialCapacity);
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+
+            char[] buffer = new char[BUFFER_SIZE];
+            for (int count; (count = reader.read(buffer)) != -1; ) {
+                out.append(buffer, 0, count);
             }
-            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            return out.toString();
 
         } finally {
             try {
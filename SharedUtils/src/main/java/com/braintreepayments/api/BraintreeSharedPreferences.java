@@ -11,6 +11,10 @@ class BraintreeSharedPreferences {
     private static volatile BraintreeSharedPreferences INSTANCE;
     private static final String BRAINTREE_SHARED_PREFS_FILENAME = "BraintreeApi";
 
+    // creating the master key requires a round trip to the Android Keystore, so the encrypted
+    // shared preferences handle is created once per application context and reused
+    private static volatile SharedPreferencesHolder sharedPreferencesHolder;
+
     static BraintreeSharedPreferences getInstance() {
         if (INSTANCE == null) {
             synchronized (BraintreeSharedPreferences.class) {
@@ -26,6 +30,30 @@ class BraintreeSharedPreferences {
     private BraintreeSharedPreferences() {}
 
     static SharedPreferences getSharedPreferences(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        if (applicationContext == null) {
+            applicationContext = context;
+        }
+
+        SharedPreferencesHolder holder = sharedPreferencesHolder;
+        if (holder == null || holder.applicationContext != applicationContext) {
+            synchronized (BraintreeSharedPreferences.class) {
+                // double check that the handle was not created in another thread
+                holder = sharedPreferencesHolder;
+                if (holder == null || holder.applicationContext != applicationContext) {
+                    SharedPreferences sharedPreferences = createSharedPreferences(applicationContext);
+                    if (sharedPreferences == null) {
+                        return null;
+                    }
+                    holder = new SharedPreferencesHolder(applicationContext, sharedPreferences);
+                    sharedPreferencesHolder = holder;
+                }
+            }
+        }
+        return holder.sharedPreferences;
+    }
+
+    private static SharedPreferences createSharedPreferences(Context context) {
         try {
             MasterKey masterKey = new MasterKey.Builder(context)
                     .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
@@ -45,6 +73,19 @@ class BraintreeSharedPreferences {
         }
     }
 
+    /**
+     * Creates the encrypted shared preferences handle on a background thread so that the first
+     * read or write on the calling thread does not pay for the Keystore round trip.
+     */
+    void warmUp(final Context context, Scheduler scheduler) {
+        scheduler.runOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                getSharedPreferences(context);
+            }
+        });
+    }
+
     String getString(Context context, String key, String fallback)  {
         SharedPreferences sharedPreferences = getSharedPreferences(context);
         if (sharedPreferences != null) {
@@ -118,4 +159,14 @@ class BraintreeSharedPreferences {
                     .apply();
         }
     }
+
+    private static class SharedPreferencesHolder {
+        final Context applicationContext;
+        final SharedPreferences sharedPreferences;
+
+        SharedPreferencesHolder(Context applicationContext, SharedPreferences sharedPreferences) {
+            this.applicationContext = applicationContext;
+            this.sharedPreferences = sharedPreferences;
+        }
+    }
 }
@@ -0,0 +1,123 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries requests that failed because of a network error or because the server was unavailable
+ * or rate limiting, waiting exponentially longer between attempts.
+ *
+ * Each delay is randomized between half and all of its exponential value so that clients that
+ * failed at the same moment, for example during a gateway incident, do not all retry at the
+ * same moment. When the response includes a {@code Retry-After} header that wait is used
+ * instead, and a request is not retried if the server asks for a longer wait than
+ * {@code maxRetryAfterMillis}.
+ *
+ * A request that is not idempotent (see {@link HttpRequest#isIdempotent()}) is only retried when
+ * the server cannot have processed it: when the connection could not be established, or the
+ * server responded with 429 or 503.
+ */
+class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    static final long DEFAULT_BASE_DELAY_MS = 500;
+    static final long DEFAULT_MAX_DELAY_MS = TimeUnit.SECONDS.toMillis(8);
+    static final long DEFAULT_MAX_RETRY_AFTER_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long maxRetryAfterMillis;
+    private final Random random;
+
+    ExponentialBackoffRetryPolicy(int maxAttempts) {
+        this(maxAttempts, DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_MAX_RETRY_AFTER_MS, new Random());
+    }
+
+    @VisibleForTesting
+    ExponentialBackoffRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, long maxRetryAfterMillis, Random random) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxRetryAfterMillis = maxRetryAfterMillis;
+        this.random = random;
+    }
+
+    @Override
+    public boolean isRetryable(HttpRequest request, Exception error) {
+        if (error instanceof RateLimitException
+                || error instanceof ServiceUnavailableException
+                || error instanceof ConnectException
+                || error instanceof UnknownHostException) {
+            // the request never reached the server, or the server refused it without processing it
+            return true;
+        }
+        if (error instanceof IOException || error instanceof ServerException) {
+            return request.isIdempotent();
+        }
+        return false;
+    }
+
+    @Override
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public long getRetryDelay(HttpRequest request, Exception error, int attempt) {
+        if (error instanceof RateLimitException || error instanceof ServiceUnavailableException) {
+            long retryAfterMillis = parseRetryAfter(request.getResponseRetryAfter(), System.currentTimeMillis());
+            if (retryAfterMillis > maxRetryAfterMillis) {
+                return DO_NOT_RETRY;
+            }
+            if (retryAfterMillis >= 0) {
+                return retryAfterMillis;
+            }
+        }
+
+        long exponentialDelay = baseDelayMillis << Math.min(attempt - 1, 30);
+        long delay = Math.min(maxDelayMillis, exponentialDelay);
+        long halfDelay = delay / 2;
+        return halfDelay + (long) (random.nextDouble() * (delay - halfDelay));
+    }
+
+    /**
+     * @param retryAfter a {@code Retry-After} header value, either a number of seconds or an HTTP
+     *                   date.
+     * @return the wait in milliseconds, or -1 if the value is missing or cannot be parsed.
+     */
+    @VisibleForTesting
+    static long parseRetryAfter(String retryAfter, long currentTimeMillis) {
+        if (retryAfter == null) {
+            return -1;
+        }
+
+        String value = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return (seconds < 0) ? -1 : TimeUnit.SECONDS.toMillis(seconds);
+        } catch (NumberFormatException ignored) {
+            // not a number of seconds; try an HTTP date
+        }
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date date = dateFormat.parse(value);
+            return Math.max(0, date.getTime() - currentTimeMillis);
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
@@ -3,13 +3,10 @@ package com.braintreepayments.api;
 import androidx.annotation.IntDef;
 import androidx.annotation.VisibleForTesting;
 
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.net.MalformedURLException;
-import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
 
 import javax.net.ssl.SSLSocketFactory;
 
@@ -27,22 +24,51 @@ class HttpClient {
 
     private final Scheduler scheduler;
     private final SynchronousHttpClient syncHttpClient;
-
-    private final Map<URL, Integer> retryCountMap;
+    private final RetryPolicy retryPolicy;
 
     protected HttpClient(SSLSocketFactory socketFactory, HttpResponseParser httpResponseParser) {
         this(new SynchronousHttpClient(socketFactory, httpResponseParser), new ThreadScheduler());
     }
 
+    /**
+     * @param socketFactoryLoader creates the socket factory on the first https request, so the
+     *                            client is cheap to construct.
+     */
+    protected HttpClient(SSLSocketFactoryLoader socketFactoryLoader, HttpResponseParser httpResponseParser) {
+        this(new SynchronousHttpClient(socketFactoryLoader, httpResponseParser, new HttpConnectionPool()), new ThreadScheduler());
+    }
+
     @VisibleForTesting
     HttpClient(SynchronousHttpClient syncHttpClient, Scheduler scheduler) {
+        this(syncHttpClient, scheduler, new ExponentialBackoffRetryPolicy(MAX_RETRY_ATTEMPTS));
+    }
+
+    /**
+     * @param retryPolicy the policy used for requests sent with {@link #RETRY_MAX_3_TIMES}.
+     */
+    @VisibleForTesting
+    HttpClient(SynchronousHttpClient syncHttpClient, Scheduler scheduler, RetryPolicy retryPolicy) {
         this.syncHttpClient = syncHttpClient;
         this.scheduler = scheduler;
-        this.retryCountMap = new HashMap<>();
+        this.retryPolicy = retryPolicy;
     }
 
     String sendRequest(HttpRequest request) throws Exception {
-        return syncHttpClient.request(request);
+        try {
+            return syncHttpClient.request(request);
+        } finally {
+            request.dispose();
+        }
+    }
+
+    /**
+     * Sends the first attempt of a request on the calling thread, retrying failed attempts
+     * according to {@code retryStrategy}. Retries are queued on a background thread after their
+     * delay, so no thread is held while waiting to retry. The callback is notified on the thread
+     * that runs the last attempt.
+     */
+    void sendRequestOnCurrentThread(HttpRequest request, @RetryStrategy int retryStrategy, HttpResponseCallback callback) {
+        runAttempt(request, getRetryPolicy(retryStrategy), callback, 1, false);
     }
 
     void sendRequest(HttpRequest request, HttpResponseCallback callback) {
@@ -50,68 +76,122 @@ class HttpClient {
     }
 
     void sendRequest(HttpRequest request, @RetryStrategy int retryStrategy, HttpResponseCallback callback) {
-        scheduleRequest(request, retryStrategy, callback);
+        sendRequest(request, getRetryPolicy(retryStrategy), callback);
     }
 
-    private void scheduleRequest(final HttpRequest request, @RetryStrategy final int retryStrategy, final HttpResponseCallback callback) {
-        resetRetryCount(request);
+    /**
+     * Sends a request on a background thread, retrying failed attempts according to
+     * {@code retryPolicy}. No thread is held while waiting to retry.
+     *
+     * @param retryPolicy the policy to apply, or null to send the request once.
+     */
+    void sendRequest(HttpRequest request, RetryPolicy retryPolicy, HttpResponseCallback callback) {
+        scheduleAttempt(request, retryPolicy, callback, 1, 0, true);
+    }
 
+    /**
+     * Sends a {@code HEAD} request to the root of the host of {@code url} on a background thread so a connection to its
+     * host is left open in the keep-alive pool, and the first real request skips the TCP and TLS
+     * handshakes. The status code of the response is not relevant; the callback only receives an
+     * error if the host could not be reached.
+     */
+    void warmUp(final String url, final HttpResponseCallback callback) {
         scheduler.runOnBackground(new Runnable() {
             @Override
             public void run() {
                 try {
-                    String responseBody = syncHttpClient.request(request);
-                    notifySuccessOnMainThread(callback, responseBody);
+                    URL hostUrl = new URL(url);
+                    URL originUrl = new URL(hostUrl.getProtocol(), hostUrl.getHost(), hostUrl.getPort(), "/");
+                    HttpRequest request = new HttpRequest()
+                            .method("HEAD")
+                            .path(originUrl.toString());
+                    syncHttpClient.request(request);
+                    notifySuccessOnMainThread(callback, null);
+                } catch (IOException e) {
+                    notifyErrorOnMainThread(callback, e);
                 } catch (Exception e) {
-                    switch (retryStrategy) {
-                        case HttpClient.NO_RETRY:
-                            notifyErrorOnMainThread(callback, e);
-                            break;
-                        case HttpClient.RETRY_MAX_3_TIMES:
-                            retryGet(request, retryStrategy, callback);
-                            break;
-                    }
+                    // the host responded with an error status, but the connection is warm
+                    notifySuccessOnMainThread(callback, null);
                 }
             }
         });
     }
 
-    private void retryGet(final HttpRequest request, @RetryStrategy final int retryStrategy, final HttpResponseCallback callback) {
-        URL url = null;
+    /**
+     * @param notifyOnMainThread whether to post the result to the main thread, or deliver it on
+     *                           the thread that runs the last attempt.
+     */
+    private void scheduleAttempt(final HttpRequest request, final RetryPolicy retryPolicy, final HttpResponseCallback callback, final int attempt, long delayMillis, final boolean notifyOnMainThread) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                runAttempt(request, retryPolicy, callback, attempt, notifyOnMainThread);
+            }
+        };
+
+        if (delayMillis > 0) {
+            scheduler.runOnBackground(task, delayMillis);
+        } else {
+            scheduler.runOnBackground(task);
+        }
+    }
+
+    private void runAttempt(HttpRequest request, RetryPolicy retryPolicy, HttpResponseCallback callback, int attempt, boolean notifyOnMainThread) {
+        String responseBody;
         try {
-            url = request.getURL();
-        } catch (MalformedURLException | URISyntaxException ignore) {}
-
-        if (url != null) {
-            int retryCount = getNumRetriesSoFar(url);
-            boolean shouldRetry = ((retryCount + 1) < MAX_RETRY_ATTEMPTS);
-            if (shouldRetry) {
-                scheduleRequest(request, retryStrategy, callback);
-                retryCountMap.put(url, retryCount + 1);
+            responseBody = syncHttpClient.request(request);
+        } catch (Exception e) {
+            long retryDelay = getRetryDelay(request, retryPolicy, e, attempt);
+            if (retryDelay < 0) {
+                request.dispose();
+                notifyResult(callback, null, createFinalError(retryPolicy, e, attempt), notifyOnMainThread);
             } else {
-                String message = "Retry limit has been exceeded. Try again later.";
-                HttpClientException retryLimitException = new HttpClientException(message);
-                notifyErrorOnMainThread(callback, retryLimitException);
+                scheduleAttempt(request, retryPolicy, callback, attempt + 1, retryDelay, notifyOnMainThread);
             }
+            return;
         }
+        request.dispose();
+        notifyResult(callback, responseBody, null, notifyOnMainThread);
     }
 
-    private int getNumRetriesSoFar(URL url) {
-        Integer retryCount = retryCountMap.get(url);
-        if (retryCount == null) {
-            return 0;
+    private RetryPolicy getRetryPolicy(@RetryStrategy int retryStrategy) {
+        return (retryStrategy == RETRY_MAX_3_TIMES) ? retryPolicy : null;
+    }
+
+    /**
+     * @return the time to wait before sending {@code request} again, or a negative value if it
+     * should not be retried.
+     */
+    private static long getRetryDelay(HttpRequest request, RetryPolicy retryPolicy, Exception error, int attempt) {
+        if (retryPolicy == null || error instanceof NotModifiedException) {
+            // a 304 is a successful conditional response; retrying would not change it
+            return RetryPolicy.DO_NOT_RETRY;
+        }
+        if (!retryPolicy.isRetryable(request, error)) {
+            return RetryPolicy.DO_NOT_RETRY;
         }
-        return retryCount;
+        if (attempt >= retryPolicy.getMaxAttempts()) {
+            return RetryPolicy.DO_NOT_RETRY;
+        }
+        return retryPolicy.getRetryDelay(request, error, attempt);
     }
 
-    private void resetRetryCount(HttpRequest request) {
-        URL url = null;
-        try {
-            url = request.getURL();
-        } catch (MalformedURLException | URISyntaxException ignore) {}
+    private static Exception createFinalError(RetryPolicy retryPolicy, Exception error, int attempt) {
+        if (retryPolicy != null && attempt >= retryPolicy.getMaxAttempts() && attempt > 1) {
+            return new HttpClientException("Retry limit has been exceeded. Try again later.");
+        }
+        return error;
+    }
 
-        if (url != null) {
-            retryCountMap.remove(url);
+    private void notifyResult(HttpResponseCallback callback, String responseBody, Exception error, boolean notifyOnMainThread) {
+        if (notifyOnMainThread) {
+            if (error == null) {
+                notifySuccessOnMainThread(callback, responseBody);
+            } else {
+                notifyErrorOnMainThread(callback, error);
+            }
+        } else if (callback != null) {
+            callback.onResult(responseBody, error);
         }
     }
 
@@ -0,0 +1,139 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the keep-alive connections {@link SynchronousHttpClient} hands back to the
+ * platform {@link java.net.HttpURLConnection} connection pool.
+ *
+ * The platform pool only reuses a socket (and its TLS session) when the response body has been
+ * fully consumed and the connection is not explicitly disconnected. This class decides, per host,
+ * whether a finished connection may stay warm so that back-to-back requests to the Braintree
+ * gateway, GraphQL and analytics hosts skip the TCP and TLS handshakes. At most
+ * {@code maxIdleConnectionsPerHost} connections per host are kept warm at once, additional
+ * connections are opened with {@code Connection: close}, and connections that have been idle
+ * longer than the keep-alive duration are treated as evicted.
+ */
+class HttpConnectionPool {
+
+    static final int DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST = 5;
+    static final long DEFAULT_KEEP_ALIVE_DURATION_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final int maxIdleConnectionsPerHost;
+    private final long keepAliveDurationMillis;
+
+    private final Map<String, HostConnections> hostConnections;
+
+    HttpConnectionPool() {
+        this(DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST, DEFAULT_KEEP_ALIVE_DURATION_MS);
+    }
+
+    HttpConnectionPool(int maxIdleConnectionsPerHost, long keepAliveDurationMillis) {
+        this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+        this.keepAliveDurationMillis = keepAliveDurationMillis;
+        this.hostConnections = new HashMap<>();
+    }
+
+    /**
+     * Called before a connection to {@code url} is opened.
+     *
+     * @return true if the connection may be kept alive once its response has been read; false if
+     * the host already has {@code maxIdleConnectionsPerHost} warm connections and this one should
+     * be closed by the server after use.
+     */
+    boolean acquire(URL url) {
+        return acquire(url, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    synchronized boolean acquire(URL url, long currentTimeMillis) {
+        HostConnections connections = getHostConnections(createHostKey(url));
+        evictIdleConnections(connections, currentTimeMillis);
+
+        boolean keepAlive;
+        if (connections.idleCount > 0) {
+            // the platform pool hands out one of the warm connections
+            connections.idleCount--;
+            keepAlive = true;
+        } else {
+            int openConnections = connections.keepAliveCount + connections.idleCount;
+            keepAlive = openConnections < maxIdleConnectionsPerHost;
+        }
+
+        if (keepAlive) {
+            connections.keepAliveCount++;
+        }
+        return keepAlive;
+    }
+
+    /**
+     * Called once the response for a connection to {@code url} has been handled.
+     *
+     * @param keepAlive the value returned by {@link #acquire(URL)} for this connection.
+     * @param reusable true if the response body was fully consumed and the connection is in a
+     *                 state where the platform pool can safely reuse it.
+     * @return true if the connection was returned to the pool; false if the caller should
+     * disconnect.
+     */
+    boolean release(URL url, boolean keepAlive, boolean reusable) {
+        return release(url, keepAlive, reusable, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    synchronized boolean release(URL url, boolean keepAlive, boolean reusable, long currentTimeMillis) {
+        if (!keepAlive) {
+            return false;
+        }
+
+        HostConnections connections = getHostConnections(createHostKey(url));
+        if (connections.keepAliveCount > 0) {
+            connections.keepAliveCount--;
+        }
+
+        if (!reusable) {
+            return false;
+        }
+
+        evictIdleConnections(connections, currentTimeMillis);
+        connections.idleCount++;
+        connections.lastReleasedAtMillis = currentTimeMillis;
+        return true;
+    }
+
+    @VisibleForTesting
+    synchronized int getIdleConnectionCount(URL url) {
+        HostConnections connections = hostConnections.get(createHostKey(url));
+        return (connections == null) ? 0 : connections.idleCount;
+    }
+
+    private void evictIdleConnections(HostConnections connections, long currentTimeMillis) {
+        long idleTime = currentTimeMillis - connections.lastReleasedAtMillis;
+        if (connections.idleCount > 0 && idleTime >= keepAliveDurationMillis) {
+            connections.idleCount = 0;
+        }
+    }
+
+    private HostConnections getHostConnections(String hostKey) {
+        HostConnections connections = hostConnections.get(hostKey);
+        if (connections == null) {
+            connections = new HostConnections();
+            hostConnections.put(hostKey, connections);
+        }
+        return connections;
+    }
+
+    private static String createHostKey(URL url) {
+        return String.format("%s://%s:%s", url.getProtocol(), url.getHost(), url.getPort());
+    }
+
+    private static class HostConnections {
+        int idleCount;
+        int keepAliveCount;
+        long lastReleasedAtMillis;
+    }
+}
@@ -16,6 +16,8 @@ class HttpRequest {
 
     private static final int THIRTY_SECONDS_MS = 30000;
 
+    static final int NO_COMPRESSION = -1;
+
     private String path;
     private String baseUrl;
     private byte[] data;
@@ -27,6 +29,14 @@ class HttpRequest {
     private Map<String, String> headers;
     private final Map<String, String> additionalHeaders;
 
+    private boolean idempotent;
+    private int compressionThreshold = NO_COMPRESSION;
+
+    private String responseETag;
+    private String responseRetryAfter;
+
+    private HttpRequestTiming timing;
+
     static HttpRequest newInstance() {
         return new HttpRequest();
     }
@@ -60,6 +70,38 @@ class HttpRequest {
         return this;
     }
 
+    /**
+     * Mark a request that is safe to send more than once, so a {@link RetryPolicy} may retry it
+     * after an error where the server may already have processed it. {@code GET} and
+     * {@code HEAD} requests are always idempotent.
+     */
+    HttpRequest idempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+        return this;
+    }
+
+    /**
+     * Gzip compress the request body when it is at least {@code minimumBytes} long. Only use this
+     * for endpoints that accept {@code Content-Encoding: gzip}; smaller bodies are sent as is,
+     * since compression would cost more than it saves.
+     *
+     * @param minimumBytes the smallest body to compress, or {@link #NO_COMPRESSION}.
+     */
+    HttpRequest compressData(int minimumBytes) {
+        this.compressionThreshold = minimumBytes;
+        return this;
+    }
+
+    /**
+     * Record the duration of each network phase of this request in {@code timing}.
+     *
+     * @param timing the timing to update, or null to leave the request untimed.
+     */
+    HttpRequest timing(HttpRequestTiming timing) {
+        this.timing = timing;
+        return this;
+    }
+
     HttpRequest addHeader(String name, String value) {
         additionalHeaders.put(name, value);
         return this;
@@ -80,10 +122,22 @@ class HttpRequest {
         }
     }
 
+    boolean shouldCompressData() {
+        return compressionThreshold != NO_COMPRESSION && data != null && data.length >= compressionThreshold;
+    }
+
+    HttpRequestTiming getTiming() {
+        return timing;
+    }
+
     String getMethod() {
         return method;
     }
 
+    boolean isIdempotent() {
+        return idempotent || "GET".equals(method) || "HEAD".equals(method);
+    }
+
     Map<String, String> getHeaders() {
         if (headers == null) {
             headers = new HashMap<>();
@@ -94,6 +148,30 @@ class HttpRequest {
         return Collections.unmodifiableMap(headers);
     }
 
+    /**
+     * @return the {@code ETag} header of the response to this request, or null if the response
+     * did not include one or the request has not been sent.
+     */
+    String getResponseETag() {
+        return responseETag;
+    }
+
+    void setResponseETag(String responseETag) {
+        this.responseETag = responseETag;
+    }
+
+    /**
+     * @return the {@code Retry-After} header of the response to this request, or null if the
+     * response did not include one or the request has not been sent.
+     */
+    String getResponseRetryAfter() {
+        return responseRetryAfter;
+    }
+
+    void setResponseRetryAfter(String responseRetryAfter) {
+        this.responseRetryAfter = responseRetryAfter;
+    }
+
     int getReadTimeout() {
         return readTimeout;
     }
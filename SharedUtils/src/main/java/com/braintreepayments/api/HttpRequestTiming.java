@@ -0,0 +1,88 @@
+package com.braintreepayments.api;
+
+/**
+ * Records how long the network phases of an {@link HttpRequest} took. Requests are only timed
+ * when a timing is attached with {@link HttpRequest#timing(HttpRequestTiming)}.
+ *
+ * All durations are in milliseconds. When a request is sent more than once, the durations
+ * describe the last attempt.
+ */
+class HttpRequestTiming {
+
+    private int attemptCount;
+    private long connectDuration;
+    private long tlsHandshakeDuration;
+    private long timeToFirstByte;
+    private long responseReadDuration;
+    private long responseSize;
+
+    void onAttemptStarted() {
+        attemptCount++;
+        connectDuration = 0;
+        tlsHandshakeDuration = 0;
+        timeToFirstByte = 0;
+        responseReadDuration = 0;
+        responseSize = 0;
+    }
+
+    /**
+     * @param connectStartTime   the time the connection was requested
+     * @param handshakeStartTime the time the TLS handshake started, or 0 if no handshake took
+     *                           place or its start is unknown
+     * @param connectedTime      the time the connection was ready to send the request
+     */
+    void onConnected(long connectStartTime, long handshakeStartTime, long connectedTime) {
+        if (handshakeStartTime >= connectStartTime && handshakeStartTime <= connectedTime) {
+            connectDuration = handshakeStartTime - connectStartTime;
+            tlsHandshakeDuration = connectedTime - handshakeStartTime;
+        } else {
+            connectDuration = connectedTime - connectStartTime;
+        }
+    }
+
+    void onResponseReceived(long timeToFirstByte) {
+        this.timeToFirstByte = timeToFirstByte;
+    }
+
+    void onResponseRead(long responseReadDuration, long responseSize) {
+        this.responseReadDuration = responseReadDuration;
+        this.responseSize = responseSize;
+    }
+
+    /**
+     * @return how many times the request was sent, including retries.
+     */
+    int getAttemptCount() {
+        return attemptCount;
+    }
+
+    /**
+     * @return the time spent opening the TCP connection; 0 when a pooled connection was reused.
+     * Includes the TLS handshake when its start could not be observed.
+     */
+    long getConnectDuration() {
+        return connectDuration;
+    }
+
+    long getTlsHandshakeDuration() {
+        return tlsHandshakeDuration;
+    }
+
+    /**
+     * @return the time from sending the request until the response headers arrived.
+     */
+    long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    long getResponseReadDuration() {
+        return responseReadDuration;
+    }
+
+    /**
+     * @return the size of the decoded response body in bytes, or 0 if no response was read.
+     */
+    long getResponseSize() {
+        return responseSize;
+    }
+}
@@ -0,0 +1,13 @@
+package com.braintreepayments.api;
+
+/**
+ * Exception thrown when a 304 HTTP_NOT_MODIFIED response is encountered. Indicates that the
+ * resource requested with an {@code If-None-Match} header has not changed and the cached copy can
+ * be used.
+ */
+class NotModifiedException extends Exception {
+
+    NotModifiedException() {
+        super("The requested resource has not been modified.");
+    }
+}
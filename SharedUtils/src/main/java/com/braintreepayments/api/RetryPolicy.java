@@ -0,0 +1,32 @@
+package com.braintreepayments.api;
+
+/**
+ * Decides whether and when {@link HttpClient} sends a failed request again. A policy holds no
+ * state about individual requests; the number of attempts made so far is passed in by the caller.
+ */
+interface RetryPolicy {
+
+    /**
+     * Returned by {@link #getRetryDelay(HttpRequest, Exception, int)} when a request should not be
+     * retried even though the error is retryable, for example when the server asks the client to
+     * wait longer than the policy allows.
+     */
+    long DO_NOT_RETRY = -1;
+
+    /**
+     * @return true if {@code request} may be sent again after failing with {@code error}.
+     */
+    boolean isRetryable(HttpRequest request, Exception error);
+
+    /**
+     * @return the total number of times a request may be sent, including the first attempt.
+     */
+    int getMaxAttempts();
+
+    /**
+     * @param attempt the number of times the request has been sent so far.
+     * @return the time in milliseconds to wait before sending the request again, or
+     * {@link #DO_NOT_RETRY}.
+     */
+    long getRetryDelay(HttpRequest request, Exception error, int attempt);
+}
@@ -0,0 +1,13 @@
+package com.braintreepayments.api;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Creates the {@link SSLSocketFactory} of a {@link SynchronousHttpClient} when its first https
+ * request is sent. Building a pinned socket factory parses a certificate bundle and initializes an
+ * SSL context, which is too slow to do while a client is constructed on the main thread.
+ */
+interface SSLSocketFactoryLoader {
+    SSLSocketFactory load() throws SSLException;
+}
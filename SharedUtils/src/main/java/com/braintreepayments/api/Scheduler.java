@@ -3,4 +3,5 @@ package com.braintreepayments.api;
 interface Scheduler {
     void runOnMain(Runnable runnable);
     void runOnBackground(Runnable runnable);
+    void runOnBackground(Runnable runnable, long delayMillis);
 }
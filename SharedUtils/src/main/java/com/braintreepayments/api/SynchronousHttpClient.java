@@ -1,10 +1,18 @@
 package com.braintreepayments.api;
 
+import androidx.annotation.VisibleForTesting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLException;
@@ -13,27 +21,85 @@ import javax.net.ssl.SSLSocketFactory;
 /**
  * This class performs an http request on the calling thread. The external caller is
  * responsible for thread scheduling to ensure that this is not called on the main thread.
+ *
+ * Connections are returned to the platform keep-alive pool once their response has been read
+ * (see {@link HttpConnectionPool}), so consecutive requests to the same host reuse the socket
+ * and TLS session instead of performing a new handshake.
+ *
+ * Request bodies are gzip compressed when the request asks for it (see
+ * {@link HttpRequest#compressData(int)}). A host that rejects a compressed body with
+ * {@code 415 Unsupported Media Type} or {@code 400 Bad Request} is sent the same request again
+ * uncompressed, and is not sent compressed bodies again for the lifetime of the process.
  */
 class SynchronousHttpClient {
 
+    private static final int HTTP_UNSUPPORTED_MEDIA_TYPE = 415;
+
+    // shared by all clients, since analytics uploads create a new client for every upload
+    private static final Set<String> HOSTS_REJECTING_COMPRESSION =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private static final SSLSocketFactoryLoader DEFAULT_SOCKET_FACTORY_LOADER = new SSLSocketFactoryLoader() {
+        @Override
+        public SSLSocketFactory load() throws SSLException {
+            return TLSSocketFactory.newInstance();
+        }
+    };
+
     private SSLSocketFactory socketFactory;
+    // non-null until the socket factory has been loaded
+    private SSLSocketFactoryLoader socketFactoryLoader;
+
     private final HttpResponseParser parser;
+    private final HttpConnectionPool connectionPool;
 
     SynchronousHttpClient(SSLSocketFactory socketFactory, HttpResponseParser parser) {
+        this(socketFactory, parser, new HttpConnectionPool());
+    }
+
+    SynchronousHttpClient(SSLSocketFactory socketFactory, HttpResponseParser parser, HttpConnectionPool connectionPool) {
         this.parser = parser;
+        this.connectionPool = connectionPool;
         if (socketFactory != null) {
             this.socketFactory = socketFactory;
         } else {
-            try {
-                this.socketFactory = TLSSocketFactory.newInstance();
-            } catch (SSLException e) {
-                this.socketFactory = null;
-            }
+            this.socketFactoryLoader = DEFAULT_SOCKET_FACTORY_LOADER;
         }
     }
 
-    void setSSLSocketFactory(SSLSocketFactory socketFactory) {
+    /**
+     * @param socketFactoryLoader loads the socket factory on the first https request. If it fails,
+     *                            the client falls back to a {@link TLSSocketFactory} that uses the
+     *                            system trust store.
+     */
+    SynchronousHttpClient(SSLSocketFactoryLoader socketFactoryLoader, HttpResponseParser parser, HttpConnectionPool connectionPool) {
+        this.parser = parser;
+        this.connectionPool = connectionPool;
+        this.socketFactoryLoader = socketFactoryLoader;
+    }
+
+    synchronized void setSSLSocketFactory(SSLSocketFactory socketFactory) {
         this.socketFactory = socketFactory;
+        this.socketFactoryLoader = null;
+    }
+
+    private synchronized SSLSocketFactory getSSLSocketFactory() {
+        if (socketFactoryLoader != null) {
+            socketFactory = loadSocketFactory(socketFactoryLoader);
+            if (socketFactory == null && socketFactoryLoader != DEFAULT_SOCKET_FACTORY_LOADER) {
+                socketFactory = loadSocketFactory(DEFAULT_SOCKET_FACTORY_LOADER);
+            }
+            socketFactoryLoader = null;
+        }
+        return socketFactory;
+    }
+
+    private static SSLSocketFactory loadSocketFactory(SSLSocketFactoryLoader socketFactoryLoader) {
+        try {
+            return socketFactoryLoader.load();
+        } catch (SSLException e) {
+            return null;
+        }
     }
 
     String request(HttpRequest httpRequest) throws Exception {
@@ -42,43 +108,184 @@ class SynchronousHttpClient {
         }
         URL url = httpRequest.getURL();
 
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        if (connection instanceof HttpsURLConnection) {
-            if (socketFactory == null) {
-                throw new SSLException("SSLSocketFactory was not set or failed to initialize");
-            }
-            ((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
+        String host = url.getHost();
+        boolean compress = httpRequest.shouldCompressData()
+                && host != null && !HOSTS_REJECTING_COMPRESSION.contains(host);
+        if (!compress) {
+            return request(httpRequest, url, false);
         }
 
-        String requestMethod = httpRequest.getMethod();
-        connection.setRequestMethod(requestMethod);
-
-        connection.setReadTimeout(httpRequest.getReadTimeout());
-        connection.setConnectTimeout(httpRequest.getConnectTimeout());
+        try {
+            return request(httpRequest, url, true);
+        } catch (CompressionRejectedException e) {
+            // the server did not process the request, so it is safe to send it again
+            HOSTS_REJECTING_COMPRESSION.add(host);
+            return request(httpRequest, url, false);
+        }
+    }
 
-        // apply request headers
-        Map<String, String> headers = httpRequest.getHeaders();
-        for (Map.Entry<String,String> entry : headers.entrySet()) {
-            connection.setRequestProperty(entry.getKey(), entry.getValue());
+    private String request(HttpRequest httpRequest, URL url, boolean compress) throws Exception {
+        HttpRequestTiming timing = httpRequest.getTiming();
+        if (timing != null) {
+            timing.onAttemptStarted();
         }
 
-        if (requestMethod != null && requestMethod.equals("POST")) {
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setDoOutput(true);
+        boolean keepAlive = connectionPool.acquire(url);
+        boolean reusable = false;
+
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            if (connection instanceof HttpsURLConnection) {
+                SSLSocketFactory sslSocketFactory = getSSLSocketFactory();
+                if (sslSocketFactory == null) {
+                    throw new SSLException("SSLSocketFactory was not set or failed to initialize");
+                }
+                ((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+            }
+
+            String requestMethod = httpRequest.getMethod();
+            connection.setRequestMethod(requestMethod);
 
-            OutputStream outputStream = connection.getOutputStream();
-            outputStream.write(httpRequest.getData());
-            outputStream.flush();
-            outputStream.close();
+            connection.setReadTimeout(httpRequest.getReadTimeout());
+            connection.setConnectTimeout(httpRequest.getConnectTimeout());
+
+            // apply request headers
+            Map<String, String> headers = httpRequest.getHeaders();
+            for (Map.Entry<String,String> entry : headers.entrySet()) {
+                connection.setRequestProperty(entry.getKey(), entry.getValue());
+            }
 
-            httpRequest.dispose();
+            if (!keepAlive) {
+                connection.setRequestProperty("Connection", "close");
+            }
+
+            boolean hasBody = requestMethod != null && requestMethod.equals("POST");
+            if (hasBody) {
+                connection.setRequestProperty("Content-Type", "application/json");
+                connection.setDoOutput(true);
+                if (compress) {
+                    connection.setRequestProperty("Content-Encoding", "gzip");
+                }
+            }
+
+            if (timing != null) {
+                // the connection can no longer be configured once it is connected
+                connect(connection, timing);
+            }
+
+            if (hasBody) {
+                if (compress) {
+                    byte[] compressedData = compress(httpRequest.getData());
+                    writeData(connection, compressedData);
+                    // the request keeps its uncompressed data in case the host rejects gzip
+                    Arrays.fill(compressedData, (byte) 0);
+                } else {
+                    writeData(connection, httpRequest.getData());
+                }
+            }
+
+            long requestSentTime = (timing != null) ? System.currentTimeMillis() : 0;
+            int responseCode = connection.getResponseCode();
+            if (timing != null) {
+                timing.onResponseReceived(System.currentTimeMillis() - requestSentTime);
+            }
+            // some servers answer an unsupported Content-Encoding with a plain 400
+            if (compress && (responseCode == HTTP_UNSUPPORTED_MEDIA_TYPE || responseCode == HttpURLConnection.HTTP_BAD_REQUEST)) {
+                throw new CompressionRejectedException();
+            }
+            httpRequest.setResponseETag(connection.getHeaderField("ETag"));
+            httpRequest.setResponseRetryAfter(connection.getHeaderField("Retry-After"));
+
+            long readStartTime = (timing != null) ? System.currentTimeMillis() : 0;
+            String responseBody = null;
+            try {
+                responseBody = parser.parse(responseCode, connection);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                // the parser reads the full response body before mapping an error status code
+                // to an exception, so the connection is still safe to reuse
+                reusable = true;
+                throw e;
+            } finally {
+                if (timing != null) {
+                    timing.onResponseRead(System.currentTimeMillis() - readStartTime,
+                            getResponseSize(connection, responseBody));
+                }
+            }
+            reusable = true;
+            return responseBody;
+        } finally {
+            boolean pooled = connectionPool.release(url, keepAlive, reusable);
+            if (connection != null && !pooled) {
+                connection.disconnect();
+            }
         }
+    }
 
-        int responseCode = connection.getResponseCode();
+    private static void connect(HttpURLConnection connection, HttpRequestTiming timing) throws IOException {
+        long connectStartTime = System.currentTimeMillis();
+        long connectedTime;
+        long handshakeStartTime;
+        TLSSocketFactory.startRecordingHandshake();
         try {
-            return parser.parse(responseCode, connection);
+            connection.connect();
+            connectedTime = System.currentTimeMillis();
         } finally {
-            connection.disconnect();
+            handshakeStartTime = TLSSocketFactory.stopRecordingHandshake();
         }
+        timing.onConnected(connectStartTime, handshakeStartTime, connectedTime);
+    }
+
+    private static long getResponseSize(HttpURLConnection connection, String responseBody) {
+        if (responseBody != null) {
+            return utf8Length(responseBody);
+        }
+        // the parser did not return the body of an error response, so fall back to its header
+        return Math.max(0, connection.getContentLength());
+    }
+
+    private static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // a surrogate pair encodes a single four byte code point
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void writeData(HttpURLConnection connection, byte[] data) throws IOException {
+        OutputStream outputStream = connection.getOutputStream();
+        outputStream.write(data);
+        outputStream.flush();
+        outputStream.close();
+    }
+
+    @VisibleForTesting
+    static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed);
+        gzipOutputStream.write(data);
+        gzipOutputStream.close();
+        return compressed.toByteArray();
+    }
+
+    @VisibleForTesting
+    static void resetHostsRejectingCompression() {
+        HOSTS_REJECTING_COMPRESSION.clear();
+    }
+
+    private static class CompressionRejectedException extends IOException {
     }
 }
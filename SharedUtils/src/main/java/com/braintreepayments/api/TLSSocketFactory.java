@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLException;
@@ -23,6 +24,15 @@ import javax.net.ssl.TrustManagerFactory;
 
 class TLSSocketFactory extends SSLSocketFactory {
 
+    // HttpURLConnection layers the TLS socket over an already connected TCP socket and performs
+    // the handshake on the same thread, so this marks the end of the TCP connect and the start of
+    // the handshake for the connection being opened on the current thread. It only holds a value
+    // while a timed request is connecting on that thread.
+    private static final ThreadLocal<long[]> HANDSHAKE_START_TIME = new ThreadLocal<>();
+
+    // lets untimed connections skip the thread local lookup entirely
+    private static final AtomicInteger RECORDING_THREAD_COUNT = new AtomicInteger();
+
     private final SSLSocketFactory internalSSLSocketFactory;
 
     static TLSSocketFactory newInstance() throws SSLException {
@@ -87,6 +97,12 @@ class TLSSocketFactory extends SSLSocketFactory {
     @Override
     public Socket createSocket(Socket s, String host, int port, boolean autoClose)
             throws IOException {
+        if (RECORDING_THREAD_COUNT.get() > 0) {
+            long[] handshakeStartTime = HANDSHAKE_START_TIME.get();
+            if (handshakeStartTime != null) {
+                handshakeStartTime[0] = System.currentTimeMillis();
+            }
+        }
         return enableTLSOnSocket(internalSSLSocketFactory.createSocket(s, host, port, autoClose));
     }
 
@@ -114,6 +130,33 @@ class TLSSocketFactory extends SSLSocketFactory {
                 internalSSLSocketFactory.createSocket(address, port, localAddress, localPort));
     }
 
+    /**
+     * Records the start time of TLS handshakes on the calling thread until
+     * {@link #stopRecordingHandshake()} is called. Handshakes are not recorded otherwise.
+     */
+    static void startRecordingHandshake() {
+        if (HANDSHAKE_START_TIME.get() == null) {
+            RECORDING_THREAD_COUNT.incrementAndGet();
+        }
+        HANDSHAKE_START_TIME.set(new long[1]);
+    }
+
+    /**
+     * Stops recording handshakes on the calling thread.
+     *
+     * @return the time in milliseconds at which the most recent TLS handshake on the calling
+     * thread started since {@link #startRecordingHandshake()}, or 0 if none was started.
+     */
+    static long stopRecordingHandshake() {
+        long[] handshakeStartTime = HANDSHAKE_START_TIME.get();
+        if (handshakeStartTime == null) {
+            return 0;
+        }
+        HANDSHAKE_START_TIME.remove();
+        RECORDING_THREAD_COUNT.decrementAndGet();
+        return handshakeStartTime[0];
+    }
+
     private Socket enableTLSOnSocket(Socket socket) {
         if (socket instanceof SSLSocket) {
             ArrayList<String> supportedProtocols =
@@ -0,0 +1,60 @@
+package com.braintreepayments.api;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * Process-wide registry of {@link TLSSocketFactory} instances keyed by the PEM encoded certificate
+ * bundle they pin.
+ *
+ * Building a pinned factory parses the bundle into a new {@link java.security.KeyStore} and
+ * initializes a new {@link javax.net.ssl.SSLContext}, and every context keeps its own TLS session
+ * cache. Sharing one factory per bundle across all http clients means the bundle is only parsed
+ * once per process, TLS sessions negotiated by one client can be resumed by the others, and the
+ * platform keep-alive pool (which matches connections by socket factory) can hand a warm
+ * connection opened by one client to another.
+ */
+class TLSSocketFactoryCache {
+
+    private static volatile TLSSocketFactoryCache INSTANCE;
+
+    private final Map<String, TLSSocketFactory> socketFactories;
+
+    static TLSSocketFactoryCache getInstance() {
+        if (INSTANCE == null) {
+            synchronized (TLSSocketFactoryCache.class) {
+                // double check that instance was not created in another thread
+                if (INSTANCE == null) {
+                    INSTANCE = new TLSSocketFactoryCache();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    TLSSocketFactoryCache() {
+        socketFactories = new HashMap<>();
+    }
+
+    /**
+     * @param certificateBundle one or more PEM encoded certificates to pin.
+     * @return the shared {@link TLSSocketFactory} for the bundle, creating it on first use.
+     * @throws SSLException if the bundle cannot be parsed or the SSL context cannot be initialized.
+     */
+    synchronized TLSSocketFactory getSocketFactory(String certificateBundle) throws SSLException {
+        TLSSocketFactory socketFactory = socketFactories.get(certificateBundle);
+        if (socketFactory == null) {
+            byte[] certificateBytes = certificateBundle.getBytes(StandardCharsets.UTF_8);
+            socketFactory = new TLSSocketFactory(new ByteArrayInputStream(certificateBytes));
+            socketFactories.put(certificateBundle, socketFactory);
+        }
+        return socketFactory;
+    }
+}
@@ -0,0 +1,74 @@
+package com.braintreepayments.api;
+
+/**
+ * A snapshot of the background thread pool shared by all Braintree clients in the process.
+ */
+public class ThreadPoolMetrics {
+
+    private final int queueDepth;
+    private final int activeThreadCount;
+    private final int poolSize;
+    private final int maximumPoolSize;
+    private final long completedTaskCount;
+    private final long averageWaitTime;
+    private final long maxWaitTime;
+
+    ThreadPoolMetrics(int queueDepth, int activeThreadCount, int poolSize, int maximumPoolSize, long completedTaskCount, long averageWaitTime, long maxWaitTime) {
+        this.queueDepth = queueDepth;
+        this.activeThreadCount = activeThreadCount;
+        this.poolSize = poolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.completedTaskCount = completedTaskCount;
+        this.averageWaitTime = averageWaitTime;
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    /**
+     * @return the number of tasks waiting for a free thread.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the approximate number of threads running a task.
+     */
+    public int getActiveThreadCount() {
+        return activeThreadCount;
+    }
+
+    /**
+     * @return the number of threads currently in the pool, including idle ones.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @return the maximum number of threads the pool will create.
+     */
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    /**
+     * @return the approximate number of tasks that have finished running.
+     */
+    public long getCompletedTaskCount() {
+        return completedTaskCount;
+    }
+
+    /**
+     * @return the average time in milliseconds a task waited in the queue before it started.
+     */
+    public long getAverageWaitTime() {
+        return averageWaitTime;
+    }
+
+    /**
+     * @return the longest time in milliseconds a task waited in the queue before it started.
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+}
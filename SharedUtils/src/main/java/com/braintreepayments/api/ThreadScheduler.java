@@ -5,26 +5,43 @@ import android.os.Looper;
 
 import androidx.annotation.VisibleForTesting;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 class ThreadScheduler implements Scheduler {
 
     private final Handler mainThreadHandler;
-    private final ExecutorService backgroundThreadService;
+    private final BackgroundThreadPool backgroundThreadPool;
+    private final int priority;
 
     ThreadScheduler() {
-        this(new Handler(Looper.getMainLooper()), Executors.newCachedThreadPool());
+        this(BackgroundThreadPool.PRIORITY_NORMAL);
+    }
+
+    /**
+     * @param priority the priority of background work scheduled through this scheduler in the
+     *                 shared {@link BackgroundThreadPool}.
+     */
+    ThreadScheduler(@BackgroundThreadPool.Priority int priority) {
+        this(new Handler(Looper.getMainLooper()), BackgroundThreadPool.getInstance(), priority);
     }
 
     @VisibleForTesting
-    ThreadScheduler(Handler mainThreadHandler, ExecutorService backgroundThreadPool) {
+    ThreadScheduler(Handler mainThreadHandler, BackgroundThreadPool backgroundThreadPool, @BackgroundThreadPool.Priority int priority) {
         this.mainThreadHandler = mainThreadHandler;
-        this.backgroundThreadService = backgroundThreadPool;
+        this.backgroundThreadPool = backgroundThreadPool;
+        this.priority = priority;
     }
 
     public void runOnBackground(Runnable runnable) {
-        backgroundThreadService.submit(runnable);
+        backgroundThreadPool.execute(runnable, priority);
+    }
+
+    public void runOnBackground(final Runnable runnable, long delayMillis) {
+        // the main looper only keeps time; the runnable itself never runs on the main thread
+        mainThreadHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                runOnBackground(runnable);
+            }
+        }, delayMillis);
     }
 
     public void runOnMain(Runnable runnable) {
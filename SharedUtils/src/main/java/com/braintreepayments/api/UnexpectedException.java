@@ -6,7 +6,24 @@ package com.braintreepayments.api;
  */
 public class UnexpectedException extends Exception {
 
+    private final String responseBody;
+
     UnexpectedException(String message) {
+        this(message, null);
+    }
+
+    /**
+     * @param responseBody the body of the response that caused the exception, if there was one
+     */
+    UnexpectedException(String message, String responseBody) {
         super(message);
+        this.responseBody = responseBody;
+    }
+
+    /**
+     * @return the body of the response that caused the exception, or null
+     */
+    String getResponseBody() {
+        return responseBody;
     }
 }
@@ -0,0 +1,142 @@
+package com.braintreepayments.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BackgroundThreadPoolUnitTest {
+
+    @Test
+    public void getInstance_returnsSingleton() {
+        assertSame(BackgroundThreadPool.getInstance(), BackgroundThreadPool.getInstance());
+    }
+
+    @Test(timeout = 5000)
+    public void execute_runsQueuedTasksInOrderOfPriority() throws Exception {
+        BackgroundThreadPool sut = new BackgroundThreadPool(1);
+        CountDownLatch blockingTaskStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlockingTask = new CountDownLatch(1);
+        sut.execute(createBlockingTask(blockingTaskStarted, releaseBlockingTask), BackgroundThreadPool.PRIORITY_NORMAL);
+        blockingTaskStarted.await();
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch finished = new CountDownLatch(4);
+        sut.execute(createRecordingTask(order, "low", finished), BackgroundThreadPool.PRIORITY_LOW);
+        sut.execute(createRecordingTask(order, "normal", finished), BackgroundThreadPool.PRIORITY_NORMAL);
+        sut.execute(createRecordingTask(order, "high-1", finished), BackgroundThreadPool.PRIORITY_HIGH);
+        sut.execute(createRecordingTask(order, "high-2", finished), BackgroundThreadPool.PRIORITY_HIGH);
+
+        releaseBlockingTask.countDown();
+        finished.await();
+
+        assertEquals(Arrays.asList("high-1", "high-2", "normal", "low"), order);
+    }
+
+    @Test(timeout = 5000)
+    public void execute_doesNotCreateMoreThreadsThanPoolSize() throws Exception {
+        BackgroundThreadPool sut = new BackgroundThreadPool(2);
+        CountDownLatch blockingTasksStarted = new CountDownLatch(2);
+        CountDownLatch releaseBlockingTasks = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            sut.execute(createBlockingTask(blockingTasksStarted, releaseBlockingTasks), BackgroundThreadPool.PRIORITY_NORMAL);
+        }
+        blockingTasksStarted.await();
+
+        ThreadPoolMetrics metrics = sut.getMetrics();
+        assertEquals(2, metrics.getPoolSize());
+        assertEquals(2, metrics.getMaximumPoolSize());
+        assertEquals(2, metrics.getActiveThreadCount());
+        assertEquals(8, metrics.getQueueDepth());
+
+        releaseBlockingTasks.countDown();
+    }
+
+    @Test(timeout = 5000)
+    public void execute_runsTasksOnNamedThreads() throws Exception {
+        BackgroundThreadPool sut = new BackgroundThreadPool(1);
+        final List<String> threadNames = new ArrayList<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        sut.execute(new Runnable() {
+            @Override
+            public void run() {
+                threadNames.add(Thread.currentThread().getName());
+                finished.countDown();
+            }
+        }, BackgroundThreadPool.PRIORITY_NORMAL);
+        finished.await();
+
+        assertTrue(threadNames.get(0).startsWith("braintree-background-"));
+    }
+
+    @Test(timeout = 5000)
+    public void execute_whenTaskThrows_keepsRunningLaterTasks() throws Exception {
+        BackgroundThreadPool sut = new BackgroundThreadPool(1);
+        sut.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("error");
+            }
+        }, BackgroundThreadPool.PRIORITY_NORMAL);
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch finished = new CountDownLatch(1);
+        sut.execute(createRecordingTask(order, "after", finished), BackgroundThreadPool.PRIORITY_NORMAL);
+        finished.await();
+
+        assertEquals(Collections.singletonList("after"), order);
+    }
+
+    @Test(timeout = 5000)
+    public void getMetrics_reportsTimeTasksWaitedInQueue() throws Exception {
+        BackgroundThreadPool sut = new BackgroundThreadPool(1);
+        CountDownLatch blockingTaskStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlockingTask = new CountDownLatch(1);
+        sut.execute(createBlockingTask(blockingTaskStarted, releaseBlockingTask), BackgroundThreadPool.PRIORITY_NORMAL);
+        blockingTaskStarted.await();
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch finished = new CountDownLatch(1);
+        sut.execute(createRecordingTask(order, "queued", finished), BackgroundThreadPool.PRIORITY_NORMAL);
+        assertEquals(1, sut.getMetrics().getQueueDepth());
+
+        Thread.sleep(50);
+        releaseBlockingTask.countDown();
+        finished.await();
+
+        ThreadPoolMetrics metrics = sut.getMetrics();
+        assertEquals(0, metrics.getQueueDepth());
+        assertTrue(metrics.getMaxWaitTime() >= 50);
+        assertTrue(metrics.getAverageWaitTime() >= 25);
+    }
+
+    private static Runnable createBlockingTask(final CountDownLatch started, final CountDownLatch release) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {}
+            }
+        };
+    }
+
+    private static Runnable createRecordingTask(final List<String> order, final String name, final CountDownLatch finished) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+                finished.countDown();
+            }
+        };
+    }
+}
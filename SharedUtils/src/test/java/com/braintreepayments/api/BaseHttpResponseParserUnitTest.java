@@ -21,12 +21,14 @@ import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_CREATED;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -152,6 +154,61 @@ public class BaseHttpResponseParserUnitTest {
         }
     }
 
+    public static class HttpNotModifiedTest {
+
+        @Test
+        public void parse() {
+            final HttpURLConnection connection = mock(HttpURLConnection.class);
+
+            final BaseHttpResponseParser sut = new BaseHttpResponseParser();
+            assertThrows(NotModifiedException.class, new ThrowingRunnable() {
+                @Override
+                public void run() throws Throwable {
+                    sut.parse(HTTP_NOT_MODIFIED, connection);
+                }
+            });
+            verify(connection, never()).getErrorStream();
+        }
+    }
+
+    public static class HttpLargeBodyTest {
+
+        @Test
+        public void parse_withMultiByteCharactersAcrossBufferBoundaries_decodesBody() throws Exception {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                body.append("\u00e9\u20ac");
+            }
+            String expected = body.toString();
+            byte[] bytes = expected.getBytes(StandardCharsets.UTF_8);
+
+            HttpURLConnection connection = mock(HttpURLConnection.class);
+            when(connection.getContentLength()).thenReturn(bytes.length);
+            when(connection.getInputStream()).thenReturn(new ByteArrayInputStream(bytes));
+
+            BaseHttpResponseParser sut = new BaseHttpResponseParser();
+            assertEquals(expected, sut.parse(HTTP_OK, connection));
+        }
+
+        @Test
+        public void parse_withGzippedBodyLargerThanContentLength_decodesBody() throws Exception {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                body.append("{\"key\":\"value\"}");
+            }
+            String expected = body.toString();
+            InputStream inputStream = createGzippedInputStream(expected);
+
+            HttpURLConnection connection = mock(HttpURLConnection.class);
+            when(connection.getContentEncoding()).thenReturn("gzip");
+            when(connection.getContentLength()).thenReturn(inputStream.available());
+            when(connection.getInputStream()).thenReturn(inputStream);
+
+            BaseHttpResponseParser sut = new BaseHttpResponseParser();
+            assertEquals(expected, sut.parse(HTTP_OK, connection));
+        }
+    }
+
     private static InputStream createPlainTextInputStream(String input) {
         return spy(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
     }
@@ -0,0 +1,104 @@
+package com.braintreepayments.api;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExponentialBackoffRetryPolicyUnitTest {
+
+    private static final HttpRequest GET_REQUEST = new HttpRequest().method("GET").path("https://example.com");
+    private static final HttpRequest POST_REQUEST = new HttpRequest().method("POST").path("https://example.com");
+
+    @Test
+    public void isRetryable_withGetRequest_retriesNetworkAndServerErrors() {
+        ExponentialBackoffRetryPolicy sut = new ExponentialBackoffRetryPolicy(3);
+
+        assertTrue(sut.isRetryable(GET_REQUEST, new IOException("error")));
+        assertTrue(sut.isRetryable(GET_REQUEST, new SocketTimeoutException("error")));
+        assertTrue(sut.isRetryable(GET_REQUEST, new ServerException("error")));
+        assertTrue(sut.isRetryable(GET_REQUEST, new ServiceUnavailableException("error")));
+        assertTrue(sut.isRetryable(GET_REQUEST, new RateLimitException("error")));
+    }
+
+    @Test
+    public void isRetryable_doesNotRetryClientErrors() {
+        ExponentialBackoffRetryPolicy sut = new ExponentialBackoffRetryPolicy(3);
+
+        assertFalse(sut.isRetryable(GET_REQUEST, new AuthenticationException("error")));
+        assertFalse(sut.isRetryable(GET_REQUEST, new AuthorizationException("error")));
+        assertFalse(sut.isRetryable(GET_REQUEST, new UnprocessableEntityException("error")));
+        assertFalse(sut.isRetryable(GET_REQUEST, new UpgradeRequiredException("error")));
+        assertFalse(sut.isRetryable(GET_REQUEST, new Exception("error")));
+    }
+
+    @Test
+    public void isRetryable_withPostRequest_onlyRetriesErrorsWhereRequestWasNotProcessed() {
+        ExponentialBackoffRetryPolicy sut = new ExponentialBackoffRetryPolicy(3);
+
+        assertTrue(sut.isRetryable(POST_REQUEST, new ConnectException("error")));
+        assertTrue(sut.isRetryable(POST_REQUEST, new ServiceUnavailableException("error")));
+        assertTrue(sut.isRetryable(POST_REQUEST, new RateLimitException("error")));
+        assertFalse(sut.isRetryable(POST_REQUEST, new SocketTimeoutException("error")));
+        assertFalse(sut.isRetryable(POST_REQUEST, new ServerException("error")));
+    }
+
+    @Test
+    public void isRetryable_withIdempotentPostRequest_retriesServerErrors() {
+        ExponentialBackoffRetryPolicy sut = new ExponentialBackoffRetryPolicy(3);
+        HttpRequest request = new HttpRequest().method("POST").path("https://example.com").idempotent(true);
+
+        assertTrue(sut.isRetryable(request, new SocketTimeoutException("error")));
+        assertTrue(sut.isRetryable(request, new ServerException("error")));
+    }
+
+    @Test
+    public void getRetryDelay_growsExponentiallyWithJitterUpToMaxDelay() {
+        Random random = mock(Random.class);
+        when(random.nextDouble()).thenReturn(0.0, 1.0, 0.5);
+        ExponentialBackoffRetryPolicy sut = new ExponentialBackoffRetryPolicy(10, 100, 300, 30000, random);
+
+        Exception error = new ConnectException("error");
+        assertEquals(50, sut.getRetryDelay(GET_REQUEST, error, 1));
+        assertEquals(200, sut.getRetryDelay(GET_REQUEST, error, 2));
+        assertEquals(225, sut.getRetryDelay(GET_REQUEST, error, 3));
+    }
+
+    @Test
+    public void getRetryDelay_whenResponseHasRetryAfter_usesRetryAfter() {
+        ExponentialBackoffRetryPolicy sut = new ExponentialBackoffRetryPolicy(3, 100, 300, 30000, new Random());
+        HttpRequest request = new HttpRequest().method("GET").path("https://example.com");
+        request.setResponseRetryAfter("5");
+
+        assertEquals(5000, sut.getRetryDelay(request, new RateLimitException("error"), 1));
+        assertEquals(5000, sut.getRetryDelay(request, new ServiceUnavailableException("error"), 1));
+    }
+
+    @Test
+    public void getRetryDelay_whenRetryAfterExceedsMaximum_doesNotRetry() {
+        ExponentialBackoffRetryPolicy sut = new ExponentialBackoffRetryPolicy(3, 100, 300, 30000, new Random());
+        HttpRequest request = new HttpRequest().method("GET").path("https://example.com");
+        request.setResponseRetryAfter("120");
+
+        assertEquals(RetryPolicy.DO_NOT_RETRY, sut.getRetryDelay(request, new RateLimitException("error"), 1));
+    }
+
+    @Test
+    public void parseRetryAfter_parsesSecondsAndHttpDates() {
+        long now = 1445412480000L; // Wed, 21 Oct 2015 07:28:00 GMT
+
+        assertEquals(120000, ExponentialBackoffRetryPolicy.parseRetryAfter("120", now));
+        assertEquals(30000, ExponentialBackoffRetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:30 GMT", now));
+        assertEquals(0, ExponentialBackoffRetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:27:00 GMT", now));
+        assertEquals(-1, ExponentialBackoffRetryPolicy.parseRetryAfter("soon", now));
+        assertEquals(-1, ExponentialBackoffRetryPolicy.parseRetryAfter(null, now));
+    }
+}
@@ -3,8 +3,24 @@ package com.braintreepayments.api;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
-
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
@@ -105,7 +121,7 @@ public class HttpClientUnitTest {
     public void sendRequest_whenRetryMax3TimesEnabled_retriesRequest3Times() throws Exception {
         HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
 
-        Exception exception = new Exception("error");
+        Exception exception = new ConnectException("error");
         when(syncHttpClient.request(httpRequest)).thenThrow(exception);
 
         HttpResponseCallback callback = mock(HttpResponseCallback.class);
@@ -119,7 +135,7 @@ public class HttpClientUnitTest {
     public void sendRequest_whenRetryMax3TimesEnabled_notifiesMaxRetriesLimitExceededOnForegroundThread() throws Exception {
         HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
 
-        Exception exception = new Exception("error");
+        Exception exception = new ConnectException("error");
         when(syncHttpClient.request(httpRequest)).thenThrow(exception);
 
         HttpResponseCallback callback = mock(HttpResponseCallback.class);
@@ -142,7 +158,7 @@ public class HttpClientUnitTest {
     public void sendRequest_whenRetryMax3TimesEnabled_futureRequestsAreAllowed() throws Exception {
         HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
 
-        Exception exception = new Exception("error");
+        Exception exception = new ConnectException("error");
         when(syncHttpClient.request(httpRequest)).thenThrow(exception);
 
         HttpResponseCallback callback = mock(HttpResponseCallback.class);
@@ -162,6 +178,364 @@ public class HttpClientUnitTest {
         verify(callback).onResult("response body", null);
     }
 
+    @Test
+    public void sendRequestOnCurrentThread_sendsFirstAttemptOnCallingThreadAndNotifiesThere() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        when(syncHttpClient.request(httpRequest)).thenReturn("response body");
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequestOnCurrentThread(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        verify(callback).onResult("response body", null);
+        verify(threadScheduler, never()).runOnBackground(any(Runnable.class));
+        verify(threadScheduler, never()).runOnMain(any(Runnable.class));
+    }
+
+    @Test
+    public void sendRequestOnCurrentThread_whenRetrying_queuesAttemptsInsteadOfWaitingOnCallingThread() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler, new ExponentialBackoffRetryPolicy(3, 100, 1000, 30000, createRandom(0.0)));
+
+        when(syncHttpClient.request(httpRequest))
+                .thenThrow(new ConnectException("error"))
+                .thenReturn("response body");
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequestOnCurrentThread(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        verify(syncHttpClient, times(1)).request(httpRequest);
+        verifyZeroInteractions(callback);
+        assertEquals(Collections.singletonList(50L), threadScheduler.getBackgroundThreadDelays());
+
+        threadScheduler.flushBackgroundThread();
+
+        verify(syncHttpClient, times(2)).request(httpRequest);
+        verify(callback).onResult("response body", null);
+        verify(threadScheduler, never()).runOnMain(any(Runnable.class));
+    }
+
+    @Test
+    public void sendRequestOnCurrentThread_whenRetryLimitIsExceeded_notifiesError() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler, createRetryPolicyWithoutDelay());
+
+        when(syncHttpClient.request(httpRequest)).thenThrow(new ConnectException("error"));
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequestOnCurrentThread(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+        threadScheduler.flushBackgroundThread();
+
+        verify(syncHttpClient, times(3)).request(httpRequest);
+        ArgumentCaptor<Exception> captor = ArgumentCaptor.forClass(Exception.class);
+        verify(callback).onResult((String) isNull(), captor.capture());
+        assertEquals("Retry limit has been exceeded. Try again later.", captor.getValue().getMessage());
+    }
+
+    @Test
+    public void sendRequestOnCurrentThread_whenNoRetry_notifiesOriginalException() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        Exception exception = new Exception("error");
+        when(syncHttpClient.request(httpRequest)).thenThrow(exception);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequestOnCurrentThread(httpRequest, HttpClient.NO_RETRY, callback);
+
+        verify(syncHttpClient, times(1)).request(httpRequest);
+        verify(callback).onResult(null, exception);
+        verify(threadScheduler, never()).runOnBackground(any(Runnable.class));
+    }
+
+    @Test(timeout = 10000)
+    public void sendRequestOnCurrentThread_whenServiceUnavailableWithRetryAfter_doesNotHoldPoolThreads() throws Exception {
+        final int poolSize = BackgroundThreadPool.DEFAULT_POOL_SIZE;
+        final BackgroundThreadPool pool = new BackgroundThreadPool(poolSize);
+        final List<Runnable> delayedTasks = Collections.synchronizedList(new ArrayList<Runnable>());
+        final List<Long> delays = Collections.synchronizedList(new ArrayList<Long>());
+        Scheduler scheduler = new Scheduler() {
+            @Override
+            public void runOnMain(Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void runOnBackground(Runnable runnable) {
+                pool.execute(runnable, BackgroundThreadPool.PRIORITY_NORMAL);
+            }
+
+            @Override
+            public void runOnBackground(Runnable runnable, long delayMillis) {
+                // held until the test releases it, standing in for the main looper's timer
+                delays.add(delayMillis);
+                delayedTasks.add(runnable);
+            }
+        };
+        final HttpClient sut = new HttpClient(syncHttpClient, scheduler);
+
+        final AtomicInteger attemptCount = new AtomicInteger();
+        when(syncHttpClient.request(any(HttpRequest.class))).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                if (attemptCount.incrementAndGet() <= poolSize) {
+                    ((HttpRequest) invocation.getArguments()[0]).setResponseRetryAfter("30");
+                    throw new ServiceUnavailableException("service unavailable");
+                }
+                return "response body";
+            }
+        });
+
+        // one configuration fetch on every pool thread
+        final CountDownLatch returnedLatch = new CountDownLatch(poolSize);
+        final CountDownLatch resultLatch = new CountDownLatch(poolSize);
+        final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+        for (int i = 0; i < poolSize; i++) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    HttpRequest request = new HttpRequest().method("GET").path("https://example.com/configuration");
+                    sut.sendRequestOnCurrentThread(request, HttpClient.RETRY_MAX_3_TIMES, new HttpResponseCallback() {
+                        @Override
+                        public void onResult(String responseBody, Exception httpError) {
+                            results.add(responseBody);
+                            resultLatch.countDown();
+                        }
+                    });
+                    returnedLatch.countDown();
+                }
+            }, BackgroundThreadPool.PRIORITY_NORMAL);
+        }
+
+        assertTrue(returnedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(poolSize, delayedTasks.size());
+        assertEquals(Collections.nCopies(poolSize, 30000L), delays);
+
+        // other SDK work still gets a thread while every fetch waits for its Retry-After
+        final CountDownLatch otherTaskLatch = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                otherTaskLatch.countDown();
+            }
+        }, BackgroundThreadPool.PRIORITY_NORMAL);
+        assertTrue(otherTaskLatch.await(1, TimeUnit.SECONDS));
+
+        for (Runnable delayedTask : new ArrayList<>(delayedTasks)) {
+            scheduler.runOnBackground(delayedTask);
+        }
+        assertTrue(resultLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.nCopies(poolSize, "response body"), results);
+    }
+
+    @Test
+    public void sendRequest_whenErrorIsNotRetryable_notifiesOriginalErrorWithoutRetrying() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        Exception exception = new AuthorizationException("forbidden");
+        when(syncHttpClient.request(httpRequest)).thenThrow(exception);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verify(syncHttpClient, times(1)).request(httpRequest);
+        verify(callback).onResult(null, exception);
+    }
+
+    @Test
+    public void sendRequest_whenRetrying_waitsBetweenAttemptsWithoutHoldingAThread() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler, new ExponentialBackoffRetryPolicy(3, 100, 1000, 30000, createRandom(0.0)));
+
+        when(syncHttpClient.request(httpRequest)).thenThrow(new ConnectException("error"));
+
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES, mock(HttpResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        verify(syncHttpClient, times(3)).request(httpRequest);
+        assertEquals(Arrays.asList(50L, 100L), threadScheduler.getBackgroundThreadDelays());
+    }
+
+    @Test
+    public void sendRequest_whenRateLimited_waitsForRetryAfter() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        when(syncHttpClient.request(httpRequest)).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                httpRequest.setResponseRetryAfter("2");
+                throw new RateLimitException("rate limited");
+            }
+        }).thenReturn("response body");
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        assertEquals(Collections.singletonList(2000L), threadScheduler.getBackgroundThreadDelays());
+        verify(callback).onResult("response body", null);
+    }
+
+    @Test
+    public void sendRequest_withConcurrentRequestsToSameUrl_tracksAttemptsPerRequest() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        HttpRequest otherRequest = new HttpRequest().method("GET").path("https://example.com");
+        when(syncHttpClient.request(any(HttpRequest.class))).thenThrow(new ConnectException("error"));
+
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES, mock(HttpResponseCallback.class));
+        sut.sendRequest(otherRequest, HttpClient.RETRY_MAX_3_TIMES, mock(HttpResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        verify(syncHttpClient, times(3)).request(httpRequest);
+        verify(syncHttpClient, times(3)).request(otherRequest);
+    }
+
+    @Test
+    public void sendRequest_withPostRequestAndReadTimeout_doesNotRetry() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        HttpRequest postRequest = new HttpRequest().method("POST").path("https://example.com").data("{}");
+        Exception exception = new SocketTimeoutException("read timed out");
+        when(syncHttpClient.request(postRequest)).thenThrow(exception);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequest(postRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verify(syncHttpClient, times(1)).request(postRequest);
+        verify(callback).onResult(null, exception);
+    }
+
+    @Test
+    public void sendRequest_whenAttemptsFinish_disposesRequestData() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        HttpRequest postRequest = new HttpRequest().method("POST").path("https://example.com").data("{}").idempotent(true);
+        when(syncHttpClient.request(postRequest)).thenReturn("response body");
+
+        sut.sendRequest(postRequest, HttpClient.RETRY_MAX_3_TIMES, mock(HttpResponseCallback.class));
+        threadScheduler.flushBackgroundThread();
+
+        assertArrayEquals(new byte[2], postRequest.getData());
+    }
+
+    @Test
+    public void sendRequest_whenPostIsRateLimited_retriesWithOriginalData() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler, createRetryPolicyWithoutDelay());
+
+        final HttpRequest postRequest = new HttpRequest().method("POST").path("https://example.com").data("{\"key\":\"value\"}");
+        final byte[] originalData = postRequest.getData().clone();
+        final List<byte[]> sentData = new ArrayList<>();
+        when(syncHttpClient.request(postRequest)).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                sentData.add(postRequest.getData().clone());
+                if (sentData.size() == 1) {
+                    throw new RateLimitException("rate limited");
+                }
+                return "response body";
+            }
+        });
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequest(postRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        assertEquals(2, sentData.size());
+        assertArrayEquals(originalData, sentData.get(1));
+        verify(callback).onResult("response body", null);
+        assertArrayEquals(new byte[originalData.length], postRequest.getData());
+    }
+
+    @Test
+    public void sendRequest_synchronously_disposesRequestData() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        HttpRequest postRequest = new HttpRequest().method("POST").path("https://example.com").data("{}");
+        when(syncHttpClient.request(postRequest)).thenReturn("response body");
+
+        assertEquals("response body", sut.sendRequest(postRequest));
+        assertArrayEquals(new byte[2], postRequest.getData());
+    }
+
+    @Test
+    public void sendRequest_whenResponseIsNotModified_doesNotRetry() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        NotModifiedException exception = new NotModifiedException();
+        when(syncHttpClient.request(httpRequest)).thenThrow(exception);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.sendRequest(httpRequest, HttpClient.RETRY_MAX_3_TIMES, callback);
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+
+        verify(syncHttpClient, times(1)).request(httpRequest);
+        verify(callback).onResult(null, exception);
+    }
+
+    private static RetryPolicy createRetryPolicyWithoutDelay() {
+        return new ExponentialBackoffRetryPolicy(HttpClient.MAX_RETRY_ATTEMPTS, 0, 0, 0, new Random());
+    }
+
+    private static Random createRandom(double value) {
+        Random random = mock(Random.class);
+        when(random.nextDouble()).thenReturn(value);
+        return random;
+    }
+
+    @Test
+    public void warmUp_sendsHeadRequestToRootOfHostOnBackgroundThread() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.warmUp("https://api.braintreegateway.com:443/merchants/id/client_api/v1/configuration?configVersion=3", callback);
+
+        verifyZeroInteractions(syncHttpClient);
+        threadScheduler.flushBackgroundThread();
+
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(syncHttpClient).request(captor.capture());
+
+        HttpRequest request = captor.getValue();
+        assertEquals("HEAD", request.getMethod());
+        assertEquals("https://api.braintreegateway.com:443/", request.getURL().toString());
+
+        threadScheduler.flushMainThread();
+        verify(callback).onResult(null, null);
+    }
+
+    @Test
+    public void warmUp_whenHostRespondsWithErrorStatus_notifiesSuccess() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        when(syncHttpClient.request(any(HttpRequest.class))).thenThrow(new AuthenticationException("error"));
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.warmUp("https://api.braintreegateway.com/", callback);
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+        verify(callback).onResult(null, null);
+    }
+
+    @Test
+    public void warmUp_whenHostIsUnreachable_notifiesError() throws Exception {
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+        IOException exception = new IOException("error");
+        when(syncHttpClient.request(any(HttpRequest.class))).thenThrow(exception);
+
+        HttpResponseCallback callback = mock(HttpResponseCallback.class);
+        sut.warmUp("https://api.braintreegateway.com/", callback);
+
+        threadScheduler.flushBackgroundThread();
+        threadScheduler.flushMainThread();
+        verify(callback).onResult(null, exception);
+    }
+
     @Test
     public void sendRequestSynchronous_sendsHttpRequest() throws Exception {
         HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
@@ -0,0 +1,160 @@
+package com.braintreepayments.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HttpConnectionPoolUnitTest {
+
+    private static final int REQUEST_COUNT = 10;
+
+    private LocalTLSServer server;
+
+    @Before
+    public void beforeEach() throws Exception {
+        server = new LocalTLSServer("{\"key\":\"value\"}");
+        server.start();
+    }
+
+    @After
+    public void afterEach() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void acquire_whenHostHasNoOpenConnections_returnsTrue() throws Exception {
+        HttpConnectionPool sut = new HttpConnectionPool(5, 1000);
+        URL url = new URL("https://api.braintreegateway.com/v1/configuration");
+
+        assertTrue(sut.acquire(url, 0));
+    }
+
+    @Test
+    public void acquire_whenMaxIdleConnectionsIsZero_returnsFalse() throws Exception {
+        HttpConnectionPool sut = new HttpConnectionPool(0, 1000);
+        URL url = new URL("https://api.braintreegateway.com/v1/configuration");
+
+        assertFalse(sut.acquire(url, 0));
+    }
+
+    @Test
+    public void acquire_whenMaxConnectionsPerHostAreOpen_returnsFalse() throws Exception {
+        HttpConnectionPool sut = new HttpConnectionPool(2, 1000);
+        URL url = new URL("https://api.braintreegateway.com/v1/configuration");
+        URL otherHostUrl = new URL("https://payments.braintree-api.com/graphql");
+
+        assertTrue(sut.acquire(url, 0));
+        assertTrue(sut.acquire(url, 0));
+        assertFalse(sut.acquire(url, 0));
+        assertTrue(sut.acquire(otherHostUrl, 0));
+    }
+
+    @Test
+    public void acquire_afterConnectionToSameHostIsReleased_reusesIdleConnection() throws Exception {
+        HttpConnectionPool sut = new HttpConnectionPool(1, 1000);
+        URL configUrl = new URL("https://api.braintreegateway.com/v1/configuration");
+        URL tokenizeUrl = new URL("https://api.braintreegateway.com/v1/payment_methods/credit_cards");
+
+        boolean keepAlive = sut.acquire(configUrl, 0);
+        assertTrue(sut.release(configUrl, keepAlive, true, 10));
+        assertEquals(1, sut.getIdleConnectionCount(configUrl));
+
+        assertTrue(sut.acquire(tokenizeUrl, 20));
+        assertEquals(0, sut.getIdleConnectionCount(tokenizeUrl));
+    }
+
+    @Test
+    public void acquire_whenIdleConnectionHasExceededKeepAliveDuration_evictsConnection() throws Exception {
+        HttpConnectionPool sut = new HttpConnectionPool(5, 1000);
+        URL url = new URL("https://api.braintreegateway.com/v1/configuration");
+
+        boolean keepAlive = sut.acquire(url, 0);
+        sut.release(url, keepAlive, true, 10);
+        assertEquals(1, sut.getIdleConnectionCount(url));
+
+        sut.acquire(url, 1010);
+        assertEquals(0, sut.getIdleConnectionCount(url));
+    }
+
+    @Test
+    public void release_whenConnectionIsNotReusable_returnsFalse() throws Exception {
+        HttpConnectionPool sut = new HttpConnectionPool(5, 1000);
+        URL url = new URL("https://api.braintreegateway.com/v1/configuration");
+
+        boolean keepAlive = sut.acquire(url, 0);
+        assertFalse(sut.release(url, keepAlive, false, 10));
+        assertEquals(0, sut.getIdleConnectionCount(url));
+    }
+
+    @Test
+    public void release_whenConnectionWasNotKeptAlive_returnsFalse() throws Exception {
+        HttpConnectionPool sut = new HttpConnectionPool(5, 1000);
+        URL url = new URL("https://api.braintreegateway.com/v1/configuration");
+
+        assertFalse(sut.release(url, false, true, 10));
+        assertEquals(0, sut.getIdleConnectionCount(url));
+    }
+
+    @Test
+    public void request_withConnectionPool_performsSingleHandshakeForSequentialRequests() throws Exception {
+        SynchronousHttpClient sut = new SynchronousHttpClient(
+                LocalTLSServer.createClientSocketFactory(), new BaseHttpResponseParser());
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            HttpRequest request = new HttpRequest()
+                    .method(i % 2 == 0 ? "GET" : "POST")
+                    .baseUrl(server.getBaseUrl())
+                    .path("v1/payment_methods")
+                    .data("{\"request\":" + i + "}");
+            assertEquals("{\"key\":\"value\"}", sut.request(request));
+        }
+
+        assertEquals(REQUEST_COUNT, server.getRequestCount());
+        assertEquals(1, server.getHandshakeCount());
+    }
+
+    @Test
+    public void request_withoutIdleConnections_performsHandshakePerRequest() throws Exception {
+        HttpConnectionPool connectionPool = new HttpConnectionPool(0, 1000);
+        SynchronousHttpClient sut = new SynchronousHttpClient(
+                LocalTLSServer.createClientSocketFactory(), new BaseHttpResponseParser(), connectionPool);
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            HttpRequest request = new HttpRequest()
+                    .method("GET")
+                    .baseUrl(server.getBaseUrl())
+                    .path("v1/configuration");
+            sut.request(request);
+        }
+
+        assertEquals(REQUEST_COUNT, server.getRequestCount());
+        assertEquals(REQUEST_COUNT, server.getHandshakeCount());
+    }
+
+    @Test
+    public void warmUp_leavesConnectionInPoolForNextRequest() throws Exception {
+        SynchronousHttpClient syncHttpClient = new SynchronousHttpClient(
+                LocalTLSServer.createClientSocketFactory(), new BaseHttpResponseParser());
+        MockThreadScheduler threadScheduler = new MockThreadScheduler();
+        HttpClient sut = new HttpClient(syncHttpClient, threadScheduler);
+
+        sut.warmUp(server.getBaseUrl() + "/v1/configuration", null);
+        threadScheduler.flushBackgroundThread();
+        assertEquals(1, server.getHandshakeCount());
+
+        HttpRequest request = new HttpRequest()
+                .method("GET")
+                .baseUrl(server.getBaseUrl())
+                .path("v1/configuration");
+        assertEquals("{\"key\":\"value\"}", syncHttpClient.request(request));
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, server.getHandshakeCount());
+    }
+}
@@ -91,6 +91,29 @@ public class HttpRequestUnitTest {
             assertEquals(expectedURL, sut.getURL());
         }
 
+        @Test
+        public void shouldCompressData_returnsFalseByDefault() {
+            HttpRequest sut = HttpRequest.newInstance()
+                    .data("some data");
+            assertFalse(sut.shouldCompressData());
+        }
+
+        @Test
+        public void shouldCompressData_whenDataReachesThreshold_returnsTrue() {
+            HttpRequest sut = HttpRequest.newInstance()
+                    .data("0123456789")
+                    .compressData(10);
+            assertTrue(sut.shouldCompressData());
+        }
+
+        @Test
+        public void shouldCompressData_whenDataIsBelowThreshold_returnsFalse() {
+            HttpRequest sut = HttpRequest.newInstance()
+                    .data("012345678")
+                    .compressData(10);
+            assertFalse(sut.shouldCompressData());
+        }
+
         @Test
         public void constructor_setsConnectTimeoutTo30SecondsByDefault() {
             HttpRequest sut = HttpRequest.newInstance();
@@ -0,0 +1,252 @@
+package com.braintreepayments.api;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Minimal HTTP/1.1 server over TLS bound to localhost. Every request is answered with the same
+ * JSON body and the connection is kept open unless the client sends {@code Connection: close}, so
+ * tests can count how many TLS handshakes a client performs for a given number of requests.
+ */
+class LocalTLSServer {
+
+    private static final String KEYSTORE_PATH = "tls/local_tls_server.p12";
+    private static final String CERTIFICATE_PATH = "tls/local_tls_server.pem";
+    private static final char[] KEYSTORE_PASSWORD = "password".toCharArray();
+
+    private final String responseBody;
+    private final AtomicInteger handshakeCount;
+    private final AtomicInteger requestCount;
+    private final Set<String> sessionIds;
+    private final List<Socket> clientSockets;
+
+    private SSLServerSocket serverSocket;
+    private Thread acceptThread;
+
+    LocalTLSServer(String responseBody) {
+        this.responseBody = responseBody;
+        this.handshakeCount = new AtomicInteger();
+        this.requestCount = new AtomicInteger();
+        this.sessionIds = Collections.synchronizedSet(new HashSet<String>());
+        this.clientSockets = new ArrayList<>();
+    }
+
+    void start() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(openResource(KEYSTORE_PATH), KEYSTORE_PASSWORD);
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, KEYSTORE_PASSWORD);
+
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(kmf.getKeyManagers(), null, null);
+
+        serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory()
+                .createServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+
+        acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        }, "LocalTLSServer");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    void shutdown() throws IOException {
+        serverSocket.close();
+        synchronized (clientSockets) {
+            for (Socket socket : clientSockets) {
+                socket.close();
+            }
+        }
+    }
+
+    String getBaseUrl() {
+        return String.format(Locale.US, "https://localhost:%d", serverSocket.getLocalPort());
+    }
+
+    int getHandshakeCount() {
+        return handshakeCount.get();
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of distinct TLS sessions negotiated; handshakes that resume an existing
+     * session are not counted.
+     */
+    int getSessionCount() {
+        return sessionIds.size();
+    }
+
+    /**
+     * @return a {@link TLSSocketFactory} that pins the server's self-signed certificate.
+     */
+    static SSLSocketFactory createClientSocketFactory() throws Exception {
+        return new TLSSocketFactory(openResource(CERTIFICATE_PATH));
+    }
+
+    /**
+     * @return the server's self-signed certificate in PEM format.
+     */
+    static String getCertificate() throws IOException {
+        InputStream in = openResource(CERTIFICATE_PATH);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int count; (count = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final SSLSocket socket = (SSLSocket) serverSocket.accept();
+                synchronized (clientSockets) {
+                    clientSockets.add(socket);
+                }
+                Thread connectionThread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        serveConnection(socket);
+                    }
+                });
+                connectionThread.setDaemon(true);
+                connectionThread.start();
+            } catch (IOException ignored) {
+                // server socket closed
+            }
+        }
+    }
+
+    private void serveConnection(SSLSocket socket) {
+        try {
+            socket.startHandshake();
+            handshakeCount.incrementAndGet();
+            sessionIds.add(Arrays.toString(socket.getSession().getId()));
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+
+            Request request;
+            while ((request = readRequest(in)) != null) {
+                requestCount.incrementAndGet();
+                String headers = "HTTP/1.1 200 OK\r\n"
+                        + "Content-Type: application/json\r\n"
+                        + "Content-Length: " + body.length + "\r\n"
+                        + "Connection: " + (request.closeConnection ? "close" : "keep-alive") + "\r\n"
+                        + "\r\n";
+                out.write(headers.getBytes(StandardCharsets.US_ASCII));
+                if (!request.isHead) {
+                    out.write(body);
+                }
+                out.flush();
+
+                if (request.closeConnection) {
+                    break;
+                }
+            }
+        } catch (SocketException ignored) {
+            // client closed the connection
+        } catch (IOException ignored) {
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Reads the request line, headers and body of a single request.
+     *
+     * @return the request, or null when the client has closed the connection.
+     */
+    private static Request readRequest(InputStream in) throws IOException {
+        Request request = null;
+        int contentLength = 0;
+
+        String line;
+        while ((line = readLine(in)) != null) {
+            if (line.isEmpty()) {
+                if (request == null) {
+                    continue;
+                }
+                for (int i = 0; i < contentLength; i++) {
+                    if (in.read() == -1) {
+                        return null;
+                    }
+                }
+                return request;
+            }
+            if (request == null) {
+                request = new Request();
+                request.isHead = line.startsWith("HEAD ");
+                continue;
+            }
+            String lowerCaseLine = line.toLowerCase(Locale.US);
+            if (lowerCaseLine.startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+            } else if (lowerCaseLine.startsWith("connection:")) {
+                request.closeConnection = lowerCaseLine.contains("close");
+            }
+        }
+        return null;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = builder.length();
+                if (length > 0 && builder.charAt(length - 1) == '\r') {
+                    builder.setLength(length - 1);
+                }
+                return builder.toString();
+            }
+            builder.append((char) c);
+        }
+        return null;
+    }
+
+    private static InputStream openResource(String path) {
+        return LocalTLSServer.class.getClassLoader().getResourceAsStream(path);
+    }
+
+    private static class Request {
+        boolean isHead;
+        boolean closeConnection;
+    }
+}
@@ -9,10 +9,12 @@ class MockThreadScheduler implements Scheduler {
 
     private final List<Runnable> mainThreadRunnables;
     private final List<Runnable> backgroundThreadRunnables;
+    private final List<Long> backgroundThreadDelays;
 
     MockThreadScheduler() {
         mainThreadRunnables = new ArrayList<>();
         backgroundThreadRunnables = new ArrayList<>();
+        backgroundThreadDelays = new ArrayList<>();
     }
 
     @Override
@@ -25,6 +27,19 @@ class MockThreadScheduler implements Scheduler {
         backgroundThreadRunnables.add(runnable);
     }
 
+    @Override
+    public void runOnBackground(Runnable runnable, long delayMillis) {
+        backgroundThreadDelays.add(delayMillis);
+        backgroundThreadRunnables.add(runnable);
+    }
+
+    /**
+     * @return the delays requested for background runnables, in the order they were scheduled.
+     */
+    List<Long> getBackgroundThreadDelays() {
+        return backgroundThreadDelays;
+    }
+
     void flushMainThread() {
         List<Runnable> remainingRunnables = new ArrayList<>(mainThreadRunnables);
         mainThreadRunnables.clear();
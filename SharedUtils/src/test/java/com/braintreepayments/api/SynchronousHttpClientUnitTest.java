@@ -2,8 +2,11 @@ package com.braintreepayments.api;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -12,14 +15,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.function.ThrowingRunnable;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLException;
@@ -137,6 +146,63 @@ public class SynchronousHttpClientUnitTest {
         verify(connection).setSSLSocketFactory(sslSocketFactory);
     }
 
+    @Test
+    public void request_withSocketFactoryLoader_loadsSocketFactoryOnFirstHttpsRequestOnly() throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpsURLConnection connection = mock(HttpsURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        SSLSocketFactoryLoader socketFactoryLoader = mock(SSLSocketFactoryLoader.class);
+        when(socketFactoryLoader.load()).thenReturn(sslSocketFactory);
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(socketFactoryLoader, httpResponseParser, new HttpConnectionPool());
+        verify(socketFactoryLoader, never()).load();
+
+        sut.request(httpRequest);
+        sut.request(httpRequest);
+
+        verify(socketFactoryLoader, times(1)).load();
+        verify(connection, times(2)).setSSLSocketFactory(sslSocketFactory);
+    }
+
+    @Test
+    public void request_whenSocketFactoryLoaderFails_usesDefaultSSLSocketFactory() throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpsURLConnection connection = mock(HttpsURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        SSLSocketFactoryLoader socketFactoryLoader = mock(SSLSocketFactoryLoader.class);
+        when(socketFactoryLoader.load()).thenThrow(new SSLException("invalid certificate"));
+
+        TLSSocketFactory defaultSocketFactory = mock(TLSSocketFactory.class);
+        when(TLSSocketFactory.newInstance()).thenReturn(defaultSocketFactory);
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(socketFactoryLoader, httpResponseParser, new HttpConnectionPool());
+        sut.request(httpRequest);
+
+        verify(connection).setSSLSocketFactory(defaultSocketFactory);
+    }
+
     @Test
     public void request_whenConnectionIsHttps_andSSLSocketFactoryIsNull_throwsSSLException() throws Exception {
         final HttpRequest httpRequest = spy(new HttpRequest()
@@ -258,7 +324,7 @@ public class SynchronousHttpClientUnitTest {
     }
 
     @Test
-    public void request_onSuccess_closesUrlConnection() throws Exception {
+    public void request_onSuccess_keepsUrlConnectionAlive() throws Exception {
         final HttpRequest httpRequest = spy(new HttpRequest()
                 .path("sample/path")
                 .method("GET")
@@ -275,11 +341,61 @@ public class SynchronousHttpClientUnitTest {
 
         SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
         sut.request(httpRequest);
+        verify(connection, never()).disconnect();
+    }
+
+    @Test
+    public void request_onSuccess_whenConnectionPoolIsFull_closesUrlConnection() throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpsURLConnection connection = mock(HttpsURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        HttpConnectionPool connectionPool = new HttpConnectionPool(0, 1000);
+        SynchronousHttpClient sut =
+                new SynchronousHttpClient(sslSocketFactory, httpResponseParser, connectionPool);
+        sut.request(httpRequest);
+        verify(connection).setRequestProperty("Connection", "close");
         verify(connection).disconnect();
     }
 
     @Test
-    public void request_onHttpResponseParserException_propagatesExceptionAndClosesUrlConnection() throws Exception {
+    public void request_onHttpResponseParserException_propagatesExceptionAndKeepsUrlConnectionAlive() throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpsURLConnection connection = mock(HttpsURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(422);
+        when(httpResponseParser.parse(422, connection)).thenThrow(new UnprocessableEntityException("error"));
+
+        final SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        assertThrows(UnprocessableEntityException.class, new ThrowingRunnable() {
+            @Override
+            public void run() throws Throwable {
+                sut.request(httpRequest);
+            }
+        });
+        verify(connection, never()).disconnect();
+    }
+
+    @Test
+    public void request_onHttpResponseParserIOException_propagatesExceptionAndClosesUrlConnection() throws Exception {
         final HttpRequest httpRequest = spy(new HttpRequest()
                 .path("sample/path")
                 .method("GET")
@@ -292,10 +408,35 @@ public class SynchronousHttpClientUnitTest {
         when(url.openConnection()).thenReturn(connection);
 
         when(connection.getResponseCode()).thenReturn(200);
-        when(httpResponseParser.parse(200, connection)).thenThrow(new Exception("error"));
+        when(httpResponseParser.parse(200, connection)).thenThrow(new IOException("error"));
+
+        final SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        assertThrows(IOException.class, new ThrowingRunnable() {
+            @Override
+            public void run() throws Throwable {
+                sut.request(httpRequest);
+            }
+        });
+        verify(connection).disconnect();
+    }
+
+    @Test
+    public void request_whenResponseCodeThrows_closesUrlConnection() throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpsURLConnection connection = mock(HttpsURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenThrow(new IOException("connection reset"));
 
         final SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
-        assertThrows(Exception.class, new ThrowingRunnable() {
+        assertThrows(IOException.class, new ThrowingRunnable() {
             @Override
             public void run() throws Throwable {
                 sut.request(httpRequest);
@@ -355,7 +496,8 @@ public class SynchronousHttpClientUnitTest {
         verify(outputStream).write(httpRequest.getData());
         verify(outputStream).flush();
         verify(outputStream).close();
-        verify(httpRequest).dispose();
+        // HttpClient disposes of the data once the last attempt has finished
+        verify(httpRequest, never()).dispose();
     }
 
     @Test
@@ -385,7 +527,173 @@ public class SynchronousHttpClientUnitTest {
         verify(outputStream).write(httpRequest.getData());
         verify(outputStream).flush();
         verify(outputStream).close();
-        verify(httpRequest).dispose();
+        // HttpClient disposes of the data once the last attempt has finished
+        verify(httpRequest, never()).dispose();
+    }
+
+    @Test
+    public void request_whenPostShouldBeCompressed_writesGzippedData() throws Exception {
+        SynchronousHttpClient.resetHostsRejectingCompression();
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("POST")
+                .data("test data test data test data")
+                .compressData(0)
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(url.getHost()).thenReturn("www.sample.com");
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        when(connection.getOutputStream()).thenReturn(outputStream);
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        sut.request(httpRequest);
+
+        verify(connection).setRequestProperty("Content-Encoding", "gzip");
+        GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals("test data test data test data", new String(readFully(gzipInputStream), StandardCharsets.UTF_8));
+        assertEquals("test data test data test data", new String(httpRequest.getData(), StandardCharsets.UTF_8));
+        verify(httpRequest, never()).dispose();
+    }
+
+    @Test
+    public void request_whenHostRejectsCompressedData_sendsDataUncompressed() throws Exception {
+        SynchronousHttpClient.resetHostsRejectingCompression();
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("POST")
+                .data("test data")
+                .compressData(0)
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(url.getHost()).thenReturn("www.sample.com");
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection compressedConnection = mock(HttpURLConnection.class);
+        HttpURLConnection uncompressedConnection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(compressedConnection, uncompressedConnection);
+
+        when(compressedConnection.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(compressedConnection.getResponseCode()).thenReturn(415);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        when(uncompressedConnection.getOutputStream()).thenReturn(outputStream);
+        when(uncompressedConnection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, uncompressedConnection)).thenReturn("http_ok");
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        assertEquals("http_ok", sut.request(httpRequest));
+
+        verify(compressedConnection).setRequestProperty("Content-Encoding", "gzip");
+        verify(uncompressedConnection, never()).setRequestProperty("Content-Encoding", "gzip");
+        assertEquals("test data", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void request_whenHostRejectsCompressedDataWithBadRequest_sendsDataUncompressed() throws Exception {
+        SynchronousHttpClient.resetHostsRejectingCompression();
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("POST")
+                .data("test data")
+                .compressData(0)
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(url.getHost()).thenReturn("www.sample.com");
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection compressedConnection = mock(HttpURLConnection.class);
+        HttpURLConnection uncompressedConnection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(compressedConnection, uncompressedConnection);
+
+        when(compressedConnection.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(compressedConnection.getResponseCode()).thenReturn(400);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        when(uncompressedConnection.getOutputStream()).thenReturn(outputStream);
+        when(uncompressedConnection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, uncompressedConnection)).thenReturn("http_ok");
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        assertEquals("http_ok", sut.request(httpRequest));
+
+        verify(compressedConnection).setRequestProperty("Content-Encoding", "gzip");
+        verify(httpResponseParser, never()).parse(400, compressedConnection);
+        verify(uncompressedConnection, never()).setRequestProperty("Content-Encoding", "gzip");
+        assertEquals("test data", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void request_whenTimed_connectsBeforeWritingAndRecordsResponse() throws Exception {
+        HttpRequestTiming timing = new HttpRequestTiming();
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("POST")
+                .data("test data")
+                .timing(timing)
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+        when(connection.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("{\"r\u00e9sultat\":1}");
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        sut.request(httpRequest);
+
+        InOrder inOrder = inOrder(connection);
+        inOrder.verify(connection).setDoOutput(true);
+        inOrder.verify(connection).connect();
+        inOrder.verify(connection).getOutputStream();
+
+        assertEquals(1, timing.getAttemptCount());
+        // the two byte encoding of the accented character
+        assertEquals(15, timing.getResponseSize());
+    }
+
+    @Test
+    public void request_whenNotTimed_letsConnectionConnectImplicitly() throws Exception {
+        final HttpRequest httpRequest = spy(new HttpRequest()
+                .path("sample/path")
+                .method("GET")
+                .baseUrl("https://www.sample.com"));
+
+        URL url = mock(URL.class);
+        when(httpRequest.getURL()).thenReturn(url);
+
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(url.openConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        when(httpResponseParser.parse(200, connection)).thenReturn("http_ok");
+
+        SynchronousHttpClient sut = new SynchronousHttpClient(sslSocketFactory, httpResponseParser);
+        sut.request(httpRequest);
+
+        verify(connection, never()).connect();
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        return outputStream.toByteArray();
     }
 
     private static byte[] toByteArray(String data) {
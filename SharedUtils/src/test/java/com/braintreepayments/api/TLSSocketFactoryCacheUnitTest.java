@@ -0,0 +1,78 @@
+package com.braintreepayments.api;
+
+import org.junit.Test;
+import org.junit.function.ThrowingRunnable;
+
+import javax.net.ssl.SSLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class TLSSocketFactoryCacheUnitTest {
+
+    @Test
+    public void getInstance_returnsSingleton() {
+        assertSame(TLSSocketFactoryCache.getInstance(), TLSSocketFactoryCache.getInstance());
+    }
+
+    @Test
+    public void getSocketFactory_withSameCertificateBundle_returnsSameInstance() throws Exception {
+        TLSSocketFactoryCache sut = new TLSSocketFactoryCache();
+        String certificate = LocalTLSServer.getCertificate();
+
+        TLSSocketFactory first = sut.getSocketFactory(certificate);
+        TLSSocketFactory second = sut.getSocketFactory(new String(certificate));
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void getSocketFactory_withDifferentCertificateBundles_returnsDifferentInstances() throws Exception {
+        TLSSocketFactoryCache sut = new TLSSocketFactoryCache();
+        String certificate = LocalTLSServer.getCertificate();
+
+        TLSSocketFactory first = sut.getSocketFactory(certificate);
+        TLSSocketFactory second = sut.getSocketFactory(certificate + certificate);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void getSocketFactory_withInvalidCertificateBundle_throwsSSLException() {
+        final TLSSocketFactoryCache sut = new TLSSocketFactoryCache();
+
+        assertThrows(SSLException.class, new ThrowingRunnable() {
+            @Override
+            public void run() throws Throwable {
+                sut.getSocketFactory("not a certificate");
+            }
+        });
+    }
+
+    @Test
+    public void getSocketFactory_sharesTLSSessionsAcrossHttpClients() throws Exception {
+        LocalTLSServer server = new LocalTLSServer("{}");
+        server.start();
+
+        TLSSocketFactoryCache sut = new TLSSocketFactoryCache();
+        String certificate = LocalTLSServer.getCertificate();
+
+        // disable keep-alive so that every request opens a new connection
+        SynchronousHttpClient firstClient = new SynchronousHttpClient(
+                sut.getSocketFactory(certificate), new BaseHttpResponseParser(), new HttpConnectionPool(0, 0));
+        SynchronousHttpClient secondClient = new SynchronousHttpClient(
+                sut.getSocketFactory(certificate), new BaseHttpResponseParser(), new HttpConnectionPool(0, 0));
+
+        try {
+            firstClient.request(new HttpRequest().method("GET").baseUrl(server.getBaseUrl()).path("config"));
+            secondClient.request(new HttpRequest().method("GET").baseUrl(server.getBaseUrl()).path("config"));
+        } finally {
+            server.shutdown();
+        }
+
+        assertEquals(2, server.getHandshakeCount());
+        assertEquals(1, server.getSessionCount());
+    }
+}
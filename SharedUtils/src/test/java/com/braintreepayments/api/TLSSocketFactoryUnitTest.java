@@ -0,0 +1,52 @@
+package com.braintreepayments.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TLSSocketFactoryUnitTest {
+
+    private ServerSocket serverSocket;
+    private Socket socket;
+
+    @Before
+    public void beforeEach() throws Exception {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+    }
+
+    @After
+    public void afterEach() throws Exception {
+        socket.close();
+        serverSocket.close();
+    }
+
+    @Test
+    public void createSocket_whenNotRecording_doesNotRecordHandshakeStartTime() throws Exception {
+        TLSSocketFactory sut = new TLSSocketFactory();
+
+        sut.createSocket(socket, "localhost", serverSocket.getLocalPort(), true).close();
+
+        assertEquals(0, TLSSocketFactory.stopRecordingHandshake());
+    }
+
+    @Test
+    public void createSocket_whileRecording_recordsHandshakeStartTime() throws Exception {
+        TLSSocketFactory sut = new TLSSocketFactory();
+        long startTime = System.currentTimeMillis();
+
+        TLSSocketFactory.startRecordingHandshake();
+        sut.createSocket(socket, "localhost", serverSocket.getLocalPort(), true).close();
+
+        assertTrue(TLSSocketFactory.stopRecordingHandshake() >= startTime);
+        // recording stops with the timed request it belongs to
+        assertEquals(0, TLSSocketFactory.stopRecordingHandshake());
+    }
+}
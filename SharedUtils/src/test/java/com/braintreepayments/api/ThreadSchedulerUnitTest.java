@@ -7,25 +7,23 @@ import com.braintreepayments.api.ThreadScheduler;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.concurrent.ExecutorService;
-
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 public class ThreadSchedulerUnitTest {
 
     Handler mainThreadHandler;
-    ExecutorService backgroundThreadPool;
+    BackgroundThreadPool backgroundThreadPool;
 
     @Before
     public void beforeEach() {
         mainThreadHandler = mock(Handler.class);
-        backgroundThreadPool = mock(ExecutorService.class);
+        backgroundThreadPool = mock(BackgroundThreadPool.class);
     }
 
     @Test
-    public void runOnBackground_submitsRunnableToThreadPool() {
-        ThreadScheduler sut = new ThreadScheduler(mainThreadHandler, backgroundThreadPool);
+    public void runOnBackground_submitsRunnableToThreadPoolWithPriority() {
+        ThreadScheduler sut = new ThreadScheduler(mainThreadHandler, backgroundThreadPool, BackgroundThreadPool.PRIORITY_HIGH);
         Runnable runnable = new Runnable() {
             @Override
             public void run() {}
@@ -33,13 +31,13 @@ public class ThreadSchedulerUnitTest {
 
         sut.runOnBackground(runnable);
 
-        verify(backgroundThreadPool).submit(runnable);
+        verify(backgroundThreadPool).execute(runnable, BackgroundThreadPool.PRIORITY_HIGH);
     }
 
 
     @Test
     public void runOnMain_postsRunnableToHandler() {
-        ThreadScheduler sut = new ThreadScheduler(mainThreadHandler, backgroundThreadPool);
+        ThreadScheduler sut = new ThreadScheduler(mainThreadHandler, backgroundThreadPool, BackgroundThreadPool.PRIORITY_NORMAL);
         Runnable runnable = new Runnable() {
             @Override
             public void run() {}
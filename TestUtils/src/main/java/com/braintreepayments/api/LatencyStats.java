@@ -0,0 +1,94 @@
+package com.braintreepayments.api;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of one operation run by a {@link LoadTestRunner}. Failed calls are included
+ * in the percentiles, since a merchant waits for them too.
+ */
+public class LatencyStats {
+
+    private final String name;
+    private final int concurrency;
+    private final long[] sortedLatencies;
+    private final int errorCount;
+    private final Exception firstError;
+    private final long durationNanos;
+
+    LatencyStats(String name, int concurrency, long[] latencies, int errorCount, Exception firstError, long durationNanos) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.sortedLatencies = Arrays.copyOf(latencies, latencies.length);
+        Arrays.sort(sortedLatencies);
+        this.errorCount = errorCount;
+        this.firstError = firstError;
+        this.durationNanos = durationNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRequestCount() {
+        return sortedLatencies.length;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the first error a call failed with, or null if every call succeeded.
+     */
+    public Exception getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the latency in milliseconds that the given percentage of calls finished within.
+     */
+    public double getPercentileMillis(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        // nearest rank
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        int index = Math.min(sortedLatencies.length - 1, Math.max(0, rank - 1));
+        return toMillis(sortedLatencies[index]);
+    }
+
+    public double getThroughput() {
+        return (durationNanos > 0) ? sortedLatencies.length * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms errors=%d/%d %.1f req/s",
+                name, getPercentileMillis(50), getPercentileMillis(95), getPercentileMillis(99),
+                getPercentileMillis(100), errorCount, getRequestCount(), getThroughput());
+    }
+
+    /**
+     * @return a Markdown table with one row per operation.
+     */
+    public static String formatTable(List<LatencyStats> results) {
+        StringBuilder table = new StringBuilder()
+                .append("| Operation | Concurrency | Requests | Errors | p50 (ms) | p95 (ms) | p99 (ms) | max (ms) | req/s |\n")
+                .append("|---|---|---|---|---|---|---|---|---|\n");
+        for (LatencyStats stats : results) {
+            table.append(String.format(Locale.US, "| %s | %d | %d | %d | %.1f | %.1f | %.1f | %.1f | %.1f |\n",
+                    stats.name, stats.concurrency, stats.getRequestCount(), stats.errorCount,
+                    stats.getPercentileMillis(50), stats.getPercentileMillis(95), stats.getPercentileMillis(99),
+                    stats.getPercentileMillis(100), stats.getThroughput()));
+        }
+        return table.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
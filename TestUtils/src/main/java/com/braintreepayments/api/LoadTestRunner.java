@@ -0,0 +1,101 @@
+package com.braintreepayments.api;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Calls an asynchronous operation a fixed number of times, keeping a fixed number of calls in
+ * flight, and records how long each call took. Use with {@link MockGateway} to measure SDK
+ * latency end to end.
+ *
+ * SDK callbacks are delivered on the main thread. In Robolectric tests the calling thread is the
+ * main thread, so pass an {@code idleTask} that runs the main looper while the runner waits.
+ */
+public class LoadTestRunner {
+
+    public interface Operation {
+        void start(Completion completion);
+    }
+
+    public interface Completion {
+        void onComplete(Exception error);
+    }
+
+    private final int concurrency;
+    private final int requestCount;
+    private final long timeoutMillis;
+    private final Runnable idleTask;
+
+    public LoadTestRunner(int concurrency, int requestCount, long timeoutMillis, Runnable idleTask) {
+        this.concurrency = concurrency;
+        this.requestCount = requestCount;
+        this.timeoutMillis = timeoutMillis;
+        this.idleTask = idleTask;
+    }
+
+    public LatencyStats run(String name, final Operation operation) throws InterruptedException, TimeoutException {
+        final long[] latencies = new long[requestCount];
+        final AtomicInteger nextRequest = new AtomicInteger();
+        final AtomicInteger errorCount = new AtomicInteger();
+        final AtomicReference<Exception> firstError = new AtomicReference<>();
+        final CountDownLatch finished = new CountDownLatch(requestCount);
+
+        Runnable startNext = new Runnable() {
+            @Override
+            public void run() {
+                final int request = nextRequest.getAndIncrement();
+                if (request >= requestCount) {
+                    return;
+                }
+
+                final Runnable startNext = this;
+                final AtomicBoolean completed = new AtomicBoolean();
+                final long startTime = System.nanoTime();
+                Completion completion = new Completion() {
+                    @Override
+                    public void onComplete(Exception error) {
+                        if (!completed.compareAndSet(false, true)) {
+                            return;
+                        }
+                        latencies[request] = System.nanoTime() - startTime;
+                        if (error != null) {
+                            errorCount.incrementAndGet();
+                            firstError.compareAndSet(null, error);
+                        }
+                        finished.countDown();
+                        startNext.run();
+                    }
+                };
+
+                try {
+                    operation.start(completion);
+                } catch (RuntimeException e) {
+                    completion.onComplete(e);
+                }
+            }
+        };
+
+        long runStartTime = System.nanoTime();
+        long deadline = runStartTime + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (int i = 0; i < Math.min(concurrency, requestCount); i++) {
+            startNext.run();
+        }
+
+        while (!finished.await(1, TimeUnit.MILLISECONDS)) {
+            if (idleTask != null) {
+                idleTask.run();
+            }
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException(String.format("%s: %d of %d requests finished within %dms",
+                        name, requestCount - finished.getCount(), requestCount, timeoutMillis));
+            }
+        }
+
+        return new LatencyStats(name, concurrency, latencies, errorCount.get(), firstError.get(),
+                System.nanoTime() - runStartTime);
+    }
+}
@@ -51,11 +51,11 @@ public class MockApiClientBuilder {
         doAnswer(new Answer<Void>() {
             @Override
             public Void answer(InvocationOnMock invocation) {
-                TokenizeCallback listener = (TokenizeCallback) invocation.getArguments()[1];
+                TokenizeCallback listener = (TokenizeCallback) invocation.getArguments()[2];
                 listener.onResult(tokenizeGraphQLSuccess, tokenizeGraphQLError);
                 return null;
             }
-        }).when(apiClient).tokenizeGraphQL(any(JSONObject.class), any(TokenizeCallback.class));
+        }).when(apiClient).tokenizeGraphQL(any(GraphQLQuery.class), any(JSONObject.class), any(TokenizeCallback.class));
 
         return apiClient;
     }
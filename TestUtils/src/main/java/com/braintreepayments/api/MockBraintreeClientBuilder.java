@@ -4,6 +4,7 @@ import android.content.pm.ActivityInfo;
 
 import androidx.fragment.app.FragmentActivity;
 
+import org.json.JSONObject;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -207,6 +208,19 @@ public class MockBraintreeClientBuilder {
             }
         }).when(braintreeClient).sendGraphQLPOST(anyString(), any(HttpResponseCallback.class));
 
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                HttpResponseCallback callback = (HttpResponseCallback) invocation.getArguments()[2];
+                if (sendGraphQLPOSTSuccess != null) {
+                    callback.onResult(sendGraphQLPOSTSuccess, null);
+                } else if (sendGraphQLPOSTError != null) {
+                    callback.onResult(null, sendGraphQLPOSTError);
+                }
+                return null;
+            }
+        }).when(braintreeClient).sendGraphQLPOST(any(GraphQLQuery.class), any(JSONObject.class), any(HttpResponseCallback.class));
+
         return braintreeClient;
     }
 }
@@ -27,7 +27,7 @@ public class MockConfigurationLoaderBuilder {
     public ConfigurationLoader build() {
         ConfigurationLoader configurationLoader = mock(ConfigurationLoader.class);
 
-        doAnswer(new Answer<Void>() {
+        Answer<Void> answer = new Answer<Void>() {
             @Override
             public Void answer(InvocationOnMock invocation) {
                 ConfigurationCallback callback = (ConfigurationCallback) invocation.getArguments()[2];
@@ -38,7 +38,9 @@ public class MockConfigurationLoaderBuilder {
                 }
                 return null;
             }
-        }).when(configurationLoader).loadConfiguration(any(Context.class), any(Authorization.class), any(ConfigurationCallback.class));
+        };
+        doAnswer(answer).when(configurationLoader).loadConfiguration(any(Context.class), any(Authorization.class), any(ConfigurationCallback.class));
+        doAnswer(answer).when(configurationLoader).loadConfigurationOnCurrentThread(any(Context.class), any(Authorization.class), any(ConfigurationCallback.class));
 
         return configurationLoader;
     }
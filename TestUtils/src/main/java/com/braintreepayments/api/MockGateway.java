@@ -0,0 +1,487 @@
+package com.braintreepayments.api;
+
+import android.util.Base64;
+
+import com.braintreepayments.api.GraphQLConstants.Features;
+import com.braintreepayments.api.TestConfigurationBuilder.TestGraphQLConfigurationBuilder;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * A local stand-in for the Braintree gateway, for measuring the SDK end to end without a sandbox.
+ * It serves the configuration and the client api, PayPal, 3D Secure, local payment, SEPA,
+ * analytics and GraphQL endpoints with responses from {@link Fixtures}.
+ *
+ * Latency, bandwidth, error rates and rate limiting can be changed while the gateway is running.
+ * Faults apply to every endpoint, including the configuration.
+ *
+ * <pre>
+ * MockGateway gateway = new MockGateway()
+ *         .latency(20, 80)
+ *         .errorRate(0.01)
+ *         .start();
+ * BraintreeClient braintreeClient = new BraintreeClient(context, gateway.getClientToken());
+ * </pre>
+ *
+ * Connections are kept alive like the real gateway's, so connection reuse in the SDK is exercised.
+ */
+public class MockGateway {
+
+    public static final String MERCHANT_ID = "integration_merchant_id";
+
+    private static final String CLIENT_API_PATH = "/merchants/" + MERCHANT_ID + "/client_api";
+    private static final String CONFIGURATION_PATH = CLIENT_API_PATH + "/v1/configuration";
+    private static final String GRAPHQL_PATH = "/graphql";
+    private static final String ANALYTICS_PATH = "/analytics";
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static class Route {
+
+        final String pathFragment;
+        final int status;
+        final String body;
+
+        Route(String pathFragment, int status, String body) {
+            this.pathFragment = pathFragment;
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    private volatile long bytesPerSecond;
+    private volatile double errorRate;
+    private volatile double rateLimitRate;
+    private volatile boolean running;
+
+    private String[] graphQLFeatures = new String[0];
+    private SSLContext sslContext;
+    private ServerSocket serverSocket;
+    private String url;
+
+    /**
+     * Delays every response by a random duration between {@code minMillis} and {@code maxMillis}.
+     */
+    public MockGateway latency(long minMillis, long maxMillis) {
+        minLatencyMillis = minMillis;
+        maxLatencyMillis = Math.max(minMillis, maxMillis);
+        return this;
+    }
+
+    /**
+     * Limits the speed responses are written at. 0, the default, writes at full speed.
+     */
+    public MockGateway bandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Fails the given fraction of requests with {@code 500 Internal Server Error}.
+     */
+    public MockGateway errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Rejects the given fraction of requests with {@code 429 Too Many Requests}.
+     */
+    public MockGateway rateLimitRate(double rateLimitRate) {
+        this.rateLimitRate = rateLimitRate;
+        return this;
+    }
+
+    /**
+     * Makes latency and faults repeatable between runs.
+     */
+    public MockGateway seed(long seed) {
+        random.setSeed(seed);
+        return this;
+    }
+
+    /**
+     * Enables GraphQL in the configuration with the given features, e.g.
+     * {@link Features#TOKENIZE_CREDIT_CARDS}. Must be called before {@link #start()}.
+     */
+    public MockGateway graphQLFeatures(String... features) {
+        graphQLFeatures = features;
+        return this;
+    }
+
+    /**
+     * Serves https instead of http. The certificate of {@code sslContext} must be valid for
+     * {@code 127.0.0.1}, and clients must trust it; see {@link #createSSLContext(InputStream, char[])}.
+     * Must be called before {@link #start()}.
+     */
+    public MockGateway tls(SSLContext sslContext) {
+        this.sslContext = sslContext;
+        return this;
+    }
+
+    /**
+     * Responds to every request whose path contains {@code pathFragment} with the given status and
+     * body, instead of the default fixture. Responses added later take precedence.
+     */
+    public MockGateway respond(String pathFragment, int status, String body) {
+        routes.add(0, new Route(pathFragment, status, body));
+        return this;
+    }
+
+    public MockGateway start() throws IOException {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        if (sslContext != null) {
+            serverSocket = sslContext.getServerSocketFactory().createServerSocket(0, 50, loopback);
+            url = "https://127.0.0.1:" + serverSocket.getLocalPort();
+        } else {
+            serverSocket = new ServerSocket(0, 50, loopback);
+            url = "http://127.0.0.1:" + serverSocket.getLocalPort();
+        }
+
+        routes.add(new Route(CONFIGURATION_PATH, 200, buildConfiguration()));
+        routes.add(new Route("/v1/payment_methods/credit_cards", 201, Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD));
+        routes.add(new Route("/three_d_secure/lookup", 201, Fixtures.THREE_D_SECURE_V2_LOOKUP_RESPONSE));
+        routes.add(new Route("/v1/paypal_hermes/create_payment_resource", 201, Fixtures.PAYPAL_HERMES_RESPONSE));
+        routes.add(new Route("/v1/paypal_hermes/setup_billing_agreement", 201, Fixtures.PAYPAL_HERMES_BILLING_AGREEMENT_RESPONSE));
+        routes.add(new Route("/v1/local_payments/create", 201, Fixtures.PAYMENT_METHODS_LOCAL_PAYMENT_CREATE_RESPONSE));
+        routes.add(new Route("/v1/sepa_debit", 201, Fixtures.SEPA_DEBIT_CREATE_MANDATE_RESPONSE));
+        routes.add(new Route("/v1/payment_methods/sepa_debit_accounts", 201, Fixtures.SEPA_DEBIT_TOKENIZE_RESPONSE));
+        routes.add(new Route(GRAPHQL_PATH, 200, Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD));
+        routes.add(new Route(ANALYTICS_PATH, 200, "{}"));
+
+        running = true;
+        connectionExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        });
+        return this;
+    }
+
+    public void shutdown() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {}
+        connectionExecutor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getConfigurationUrl() {
+        return url + CONFIGURATION_PATH;
+    }
+
+    /**
+     * @return a client token pointing the SDK at this gateway.
+     */
+    public String getClientToken() {
+        try {
+            JSONObject clientToken = new JSONObject()
+                    .put("configUrl", getConfigurationUrl())
+                    .put("authorizationFingerprint", "mock_gateway_authorization_fingerprint");
+            return Base64.encodeToString(clientToken.toString().getBytes(UTF_8), Base64.NO_WRAP);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the number of requests received whose path contains {@code pathFragment},
+     * including requests that were failed on purpose.
+     */
+    public int getRequestCount(String pathFragment) {
+        int count = 0;
+        for (Map.Entry<String, AtomicInteger> entry : requestCounts.entrySet()) {
+            if (entry.getKey().contains(pathFragment)) {
+                count += entry.getValue().get();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates an {@link SSLContext} that both serves and trusts the key in {@code keyStore}, so the
+     * same context can be passed to {@link #tls(SSLContext)} and used for the SDK's http clients.
+     * A suitable key store can be created with:
+     *
+     * <pre>
+     * keytool -genkeypair -keyalg RSA -alias gateway -dname CN=127.0.0.1 -ext san=ip:127.0.0.1 \
+     *     -validity 3650 -storetype PKCS12 -keystore mock-gateway.p12 -storepass password
+     * </pre>
+     */
+    public static SSLContext createSSLContext(InputStream keyStore, char[] password) throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        store.load(keyStore, password);
+
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(store, password);
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(store);
+
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    private String buildConfiguration() {
+        TestConfigurationBuilder configuration = new TestConfigurationBuilder()
+                .clientApiUrl(url + CLIENT_API_PATH)
+                .analytics(url + ANALYTICS_PATH)
+                .threeDSecureEnabled(true)
+                .paypalEnabled(true);
+        if (graphQLFeatures.length > 0) {
+            configuration.graphQL(new TestGraphQLConfigurationBuilder()
+                    .url(url + GRAPHQL_PATH)
+                    .features(graphQLFeatures));
+        }
+        return configuration.build();
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connectionExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (IOException e) {
+                // the server socket was closed by shutdown()
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+
+            while (running) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return;
+                }
+                Map<String, String> headers = readHeaders(in);
+                skipBody(in, headers);
+
+                String[] requestParts = requestLine.split(" ");
+                String path = (requestParts.length > 1) ? requestParts[1] : "/";
+                boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection"));
+                respond(path, out, keepAlive);
+                if (!keepAlive) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // the client closed the connection, or the gateway is shutting down
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void respond(String path, OutputStream out, boolean keepAlive) throws IOException, InterruptedException {
+        Route route = findRoute(path);
+        countRequest(route != null ? route.pathFragment : path);
+
+        long latency;
+        double fault;
+        synchronized (random) {
+            latency = minLatencyMillis + (long) (random.nextDouble() * (maxLatencyMillis - minLatencyMillis));
+            fault = random.nextDouble();
+        }
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+
+        int status;
+        String body;
+        String extraHeaders = "";
+        if (fault < rateLimitRate) {
+            status = HTTP_TOO_MANY_REQUESTS;
+            body = "{\"error\":{\"message\":\"Too many requests\"}}";
+            extraHeaders = "Retry-After: 1\r\n";
+        } else if (fault < rateLimitRate + errorRate) {
+            status = 500;
+            body = "{\"error\":{\"message\":\"Internal server error\"}}";
+        } else if (route == null) {
+            status = 404;
+            body = "{\"error\":{\"message\":\"No fixture for " + path + "\"}}";
+        } else {
+            status = route.status;
+            body = route.body;
+        }
+
+        byte[] bodyBytes = body.getBytes(UTF_8);
+        String head = String.format(Locale.US, "HTTP/1.1 %d %s\r\n"
+                        + "Content-Type: application/json; charset=utf-8\r\n"
+                        + "Content-Length: %d\r\n"
+                        + "Connection: %s\r\n"
+                        + "%s\r\n",
+                status, getReasonPhrase(status), bodyBytes.length, keepAlive ? "keep-alive" : "close", extraHeaders);
+        out.write(head.getBytes(UTF_8));
+        write(out, bodyBytes);
+        out.flush();
+    }
+
+    private void write(OutputStream out, byte[] data) throws IOException, InterruptedException {
+        long limit = bytesPerSecond;
+        if (limit <= 0) {
+            out.write(data);
+            return;
+        }
+
+        // write in slices of about 50ms each to approximate a steady rate
+        int sliceSize = (int) Math.max(1, limit / 20);
+        for (int offset = 0; offset < data.length; offset += sliceSize) {
+            int length = Math.min(sliceSize, data.length - offset);
+            Thread.sleep(length * 1000L / limit);
+            out.write(data, offset, length);
+            out.flush();
+        }
+    }
+
+    private Route findRoute(String path) {
+        for (Route route : routes) {
+            if (path.contains(route.pathFragment)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private void countRequest(String key) {
+        AtomicInteger count = requestCounts.get(key);
+        if (count == null) {
+            requestCounts.putIfAbsent(key, new AtomicInteger());
+            count = requestCounts.get(key);
+        }
+        count.incrementAndGet();
+    }
+
+    private static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int separator = line.indexOf(':');
+            if (separator > 0) {
+                headers.put(line.substring(0, separator).trim().toLowerCase(Locale.US), line.substring(separator + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private static void skipBody(InputStream in, Map<String, String> headers) throws IOException {
+        String contentLength = headers.get("content-length");
+        if (contentLength != null) {
+            skipFully(in, Long.parseLong(contentLength));
+        } else if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            long chunkSize;
+            do {
+                String sizeLine = readLine(in);
+                if (sizeLine == null) {
+                    throw new SocketException("Connection closed in chunked body");
+                }
+                int extension = sizeLine.indexOf(';');
+                chunkSize = Long.parseLong((extension >= 0) ? sizeLine.substring(0, extension) : sizeLine, 16);
+                skipFully(in, chunkSize);
+                // the line break after the chunk, or the end of the trailers after the last chunk
+                readLine(in);
+            } while (chunkSize > 0);
+        }
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new SocketException("Connection closed in request body");
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return new String(line.toByteArray(), UTF_8);
+    }
+
+    private static String getReasonPhrase(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 201:
+                return "Created";
+            case 404:
+                return "Not Found";
+            case HTTP_TOO_MANY_REQUESTS:
+                return "Too Many Requests";
+            case 500:
+                return "Internal Server Error";
+            default:
+                return "Unknown";
+        }
+    }
+}
@@ -9,6 +9,16 @@ import org.json.JSONObject;
 
 class VenmoApi {
 
+    static final GraphQLQuery CREATE_PAYMENT_CONTEXT_QUERY = new GraphQLQuery(
+            "CreateVenmoPaymentContext",
+            "mutation CreateVenmoPaymentContext($input: CreateVenmoPaymentContextInput!) { createVenmoPaymentContext(input: $input) { venmoPaymentContext { id } } }",
+            "d2519682433c714f461fdd101c34782c560b404b775ec3c98701d5153189c6f7");
+
+    static final GraphQLQuery PAYMENT_CONTEXT_QUERY = new GraphQLQuery(
+            "PaymentContext",
+            "query PaymentContext($id: ID!) { node(id: $id) { ... on VenmoPaymentContext { paymentMethodId userName payerInfo { firstName lastName phoneNumber email externalId userName } } } }",
+            "2280ff8398bb96e7f22a43c3212b1a877dae3dfac0a09f7f30e35e7d816d631c");
+
     private final BraintreeClient braintreeClient;
     private final ApiClient apiClient;
 
@@ -20,7 +30,6 @@ class VenmoApi {
     void createPaymentContext(@NonNull final VenmoRequest request, String venmoProfileId, final VenmoApiCallback callback) {
         JSONObject params = new JSONObject();
         try {
-            params.put("query", "mutation CreateVenmoPaymentContext($input: CreateVenmoPaymentContextInput!) { createVenmoPaymentContext(input: $input) { venmoPaymentContext { id } } }");
             JSONObject input = new JSONObject();
             input.put("paymentMethodUsage", request.getPaymentMethodUsageAsString());
             input.put("merchantProfileId", venmoProfileId);
@@ -36,7 +45,7 @@ class VenmoApi {
             callback.onResult(null, new BraintreeException("unexpected error"));
         }
 
-        braintreeClient.sendGraphQLPOST(params.toString(), new HttpResponseCallback() {
+        braintreeClient.sendGraphQLPOST(CREATE_PAYMENT_CONTEXT_QUERY, params, new HttpResponseCallback() {
 
             @Override
             public void onResult(String responseBody, Exception httpError) {
@@ -57,12 +66,11 @@ class VenmoApi {
     void createNonceFromPaymentContext(String paymentContextId, final VenmoOnActivityResultCallback callback) {
         JSONObject params = new JSONObject();
         try {
-            params.put("query", "query PaymentContext($id: ID!) { node(id: $id) { ... on VenmoPaymentContext { paymentMethodId userName payerInfo { firstName lastName phoneNumber email externalId userName } } } }");
             JSONObject variables = new JSONObject();
             variables.put("id", paymentContextId);
             params.put("variables", variables);
 
-            braintreeClient.sendGraphQLPOST(params.toString(), new HttpResponseCallback() {
+            braintreeClient.sendGraphQLPOST(PAYMENT_CONTEXT_QUERY, params, new HttpResponseCallback() {
 
                 @Override
                 public void onResult(String responseBody, Exception httpError) {
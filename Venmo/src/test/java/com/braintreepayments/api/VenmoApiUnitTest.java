@@ -17,6 +17,9 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
 @RunWith(RobolectricTestRunner.class)
 public class VenmoApiUnitTest {
 
@@ -40,13 +43,14 @@ public class VenmoApiUnitTest {
 
         venmoAPI.createPaymentContext(request, request.getProfileId(), mock(VenmoApiCallback.class));
 
-        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(braintreeClient).sendGraphQLPOST(captor.capture(), any(HttpResponseCallback.class));
+        ArgumentCaptor<GraphQLQuery> queryCaptor = ArgumentCaptor.forClass(GraphQLQuery.class);
+        ArgumentCaptor<JSONObject> captor = ArgumentCaptor.forClass(JSONObject.class);
+        verify(braintreeClient).sendGraphQLPOST(queryCaptor.capture(), captor.capture(), any(HttpResponseCallback.class));
 
-        String graphQLBody = captor.getValue();
-        JSONObject graphQLJSON = new JSONObject(graphQLBody);
+        JSONObject graphQLJSON = captor.getValue();
         String expectedQuery = "mutation CreateVenmoPaymentContext($input: CreateVenmoPaymentContextInput!) { createVenmoPaymentContext(input: $input) { venmoPaymentContext { id } } }";
-        assertEquals(expectedQuery, graphQLJSON.getString("query"));
+        assertEquals(expectedQuery, queryCaptor.getValue().getDocument());
+        assertEquals("CreateVenmoPaymentContext", queryCaptor.getValue().getOperationName());
 
         JSONObject variables = graphQLJSON.getJSONObject("variables");
         JSONObject input = variables.getJSONObject("input");
@@ -116,16 +120,23 @@ public class VenmoApiUnitTest {
         VenmoApi sut = new VenmoApi(braintreeClient, apiClient);
         sut.createNonceFromPaymentContext("payment-context-id", mock(VenmoOnActivityResultCallback.class));
 
-        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(braintreeClient).sendGraphQLPOST(captor.capture(), any(HttpResponseCallback.class));
+        ArgumentCaptor<GraphQLQuery> queryCaptor = ArgumentCaptor.forClass(GraphQLQuery.class);
+        ArgumentCaptor<JSONObject> captor = ArgumentCaptor.forClass(JSONObject.class);
+        verify(braintreeClient).sendGraphQLPOST(queryCaptor.capture(), captor.capture(), any(HttpResponseCallback.class));
 
-        String payload = captor.getValue();
-        JSONObject jsonPayload = new JSONObject(payload);
+        JSONObject jsonPayload = captor.getValue();
         String expectedQuery = "query PaymentContext($id: ID!) { node(id: $id) { ... on VenmoPaymentContext { paymentMethodId userName payerInfo { firstName lastName phoneNumber email externalId userName } } } }";
-        assertEquals(expectedQuery, jsonPayload.get("query"));
+        assertEquals(expectedQuery, queryCaptor.getValue().getDocument());
         assertEquals("payment-context-id", jsonPayload.getJSONObject("variables").get("id"));
     }
 
+    @Test
+    public void graphQLQueries_haveSha256HashOfDocument() throws NoSuchAlgorithmException {
+        for (GraphQLQuery query : Arrays.asList(VenmoApi.CREATE_PAYMENT_CONTEXT_QUERY, VenmoApi.PAYMENT_CONTEXT_QUERY)) {
+            assertEquals(GraphQLQuery.computeSha256Hash(query.getDocument()), query.getSha256Hash());
+        }
+    }
+
     @Test
     public void createNonceFromPaymentContext_whenGraphQLPostSuccess_forwardsNonceToCallback() throws JSONException {
         String graphQLResponse = Fixtures.VENMO_GRAPHQL_GET_PAYMENT_CONTEXT_RESPONSE;